@@ -3,6 +3,7 @@ package com.ripple.client;
 import com.ripple.client.enums.Command;
 import com.ripple.client.enums.Message;
 import com.ripple.client.enums.RPCErr;
+import com.ripple.client.metrics.ClientMetrics;
 import com.ripple.client.pubsub.Publisher;
 import com.ripple.client.requests.Request;
 import com.ripple.client.responses.Response;
@@ -10,11 +11,13 @@ import com.ripple.client.subscriptions.ServerInfo;
 import com.ripple.client.subscriptions.SubscriptionManager;
 import com.ripple.client.subscriptions.TrackedAccountRoot;
 import com.ripple.client.subscriptions.TransactionSubscriptionManager;
+import com.ripple.client.transactions.AccountTxBackfill;
 import com.ripple.client.transactions.AccountTxPager;
 import com.ripple.client.transactions.TransactionManager;
 import com.ripple.client.transport.TransportEventHandler;
 import com.ripple.client.transport.WebSocketTransport;
 import com.ripple.client.types.AccountLine;
+import com.ripple.client.types.LedgerDataPage;
 import com.ripple.core.coretypes.AccountID;
 import com.ripple.core.coretypes.Issue;
 import com.ripple.core.coretypes.STObject;
@@ -55,6 +58,9 @@ public class Client extends Publisher<Client.events> {
         @Override
         public void onMessage(final JSONObject msg) {
             resetReconnectStatus();
+            if (metrics != ClientMetrics.NONE) {
+                metrics.loopQueueDepth(loop.queueDepth());
+            }
             run(() -> onMessageInClientThread(msg));
         }
 
@@ -215,6 +221,8 @@ public class Client extends Publisher<Client.events> {
 
     // This is in charge of executing code in the `clientThread`
     private IClientLoop loop;
+    // Instrumentation hooks, see `metrics(ClientMetrics)`
+    private volatile ClientMetrics metrics = ClientMetrics.NONE;
 
     protected TreeMap<Integer, Request> requests = new TreeMap<>();
 
@@ -282,12 +290,21 @@ public class Client extends Publisher<Client.events> {
         return manuallyDisconnected;
     }
 
+    public ClientMetrics metrics() {
+        return metrics;
+    }
+
     // ### Setters
 
     public void reconnectDormantAfter(long reconnectDormantAfter) {
         this.reconnectDormantAfter = reconnectDormantAfter;
     }
 
+    public Client metrics(ClientMetrics metrics) {
+        this.metrics = metrics == null ? ClientMetrics.NONE : metrics;
+        return this;
+    }
+
     public Client transactionSubscriptionManager(TransactionSubscriptionManager transactionSubscriptionManager) {
         this.transactionSubscriptionManager = transactionSubscriptionManager;
         return this;
@@ -418,6 +435,7 @@ public class Client extends Publisher<Client.events> {
             }
         }
         for (Request request : timedOut) {
+            metrics.requestTimedOut(request.cmd);
             request.emit(Request.OnTimeout.class, request.response);
             requests.remove(request.id);
         }
@@ -471,13 +489,28 @@ public class Client extends Publisher<Client.events> {
     /* -------------------------------- EXECUTOR -------------------------------- */
 
     public void run(final Runnable runnable) {
-        loop.run(errorHandling(runnable));
+        loop.run(timed(errorHandling(runnable)));
     }
 
     public void schedule(long ms, Runnable runnable) {
         loop.schedule(ms, errorHandling(runnable));
     }
 
+    private Runnable timed(final Runnable runnable) {
+        if (metrics == ClientMetrics.NONE) {
+            return runnable;
+        }
+        final long queued = System.nanoTime();
+        return () -> {
+            long started = System.nanoTime();
+            try {
+                runnable.run();
+            } finally {
+                metrics.loopTask(started - queued, System.nanoTime() - started);
+            }
+        };
+    }
+
     private Runnable errorHandling(final Runnable runnable) {
         return () -> {
             try {
@@ -494,7 +527,7 @@ public class Client extends Publisher<Client.events> {
             log(Level.WARNING, "Exception {0}", e);
         }
         // onException could be called from various threads so call from the
-        // client loop thread, as Publisher is not thread safe.
+        // client loop thread, so handlers see events in client loop order.
         run(() -> emit(OnError.class, e));
     }
 
@@ -510,6 +543,7 @@ public class Client extends Publisher<Client.events> {
 
     private void onMessageInClientThread(JSONObject msg) {
         Message type = Message.valueOf(msg.optString("type", null));
+        metrics.messageReceived(type);
 
         try {
             emit(OnMessage.class, msg);
@@ -591,6 +625,9 @@ public class Client extends Publisher<Client.events> {
         resetReconnectStatus();
         connectionCount++;
         log(Level.INFO, "connection count {0}", connectionCount);
+        if (connectionCount > 1) {
+            metrics.reconnected(connectionCount);
+        }
 
         logger.entering(getClass().getName(), "doOnConnected");
         connected = true;
@@ -611,6 +648,11 @@ public class Client extends Publisher<Client.events> {
             log(Level.WARNING, "Response without a request: {0}", msg);
             return;
         }
+        if (request.sendTime != 0) {
+            metrics.requestCompleted(request.cmd,
+                    System.currentTimeMillis() - request.sendTime,
+                    "success".equals(msg.optString("status")));
+        }
         request.handleResponse(msg);
     }
 
@@ -863,6 +905,7 @@ public class Client extends Publisher<Client.events> {
                                 final Command cmd,
                                 final Manager<T> manager,
                                 final Request.Builder<T> builder) {
+        metrics.requestRetried(cmd);
         schedule(ms, () -> makeManagedRequest(cmd, manager, builder));
     }
 
@@ -879,6 +922,10 @@ public class Client extends Publisher<Client.events> {
         return new AccountTxPager(this, accountID, null);
     }
 
+    public AccountTxBackfill accountTxBackfill(AccountID accountID, long ledgerMin, long ledgerMax) {
+        return new AccountTxBackfill(Collections.singletonList(this), accountID, ledgerMin, ledgerMax);
+    }
+
     public void requestLedgerEntry(final Hash256 index, final Number ledger_index, final Manager<LedgerEntry> cb) {
         makeManagedRequest(Command.ledger_entry, cb, new Request.Builder<LedgerEntry>() {
             @Override
@@ -931,15 +978,36 @@ public class Client extends Publisher<Client.events> {
 
             @Override
             public ArrayList<LedgerEntry> buildTypedResponse(Response response) {
-                JSONArray state = response.result.getJSONArray("state");
-                ArrayList<LedgerEntry> result = new ArrayList<>();
-                for (int i = 0; i < state.length(); i++) {
-                    JSONObject stateObject = state.getJSONObject(i);
-                    LedgerEntry le = (LedgerEntry) STObject.fromHex(stateObject.getString("data"));
-                    le.index(Hash256.fromHex(stateObject.getString("index")));
-                    result.add(le);
+                return LedgerDataPage.fromJSON(response.result).entries;
+            }
+        });
+    }
+
+    /**
+     * @param marker the {@link LedgerDataPage#marker} of the previous page, or
+     *               null for the first page
+     * @param limit  the max number of entries, or -1 for the server default
+     */
+    public void requestLedgerDataPage(final Number ledger_index,
+                                      final Object marker,
+                                      final int limit,
+                                      final Manager<LedgerDataPage> manager) {
+        makeManagedRequest(Command.ledger_data, manager, new Request.Builder<LedgerDataPage>() {
+            @Override
+            public void beforeRequest(Request request) {
+                request.json("ledger_index", ledgerIndex(ledger_index));
+                request.json("binary", true);
+                if (marker != null) {
+                    request.json("marker", marker);
                 }
-                return result;
+                if (limit != -1) {
+                    request.json("limit", limit);
+                }
+            }
+
+            @Override
+            public LedgerDataPage buildTypedResponse(Response response) {
+                return LedgerDataPage.fromJSON(response.result);
             }
         });
     }
@@ -15,6 +15,13 @@ public interface IClientLoop {
 
     void schedule(long ms, Runnable runnable);
 
+    /**
+     * @return the number of tasks waiting to run, where known, otherwise 0
+     */
+    default int queueDepth() {
+        return 0;
+    }
+
     void start(String clientName);
     void stop();
 }
@@ -2,7 +2,6 @@ package com.ripple.client;
 
 import java.util.List;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -10,7 +9,7 @@ public class ScheduledExecutorServiceLoop implements IClientLoop {
     ScheduledExecutorServiceLoop() {}
     private String clientName;
     private Thread clientThread;
-    private ScheduledExecutorService service;
+    private ScheduledThreadPoolExecutor service;
 
     public boolean runningOnClientThread() {
         return clientThread != null && Thread.currentThread().getId() ==
@@ -59,6 +58,11 @@ public class ScheduledExecutorServiceLoop implements IClientLoop {
         service.schedule(runnable, ms, TimeUnit.MILLISECONDS);
     }
 
+    @Override
+    public int queueDepth() {
+        return service == null ? 0 : service.getQueue().size();
+    }
+
     @Override
     public void start(String clientName) {
         this.clientName = clientName;
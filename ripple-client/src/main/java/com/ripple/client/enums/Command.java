@@ -11,6 +11,7 @@ public enum Command {
     connect,
     consensus_info,
     feature,
+    fee,
     fetch_info,
     get_counts,
     internal,
@@ -0,0 +1,52 @@
+package com.ripple.client.metrics;
+
+import com.ripple.client.enums.Command;
+import com.ripple.client.enums.Message;
+
+/**
+ * Hooks for instrumenting a {@link com.ripple.client.Client}.
+ *
+ * Every method has a no-op default, so an implementation need only override
+ * what it cares about, and can forward to whatever metrics library is in use
+ * without this library depending on it.
+ *
+ * Methods are called from the client loop thread unless otherwise noted, and
+ * should return quickly.
+ */
+public interface ClientMetrics {
+    ClientMetrics NONE = new ClientMetrics() {};
+
+    /**
+     * @param latencyMs from the request being sent until the response arrived
+     */
+    default void requestCompleted(Command cmd, long latencyMs, boolean succeeded) {}
+    default void requestTimedOut(Command cmd) {}
+    /**
+     * A managed request is being sent again, after a timeout, disconnect, or
+     * an unsuccessful response.
+     */
+    default void requestRetried(Command cmd) {}
+
+    default void messageReceived(Message type) {}
+
+    /**
+     * Called from the transport thread as each message is queued for the
+     * client loop.
+     */
+    default void loopQueueDepth(int depth) {}
+    /**
+     * @param delayNanos time a task spent queued before starting
+     * @param runNanos time the task took to run
+     */
+    default void loopTask(long delayNanos, long runNanos) {}
+
+    default void reconnected(long connectionCount) {}
+
+    default void transactionSubmitted() {}
+    /**
+     * @param latencyMs from the first submission of the transaction until it
+     *                  was seen in a validated ledger
+     * @param submissions how many times it was (re)submitted
+     */
+    default void transactionValidated(long latencyMs, int submissions) {}
+}
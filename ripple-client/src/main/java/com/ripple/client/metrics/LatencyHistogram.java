@@ -0,0 +1,65 @@
+package com.ripple.client.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free histogram with power of two buckets, good enough for finding
+ * which order of magnitude a latency percentile falls in.
+ *
+ * Bucket `i` counts values in [2^(i-1), 2^i), with bucket 0 holding zero.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 64;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(value));
+        count.increment();
+        sum.add(value);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public double mean() {
+        long n = count();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @param percentile in the range (0, 100]
+     * @return the upper bound of the bucket the percentile falls in
+     */
+    public long percentile(double percentile) {
+        long n = count();
+        if (n == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(n * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return i == 0 ? 0 : (1L << i) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram{" +
+                "count=" + count() +
+                ", mean=" + mean() +
+                ", p50<=" + percentile(50) +
+                ", p99<=" + percentile(99) +
+                '}';
+    }
+}
@@ -0,0 +1,123 @@
+package com.ripple.client.metrics;
+
+import com.ripple.client.enums.Command;
+import com.ripple.client.enums.Message;
+
+import java.util.EnumMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in memory {@link ClientMetrics}, for when pulling in a metrics library
+ * isn't warranted. Latencies are in milliseconds, loop timings in
+ * microseconds.
+ */
+public class SimpleClientMetrics implements ClientMetrics {
+    private final EnumMap<Command, LatencyHistogram> requestLatency = new EnumMap<>(Command.class);
+    private final EnumMap<Command, LongAdder> requestFailures = new EnumMap<>(Command.class);
+    private final EnumMap<Command, LongAdder> requestTimeouts = new EnumMap<>(Command.class);
+    private final EnumMap<Command, LongAdder> requestRetries = new EnumMap<>(Command.class);
+    private final EnumMap<Message, LongAdder> messages = new EnumMap<>(Message.class);
+
+    public final LatencyHistogram loopTaskDelay = new LatencyHistogram();
+    public final LatencyHistogram loopTaskRun = new LatencyHistogram();
+    public final LatencyHistogram loopQueueDepth = new LatencyHistogram();
+    public final LatencyHistogram submissionToValidation = new LatencyHistogram();
+    public final LatencyHistogram submissionsPerTransaction = new LatencyHistogram();
+    public final LongAdder transactionsSubmitted = new LongAdder();
+    public final AtomicInteger reconnects = new AtomicInteger();
+    private final long started = System.currentTimeMillis();
+
+    public SimpleClientMetrics() {
+        // All entries are created up front so the maps are only ever read
+        // after construction, and so safe to share across threads.
+        for (Command cmd : Command.values()) {
+            requestLatency.put(cmd, new LatencyHistogram());
+            requestFailures.put(cmd, new LongAdder());
+            requestTimeouts.put(cmd, new LongAdder());
+            requestRetries.put(cmd, new LongAdder());
+        }
+        for (Message type : Message.values()) {
+            messages.put(type, new LongAdder());
+        }
+    }
+
+    public LatencyHistogram requestLatency(Command cmd) {
+        return requestLatency.get(cmd);
+    }
+
+    public long requestFailures(Command cmd) {
+        return requestFailures.get(cmd).sum();
+    }
+
+    public long requestTimeouts(Command cmd) {
+        return requestTimeouts.get(cmd).sum();
+    }
+
+    public long requestRetries(Command cmd) {
+        return requestRetries.get(cmd).sum();
+    }
+
+    public long messagesReceived(Message type) {
+        return messages.get(type).sum();
+    }
+
+    /**
+     * @return the mean number of messages of `type` received per second
+     *         since this was created
+     */
+    public double messageRate(Message type) {
+        long elapsed = Math.max(1, System.currentTimeMillis() - started);
+        return messagesReceived(type) * 1000.0 / elapsed;
+    }
+
+    @Override
+    public void requestCompleted(Command cmd, long latencyMs, boolean succeeded) {
+        requestLatency.get(cmd).record(latencyMs);
+        if (!succeeded) {
+            requestFailures.get(cmd).increment();
+        }
+    }
+
+    @Override
+    public void requestTimedOut(Command cmd) {
+        requestTimeouts.get(cmd).increment();
+    }
+
+    @Override
+    public void requestRetried(Command cmd) {
+        requestRetries.get(cmd).increment();
+    }
+
+    @Override
+    public void messageReceived(Message type) {
+        messages.get(type).increment();
+    }
+
+    @Override
+    public void loopQueueDepth(int depth) {
+        loopQueueDepth.record(depth);
+    }
+
+    @Override
+    public void loopTask(long delayNanos, long runNanos) {
+        loopTaskDelay.record(delayNanos / 1000);
+        loopTaskRun.record(runNanos / 1000);
+    }
+
+    @Override
+    public void reconnected(long connectionCount) {
+        reconnects.incrementAndGet();
+    }
+
+    @Override
+    public void transactionSubmitted() {
+        transactionsSubmitted.increment();
+    }
+
+    @Override
+    public void transactionValidated(long latencyMs, int submissions) {
+        submissionToValidation.record(latencyMs);
+        submissionsPerTransaction.record(submissions);
+    }
+}
@@ -0,0 +1,22 @@
+package com.ripple.client.metrics;
+
+/**
+ * Hooks for instrumenting {@link com.ripple.client.streams.EventPublisher}s,
+ * with no-op defaults as for {@link ClientMetrics}.
+ *
+ * Called from the publishing thread, except for {@link #itemDelivered},
+ * which is called from the thread delivering to the subscriber.
+ */
+public interface StreamMetrics {
+    StreamMetrics NONE = new StreamMetrics() {};
+
+    /**
+     * @param lag the items buffered for the subscriber, including this one
+     */
+    default void itemBuffered(String stream, int lag) {}
+    default void itemDropped(String stream) {}
+    /**
+     * @param delayNanos time the item spent buffered
+     */
+    default void itemDelivered(String stream, long delayNanos) {}
+}
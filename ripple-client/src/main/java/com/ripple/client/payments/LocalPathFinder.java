@@ -0,0 +1,541 @@
+package com.ripple.client.payments;
+
+import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.coretypes.Amount;
+import com.ripple.core.coretypes.Currency;
+import com.ripple.core.coretypes.Issue;
+import com.ripple.core.coretypes.PathSet;
+import com.ripple.core.coretypes.hash.Hash256;
+import com.ripple.core.coretypes.hash.Index;
+import com.ripple.core.types.known.sle.LedgerEntry;
+import com.ripple.core.types.known.sle.entries.AccountRoot;
+import com.ripple.core.types.known.sle.entries.Offer;
+import com.ripple.core.types.known.sle.entries.RippleState;
+import com.ripple.core.types.known.tx.result.AffectedNode;
+import com.ripple.core.types.known.tx.result.TransactionResult;
+import com.ripple.core.types.shamap.AccountState;
+import com.ripple.core.types.shamap.OfferCrossing;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Finds payment paths in process, from an AccountState, rather than with
+ * path_find requests, giving Alternatives as PaymentFlow does.
+ *
+ * Two kinds of paths are found:
+ *
+ *   - rippling in the destination currency, through up to
+ *     {@link #maxIntermediaries(int)} accounts, filling from the cheapest
+ *     paths (by the transfer rates of the intermediaries) while the trust
+ *     lines have capacity
+ *   - a single order book, from XRP or an issue the source holds, to the
+ *     destination currency issued by the destination or an issuer it
+ *     trusts, costed by {@link OfferCrossing}
+ *
+ * There's no auto bridging through XRP, NoRipple and freeze flags aren't
+ * looked at, and a direct XRP payment isn't included (PaymentFlow adds
+ * it), so results are candidates to submit, rather than guarantees.
+ *
+ * The trust line graph and the set of books with offers are indexed when
+ * constructed, and kept up to date with
+ * {@link #updateFromTransactionResult(TransactionResult)}, which must be
+ * called once each transaction has been applied to the AccountState (eg.
+ * by an AccountStateBuilder). Results are cached by source, destination
+ * and currency, and invalidated when the transaction touches any entry
+ * they were computed from, or lines or books are created or removed.
+ */
+public class LocalPathFinder {
+    private static final MathContext MATH_CONTEXT = MathContext.DECIMAL128;
+    // rippled's limits for a Paths field
+    private static final int MAX_PATHS = 6;
+    private static final int MAX_ROUTES = 64;
+
+    private static class Line {
+        final AccountID counterparty;
+        final Currency currency;
+
+        Line(AccountID counterparty, Currency currency) {
+            this.counterparty = counterparty;
+            this.currency = currency;
+        }
+    }
+
+    private static class Key {
+        final AccountID source, destination;
+        final String currency;
+
+        Key(AccountID source, AccountID destination, Currency currency) {
+            this.source = source;
+            this.destination = destination;
+            // Currency's equals is looser than its hashCode
+            this.currency = currency.toHex();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return source.equals(other.source) &&
+                    destination.equals(other.destination) &&
+                    currency.equals(other.currency);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, destination, currency);
+        }
+    }
+
+    private static class Cached {
+        // By the destination amount, issuer and value
+        final Map<String, List<Alternative>> results = new HashMap<>();
+        final Set<Hash256> dependencies = new HashSet<>();
+    }
+
+    private final AccountState state;
+    private int maxIntermediaries = 3;
+
+    // The trust lines of each account, by RippleState index
+    private final Map<AccountID, Map<Hash256, Line>> lines = new HashMap<>();
+    // The number of offers in each book, by book base
+    private final Map<Hash256, Integer> books = new HashMap<>();
+
+    private final Map<Key, Cached> cache = new HashMap<>();
+    private final Map<Hash256, Set<Key>> dependents = new HashMap<>();
+
+    public LocalPathFinder(AccountState state) {
+        this.state = state;
+        state.walkEntries(le -> {
+            if (le instanceof RippleState) {
+                addLine((RippleState) le, le.index());
+            } else if (le instanceof Offer) {
+                countOffer((Offer) le, 1);
+            }
+        });
+    }
+
+    /**
+     * @param maxIntermediaries the most accounts to ripple through, 3 by
+     *                          default
+     */
+    public synchronized LocalPathFinder maxIntermediaries(int maxIntermediaries) {
+        this.maxIntermediaries = maxIntermediaries;
+        cache.clear();
+        dependents.clear();
+        return this;
+    }
+
+    private void addLine(RippleState line, Hash256 index) {
+        AccountID low = line.lowAccount(), high = line.highAccount();
+        Currency currency = line.currency();
+        lines.computeIfAbsent(low, a -> new HashMap<>()).put(index, new Line(high, currency));
+        lines.computeIfAbsent(high, a -> new HashMap<>()).put(index, new Line(low, currency));
+    }
+
+    private void removeLine(RippleState line, Hash256 index) {
+        for (AccountID account : new AccountID[]{line.lowAccount(), line.highAccount()}) {
+            Map<Hash256, Line> byIndex = lines.get(account);
+            if (byIndex != null) {
+                byIndex.remove(index);
+                if (byIndex.isEmpty()) {
+                    lines.remove(account);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether the book gained its first, or lost its last, offer
+     */
+    private boolean countOffer(Offer offer, int delta) {
+        Hash256 book = Index.bookStart(offer.bookDirectory());
+        int before = books.getOrDefault(book, 0), after = Math.max(0, before + delta);
+        if (after == 0) {
+            books.remove(book);
+        } else {
+            books.put(book, after);
+        }
+        return (before == 0) != (after == 0);
+    }
+
+    public synchronized void updateFromTransactionResult(TransactionResult tr) {
+        boolean topologyChanged = false;
+        Set<Hash256> touched = new HashSet<>();
+
+        for (AffectedNode an : tr.meta.affectedNodes()) {
+            Hash256 index = an.ledgerIndex();
+            touched.add(index);
+            boolean created = an.isCreatedNode(), deleted = an.isDeletedNode();
+
+            if (an.isRippleState() && (created || deleted)) {
+                RippleState line = (RippleState) an.finalView();
+                if (created) {
+                    addLine(line, index);
+                } else {
+                    removeLine(line, index);
+                }
+                topologyChanged = true;
+            } else if (an.isOffer()) {
+                Offer offer = (Offer) an.finalView();
+                touched.add(Index.bookStart(offer.bookDirectory()));
+                if (created || deleted) {
+                    topologyChanged |= countOffer(offer, created ? 1 : -1);
+                }
+            }
+        }
+
+        if (topologyChanged) {
+            // New lines or books may open paths for anyone
+            cache.clear();
+            dependents.clear();
+        } else {
+            for (Hash256 index : touched) {
+                Set<Key> keys = dependents.remove(index);
+                if (keys != null) {
+                    keys.forEach(cache::remove);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param deliver the amount for the destination to receive, issued by
+     *                the destination to accept any issuer it trusts
+     * @return the ways to pay, possibly none, each with the source amount
+     *         needed, to be used as SendMax with some slippage
+     */
+    public synchronized Alternatives find(AccountID source, AccountID destination,
+                                          Amount deliver) {
+        Key key = new Key(source, destination, deliver.currency());
+        Cached cached = cache.get(key);
+        if (cached == null) {
+            cached = new Cached();
+            cache.put(key, cached);
+        }
+        String amountKey = deliver.issuer() + ":" +
+                deliver.value().stripTrailingZeros().toPlainString();
+        List<Alternative> found = cached.results.get(amountKey);
+        if (found == null) {
+            Set<Hash256> dependencies = new HashSet<>();
+            found = compute(source, destination, deliver, dependencies);
+            cached.results.put(amountKey, found);
+            cached.dependencies.addAll(dependencies);
+            for (Hash256 index : dependencies) {
+                dependents.computeIfAbsent(index, i -> new HashSet<>()).add(key);
+            }
+        }
+
+        Alternatives alternatives = new Alternatives();
+        for (Alternative alternative : found) {
+            alternatives.addRecyclingPrior(alternative, null);
+        }
+        return alternatives;
+    }
+
+    /**
+     * @return the number of (source, destination, currency) triples with
+     *         cached results
+     */
+    public synchronized int cacheSize() {
+        return cache.size();
+    }
+
+    private List<Alternative> compute(AccountID source, AccountID destination,
+                                      Amount deliver, Set<Hash256> dependencies) {
+        // By source currency, keeping the cheapest
+        LinkedHashMap<String, Alternative> bySource = new LinkedHashMap<>();
+        if (!deliver.isNative()) {
+            Alternative rippling = ripple(source, destination, deliver, dependencies);
+            if (rippling != null) {
+                bySource.put(rippling.sourceAmount.currency().toHex(), rippling);
+            }
+        }
+        for (Issue target : targets(destination, deliver, dependencies)) {
+            for (Issue from : sources(source, dependencies)) {
+                if (from.sameIssue(target)) {
+                    continue;
+                }
+                Alternative viaBook = viaBook(source, destination, from,
+                                              target.amount(deliver.value()),
+                                              dependencies);
+                if (viaBook == null) {
+                    continue;
+                }
+                String currency = viaBook.sourceAmount.currency().toHex();
+                Alternative existing = bySource.get(currency);
+                if (existing == null ||
+                        viaBook.sourceAmount.compareTo(existing.sourceAmount) < 0) {
+                    bySource.put(currency, viaBook);
+                }
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<>(bySource.values()));
+    }
+
+    /**
+     * @return the issues the destination can receive: the one asked for, or
+     *         if issued by the destination, its own and those of the
+     *         issuers it trusts with enough capacity
+     */
+    private List<Issue> targets(AccountID destination, Amount deliver,
+                                Set<Hash256> dependencies) {
+        List<Issue> targets = new ArrayList<>();
+        if (deliver.isNative()) {
+            targets.add(Issue.XRP);
+            return targets;
+        }
+        if (!deliver.issuer().equals(destination)) {
+            targets.add(deliver.issue());
+            return targets;
+        }
+        targets.add(deliver.issue());
+        for (Map.Entry<Hash256, Line> entry : linesOf(destination).entrySet()) {
+            Line line = entry.getValue();
+            if (!line.currency.equals(deliver.currency())) {
+                continue;
+            }
+            dependencies.add(entry.getKey());
+            if (capacity(line.counterparty, destination, entry.getKey())
+                    .compareTo(deliver.value()) >= 0) {
+                targets.add(Issue.of(deliver.currency(), line.counterparty));
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * @return XRP, and the issues the source holds
+     */
+    private List<Issue> sources(AccountID source, Set<Hash256> dependencies) {
+        List<Issue> sources = new ArrayList<>();
+        sources.add(Issue.XRP);
+        dependencies.add(Index.accountRoot(source));
+        for (Map.Entry<Hash256, Line> entry : linesOf(source).entrySet()) {
+            Line line = entry.getValue();
+            dependencies.add(entry.getKey());
+            if (holding(source, entry.getKey()).signum() > 0) {
+                sources.add(Issue.of(line.currency, line.counterparty));
+            }
+        }
+        return sources;
+    }
+
+    private Alternative viaBook(AccountID source, AccountID destination,
+                                Issue from, Amount deliver,
+                                Set<Hash256> dependencies) {
+        Hash256 book = Index.bookStart(from, deliver.issue());
+        dependencies.add(book);
+        if (!books.containsKey(book)) {
+            return null;
+        }
+        Amount funds;
+        if (from.isNative()) {
+            LedgerEntry le = state.getLE(Index.accountRoot(source));
+            if (!(le instanceof AccountRoot)) {
+                return null;
+            }
+            funds = ((AccountRoot) le).balance();
+        } else {
+            funds = from.amount(holding(source, Index.rippleState(source, from.issuer(),
+                                                                  from.currency())));
+        }
+        OfferCrossing.Result result = new OfferCrossing(state)
+                .payment(source, destination, deliver, funds);
+        for (OfferCrossing.Fill fill : result.fills) {
+            dependencies.add(Index.accountRoot(fill.owner));
+            if (!deliver.isNative()) {
+                dependencies.add(Index.rippleState(fill.owner, deliver.issuer(),
+                                                   deliver.currency()));
+            }
+        }
+        if (!result.complete()) {
+            return null;
+        }
+
+        PathSet.Path path = new PathSet.Path();
+        PathSet.Hop hop = new PathSet.Hop();
+        hop.currency = deliver.currency();
+        if (!deliver.isNative()) {
+            hop.issuer = deliver.issuer();
+        }
+        path.add(hop);
+        PathSet paths = new PathSet();
+        paths.add(path);
+        return new Alternative(paths, result.paid);
+    }
+
+    /**
+     * A route from the source to the destination, through intermediaries,
+     * as the trust lines taken and the accounts at either end of them
+     */
+    private static class Route {
+        final List<AccountID> accounts;
+        final List<Hash256> lines;
+        // The product of the intermediaries' transfer rates
+        final BigDecimal rate;
+
+        Route(List<AccountID> accounts, List<Hash256> lines, BigDecimal rate) {
+            this.accounts = accounts;
+            this.lines = lines;
+            this.rate = rate;
+        }
+    }
+
+    private Alternative ripple(AccountID source, AccountID destination, Amount deliver,
+                               Set<Hash256> dependencies) {
+        List<Route> routes = new ArrayList<>();
+        List<AccountID> accounts = new ArrayList<>();
+        accounts.add(source);
+        findRoutes(accounts, new ArrayList<>(), destination, deliver.currency(),
+                   routes, dependencies);
+        routes.sort((a, b) -> {
+            int cmp = a.rate.compareTo(b.rate);
+            return cmp != 0 ? cmp : Integer.compare(a.lines.size(), b.lines.size());
+        });
+
+        // Fill from the cheapest routes, sharing the lines' capacity
+        Map<String, BigDecimal> used = new HashMap<>();
+        BigDecimal remaining = deliver.value(), sourceAmount = BigDecimal.ZERO;
+        PathSet paths = new PathSet();
+        for (Route route : routes) {
+            if (remaining.signum() <= 0) {
+                break;
+            }
+            int edges = route.lines.size();
+            // What each edge carries per unit delivered
+            BigDecimal[] carried = new BigDecimal[edges];
+            BigDecimal factor = BigDecimal.ONE;
+            for (int i = edges - 1; i >= 0; i--) {
+                carried[i] = factor;
+                if (i > 0) {
+                    factor = factor.multiply(state.transferRate(route.accounts.get(i)), MATH_CONTEXT);
+                }
+            }
+            BigDecimal take = remaining;
+            for (int i = 0; i < edges; i++) {
+                BigDecimal available = capacity(route.accounts.get(i), route.accounts.get(i + 1),
+                                                route.lines.get(i))
+                        .subtract(used.getOrDefault(edgeKey(route, i), BigDecimal.ZERO));
+                take = take.min(available.divide(carried[i], MATH_CONTEXT));
+            }
+            if (take.signum() <= 0) {
+                continue;
+            }
+            if (edges > 1 && paths.size() == MAX_PATHS) {
+                continue;
+            }
+            for (int i = 0; i < edges; i++) {
+                used.merge(edgeKey(route, i), take.multiply(carried[i], MATH_CONTEXT),
+                           BigDecimal::add);
+            }
+            remaining = remaining.subtract(take);
+            sourceAmount = sourceAmount.add(take.multiply(route.rate, MATH_CONTEXT));
+            if (edges > 1) {
+                paths.add(path(route));
+            }
+        }
+        if (remaining.signum() > 0) {
+            return null;
+        }
+        Amount amount = Issue.of(deliver.currency(), source).roundedAmount(sourceAmount);
+        return new Alternative(paths, amount);
+    }
+
+    private static String edgeKey(Route route, int i) {
+        return route.lines.get(i).toHex() + route.accounts.get(i).address();
+    }
+
+    private static PathSet.Path path(Route route) {
+        PathSet.Path path = new PathSet.Path();
+        for (AccountID account : route.accounts.subList(1, route.accounts.size() - 1)) {
+            PathSet.Hop hop = new PathSet.Hop();
+            hop.account = account;
+            path.add(hop);
+        }
+        return path;
+    }
+
+    private void findRoutes(List<AccountID> accounts, List<Hash256> taken,
+                            AccountID destination, Currency currency,
+                            List<Route> routes, Set<Hash256> dependencies) {
+        AccountID from = accounts.get(accounts.size() - 1);
+        for (Map.Entry<Hash256, Line> entry : linesOf(from).entrySet()) {
+            if (routes.size() >= MAX_ROUTES) {
+                return;
+            }
+            Line line = entry.getValue();
+            AccountID to = line.counterparty;
+            if (!line.currency.equals(currency) || accounts.contains(to)) {
+                continue;
+            }
+            dependencies.add(entry.getKey());
+            if (capacity(from, to, entry.getKey()).signum() <= 0) {
+                continue;
+            }
+            accounts.add(to);
+            taken.add(entry.getKey());
+            if (to.equals(destination)) {
+                routes.add(new Route(new ArrayList<>(accounts), new ArrayList<>(taken),
+                                     rate(accounts, dependencies)));
+            } else if (accounts.size() - 1 <= maxIntermediaries) {
+                findRoutes(accounts, taken, destination, currency, routes, dependencies);
+            }
+            accounts.remove(accounts.size() - 1);
+            taken.remove(taken.size() - 1);
+        }
+    }
+
+    private BigDecimal rate(List<AccountID> accounts, Set<Hash256> dependencies) {
+        BigDecimal rate = BigDecimal.ONE;
+        for (AccountID intermediary : accounts.subList(1, accounts.size() - 1)) {
+            dependencies.add(Index.accountRoot(intermediary));
+            rate = rate.multiply(state.transferRate(intermediary), MATH_CONTEXT);
+        }
+        return rate;
+    }
+
+    private Map<Hash256, Line> linesOf(AccountID account) {
+        Map<Hash256, Line> byIndex = lines.get(account);
+        return byIndex == null ? Collections.emptyMap() : byIndex;
+    }
+
+    /**
+     * @return how much of the counterparty's issue the account holds, negative
+     *         if it's the counterparty that holds the account's
+     */
+    private BigDecimal holding(AccountID account, Hash256 index) {
+        LedgerEntry le = state.getLE(index);
+        if (!(le instanceof RippleState)) {
+            return BigDecimal.ZERO;
+        }
+        RippleState line = (RippleState) le;
+        BigDecimal balance = line.balance().value();
+        return line.lowAccount().equals(account) ? balance : balance.negate();
+    }
+
+    /**
+     * @return how much `from` can pay `to` over the line: what it holds of
+     *         `to`'s issue, and then as much of its own as `to` trusts it for
+     */
+    private BigDecimal capacity(AccountID from, AccountID to, Hash256 index) {
+        LedgerEntry le = state.getLE(index);
+        if (!(le instanceof RippleState)) {
+            return BigDecimal.ZERO;
+        }
+        RippleState line = (RippleState) le;
+        Amount toLimit = line.lowAccount().equals(to) ? line.lowLimit() : line.highLimit();
+        return holding(from, index).add(toLimit.value()).max(BigDecimal.ZERO);
+    }
+}
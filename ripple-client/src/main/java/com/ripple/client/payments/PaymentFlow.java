@@ -100,6 +100,19 @@ public class PaymentFlow extends Publisher<PaymentFlow.events> {
 
     // We store these guys here so we can know if they have become stale
     Request pathFind;
+    // When set, used instead of path_find requests
+    LocalPathFinder pathFinder;
+
+    /**
+     * Finds alternatives with the given LocalPathFinder, rather than with
+     * path_find requests. Call {@link #makePathFindRequestIfCan()} to
+     * refresh them, eg. after each ledger.
+     */
+    public PaymentFlow pathFinder(LocalPathFinder pathFinder) {
+        this.pathFinder = pathFinder;
+        makePathFindRequestIfCan();
+        return this;
+    }
 
     // TODO, do from cache ;)
     public Request requestAccountInfo(final AccountID id) {
@@ -174,6 +187,12 @@ public class PaymentFlow extends Publisher<PaymentFlow.events> {
             destinationAmount = new Amount(destAmountValue, destAmountCurrency, dest);
         }
 
+        if (pathFinder != null) {
+            Alternatives alts = pathFinder.find(src, dest, destinationAmount);
+            emit(OnAlternatives.class, withNativeAlternative(alts, null));
+            return;
+        }
+
         if (destinationAmount.isNative()) {
             // TODO, check if destination has no XRP flag set ;)
             Alternatives alts = constructInitialAlternatives();
@@ -222,7 +241,10 @@ public class PaymentFlow extends Publisher<PaymentFlow.events> {
         } else {
             alts = new Alternatives(alternatives, prior);
         }
+        return withNativeAlternative(alts, prior);
+    }
 
+    private Alternatives withNativeAlternative(Alternatives alts, Alternatives prior) {
         if (destinationAmount.isNative() && !src.equals(dest) && srcCanSendNative(destinationAmount)) {
             injectNativeAlternative(alts, prior);
         }
@@ -295,6 +317,9 @@ public class PaymentFlow extends Publisher<PaymentFlow.events> {
     }
 
     private void requestPathFindClose() {
+        if (pathFinder != null) {
+            return;
+        }
         Request request = client.newRequest(Command.path_find);
         request.json("subcommand", "close");
         request.request();
@@ -1,5 +1,7 @@
 package com.ripple.client.pubsub;
 
+import java.util.concurrent.Executor;
+
 public abstract class CallbackContext {
     public void execute(Runnable runnable) {
         runnable.run();
@@ -14,4 +16,17 @@ public abstract class CallbackContext {
     public boolean shouldRemove() {
         return false;
     }
+
+    /**
+     * @return a context that hands callbacks off to the `executor` rather
+     *         than running them on the emitting thread.
+     */
+    public static CallbackContext async(final Executor executor) {
+        return new CallbackContext() {
+            @Override
+            public void execute(Runnable runnable) {
+                executor.execute(runnable);
+            }
+        };
+    }
 }
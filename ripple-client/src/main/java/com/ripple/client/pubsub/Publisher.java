@@ -1,19 +1,25 @@
 package com.ripple.client.pubsub;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.logging.Level;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 /**
- * This API is currently not thread safe.
+ * Registration, removal and emission are safe to call from any thread.
+ *
+ * Each event key holds an immutable snapshot array of callbacks, which is
+ * replaced (copy on write) only when a listener is added or removed, so
+ * emitting never copies or locks. Fired `once` callbacks are flagged as
+ * spent in O(1) and physically dropped from the snapshot in batches.
+ *
+ * Callbacks are still run on the emitting thread, unless the
+ * {@link CallbackContext} they were registered with dispatches elsewhere,
+ * e.g. {@link CallbackContext#async(java.util.concurrent.Executor)}.
  */
 public class Publisher<CompatHack extends Publisher.Callback> {
     static final Logger logger = Logger.getLogger(Publisher.class.getName());
-    private void log(Level level, String message, Object... params) {
-        logger.log(level, message, params);
-    }
 
     public interface Callback<T> {
         void called(T args);
@@ -40,39 +46,11 @@ public class Publisher<CompatHack extends Publisher.Callback> {
     }
 
     public <A, T extends Callback<A>> int emit(Class<T> key, A args) {
-        if (logger.isLoggable(Level.FINE)) {
-            log(Level.FINE, "Emitting {0} from thread: {1}", key.getSimpleName(), Thread.currentThread());
-        }
-
-        int executed = 0;
-        CallbackList callbacks = (cbs.get(key));
-
-        if (callbacks != null) {
-            CallbackList copy = new CallbackList(callbacks);
-
-            for (ContextedCallback pair : copy) {
-                boolean removed = false;
-
-                CallbackContext context = pair.context;
-                if (context == null) {
-                    execute(args, pair);
-                    executed++;
-                } else {
-                    if (context.shouldExecute()) {
-                        context.execute(pair.runnableWrappedCallback(args));
-                        executed++;
-                    } else if (context.shouldRemove()) {
-                        callbacks.remove(pair);
-                        removed = true;
-                    }
-                }
-                // we only want to call remove once
-                if (pair.oneShot && !removed) {
-                    callbacks.remove(pair);
-                }
-            }
+        CallbackList callbacks = cbs.get(key);
+        if (callbacks == null) {
+            return 0;
         }
-        return executed;
+        return callbacks.emit(args);
     }
 
     @SuppressWarnings("unchecked")
@@ -81,9 +59,11 @@ public class Publisher<CompatHack extends Publisher.Callback> {
     }
 
     private static class ContextedCallback {
-        CallbackContext context;
-        Callback callback;
-        boolean oneShot;
+        final CallbackContext context;
+        final Callback callback;
+        final boolean oneShot;
+        // Set once the callback has been removed, or a oneShot has fired
+        final AtomicBoolean removed = new AtomicBoolean();
 
         public ContextedCallback(Callback callback, CallbackContext context, boolean oneShot) {
             this.context = context;
@@ -91,53 +71,129 @@ public class Publisher<CompatHack extends Publisher.Callback> {
             this.oneShot = oneShot;
         }
 
+        boolean isRemoved() {
+            return removed.get();
+        }
+
+        /**
+         * @return true for exactly one caller, even when racing
+         */
+        boolean markRemoved() {
+            return removed.compareAndSet(false, true);
+        }
+
         public Runnable runnableWrappedCallback(final Object args) {
             return () -> execute(args, ContextedCallback.this);
         }
     }
 
-    private static class CallbackList extends ArrayList<ContextedCallback> {
-        public CallbackList() {}
-        public CallbackList(CallbackList callbacks) {
-            super(callbacks);
+    private static class CallbackList {
+        private static final ContextedCallback[] EMPTY = new ContextedCallback[0];
+        // Don't bother compacting until at least this many have been spent
+        private static final int MIN_SPENT_BEFORE_COMPACTING = 8;
+
+        private volatile ContextedCallback[] snapshot = EMPTY;
+        // Callbacks flagged as removed, but still present in `snapshot`
+        private final AtomicInteger spent = new AtomicInteger();
+
+        int emit(Object args) {
+            int executed = 0;
+
+            for (ContextedCallback pair : snapshot) {
+                if (pair.isRemoved()) {
+                    continue;
+                }
+                CallbackContext context = pair.context;
+                if (context != null && !context.shouldExecute()) {
+                    // we only want to call remove once
+                    if (context.shouldRemove() || pair.oneShot) {
+                        discard(pair);
+                    }
+                    continue;
+                }
+                if (pair.oneShot && !discard(pair)) {
+                    // Another thread got to fire it first
+                    continue;
+                }
+                if (context == null) {
+                    execute(args, pair);
+                } else {
+                    context.execute(pair.runnableWrappedCallback(args));
+                }
+                executed++;
+            }
+            return executed;
         }
 
-        public boolean remove(Callback t) {
-            Iterator<ContextedCallback> iter = iterator();
-            while (iter.hasNext()) {
-                ContextedCallback next = iter.next();
-                if (next.callback == t) {
-                    iter.remove();
+        synchronized void add(ContextedCallback cb) {
+            ContextedCallback[] current = compacted();
+            ContextedCallback[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = cb;
+            snapshot = next;
+        }
+
+        /**
+         * @return the number of callbacks removed
+         */
+        synchronized int clear() {
+            int n = 0;
+            for (ContextedCallback pair : snapshot) {
+                if (pair.markRemoved()) n++;
+            }
+            snapshot = EMPTY;
+            spent.set(0);
+            return n;
+        }
+
+        synchronized boolean remove(Callback cb) {
+            for (ContextedCallback pair : snapshot) {
+                if (pair.callback == cb && pair.markRemoved()) {
+                    snapshot = compacted();
                     return true;
                 }
             }
             return false;
         }
 
-        public void add(CallbackContext exec, Callback cb, boolean oneShot) {
-            add(new ContextedCallback(cb, exec, oneShot));
+        int size() {
+            int n = 0;
+            for (ContextedCallback pair : snapshot) {
+                if (!pair.isRemoved()) n++;
+            }
+            return n;
         }
-    }
 
-    private class DefaultCallbackListMap extends HashMap<Class<? extends Callback>, CallbackList> {
-        public CallbackList getDefault(Class<? extends Callback> key) {
-            CallbackList list = super.get(key);
-            if (list == null) {
-                CallbackList newList = new CallbackList();
-                put(key, newList);
-                return newList;
+        private boolean discard(ContextedCallback pair) {
+            if (!pair.markRemoved()) {
+                return false;
             }
-            return list;
+            int nSpent = spent.incrementAndGet();
+            if (nSpent >= MIN_SPENT_BEFORE_COMPACTING &&
+                    nSpent * 2 >= snapshot.length) {
+                synchronized (this) {
+                    snapshot = compacted();
+                }
+            }
+            return true;
         }
-    }
-
-    @SuppressWarnings("MismatchedQueryAndUpdateOfCollection")
-    private final DefaultCallbackListMap cbs = new DefaultCallbackListMap();
 
-    private CallbackList listFor(Class<? extends Callback> key) {
-        return cbs.getDefault(key);
+        private ContextedCallback[] compacted() {
+            ContextedCallback[] current = snapshot;
+            ContextedCallback[] live = new ContextedCallback[current.length];
+            int n = 0;
+            for (ContextedCallback pair : current) {
+                if (!pair.isRemoved()) {
+                    live[n++] = pair;
+                }
+            }
+            spent.set(0);
+            return n == 0 ? EMPTY : Arrays.copyOf(live, n);
+        }
     }
 
+    private final ConcurrentHashMap<Class<? extends Callback>, CallbackList> cbs =
+            new ConcurrentHashMap<>();
+
     private <A, T extends Callback<A>> void add(Class<T> key, Callback<A> cb) {
         add(key, null, cb, false);
     }
@@ -147,17 +203,33 @@ public class Publisher<CompatHack extends Publisher.Callback> {
     }
 
     private <A, T extends Callback<A>> void add(Class<T> key, CallbackContext executor, final Callback<A> cb, boolean b) {
-        listFor(key).add(executor, cb, b);
+        ContextedCallback callback = new ContextedCallback(cb, executor, b);
+        // Added under the map's lock for the key, so never to a list that
+        // `clearAllListeners` has already taken out of it
+        cbs.compute(key, (k, list) -> {
+            if (list == null) {
+                list = new CallbackList();
+            }
+            list.add(callback);
+            return list;
+        });
     }
 
     public <A, T extends Callback<A>> boolean removeListener(Class<T> key, Callback<A> cb) {
-        return listFor(key).remove(cb);
+        CallbackList callbacks = cbs.get(key);
+        return callbacks != null && callbacks.remove(cb);
     }
 
     public int clearAllListeners() {
-        int[] n = new int[1];
-        cbs.forEach((key, val) -> n[0] += val.size());
-        cbs.clear();
-        return n[0];
+        int n = 0;
+        // Each list is taken out of the map before it's cleared, so anything
+        // added concurrently either lands in a fresh list, or is counted
+        for (Class<? extends Callback> key : cbs.keySet()) {
+            CallbackList removed = cbs.remove(key);
+            if (removed != null) {
+                n += removed.clear();
+            }
+        }
+        return n;
     }
 }
@@ -0,0 +1,133 @@
+package com.ripple.client.streams;
+
+import com.ripple.client.transactions.AccountTxPager;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes the pages of an {@link AccountTxPager} to a single subscriber,
+ * only requesting the next page once the last has been delivered and more
+ * are wanted, so a slow consumer is never sent more than it asked for, nor
+ * made to buffer the account's whole history.
+ *
+ * The pager's callbacks come on the client thread, and so do the
+ * subscriber's signals, so onNext should hand heavy work off elsewhere.
+ * Completes after the last page, and signals an unsuccessful response as an
+ * {@link AccountTxException}.
+ */
+public class AccountTxPublisher implements Flow.Publisher<AccountTxPager.Page> {
+    public static class AccountTxException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public AccountTxException(String message) {
+            super(message);
+        }
+    }
+
+    private final AccountTxPager pager;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    public AccountTxPublisher(AccountTxPager pager) {
+        this.pager = pager;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super AccountTxPager.Page> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {}
+                @Override
+                public void cancel() {}
+            });
+            subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+            return;
+        }
+        new PageSubscription(subscriber).start();
+    }
+
+    private class PageSubscription implements Flow.Subscription {
+        final Flow.Subscriber<? super AccountTxPager.Page> subscriber;
+        // Guarded by `this`
+        long demand = 0;
+        boolean started = false, inFlight = false, done = false;
+        AccountTxPager.Page last = null;
+
+        PageSubscription(Flow.Subscriber<? super AccountTxPager.Page> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void start() {
+            pager.onPage(this::onPage);
+            pager.onError(response -> {
+                synchronized (this) {
+                    if (done) {
+                        return;
+                    }
+                    done = true;
+                }
+                subscriber.onError(new AccountTxException(
+                        "account_tx failed: " + response.error));
+            });
+            subscriber.onSubscribe(this);
+        }
+
+        void onPage(AccountTxPager.Page page) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                inFlight = false;
+                last = page;
+                demand--;
+                done = !page.hasNext();
+            }
+            subscriber.onNext(page);
+            if (!page.hasNext()) {
+                subscriber.onComplete();
+            } else {
+                requestIfWanted();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("non-positive request: " + n));
+                return;
+            }
+            synchronized (this) {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            requestIfWanted();
+        }
+
+        private void requestIfWanted() {
+            AccountTxPager.Page next;
+            boolean first;
+            synchronized (this) {
+                if (done || inFlight || demand <= 0) {
+                    return;
+                }
+                inFlight = true;
+                first = !started;
+                started = true;
+                next = last;
+            }
+            if (first) {
+                pager.request();
+            } else {
+                next.requestNext();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                done = true;
+            }
+            pager.abort();
+        }
+    }
+}
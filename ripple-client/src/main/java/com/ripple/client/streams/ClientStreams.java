@@ -0,0 +1,82 @@
+package com.ripple.client.streams;
+
+import com.ripple.client.Client;
+import com.ripple.client.payments.Alternatives;
+import com.ripple.client.payments.PaymentFlow;
+import com.ripple.client.subscriptions.ServerInfo;
+import com.ripple.client.subscriptions.ledger.ClosedLedger;
+import com.ripple.client.subscriptions.ledger.PendingLedgers;
+import com.ripple.core.types.known.tx.result.TransactionResult;
+
+import java.util.concurrent.Executor;
+
+/**
+ * {@link EventPublisher}s fed from the push only Publisher events of the
+ * client, for plugging into bounded, demand driven pipelines.
+ *
+ * Each publisher listens until closed, when the listener is removed and
+ * subscribers are completed once they've drained their buffers.
+ */
+public class ClientStreams {
+    private final Executor executor;
+    private final int bufferSize;
+    private final OverflowPolicy policy;
+
+    /**
+     * @param executor   to deliver to subscribers on, off the client thread
+     * @param bufferSize the most items buffered per subscriber
+     * @param policy     what to do when a subscriber's buffer is full
+     */
+    public ClientStreams(Executor executor, int bufferSize, OverflowPolicy policy) {
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.policy = policy;
+    }
+
+    private <T> EventPublisher<T> publisher(String name) {
+        return new EventPublisher<>(name, executor, bufferSize, policy);
+    }
+
+    public EventPublisher<TransactionResult> validatedTransactions(final Client client) {
+        EventPublisher<TransactionResult> publisher = publisher("validated_transactions");
+        Client.OnValidatedTransaction listener = publisher::offer;
+        client.onValidatedTransaction(listener);
+        return publisher.onClose(() ->
+                client.removeListener(Client.OnValidatedTransaction.class, listener));
+    }
+
+    /**
+     * @return the ledgerClosed stream, as ServerInfo updates
+     */
+    public EventPublisher<ServerInfo> ledgerCloses(final Client client) {
+        EventPublisher<ServerInfo> publisher = publisher("ledger_closes");
+        Client.OnLedgerClosed listener = publisher::offer;
+        client.onLedgerClosed(listener);
+        return publisher.onClose(() ->
+                client.removeListener(Client.OnLedgerClosed.class, listener));
+    }
+
+    /**
+     * @return the ledgers, with all their transactions, as PendingLedgers
+     *         completes them
+     */
+    public EventPublisher<ClosedLedger> closedLedgers(final PendingLedgers ledgers) {
+        EventPublisher<ClosedLedger> publisher = publisher("closed_ledgers");
+        PendingLedgers.OnLedgerClosed listener = publisher::offer;
+        ledgers.on(PendingLedgers.OnLedgerClosed.class, listener);
+        return publisher.onClose(() ->
+                ledgers.removeListener(PendingLedgers.OnLedgerClosed.class, listener));
+    }
+
+    /**
+     * @return the flow's path_find updates. As only the latest alternatives
+     *         matter, consider a DROP_OLDEST policy with a buffer of 1.
+     */
+    public EventPublisher<Alternatives> alternatives(final PaymentFlow flow) {
+        EventPublisher<Alternatives> publisher = publisher("alternatives");
+        PaymentFlow.OnAlternatives listener = publisher::offer;
+        flow.onAlternatives(listener);
+        return publisher.onClose(() ->
+                flow.removeListener(PaymentFlow.OnAlternatives.class, listener));
+    }
+}
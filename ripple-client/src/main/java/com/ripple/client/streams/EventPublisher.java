@@ -0,0 +1,328 @@
+package com.ripple.client.streams;
+
+import com.ripple.client.metrics.StreamMetrics;
+
+import java.nio.BufferOverflowException;
+import java.util.ArrayDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link Flow.Publisher} fed by pushing items with {@link #offer(Object)},
+ * eg. from Publisher callbacks on the client thread, which never blocks.
+ *
+ * Each subscriber gets its own buffer of up to `bufferSize` items, drained
+ * on the executor only as fast as it requests them, so a slow subscriber
+ * neither holds up the publishing thread nor the other subscribers. When a
+ * buffer is full the {@link OverflowPolicy} decides what gives.
+ *
+ * Signals to each subscriber are serialized, as the Flow contract requires,
+ * but may come from different executor threads.
+ */
+public class EventPublisher<T> implements Flow.Publisher<T>, AutoCloseable {
+    private final String name;
+    private final Executor executor;
+    private final int bufferSize;
+    private final OverflowPolicy policy;
+    private StreamMetrics metrics = StreamMetrics.NONE;
+
+    private final CopyOnWriteArrayList<BufferedSubscription> subscriptions =
+            new CopyOnWriteArrayList<>();
+    private final LongAdder dropped = new LongAdder();
+    private final CopyOnWriteArrayList<Runnable> onClose = new CopyOnWriteArrayList<>();
+    private volatile boolean closed = false;
+    private volatile Throwable closedWith = null;
+
+    public EventPublisher(String name, int bufferSize, OverflowPolicy policy) {
+        this(name, ForkJoinPool.commonPool(), bufferSize, policy);
+    }
+
+    public EventPublisher(String name, Executor executor, int bufferSize, OverflowPolicy policy) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        this.name = name;
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.policy = policy;
+    }
+
+    public EventPublisher<T> metrics(StreamMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * @param runnable run once when the publisher is closed, eg. to remove
+     *                 the listener feeding it
+     */
+    public EventPublisher<T> onClose(Runnable runnable) {
+        onClose.add(runnable);
+        return this;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException();
+        }
+        BufferedSubscription subscription = new BufferedSubscription(subscriber);
+        if (closed) {
+            subscription.terminate(closedWith);
+        } else {
+            subscriptions.add(subscription);
+            // In case we raced with close()
+            if (closed) {
+                subscription.terminate(closedWith);
+            }
+        }
+        subscription.signal();
+    }
+
+    /**
+     * Buffers the item for each current subscriber, without blocking.
+     *
+     * @return the most items buffered for any one subscriber, including
+     *         this one, ie. how far the slowest subscriber lags
+     */
+    public int offer(T item) {
+        if (item == null) {
+            throw new NullPointerException();
+        }
+        if (closed) {
+            throw new IllegalStateException(name + " is closed");
+        }
+        int lag = 0;
+        for (BufferedSubscription subscription : subscriptions) {
+            lag = Math.max(lag, subscription.offer(item));
+        }
+        return lag;
+    }
+
+    /**
+     * Completes each subscriber once it has drained its buffer.
+     */
+    @Override
+    public void close() {
+        closeWith(null);
+    }
+
+    /**
+     * Signals onError to each subscriber once it has drained its buffer.
+     */
+    public void closeExceptionally(Throwable error) {
+        closeWith(error);
+    }
+
+    private synchronized void closeWith(Throwable error) {
+        if (closed) {
+            return;
+        }
+        closedWith = error;
+        closed = true;
+        for (BufferedSubscription subscription : subscriptions) {
+            subscription.terminate(error);
+            subscription.signal();
+        }
+        onClose.forEach(Runnable::run);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * @return the items dropped so far, across all subscribers
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return the most items currently buffered for any one subscriber
+     */
+    public int maxLag() {
+        int lag = 0;
+        for (BufferedSubscription subscription : subscriptions) {
+            lag = Math.max(lag, subscription.lag());
+        }
+        return lag;
+    }
+
+    private static class Buffered<T> {
+        final T item;
+        final long at = System.nanoTime();
+
+        Buffered(T item) {
+            this.item = item;
+        }
+    }
+
+    // Marks a terminal signal with no error
+    private static final Throwable COMPLETE = new Throwable("complete");
+
+    private class BufferedSubscription implements Flow.Subscription, Runnable {
+        final Flow.Subscriber<? super T> subscriber;
+        // Guarded by `this`
+        final ArrayDeque<Buffered<T>> buffer = new ArrayDeque<>();
+        final AtomicLong demand = new AtomicLong();
+        // The number of signals since the drain loop last looked
+        final AtomicInteger wip = new AtomicInteger();
+        boolean subscribed = false;
+        volatile boolean cancelled = false;
+        // Set once the subscriber is to be terminated after draining
+        volatile Throwable terminal = null;
+        volatile Throwable immediateError = null;
+
+        BufferedSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        int offer(T item) {
+            if (cancelled || terminal != null) {
+                return 0;
+            }
+            int lag;
+            synchronized (this) {
+                if (buffer.size() >= bufferSize) {
+                    switch (policy) {
+                        case DROP_OLDEST:
+                            buffer.pollFirst();
+                            break;
+                        case DROP_NEWEST:
+                            dropped.increment();
+                            metrics.itemDropped(name);
+                            return buffer.size();
+                        case FAIL:
+                            dropped.increment();
+                            metrics.itemDropped(name);
+                            fail(new BufferOverflowException());
+                            return buffer.size();
+                    }
+                    dropped.increment();
+                    metrics.itemDropped(name);
+                }
+                buffer.addLast(new Buffered<>(item));
+                lag = buffer.size();
+            }
+            metrics.itemBuffered(name, lag);
+            signal();
+            return lag;
+        }
+
+        synchronized int lag() {
+            return buffer.size();
+        }
+
+        void terminate(Throwable error) {
+            if (terminal == null) {
+                terminal = error == null ? COMPLETE : error;
+            }
+        }
+
+        /**
+         * Errors skip whatever is still buffered
+         */
+        void fail(Throwable error) {
+            immediateError = error;
+            subscriptions.remove(this);
+            signal();
+        }
+
+        void signal() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("non-positive request: " + n));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, add) -> {
+                long sum = current + add;
+                return sum < 0 ? Long.MAX_VALUE : sum;
+            });
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            synchronized (this) {
+                buffer.clear();
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            while (true) {
+                if (!subscribed) {
+                    subscribed = true;
+                    subscriber.onSubscribe(this);
+                }
+                drain();
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void drain() {
+            while (!cancelled) {
+                Throwable error = immediateError;
+                if (error != null) {
+                    cancel();
+                    subscriber.onError(error);
+                    return;
+                }
+                Buffered<T> next = null;
+                if (demand.get() > 0) {
+                    synchronized (this) {
+                        next = buffer.pollFirst();
+                    }
+                }
+                if (next == null) {
+                    Throwable done = terminal;
+                    if (done != null && lag() == 0) {
+                        cancel();
+                        if (done == COMPLETE) {
+                            subscriber.onComplete();
+                        } else {
+                            subscriber.onError(done);
+                        }
+                    }
+                    return;
+                }
+                if (demand.get() != Long.MAX_VALUE) {
+                    demand.decrementAndGet();
+                }
+                metrics.itemDelivered(name, System.nanoTime() - next.at);
+                try {
+                    subscriber.onNext(next.item);
+                } catch (Throwable e) {
+                    // Per the spec, a throwing subscriber is cancelled
+                    cancel();
+                    return;
+                }
+            }
+        }
+    }
+}
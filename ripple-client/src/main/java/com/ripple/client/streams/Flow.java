@@ -0,0 +1,28 @@
+package com.ripple.client.streams;
+
+/**
+ * The interfaces of java.util.concurrent.Flow (and Reactive Streams), for
+ * Java 8, with the same methods and contracts, so adapting either way is a
+ * matter of forwarding calls.
+ */
+public final class Flow {
+    private Flow() {}
+
+    public interface Publisher<T> {
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    public interface Subscriber<T> {
+        void onSubscribe(Subscription subscription);
+        void onNext(T item);
+        void onError(Throwable throwable);
+        void onComplete();
+    }
+
+    public interface Subscription {
+        void request(long n);
+        void cancel();
+    }
+
+    public interface Processor<T, R> extends Subscriber<T>, Publisher<R> {}
+}
@@ -0,0 +1,16 @@
+package com.ripple.client.streams;
+
+/**
+ * What an {@link EventPublisher} does with an item for a subscriber whose
+ * buffer is full.
+ */
+public enum OverflowPolicy {
+    // Drop the oldest buffered item to make room, eg. for state snapshots
+    // where only the latest matters
+    DROP_OLDEST,
+    // Drop the new item
+    DROP_NEWEST,
+    // Cancel the subscription, signalling onError with a
+    // BufferOverflowException, for when gaps aren't acceptable
+    FAIL
+}
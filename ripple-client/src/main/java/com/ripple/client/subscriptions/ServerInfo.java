@@ -11,6 +11,10 @@ import static com.ripple.core.coretypes.RippleDate.fromSecondsSinceRippleEpoch;
 // TODO, really want to split this into a few classes
 // ServerStatus / LedgerClosed events.
 public class ServerInfo {
+    // Escalation stats reported more than this many ledgers before the open
+    // one are too stale to price with
+    public static final long FEE_ESCALATION_MAX_AGE = 2;
+
     public boolean updated = false;
 
     public int fee_base;
@@ -18,7 +22,10 @@ public class ServerInfo {
     public int reserve_base;
     public int reserve_inc;
     public int load_base;
+    // The greater of the server's own load and the open ledger's escalation
     public int load_factor;
+    // Just the server's own load, 0 if never reported
+    public int load_factor_server;
     public long ledger_time;
     public long ledger_index;
 
@@ -29,13 +36,34 @@ public class ServerInfo {
     public String server_status;
     public String validated_ledgers;
 
+    // Fee escalation, in fee levels, where reference_level is the level of a
+    // transaction paying exactly the base fee. Reported by `fee` responses,
+    // and some also as load_factor_fee_* by the server stream.
+    public long reference_level = 256;
+    // Needed to get into the queue at all
+    public long minimum_level;
+    // The escalation multiplier for the open ledger, once it's over expected
+    public long median_level;
+    // Needed to skip the queue and get into the current open ledger
+    public long open_ledger_level;
+    public long current_ledger_size;
+    public long current_queue_size;
+    public long expected_ledger_size;
+    public long max_queue_size;
+    // The open ledger the above were reported for, 0 if never reported
+    public long escalation_ledger_index;
+
     public Amount computeFee(int units) {
+        return computeFee(units, load_factor);
+    }
+
+    private Amount computeFee(int units, int loadFactor) {
         if (!updated) {
             throw new IllegalStateException("No information from the server yet");
         }
 
-        double fee_unit = fee_base / fee_ref, fee;
-        fee_unit *= load_factor / load_base;
+        double fee_unit = (double) fee_base / fee_ref, fee;
+        fee_unit *= (double) loadFactor / load_base;
         fee = units * fee_unit;
         String s = String.valueOf((long) Math.ceil(fee));
         return Amount.fromString(s);
@@ -45,6 +73,14 @@ public class ServerInfo {
         return computeFee(fee_base);
     }
 
+    /**
+     * As {@link #transactionFee(Transaction)}, for the server's own load
+     * alone, or for load_factor if the server doesn't report that apart.
+     */
+    public Amount serverLoadFee(Transaction transaction) {
+        return computeFee(fee_base, load_factor_server != 0 ? load_factor_server : load_factor);
+    }
+
     public void update(JSONObject json) {
         // TODO, this might asking for trouble, just assuming certain fields, it should BLOW UP
 
@@ -55,6 +91,7 @@ public class ServerInfo {
         reserve_inc       = json.optInt(     "reserve_inc",       reserve_inc);
         load_base         = json.optInt(     "load_base",         load_base);
         load_factor       = json.optInt(     "load_factor",       load_factor);
+        load_factor_server = json.optInt(    "load_factor_server", load_factor_server);
         ledger_time       = json.optLong(     "ledger_time",       ledger_time);
         ledger_index      = json.optLong(    "ledger_index",      ledger_index);
         ledger_hash       = json.optString(  "ledger_hash",       ledger_hash);
@@ -63,9 +100,72 @@ public class ServerInfo {
         random            = json.optString(  "random",            random);
         server_status     = json.optString(  "server_status",     server_status);
 
+        open_ledger_level = json.optLong(    "load_factor_fee_escalation", open_ledger_level);
+        minimum_level     = json.optLong(    "load_factor_fee_queue",      minimum_level);
+        reference_level   = json.optLong(    "load_factor_fee_reference",  reference_level);
+
         updated = true;
     }
 
+    /**
+     * @param result of a `fee` request, where the levels and sizes are all
+     *               strings
+     */
+    public void updateFeeEscalation(JSONObject result) {
+        JSONObject levels = result.getJSONObject("levels");
+        reference_level      = levels.optLong(  "reference_level",      reference_level);
+        minimum_level        = levels.optLong(  "minimum_level",        minimum_level);
+        median_level         = levels.optLong(  "median_level",         median_level);
+        open_ledger_level    = levels.optLong(  "open_ledger_level",    open_ledger_level);
+
+        current_ledger_size  = result.optLong(  "current_ledger_size",  current_ledger_size);
+        current_queue_size   = result.optLong(  "current_queue_size",   current_queue_size);
+        expected_ledger_size = result.optLong(  "expected_ledger_size", expected_ledger_size);
+        max_queue_size       = result.optLong(  "max_queue_size",       max_queue_size);
+        escalation_ledger_index = result.optLong("ledger_current_index", escalation_ledger_index);
+    }
+
+    /**
+     * @return whether there are escalation stats, fresh enough to price with
+     */
+    public boolean hasFeeEscalation() {
+        return escalation_ledger_index != 0 && expected_ledger_size != 0 &&
+               !feeEscalationStale();
+    }
+
+    /**
+     * @return whether the escalation stats are older than
+     *         {@link #FEE_ESCALATION_MAX_AGE}, and need refreshing
+     */
+    public boolean feeEscalationStale() {
+        // ledger_index is the last closed ledger, so the open one is next
+        return escalation_ledger_index != 0 &&
+               ledger_index + 1 - escalation_ledger_index > FEE_ESCALATION_MAX_AGE;
+    }
+
+    /**
+     * The fee level the open ledger asks of the nth transaction applied to it,
+     * which stays at the reference level until the ledger holds more than
+     * expected_ledger_size, then grows with the square of its size.
+     */
+    public long escalatedFeeLevel(long n) {
+        if (!hasFeeEscalation() || n <= expected_ledger_size) {
+            return reference_level;
+        }
+        double level = (double) median_level * n * n /
+                ((double) expected_ledger_size * expected_ledger_size);
+        return Math.max(reference_level, (long) Math.ceil(level));
+    }
+
+    /**
+     * @param level a fee level, as in {@link #escalatedFeeLevel(long)}
+     * @param baseFee of the transaction in drops, before any escalation
+     */
+    public Amount feeLevelToDrops(long level, long baseFee) {
+        double drops = (double) level * baseFee / reference_level;
+        return Amount.fromString(String.valueOf((long) Math.ceil(drops)));
+    }
+
     public Date date() {
         return fromSecondsSinceRippleEpoch(ledger_time);
     }
@@ -82,6 +182,8 @@ public class ServerInfo {
                 ", load_factor=" + load_factor +
                 ", server_status='" + server_status + '\'' +
                 ", validated_ledgers='" + validated_ledgers + '\'' +
+                ", open_ledger_level=" + open_ledger_level +
+                ", current_queue_size=" + current_queue_size +
                 '}';
     }
 }
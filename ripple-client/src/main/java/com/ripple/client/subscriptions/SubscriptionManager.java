@@ -6,7 +6,10 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 
 public class SubscriptionManager extends Publisher<SubscriptionManager.events> {
@@ -54,20 +57,56 @@ public class SubscriptionManager extends Publisher<SubscriptionManager.events> {
     Set<Stream>                  streams = new TreeSet<Stream>();
     Set<AccountID>              accounts = new TreeSet<AccountID>();
 
+    // How many times each has been added, so that one component removing a
+    // stream or account doesn't unsubscribe the others still relying on it
+    private final Map<Stream, Integer> streamRefs = new EnumMap<Stream, Integer>(Stream.class);
+    private final Map<AccountID, Integer> accountRefs = new TreeMap<AccountID, Integer>();
+
     <T> Set<T> single(T element) {
         Set<T> set = new TreeSet<T>();
         set.add(element);
         return set;
     }
 
+    /**
+     * Subscribes to the stream, unless already subscribed. Each add should be
+     * matched by a {@link #removeStream(Stream)} once it's no longer wanted.
+     */
     public void addStream(Stream s) {
-        streams.add(s);
-        subscribeStream(s);
+        if (acquire(streamRefs, s)) {
+            streams.add(s);
+            subscribeStream(s);
+        }
     }
 
+    /**
+     * Unsubscribes from the stream once it's been removed as many times as
+     * it was added.
+     */
     public void removeStream(Stream s) {
-        streams.remove(s);
-        unsubscribeStream(s);
+        if (release(streamRefs, s)) {
+            streams.remove(s);
+            unsubscribeStream(s);
+        }
+    }
+
+    private static <K> boolean acquire(Map<K, Integer> refs, K key) {
+        Integer n = refs.get(key);
+        refs.put(key, n == null ? 1 : n + 1);
+        return n == null;
+    }
+
+    private static <K> boolean release(Map<K, Integer> refs, K key) {
+        Integer n = refs.get(key);
+        if (n == null) {
+            return false;
+        }
+        if (n == 1) {
+            refs.remove(key);
+            return true;
+        }
+        refs.put(key, n - 1);
+        return false;
     }
 
     private void subscribeStream(Stream s) {
@@ -86,13 +125,20 @@ public class SubscriptionManager extends Publisher<SubscriptionManager.events> {
         emit(OnUnSubscribed.class, basicSubscriptionObject(single(s), null));
     }
 
+    /**
+     * As {@link #addStream(Stream)}, but for an account
+     */
     public void addAccount(AccountID a) {
-        accounts.add(a);
-        emit(OnSubscribed.class, basicSubscriptionObject(null, single(a)));
+        if (acquire(accountRefs, a)) {
+            accounts.add(a);
+            emit(OnSubscribed.class, basicSubscriptionObject(null, single(a)));
+        }
     }
     public void removeAccount(AccountID a) {
-        accounts.remove(a);
-        emit(OnUnSubscribed.class, basicSubscriptionObject(null, single(a)));
+        if (release(accountRefs, a)) {
+            accounts.remove(a);
+            emit(OnUnSubscribed.class, basicSubscriptionObject(null, single(a)));
+        }
     }
 
     private JSONObject basicSubscriptionObject(Set<Stream> streams, Set<AccountID> accounts) {
@@ -0,0 +1,318 @@
+package com.ripple.client.subscriptions;
+
+import com.ripple.client.Client;
+import com.ripple.client.metrics.StreamMetrics;
+import com.ripple.client.streams.EventPublisher;
+import com.ripple.client.streams.Flow;
+import com.ripple.client.streams.OverflowPolicy;
+import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.serialized.enums.LedgerEntryType;
+import com.ripple.core.serialized.enums.TransactionType;
+import com.ripple.core.types.known.tx.result.AffectedNode;
+import com.ripple.core.types.known.tx.result.TransactionResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shares one client's transaction subscription between many in process
+ * consumers, so they don't each need their own connection to rippled.
+ *
+ * Installs itself as the client's {@link TransactionSubscriptionManager}, and
+ * for each validated transaction looks up the subscribers of the accounts it
+ * affects, rather than trying every subscriber's {@link Filter}. Each
+ * subscriber is fed through its own bounded {@link EventPublisher} buffer, so
+ * a slow one only ever loses its own items.
+ *
+ * Upstream, accounts are subscribed to while any subscriber wants them, and
+ * the transactions stream while any subscriber wants all accounts.
+ */
+public class TransactionHub implements TransactionSubscriptionManager {
+    /**
+     * Which transactions a subscriber wants. Each non empty criterion must
+     * match, and an empty filter matches everything.
+     */
+    public static class Filter {
+        final Set<AccountID> accounts = new TreeSet<>();
+        final EnumSet<TransactionType> transactionTypes = EnumSet.noneOf(TransactionType.class);
+        final EnumSet<LedgerEntryType> ledgerEntryTypes = EnumSet.noneOf(LedgerEntryType.class);
+
+        /**
+         * Transactions affecting any of these accounts, see
+         * {@link TransactionResult#affectedAccounts()}
+         */
+        public Filter accounts(AccountID... accounts) {
+            this.accounts.addAll(Arrays.asList(accounts));
+            return this;
+        }
+
+        public Filter transactionTypes(TransactionType... types) {
+            transactionTypes.addAll(Arrays.asList(types));
+            return this;
+        }
+
+        /**
+         * Transactions affecting any entry of these types
+         */
+        public Filter ledgerEntryTypes(LedgerEntryType... types) {
+            ledgerEntryTypes.addAll(Arrays.asList(types));
+            return this;
+        }
+
+        public Set<AccountID> accounts() {
+            return Collections.unmodifiableSet(accounts);
+        }
+
+        boolean allAccounts() {
+            return accounts.isEmpty();
+        }
+
+        /**
+         * Checks all but the accounts, which the hub matches by index
+         */
+        boolean matchesTypes(TransactionResult tr) {
+            if (!transactionTypes.isEmpty() &&
+                    !transactionTypes.contains(tr.transactionType())) {
+                return false;
+            }
+            if (ledgerEntryTypes.isEmpty()) {
+                return true;
+            }
+            if (tr.meta != null) {
+                for (AffectedNode node : tr.meta.affectedNodes()) {
+                    if (ledgerEntryTypes.contains(node.ledgerEntryType())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        public boolean matches(TransactionResult tr) {
+            if (!allAccounts()) {
+                boolean affected = false;
+                for (AccountID account : tr.affectedAccounts()) {
+                    if (accounts.contains(account)) {
+                        affected = true;
+                        break;
+                    }
+                }
+                if (!affected) {
+                    return false;
+                }
+            }
+            return matchesTypes(tr);
+        }
+    }
+
+    private class Subscriber {
+        final Filter filter;
+        final EventPublisher<TransactionResult> publisher;
+
+        Subscriber(Filter filter, EventPublisher<TransactionResult> publisher) {
+            this.filter = filter;
+            this.publisher = publisher;
+        }
+    }
+
+    /**
+     * An immutable snapshot of the subscribers, replaced on each change so
+     * dispatching never needs to lock.
+     */
+    private static class Index {
+        final Map<AccountID, List<Subscriber>> byAccount;
+        final List<Subscriber> allAccounts;
+
+        Index(Map<AccountID, List<Subscriber>> byAccount, List<Subscriber> allAccounts) {
+            this.byAccount = byAccount;
+            this.allAccounts = allAccounts;
+        }
+    }
+
+    private final Client client;
+    private final Executor executor;
+    private final int bufferSize;
+    private final OverflowPolicy policy;
+    private StreamMetrics metrics = StreamMetrics.NONE;
+    private TransactionSubscriptionManager next = null;
+
+    // Guarded by `this`
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private volatile Index index = new Index(Collections.emptyMap(), Collections.emptyList());
+    private final AtomicInteger subscriberIds = new AtomicInteger();
+
+    /**
+     * @param executor   to deliver to subscribers on, off the client thread
+     * @param bufferSize the most transactions buffered per subscriber
+     * @param policy     what to do when a subscriber's buffer is full
+     */
+    public TransactionHub(Client client, Executor executor, int bufferSize, OverflowPolicy policy) {
+        this.client = client;
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.policy = policy;
+        client.transactionSubscriptionManager(this);
+    }
+
+    public TransactionHub metrics(StreamMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * @param next to hand each transaction to after dispatching it, eg. a
+     *             {@link com.ripple.client.subscriptions.ledger.LedgerSubscriber},
+     *             which then notifies the client. Otherwise the hub does.
+     */
+    public TransactionHub next(TransactionSubscriptionManager next) {
+        this.next = next;
+        return this;
+    }
+
+    /**
+     * @return the subscriber's publisher, which can be closed to
+     *         unsubscribe, and reports how far the subscriber lags and how
+     *         much it has dropped. Cancelling the Flow subscription also
+     *         unsubscribes.
+     */
+    public EventPublisher<TransactionResult> subscribe(Filter filter,
+                                                       Flow.Subscriber<? super TransactionResult> subscriber) {
+        EventPublisher<TransactionResult> publisher = new EventPublisher<TransactionResult>(
+                "hub-" + subscriberIds.incrementAndGet(), executor, bufferSize, policy)
+                .metrics(metrics);
+        Subscriber added = new Subscriber(filter, publisher);
+        publisher.onClose(() -> remove(added));
+        publisher.subscribe(subscriber);
+
+        Set<AccountID> newAccounts = new TreeSet<>();
+        boolean firstAllAccounts;
+        synchronized (this) {
+            Index current = index;
+            for (AccountID account : filter.accounts) {
+                if (!current.byAccount.containsKey(account)) {
+                    newAccounts.add(account);
+                }
+            }
+            firstAllAccounts = filter.allAccounts() && current.allAccounts.isEmpty();
+            subscribers.add(added);
+            reindex();
+        }
+        client.run(() -> {
+            for (AccountID account : newAccounts) {
+                client.subscriptions.addAccount(account);
+            }
+            if (firstAllAccounts) {
+                client.subscriptions.addStream(SubscriptionManager.Stream.transactions);
+            }
+        });
+        return publisher;
+    }
+
+    private void remove(Subscriber removed) {
+        Set<AccountID> goneAccounts = new TreeSet<>();
+        boolean lastAllAccounts;
+        synchronized (this) {
+            if (!subscribers.remove(removed)) {
+                return;
+            }
+            reindex();
+            Index current = index;
+            for (AccountID account : removed.filter.accounts) {
+                if (!current.byAccount.containsKey(account)) {
+                    goneAccounts.add(account);
+                }
+            }
+            lastAllAccounts = removed.filter.allAccounts() && current.allAccounts.isEmpty();
+        }
+        client.run(() -> {
+            for (AccountID account : goneAccounts) {
+                client.subscriptions.removeAccount(account);
+            }
+            if (lastAllAccounts) {
+                client.subscriptions.removeStream(SubscriptionManager.Stream.transactions);
+            }
+        });
+    }
+
+    private void reindex() {
+        Map<AccountID, List<Subscriber>> byAccount = new HashMap<>();
+        List<Subscriber> allAccounts = new ArrayList<>();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.filter.allAccounts()) {
+                allAccounts.add(subscriber);
+            }
+            for (AccountID account : subscriber.filter.accounts) {
+                byAccount.computeIfAbsent(account, k -> new ArrayList<>()).add(subscriber);
+            }
+        }
+        index = new Index(byAccount, allAccounts);
+    }
+
+    public synchronized int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Called on the client thread for each validated transaction
+     */
+    @Override
+    public void notifyTransactionResult(TransactionResult tr) {
+        dispatch(tr);
+        if (next != null) {
+            next.notifyTransactionResult(tr);
+        } else {
+            client.onTransactionResult(tr);
+        }
+    }
+
+    /**
+     * @return the number of subscribers the transaction was offered to
+     */
+    public int dispatch(TransactionResult tr) {
+        Index current = index;
+        // A subscriber to several affected accounts gets it just once
+        Map<Subscriber, Boolean> candidates = new IdentityHashMap<>();
+        if (!current.byAccount.isEmpty()) {
+            for (AccountID account : tr.affectedAccounts()) {
+                List<Subscriber> subscribed = current.byAccount.get(account);
+                if (subscribed != null) {
+                    for (Subscriber subscriber : subscribed) {
+                        candidates.put(subscriber, Boolean.TRUE);
+                    }
+                }
+            }
+        }
+        for (Subscriber subscriber : current.allAccounts) {
+            candidates.put(subscriber, Boolean.TRUE);
+        }
+
+        int offered = 0;
+        for (Subscriber subscriber : candidates.keySet()) {
+            EventPublisher<TransactionResult> publisher = subscriber.publisher;
+            if (publisher.subscriberCount() == 0) {
+                // Cancelled, or failed on overflow
+                publisher.close();
+                continue;
+            }
+            if (subscriber.filter.matchesTypes(tr)) {
+                try {
+                    publisher.offer(tr);
+                    offered++;
+                } catch (IllegalStateException e) {
+                    // Raced with the subscriber closing it
+                }
+            }
+        }
+        return offered;
+    }
+}
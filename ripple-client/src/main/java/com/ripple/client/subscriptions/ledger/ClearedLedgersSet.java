@@ -1,21 +1,21 @@
 package com.ripple.client.subscriptions.ledger;
 
-import java.util.TreeSet;
+import com.ripple.utils.RangeSet;
 
 public class ClearedLedgersSet {
     public static boolean DEBUG = true;
     private long lastCleared =-1, firstCleared =-1;
 
-    public TreeSet<Long> cleared() {
+    public RangeSet cleared() {
         return clearedLedgers;
     }
 
-    public int size() {
+    public long size() {
         return clearedLedgers.size();
     }
 
-    private TreeSet<Long> clearedLedgers = new TreeSet<Long>();
-    private TreeSet<Long> clearedLedgersNeverCleared = new TreeSet<Long>();
+    private RangeSet clearedLedgers = new RangeSet();
+    private RangeSet clearedLedgersNeverCleared = new RangeSet();
 
     public void clear(long ledger_index) {
         if (DEBUG) clearedLedgersNeverCleared.add(ledger_index);
@@ -33,33 +33,20 @@ public class ClearedLedgersSet {
                 lastCleared = Math.max(clearedLedgers.last(), lastCleared);
 
                 // If our debug set contained the
-                for (long i = firstCleared; i <= lastCleared; i++) {
-                    if (!clearedLedgersNeverCleared.contains(i)) throw new AssertionError();
+                if (!clearedLedgersNeverCleared.containsAll(firstCleared, lastCleared)) {
+                    throw new AssertionError();
                 }
             }
             clearedLedgers.clear();
         }
     }
 
-    public TreeSet<Long> gaps() {
-        TreeSet<Long> gaps = new TreeSet<Long>();
-        int i = 0;
-        long prev = 0;
-
-        for (Long clearedLedger : clearedLedgers) {
-            if (i++ > 0) {
-                for (long j = prev + 1; j < clearedLedger; j++) {
-                    gaps.add(j);
-                }
-            }
-            prev = clearedLedger;
-        }
-
-        return gaps;
+    public RangeSet gaps() {
+        return clearedLedgers.gaps();
     }
 
     public boolean okToClear() {
-        return gaps().size() == 0;
+        return !clearedLedgers.hasGaps();
     }
 
     public boolean contains(long ledger_index) {
@@ -56,6 +56,7 @@ public class PendingLedgers  extends Publisher<PendingLedgers.events>
         PendingLedger remove = ledgers.remove(ledger_index);
         if (remove == null) throw new AssertionError();
         remove.setStatus(PendingLedger.Status.cleared);
+        emit(OnLedgerClosed.class, new ClosedLedger(remove.header, remove.transactions));
 
         if (ledgers.size() == 1) {
             clearedLedgers.clearIfNoGaps();
@@ -140,6 +141,7 @@ public class PendingLedgers  extends Publisher<PendingLedgers.events>
             LedgerHeader header =
                     LedgerHeader.fromHex(
                             ledgerJSON.getString("ledger_data"));
+            ledger.header = header;
             final String transaction_hash = header.transactionHash.toHex();
             boolean correctHash = ledger.transactionHashEquals(transaction_hash);
             if (!correctHash) throw new IllegalStateException("We don't handle invalid transactions yet");
@@ -156,11 +158,11 @@ public class PendingLedgers  extends Publisher<PendingLedgers.events>
      * off randomly as the ledgers clear.
      */
     void trackMissingLedgersInClearedLedgerHistory() {
-        for (Long j : clearedLedgers.gaps()) {
+        clearedLedgers.gaps().forEachLong(j -> {
             if (!alreadyPending(j)) {
                 constructAndAddLedger(j);
             }
-        }
+        });
     }
 
     Set<Long> pendingLedgerIndexes() {
@@ -0,0 +1,465 @@
+package com.ripple.client.transactions;
+
+import com.ripple.client.Client;
+import com.ripple.client.requests.Request;
+import com.ripple.client.responses.Response;
+import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.types.known.tx.result.TransactionResult;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pulls an account's history for [ledgerMin, ledgerMax] by splitting the
+ * range into sub ranges which are each walked with their own
+ * {@link AccountTxPager}, concurrently, across one or more clients.
+ *
+ * Pages are handed to the {@link OnPage} consumer in ascending ledger order
+ * regardless of which sub range finished first, and each delivered page must
+ * be acknowledged with {@link Page#done()}. No more than
+ * {@link #maxUnacknowledgedPages(int)} pages are handed out at a time, and a
+ * sub range ahead of the consumer stops requesting pages after buffering
+ * {@link #maxBufferedPagesPerRange(int)}.
+ *
+ * Progress (per sub range marker) is saved to a {@link CursorStore} as pages
+ * are acknowledged, so a new backfill over the same account and range picks
+ * up after the last acknowledged page.
+ *
+ * A sub range that still fails once its pager has used up its retries fails
+ * the whole backfill: it's aborted, {@link #isFailed()} becomes true and the
+ * {@link #onError(Request.OnError)} callback is the last one made. A new
+ * backfill with the same CursorStore resumes from there.
+ *
+ * The callbacks may be called from any of the clients' threads, but never
+ * concurrently.
+ */
+public class AccountTxBackfill {
+    public interface CursorStore {
+        /**
+         * @return the state last saved for the account, or null if none
+         */
+        JSONObject load(AccountID account);
+        void save(AccountID account, JSONObject state);
+    }
+
+    public interface OnPage {
+        void onPage(Page page);
+    }
+
+    public interface OnComplete {
+        void onComplete(AccountTxBackfill backfill);
+    }
+
+    public class Page {
+        private final Range range;
+        private final AccountTxPager.Page page;
+        private boolean acknowledged = false;
+
+        private Page(Range range, AccountTxPager.Page page) {
+            this.range = range;
+            this.page = page;
+        }
+
+        public int rangeIndex() {
+            return range.index;
+        }
+
+        public int size() {
+            return page.size();
+        }
+
+        public ArrayList<TransactionResult> transactionResults() {
+            return page.transactionResults();
+        }
+
+        public JSONArray transactionsJSON() {
+            return page.transactionsJSON();
+        }
+
+        /**
+         * Acknowledge the page as processed, allowing more pages to be
+         * fetched and the progress to be saved.
+         */
+        public void done() {
+            acknowledge(this);
+        }
+    }
+
+    private class Range {
+        final int index;
+        final long min, max;
+        // The marker after the last acknowledged page
+        Object marker;
+        // All pages have been acknowledged
+        boolean complete;
+
+        // All pages have been received
+        boolean fetched;
+        AccountTxPager pager;
+        // Received but waiting for earlier ranges to be delivered
+        ArrayDeque<Page> buffered = new ArrayDeque<>();
+        // Delivered, in order, but not yet acknowledged
+        ArrayDeque<Page> unacknowledged = new ArrayDeque<>();
+        // The last page received, when requesting the next has been deferred
+        AccountTxPager.Page parked;
+
+        Range(int index, long min, long max) {
+            this.index = index;
+            this.min = min;
+            this.max = max;
+        }
+
+        JSONObject toJSON() {
+            JSONObject json = new JSONObject();
+            json.put("ledger_index_min", min);
+            json.put("ledger_index_max", max);
+            json.put("complete", complete);
+            if (marker != null) {
+                json.put("marker", marker);
+            }
+            return json;
+        }
+    }
+
+    private final List<Client> clients;
+    private final AccountID account;
+    private final long ledgerMin, ledgerMax;
+
+    private int splits = 4;
+    private int pageSize = 200;
+    private int maxUnacknowledgedPages = 4;
+    private int maxBufferedPagesPerRange = 2;
+    private int maxRetriesPerPage = -1;
+    private CursorStore cursorStore = null;
+    private OnPage onPage;
+    private OnComplete onComplete = null;
+    private Request.OnError onError = null;
+
+    private final ArrayList<Range> ranges = new ArrayList<>();
+    // The range whose pages are currently being delivered
+    private int head = 0;
+    private int unacknowledged = 0;
+    private boolean started = false;
+    private boolean aborted = false;
+    private boolean failed = false;
+
+    private final ArrayDeque<Page> deliveryQueue = new ArrayDeque<>();
+    private boolean delivering = false;
+
+    public AccountTxBackfill(List<Client> clients, AccountID account, long ledgerMin, long ledgerMax) {
+        if (clients.isEmpty()) {
+            throw new IllegalArgumentException("Need at least one client");
+        }
+        if (ledgerMin < 0 || ledgerMax < ledgerMin) {
+            throw new IllegalArgumentException(
+                    "Need an explicit ledger range, got [" + ledgerMin + ", " + ledgerMax + "]");
+        }
+        this.clients = new ArrayList<>(clients);
+        this.account = account;
+        this.ledgerMin = ledgerMin;
+        this.ledgerMax = ledgerMax;
+    }
+
+    public AccountTxBackfill splits(int n) {
+        splits = n;
+        return this;
+    }
+
+    public AccountTxBackfill pageSize(int n) {
+        pageSize = n;
+        return this;
+    }
+
+    public AccountTxBackfill maxUnacknowledgedPages(int n) {
+        maxUnacknowledgedPages = n;
+        return this;
+    }
+
+    public AccountTxBackfill maxBufferedPagesPerRange(int n) {
+        maxBufferedPagesPerRange = n;
+        return this;
+    }
+
+    /**
+     * @param retries for each page, before the backfill fails, see
+     *                {@link AccountTxPager#maxRetriesPerPage(int)}
+     */
+    public AccountTxBackfill maxRetriesPerPage(int retries) {
+        maxRetriesPerPage = retries;
+        return this;
+    }
+
+    public AccountTxBackfill cursorStore(CursorStore store) {
+        cursorStore = store;
+        return this;
+    }
+
+    public AccountTxBackfill onPage(OnPage cb) {
+        onPage = cb;
+        return this;
+    }
+
+    public AccountTxBackfill onComplete(OnComplete cb) {
+        onComplete = cb;
+        return this;
+    }
+
+    public AccountTxBackfill onError(Request.OnError cb) {
+        onError = cb;
+        return this;
+    }
+
+    public void start() {
+        if (onPage == null) {
+            throw new IllegalStateException("Forgot to set OnPage!");
+        }
+        synchronized (this) {
+            if (started) {
+                throw new IllegalStateException("Already started");
+            }
+            started = true;
+            if (!restoreRanges()) {
+                splitRanges();
+            }
+            advanceHead();
+            for (Range range : ranges) {
+                if (!range.complete) {
+                    fetch(range);
+                }
+            }
+        }
+        checkComplete();
+    }
+
+    public synchronized void abort() {
+        aborted = true;
+        for (Range range : ranges) {
+            if (range.pager != null) {
+                range.pager.abort();
+            }
+        }
+    }
+
+    public synchronized boolean isFailed() {
+        return failed;
+    }
+
+    public synchronized boolean isComplete() {
+        for (Range range : ranges) {
+            if (!range.complete) {
+                return false;
+            }
+        }
+        return started;
+    }
+
+    public JSONObject state() {
+        synchronized (this) {
+            JSONObject state = new JSONObject();
+            state.put("account", account);
+            state.put("ledger_index_min", ledgerMin);
+            state.put("ledger_index_max", ledgerMax);
+            JSONArray array = new JSONArray();
+            for (Range range : ranges) {
+                array.put(range.toJSON());
+            }
+            state.put("ranges", array);
+            return state;
+        }
+    }
+
+    private void splitRanges() {
+        long span = ledgerMax - ledgerMin + 1;
+        int n = (int) Math.max(1, Math.min(splits, span));
+        long width = span / n, remainder = span % n, min = ledgerMin;
+
+        for (int i = 0; i < n; i++) {
+            long max = min + width - 1 + (i < remainder ? 1 : 0);
+            ranges.add(new Range(i, min, max));
+            min = max + 1;
+        }
+    }
+
+    private boolean restoreRanges() {
+        if (cursorStore == null) {
+            return false;
+        }
+        JSONObject state = cursorStore.load(account);
+        if (state == null ||
+                state.getLong("ledger_index_min") != ledgerMin ||
+                state.getLong("ledger_index_max") != ledgerMax) {
+            return false;
+        }
+        JSONArray array = state.getJSONArray("ranges");
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject json = array.getJSONObject(i);
+            Range range = new Range(i,
+                    json.getLong("ledger_index_min"),
+                    json.getLong("ledger_index_max"));
+            range.complete = json.optBoolean("complete", false);
+            range.fetched = range.complete;
+            range.marker = json.opt("marker");
+            ranges.add(range);
+        }
+        return true;
+    }
+
+    private Client clientFor(Range range) {
+        return clients.get(range.index % clients.size());
+    }
+
+    private void fetch(Range range) {
+        Client client = clientFor(range);
+        range.pager = new AccountTxPager(client, account,
+                page -> onRangePage(range, page),
+                range.min, range.max)
+                .forward(true)
+                .pageSize(pageSize)
+                .marker(range.marker)
+                .onError(this::onPagerError);
+        if (maxRetriesPerPage != -1) {
+            range.pager.maxRetriesPerPage(maxRetriesPerPage);
+        }
+        client.run(range.pager::request);
+    }
+
+    private void onPagerError(Response response) {
+        synchronized (this) {
+            if (aborted) {
+                return;
+            }
+            failed = true;
+            // Nothing more is fetched or delivered, and onComplete never is
+            abort();
+            onComplete = null;
+        }
+        if (onError != null) {
+            onError.called(response);
+        }
+    }
+
+    private void onRangePage(Range range, AccountTxPager.Page page) {
+        synchronized (this) {
+            if (aborted) {
+                return;
+            }
+            range.buffered.add(new Page(range, page));
+            if (page.hasNext()) {
+                range.parked = page;
+            } else {
+                range.fetched = true;
+            }
+            advanceHead();
+            requestMore();
+        }
+        deliver();
+    }
+
+    private void acknowledge(Page page) {
+        synchronized (this) {
+            if (page.acknowledged) {
+                return;
+            }
+            page.acknowledged = true;
+            unacknowledged--;
+
+            Range range = page.range;
+            boolean progressed = false;
+            while (!range.unacknowledged.isEmpty() &&
+                    range.unacknowledged.peek().acknowledged) {
+                AccountTxPager.Page acked = range.unacknowledged.poll().page;
+                range.marker = acked.marker();
+                range.complete = !acked.hasNext();
+                progressed = true;
+            }
+            if (progressed && cursorStore != null) {
+                cursorStore.save(account, state());
+            }
+            if (!aborted) {
+                advanceHead();
+                requestMore();
+            }
+        }
+        deliver();
+        checkComplete();
+    }
+
+    /**
+     * Moves pages that can be delivered, in order, to the delivery queue,
+     * while fewer than maxUnacknowledgedPages are out with the consumer.
+     */
+    private void advanceHead() {
+        while (head < ranges.size()) {
+            Range range = ranges.get(head);
+            while (!range.buffered.isEmpty() &&
+                    unacknowledged < maxUnacknowledgedPages) {
+                Page page = range.buffered.poll();
+                range.unacknowledged.add(page);
+                deliveryQueue.add(page);
+                unacknowledged++;
+            }
+            if (range.fetched && range.buffered.isEmpty()) {
+                head++;
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void requestMore() {
+        for (Range range : ranges) {
+            if (range.parked == null) {
+                continue;
+            }
+            boolean allowed = range.index == head ?
+                    unacknowledged + range.buffered.size() < maxUnacknowledgedPages :
+                    range.buffered.size() < maxBufferedPagesPerRange;
+            if (allowed) {
+                AccountTxPager.Page parked = range.parked;
+                range.parked = null;
+                // We may be on the consumer's thread
+                clientFor(range).run(parked::requestNext);
+            }
+        }
+    }
+
+    /**
+     * Hands queued pages to the consumer outside of the lock, from only one
+     * thread at a time, so the consumer sees pages in order.
+     */
+    private void deliver() {
+        while (true) {
+            Page next;
+            synchronized (this) {
+                if (delivering || deliveryQueue.isEmpty() || aborted) {
+                    return;
+                }
+                delivering = true;
+                next = deliveryQueue.poll();
+            }
+            try {
+                onPage.onPage(next);
+            } finally {
+                synchronized (this) {
+                    delivering = false;
+                }
+            }
+        }
+    }
+
+    private void checkComplete() {
+        if (onComplete != null && isComplete()) {
+            OnComplete cb;
+            synchronized (this) {
+                cb = onComplete;
+                onComplete = null;
+            }
+            if (cb != null) {
+                cb.onComplete(this);
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@ public class AccountTxPager {
     private boolean forward = false;
     private int limit = 2000;
     private int maxRetries;
+    private Object startMarker = null;
 
     public interface Page {
         boolean hasNext();
@@ -32,6 +33,11 @@ public class AccountTxPager {
         long ledgerMax();
         long ledgerMin();
         int size();
+        /**
+         * @return the marker to resume from after this page, or null if this
+         * is the last page
+         */
+        Object marker();
         ArrayList<TransactionResult> transactionResults();
         JSONArray transactionsJSON();
     }
@@ -67,7 +73,7 @@ public class AccountTxPager {
         if (onPage == null) {
             throw new IllegalStateException("Forgot to set OnPage!");
         }
-        walkAccountTx(null);
+        walkAccountTx(startMarker);
     }
 
     public AccountTxPager maxRetriesPerPage(int retries) {
@@ -104,6 +110,15 @@ public class AccountTxPager {
         return this;
     }
 
+    /**
+     * Start from a marker previously returned by {@link Page#marker()}
+     * rather than from the start of the ledger range.
+     */
+    public AccountTxPager marker(Object marker) {
+        startMarker = marker;
+        return this;
+    }
+
     public AccountTxPager forward(boolean fwd)
     {
         forward = fwd;
@@ -180,14 +195,30 @@ public class AccountTxPager {
                 return transactions.length();
             }
 
+            @Override
+            public Object marker() {
+                return newMarker;
+            }
+
             @Override
             public ArrayList<TransactionResult> transactionResults() {
                 if (txns == null) {
-                    txns = new ArrayList<TransactionResult>();
+                    txns = new ArrayList<>(transactions.length());
                     for (int i = 0; i < transactions.length(); i++) {
                         JSONObject jsonObject = transactions.optJSONObject(i);
-                        txns.add(new TransactionResult(jsonObject,
-                                TransactionResult.Source.request_account_tx_binary));
+                        if (jsonObject.has("meta")) {
+                            TransactionResult tr = TransactionResult.fromBinary(
+                                    jsonObject.getString("tx_blob"),
+                                    jsonObject.getString("meta"),
+                                    jsonObject.getLong("ledger_index"),
+                                    null);
+                            tr.validated = jsonObject.optBoolean("validated", false);
+                            txns.add(tr);
+                        } else {
+                            // Nothing to decode a result from yet, see `validated`
+                            txns.add(new TransactionResult(jsonObject,
+                                    TransactionResult.Source.request_account_tx_binary));
+                        }
                     }
                 }
                 return txns;
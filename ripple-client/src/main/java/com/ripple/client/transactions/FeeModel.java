@@ -0,0 +1,204 @@
+package com.ripple.client.transactions;
+
+import com.ripple.client.Client;
+import com.ripple.client.enums.Command;
+import com.ripple.client.requests.Request;
+import com.ripple.client.responses.Response;
+import com.ripple.client.subscriptions.ServerInfo;
+import com.ripple.core.coretypes.Amount;
+import com.ripple.core.serialized.enums.EngineResult;
+import com.ripple.core.types.known.tx.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prices transactions for the open ledger's fee escalation and the transaction
+ * queue, rather than for the server's load alone.
+ *
+ * The queue is applied to each new open ledger in fee level order, until the
+ * escalated fee level of the ledger passes that of the next queued
+ * transaction. We assume that we outbid `percentile` of the queue, and price
+ * for the position behind the rest of it, which is never more than what it
+ * takes to skip the queue and get into the current open ledger.
+ *
+ * The escalation stats are kept in {@link ServerInfo}, from `fee` requests made
+ * by {@link #refresh(Runnable)} and the load_factor_fee_* fields of the server
+ * stream. They are only priced with for {@link ServerInfo#FEE_ESCALATION_MAX_AGE}
+ * ledgers, see {@link #stale()}.
+ */
+public class FeeModel {
+    public static final double DEFAULT_PERCENTILE = 0.5;
+    // A queued transaction is only replaced by one paying this much more
+    public static final double QUEUE_REPLACEMENT_MULTIPLIER = 1.25;
+    // In drops, as per ripple-lib's default maxFee of 2 XRP
+    public static final Amount DEFAULT_MAX_FEE = Amount.fromString("2000000");
+
+    private Client client;
+    private double percentile = DEFAULT_PERCENTILE;
+    private Amount maxFee = DEFAULT_MAX_FEE;
+
+    private Request refreshing = null;
+    private List<Runnable> afterRefresh = new ArrayList<>();
+
+    // Queue outcomes of submissions, see `onSubmitResult`
+    private long queued = 0;
+    private long rejectedForFee = 0;
+
+    public FeeModel(Client client) {
+        this.client = client;
+    }
+
+    /**
+     * @param percentile of the queue to outbid, between 0 and 1
+     */
+    public FeeModel percentile(double percentile) {
+        if (percentile < 0 || percentile > 1) {
+            throw new IllegalArgumentException("percentile must be between 0 and 1");
+        }
+        this.percentile = percentile;
+        return this;
+    }
+
+    /**
+     * @param maxFee in drops, or null for no limit
+     */
+    public FeeModel maxFee(Amount maxFee) {
+        this.maxFee = maxFee;
+        return this;
+    }
+
+    public long queued() {
+        return queued;
+    }
+
+    public long rejectedForFee() {
+        return rejectedForFee;
+    }
+
+    /**
+     * Requests `fee`, and runs `then` once the stats are updated, or the
+     * request has failed. Only one request is in flight at a time, so calls
+     * made in the meantime just wait for it.
+     */
+    public void refresh(Runnable then) {
+        if (then != null) {
+            afterRefresh.add(then);
+        }
+        if (refreshing != null) {
+            return;
+        }
+        refreshing = client.newRequest(Command.fee);
+        refreshing.onceResponse(response -> {
+            if (response.succeeded) {
+                client.serverInfo.updateFeeEscalation(response.result);
+            }
+            refreshed();
+        });
+        refreshing.onceTimeout(response -> refreshed());
+        refreshing.request();
+    }
+
+    /**
+     * @return whether the escalation stats are too old to price with, so
+     *         should be refreshed first
+     */
+    public boolean stale() {
+        return client.serverInfo.feeEscalationStale();
+    }
+
+    private void refreshed() {
+        refreshing = null;
+        List<Runnable> callbacks = afterRefresh;
+        afterRefresh = new ArrayList<>();
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+    }
+
+    /**
+     * @return the fee level predicted to get a transaction into the next
+     *         ledger, or the reference level without any escalation stats
+     */
+    public long nextLedgerLevel() {
+        ServerInfo info = client.serverInfo;
+        if (!info.hasFeeEscalation()) {
+            return info.reference_level;
+        }
+        long ahead = (long) Math.ceil(info.current_queue_size * (1 - percentile));
+        long level = Math.max(info.escalatedFeeLevel(ahead + 1), info.minimum_level);
+        if (info.open_ledger_level > 0) {
+            level = Math.min(level, info.open_ledger_level);
+        }
+        return level;
+    }
+
+    /**
+     * @param previous submission of the transaction, if any, which is never
+     *                 underbid, and is outbid enough to replace it in the queue
+     *                 when the server turned it down for its fee
+     * @param cushion  for the server's load, which can change before the
+     *                 transaction gets to it
+     */
+    public Amount fee(Transaction txn, Submission previous, double cushion) {
+        ServerInfo info = client.serverInfo;
+        Amount fee;
+        if (info.hasFeeEscalation()) {
+            // load_factor takes escalation into account too, which would
+            // override the queue's estimate once the open ledger is busy
+            fee = info.serverLoadFee(txn).multiply(cushion)
+                      .max(info.feeLevelToDrops(nextLedgerLevel(), info.fee_base));
+        } else {
+            fee = info.transactionFee(txn).multiply(cushion);
+        }
+        if (previous != null && previous.fee != null) {
+            if (fee.compareTo(previous.fee) > 0 || wasRejectedForFee(previous)) {
+                fee = fee.max(outbid(previous.fee));
+            } else {
+                // Keeps the same tx_blob, unless the Sequence has changed
+                fee = previous.fee;
+            }
+        }
+        if (maxFee != null && fee.compareTo(maxFee) > 0) {
+            // Though never less than was already paid
+            fee = previous == null || previous.fee == null ? maxFee : maxFee.max(previous.fee);
+        }
+        return fee;
+    }
+
+    /**
+     * Called with the engine_result of each submission, to follow the queue.
+     */
+    public void onSubmitResult(EngineResult ter) {
+        if (ter == EngineResult.terQUEUED) {
+            queued++;
+        } else if (isFeeRejection(ter)) {
+            rejectedForFee++;
+        }
+    }
+
+    public static boolean isFeeRejection(EngineResult ter) {
+        switch (ter) {
+            case telINSUF_FEE_P:
+            case telCAN_NOT_QUEUE_FEE:
+            case telCAN_NOT_QUEUE_FULL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean wasRejectedForFee(Submission submission) {
+        Response response = submission.request == null ? null : submission.request.response;
+        return response != null &&
+               response.succeeded &&
+               response.result.has("engine_result") &&
+               isFeeRejection(response.engineResult());
+    }
+
+    private static Amount outbid(Amount fee) {
+        long drops = (long) Math.ceil(Double.parseDouble(fee.toDropsString()) *
+                                      QUEUE_REPLACEMENT_MULTIPLIER);
+        return Amount.fromString(String.valueOf(drops));
+    }
+}
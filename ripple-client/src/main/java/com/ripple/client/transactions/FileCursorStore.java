@@ -0,0 +1,67 @@
+package com.ripple.client.transactions;
+
+import com.ripple.core.coretypes.AccountID;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps {@link AccountTxBackfill} progress as one json file per account in a
+ * directory. Each save writes a temporary file and atomically renames it over
+ * the previous one, so a crash leaves either the old or the new state.
+ */
+public class FileCursorStore implements AccountTxBackfill.CursorStore {
+    private final Path directory;
+
+    public FileCursorStore(Path directory) {
+        this.directory = directory;
+    }
+
+    private Path pathFor(AccountID account) {
+        return directory.resolve(account.address() + ".json");
+    }
+
+    @Override
+    public JSONObject load(AccountID account) {
+        Path path = pathFor(account);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            return new JSONObject(new String(bytes, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void save(AccountID account, JSONObject state) {
+        Path path = pathFor(account);
+        Path tmp = directory.resolve(account.address() + ".json.tmp");
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer bytes = ByteBuffer.wrap(state.toString().getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                // Durable before the rename makes it the current state
+                channel.force(true);
+            }
+            Files.move(tmp, path,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
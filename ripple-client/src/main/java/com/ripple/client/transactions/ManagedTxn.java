@@ -171,6 +171,14 @@ public class ManagedTxn extends SignedTransaction {
         trackSubmittedID();
     }
 
+    /**
+     * Tracks a submission made before a restart, see {@link SubmissionJournal}
+     */
+    public void restoreSubmission(Submission submission) {
+        submissions.add(submission);
+        submittedIDs.add(submission.hash);
+    }
+
     public void trackSubmittedID() {
         submittedIDs.add(hash);
     }
@@ -16,6 +16,8 @@ public class Submission {
     // The latest KNOWN validated ledger at the time of submission, not necessarily at the
     // time of submit response
     public long ledgerSequence;
+    // ms since unix epoch when the submission was made
+    public long submittedAt;
 
     public Submission(Request request, UInt32 sequence, Hash256 hash, long ledgerSequence, Amount fee, UInt32 lastLedgerIndex) {
         this.request = request;
@@ -24,5 +26,6 @@ public class Submission {
         this.ledgerSequence = ledgerSequence;
         this.fee = fee;
         this.lastLedgerSequence = lastLedgerIndex;
+        this.submittedAt = System.currentTimeMillis();
     }
 }
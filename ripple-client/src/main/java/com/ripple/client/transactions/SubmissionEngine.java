@@ -0,0 +1,690 @@
+package com.ripple.client.transactions;
+
+import com.ripple.client.Client;
+import com.ripple.client.enums.Command;
+import com.ripple.client.pubsub.Publisher;
+import com.ripple.client.requests.Request;
+import com.ripple.client.responses.Response;
+import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.coretypes.Amount;
+import com.ripple.core.coretypes.hash.Hash256;
+import com.ripple.core.coretypes.uint.UInt32;
+import com.ripple.core.fields.Field;
+import com.ripple.core.serialized.enums.EngineResult;
+import com.ripple.core.types.known.tx.Transaction;
+import com.ripple.core.types.known.tx.result.TransactionResult;
+import com.ripple.core.types.known.tx.txns.AccountSet;
+import com.ripple.core.types.known.tx.txns.TicketCreate;
+import com.ripple.crypto.keys.IKeyPair;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Submits transactions for many accounts at once, eg. for bulk payouts from
+ * a handful of hot wallets, tracking each until it's validated.
+ *
+ * Unlike {@link TransactionManager}, which waits on each account's Sequence
+ * in turn, sequences are allocated locally, and many transactions per account
+ * are kept in flight. With {@link #tickets(AccountID, int)} an account keeps
+ * a pool of tickets topped up with TicketCreate, and uses them before
+ * sequences, so a transaction that fails or expires doesn't hold up the
+ * ones after it. No Sequence is handed out while a TicketCreate is in flight,
+ * as only one that succeeds takes the sequences after its own. One that fails
+ * stops the top ups, until {@link #tickets(AccountID, int)} is called again.
+ *
+ * Submits are batched per ledger: queued transactions are sent when a ledger
+ * closes, round robin between accounts, up to
+ * {@link #maxSubmitsPerLedger(int)}. Each submission's LastLedgerSequence
+ * bounds how long it can take, after which it's resubmitted (re-signed, with
+ * the same Sequence or ticket) up to {@link #maxAttempts(int)} times.
+ *
+ * A transaction which gives up without consuming its Sequence has it plugged
+ * with a no-op AccountSet, so the account's later transactions can clear; an
+ * unused ticket is returned to the pool. Neither that, nor moving a
+ * transaction to a new Sequence or ticket, happens until none of its
+ * submissions can still validate: the account's history is checked with
+ * account_tx once they're all past their LastLedgerSequence, rather than
+ * trusting that the transaction stream missed nothing.
+ *
+ * Results are reported through the {@link ManagedTxn} events, eg.
+ * {@link ManagedTxn#onValidated} and {@link ManagedTxn#onError}. Validated
+ * transactions with a `tec` result are reported as validated, as their
+ * Sequence was consumed.
+ *
+ * All state is kept on the client thread; {@link #submit(Transaction)} may be
+ * called from any.
+ */
+public class SubmissionEngine extends Publisher<SubmissionEngine.events<?>> {
+    public interface events<T> extends Publisher.Callback<T> {}
+    // Emitted with the number of transactions submitted for a ledger
+    public interface OnBatchSubmitted extends events<Integer> {}
+
+    public static final int DEFAULT_MAX_SUBMITS_PER_LEDGER = 500;
+    // rippled's transaction queue holds at most 10 per account
+    public static final int DEFAULT_MAX_IN_FLIGHT_PER_ACCOUNT = 10;
+    public static final int DEFAULT_LEDGERS_UNTIL_EXPIRY = 8;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final int MAX_TICKETS_PER_CREATE = 250;
+
+    private final Client client;
+    private final Map<AccountID, Wallet> walletsByAccount = new ConcurrentHashMap<>();
+    private final List<Wallet> wallets = new CopyOnWriteArrayList<>();
+    // Every hash submitted for a transaction not yet finalized
+    private final Map<Hash256, Entry> bySubmittedHash = new HashMap<>();
+
+    private double feeCushion = TransactionManager.DEFAULT_FEE_CUSHION;
+    private int maxSubmitsPerLedger = DEFAULT_MAX_SUBMITS_PER_LEDGER;
+    private int maxInFlightPerAccount = DEFAULT_MAX_IN_FLIGHT_PER_ACCOUNT;
+    private int ledgersUntilExpiry = DEFAULT_LEDGERS_UNTIL_EXPIRY;
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    private class Entry {
+        final ManagedTxn txn;
+        final Wallet wallet;
+        // One or the other, once allocated
+        UInt32 sequence, ticket;
+        // Times submitted with a fresh LastLedgerSequence
+        int attempts = 0;
+        // To be resubmitted, as is, with the next batch
+        boolean retry = false;
+        // For TicketCreate
+        int ticketCount = 0;
+        // No longer submitted, and run once none of its submissions can
+        // validate, unless one has
+        Runnable whenSettled;
+
+        Entry(ManagedTxn txn, Wallet wallet) {
+            this.txn = txn;
+            this.wallet = wallet;
+        }
+    }
+
+    private class Wallet {
+        final AccountID account;
+        final IKeyPair keyPair;
+        // Unknown until account_info
+        long nextSequence = -1;
+        boolean syncing = false;
+        int ticketTarget = 0;
+        // In flight, holding up any more sequences being handed out
+        Entry ticketCreate;
+        // Checking account_tx for what happened to settling entries
+        boolean reconciling = false;
+        final TreeSet<Long> tickets = new TreeSet<>();
+        final ArrayDeque<Entry> queue = new ArrayDeque<>();
+        final List<Entry> inFlight = new ArrayList<>();
+
+        Wallet(AccountID account, IKeyPair keyPair) {
+            this.account = account;
+            this.keyPair = keyPair;
+        }
+
+        /**
+         * @return the next entry to submit, with its Sequence or ticket
+         *         allocated, or null if there's nothing to send now
+         */
+        Entry next() {
+            if (nextSequence < 0 || syncing) {
+                return null;
+            }
+            for (Entry entry : inFlight) {
+                if (entry.retry) {
+                    return entry;
+                }
+            }
+            if (inFlight.size() >= maxInFlightPerAccount) {
+                return null;
+            }
+            Entry entry = ticketCreateIfLow();
+            if (entry == null) {
+                entry = queue.peekFirst();
+                if (entry == null) {
+                    return null;
+                }
+                if (entry.sequence == null && entry.ticket == null) {
+                    if (!tickets.isEmpty()) {
+                        entry.ticket = new UInt32(tickets.pollFirst());
+                    } else if (ticketCreate != null) {
+                        // The next Sequence depends on whether it succeeds
+                        return null;
+                    } else {
+                        entry.sequence = new UInt32(nextSequence++);
+                    }
+                }
+                queue.pollFirst();
+            }
+            inFlight.add(entry);
+            return entry;
+        }
+
+        private Entry ticketCreateIfLow() {
+            int have = tickets.size();
+            if (ticketCreate != null || ticketTarget == 0 || have * 2 > ticketTarget) {
+                return null;
+            }
+            TicketCreate create = new TicketCreate();
+            create.account(account);
+            Entry entry = new Entry(new ManagedTxn(create), this);
+            entry.ticketCount = Math.min(MAX_TICKETS_PER_CREATE, ticketTarget - have);
+            create.ticketCount(new UInt32(entry.ticketCount));
+            // The tickets take the sequences following this, once validated
+            entry.sequence = new UInt32(nextSequence++);
+            ticketCreate = entry;
+            return entry;
+        }
+    }
+
+    public SubmissionEngine(Client client) {
+        this.client = client;
+        client.onLedgerClosed(serverInfo -> onLedgerClosed(serverInfo.ledger_index));
+        client.onValidatedTransaction(this::onValidated);
+    }
+
+    public SubmissionEngine feeCushion(double multiplier) {
+        feeCushion = multiplier;
+        return this;
+    }
+
+    public SubmissionEngine maxSubmitsPerLedger(int max) {
+        maxSubmitsPerLedger = max;
+        return this;
+    }
+
+    public SubmissionEngine maxInFlightPerAccount(int max) {
+        maxInFlightPerAccount = max;
+        return this;
+    }
+
+    /**
+     * @param ledgers the LastLedgerSequence of each submission, relative to
+     *                the last closed ledger
+     */
+    public SubmissionEngine ledgersUntilExpiry(int ledgers) {
+        ledgersUntilExpiry = ledgers;
+        return this;
+    }
+
+    public SubmissionEngine maxAttempts(int max) {
+        maxAttempts = max;
+        return this;
+    }
+
+    /**
+     * Adds an account to submit for, subscribing to its transactions and
+     * requesting its Sequence.
+     */
+    public SubmissionEngine addAccount(AccountID account, IKeyPair keyPair) {
+        Wallet wallet = new Wallet(account, keyPair);
+        if (walletsByAccount.putIfAbsent(account, wallet) == null) {
+            wallets.add(wallet);
+            client.run(() -> {
+                client.subscriptions.addAccount(account);
+                sync(wallet);
+            });
+        }
+        return this;
+    }
+
+    /**
+     * @param target the number of tickets to keep the account stocked with,
+     *               topped up once it falls to half, or 0 to only use
+     *               sequences
+     */
+    public SubmissionEngine tickets(AccountID account, int target) {
+        Wallet wallet = wallet(account);
+        client.run(() -> wallet.ticketTarget = target);
+        return this;
+    }
+
+    private Wallet wallet(AccountID account) {
+        Wallet wallet = walletsByAccount.get(account);
+        if (wallet == null) {
+            throw new IllegalArgumentException(account + " hasn't been added");
+        }
+        return wallet;
+    }
+
+    /**
+     * Queues the transaction, for its Account, to be submitted with the next
+     * ledger's batch. Any Sequence, Fee and LastLedgerSequence are set by the
+     * engine.
+     */
+    public ManagedTxn submit(Transaction txn) {
+        Wallet wallet = wallet(txn.account());
+        ManagedTxn managed = new ManagedTxn(txn);
+        client.run(() -> wallet.queue.addLast(new Entry(managed, wallet)));
+        return managed;
+    }
+
+    /**
+     * @return the number of transactions waiting to be submitted, from the
+     *         client thread
+     */
+    public int queued() {
+        int n = 0;
+        for (Wallet wallet : wallets) {
+            n += wallet.queue.size();
+        }
+        return n;
+    }
+
+    /**
+     * @return the number of transactions submitted but not yet finalized,
+     *         from the client thread
+     */
+    public int inFlight() {
+        int n = 0;
+        for (Wallet wallet : wallets) {
+            n += wallet.inFlight.size();
+        }
+        return n;
+    }
+
+    /**
+     * @return the account's unused tickets, from the client thread
+     */
+    public int ticketsAvailable(AccountID account) {
+        return wallet(account).tickets.size();
+    }
+
+    private boolean canSubmit() {
+        return client.connected &&
+               client.serverInfo.primed() &&
+               client.serverInfo.fee_base != 0;
+    }
+
+    private void onLedgerClosed(long ledgerIndex) {
+        for (Wallet wallet : wallets) {
+            expire(wallet, ledgerIndex);
+            reconcile(wallet, ledgerIndex);
+            if (wallet.nextSequence < 0 && !wallet.syncing) {
+                sync(wallet);
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Submits what's queued now, rather than waiting for the next ledger.
+     * Must be called on the client thread.
+     */
+    public void flush() {
+        if (!canSubmit()) {
+            return;
+        }
+        int submitted = 0;
+        boolean progress = true;
+        while (progress && submitted < maxSubmitsPerLedger) {
+            progress = false;
+            for (Wallet wallet : wallets) {
+                if (submitted == maxSubmitsPerLedger) {
+                    break;
+                }
+                Entry entry = wallet.next();
+                if (entry != null) {
+                    doSubmitRequest(entry);
+                    submitted++;
+                    progress = true;
+                }
+            }
+        }
+        if (submitted > 0) {
+            emit(OnBatchSubmitted.class, submitted);
+        }
+    }
+
+    private void sync(final Wallet wallet) {
+        wallet.syncing = true;
+        Request request = client.newRequest(Command.account_info);
+        request.json("account", wallet.account);
+        // Includes what's been applied to the open ledger
+        request.json("ledger_index", "current");
+        request.onceSuccess(response -> {
+            long sequence = response.result.getJSONObject("account_data").getLong("Sequence");
+            wallet.nextSequence = Math.max(wallet.nextSequence, sequence);
+            wallet.syncing = false;
+        });
+        // Tried again on the next ledger close
+        request.onceError(response -> wallet.syncing = false);
+        request.request();
+    }
+
+    private void doSubmitRequest(final Entry entry) {
+        ManagedTxn txn = entry.txn;
+        Amount fee = client.serverInfo.transactionFee(txn.txn).multiply(feeCushion);
+        long currentLedgerIndex = client.serverInfo.ledger_index;
+        UInt32 lastLedgerSequence = new UInt32(currentLedgerIndex + ledgersUntilExpiry);
+
+        UInt32 sequence = entry.sequence;
+        if (entry.ticket != null) {
+            txn.txn.ticketSequence(entry.ticket);
+            sequence = UInt32.ZERO;
+        }
+        txn.prepare(entry.wallet.keyPair, fee, sequence, lastLedgerSequence);
+
+        final Request req = client.newRequest(Command.submit);
+        req.json("tx_blob", txn.tx_blob);
+        req.onceSuccess(response -> handleSubmitSuccess(entry, response));
+        req.onceError(response -> handleSubmitError(entry, response));
+
+        txn.trackSubmitRequest(req, currentLedgerIndex);
+        bySubmittedHash.put(txn.hash, entry);
+        entry.attempts++;
+        entry.retry = false;
+        client.metrics().transactionSubmitted();
+        req.request();
+    }
+
+    private void handleSubmitError(Entry entry, Response res) {
+        if (entry.txn.finalizedOrResponseIsToPriorSubmission(res) ||
+                entry.whenSettled != null) {
+            return;
+        }
+        // Network trouble, or an overloaded server
+        retry(entry, res);
+    }
+
+    private void handleSubmitSuccess(Entry entry, Response res) {
+        ManagedTxn txn = entry.txn;
+        if (txn.finalizedOrResponseIsToPriorSubmission(res) ||
+                entry.whenSettled != null) {
+            return;
+        }
+        EngineResult ter = res.engineResult();
+        switch (ter) {
+            case tesSUCCESS:
+                txn.emit(ManagedTxn.OnSubmitSuccess.class, res);
+                return;
+            case terQUEUED:
+            case terPRE_SEQ:
+            case terPRE_TICKET:
+            case tefALREADY:
+                // Wait for it to clear, or for LastLedgerSequence to expire
+                return;
+            case tefPAST_SEQ:
+                // Taken by a transaction we didn't submit, unless by an
+                // earlier submission of this one
+                afterEarlierSubmissions(entry, () -> reallocate(entry));
+                sync(entry.wallet);
+                return;
+            case tefNO_TICKET:
+                afterEarlierSubmissions(entry, () -> reallocate(entry));
+                return;
+            case tefMAX_LEDGER:
+            case telINSUF_FEE_P:
+            case telCAN_NOT_QUEUE:
+            case telCAN_NOT_QUEUE_BALANCE:
+            case telCAN_NOT_QUEUE_BLOCKS:
+            case telCAN_NOT_QUEUE_BLOCKED:
+            case telCAN_NOT_QUEUE_FEE:
+            case telCAN_NOT_QUEUE_FULL:
+                retry(entry, res);
+                return;
+        }
+        switch (ter.resultClass()) {
+            case tecCLAIM:
+                // Sequence consumed, so it will be validated
+                txn.emit(ManagedTxn.OnSubmitSuccess.class, res);
+                break;
+            case telLOCAL_ERROR:
+            case terRETRY:
+                retry(entry, res);
+                break;
+            case temMALFORMED:
+            case tefFAILURE:
+            default:
+                afterEarlierSubmissions(entry, () -> giveUp(entry, res));
+                break;
+        }
+    }
+
+    /**
+     * Runs `then` for a transaction whose last submission was rejected, once
+     * none of the earlier ones can validate either.
+     */
+    private void afterEarlierSubmissions(Entry entry, Runnable then) {
+        if (entry.txn.submissions.size() == 1) {
+            then.run();
+        } else {
+            settle(entry, then);
+        }
+    }
+
+    /**
+     * Stops submitting the transaction, and runs `then` once {@link
+     * #reconcile} has found that none of its submissions validated.
+     */
+    private void settle(Entry entry, Runnable then) {
+        entry.whenSettled = then;
+        entry.retry = false;
+    }
+
+    /**
+     * Retries the last submission of expired transactions, or settles them
+     * to be given up on. Another ledger is allowed for the transaction stream
+     * to catch up, as {@link TransactionManager} does.
+     */
+    private void expire(Wallet wallet, long ledgerIndex) {
+        for (Entry entry : new ArrayList<>(wallet.inFlight)) {
+            Submission last = entry.txn.lastSubmission();
+            if (entry.retry || entry.whenSettled != null || last == null ||
+                    !isPastLastLedger(last, ledgerIndex)) {
+                continue;
+            }
+            retry(entry, last.request.response);
+        }
+    }
+
+    /**
+     * Resubmits the transaction with the next batch, unless it's been
+     * submitted maxAttempts times, when it's settled to be given up on.
+     */
+    private void retry(Entry entry, Response response) {
+        if (entry.attempts < maxAttempts) {
+            entry.retry = true;
+        } else {
+            settle(entry, () -> giveUp(entry, response));
+        }
+    }
+
+    private static boolean isPastLastLedger(Submission submission, long ledgerIndex) {
+        int safety = 1;
+        return ledgerIndex - safety > submission.lastLedgerSequence.longValue();
+    }
+
+    /**
+     * Pages through the account's transactions, over the ledgers that the
+     * settling transactions could have validated in, once they're all past
+     * their LastLedgerSequence. Any found validated are finalized as such,
+     * as the stream may have missed them, and the rest are acted on. Much
+     * as {@link TransactionManager} checks account_tx before resubmitting
+     * with a new Sequence.
+     */
+    private void reconcile(Wallet wallet, long ledgerIndex) {
+        if (wallet.reconciling) {
+            return;
+        }
+        List<Entry> settling = new ArrayList<>();
+        long min = Long.MAX_VALUE, max = -1;
+        for (Entry entry : wallet.inFlight) {
+            Submission last = entry.txn.lastSubmission();
+            if (entry.whenSettled == null || !isPastLastLedger(last, ledgerIndex)) {
+                continue;
+            }
+            settling.add(entry);
+            min = Math.min(min, entry.txn.submissions.get(0).ledgerSequence);
+            max = Math.max(max, last.lastLedgerSequence.longValue());
+        }
+        if (settling.isEmpty()) {
+            return;
+        }
+        wallet.reconciling = true;
+        final long ledgerMin = min, ledgerMax = max;
+        new AccountTxPager(client, wallet.account, page -> {
+            for (TransactionResult tr : page.transactionResults()) {
+                if (tr.validated) {
+                    onValidated(tr);
+                }
+            }
+            if (page.hasNext()) {
+                page.requestNext();
+                return;
+            }
+            wallet.reconciling = false;
+            if (page.ledgerMin() > ledgerMin || page.ledgerMax() < ledgerMax) {
+                // The server is missing some of the history, try again later
+                return;
+            }
+            for (Entry entry : settling) {
+                if (entry.whenSettled != null && wallet.inFlight.contains(entry)) {
+                    Runnable then = entry.whenSettled;
+                    entry.whenSettled = null;
+                    then.run();
+                }
+            }
+        }, ledgerMin, ledgerMax)
+                .forward(true)
+                .onError(response -> wallet.reconciling = false)
+                .request();
+    }
+
+    /**
+     * Finalizes a transaction which didn't consume its Sequence or ticket,
+     * freeing those for others.
+     */
+    private void giveUp(Entry entry, Response response) {
+        Wallet wallet = entry.wallet;
+        finalize(entry);
+        if (entry.ticket != null) {
+            wallet.tickets.add(entry.ticket.longValue());
+        } else if (entry.sequence != null && !entry.txn.isSequencePlug()) {
+            queueSequencePlug(wallet, entry.sequence);
+        }
+        if (entry == wallet.ticketCreate) {
+            wallet.ticketCreate = null;
+            wallet.ticketTarget = 0;
+        }
+        if (response == null || response.rpcerr != null) {
+            entry.txn.emit(ManagedTxn.OnSubmitError.class, response);
+        } else {
+            entry.txn.emit(ManagedTxn.OnSubmitFailure.class, response);
+        }
+    }
+
+    private void queueSequencePlug(Wallet wallet, UInt32 sequence) {
+        AccountSet accountSet = new AccountSet();
+        accountSet.account(wallet.account);
+        ManagedTxn plug = new ManagedTxn(accountSet);
+        plug.setSequencePlug(true);
+        Entry entry = new Entry(plug, wallet);
+        entry.sequence = sequence;
+        wallet.queue.addFirst(entry);
+    }
+
+    /**
+     * Puts the transaction back at the front of the queue, to be given a new
+     * Sequence or ticket, as another transaction used its own.
+     */
+    private void reallocate(Entry entry) {
+        Wallet wallet = entry.wallet;
+        wallet.inFlight.remove(entry);
+        forgetHashes(entry);
+        if (entry.txn.isSequencePlug()) {
+            // The gap it was for is filled
+            entry.txn.setFinalized();
+            return;
+        }
+        if (entry == wallet.ticketCreate) {
+            // Created afresh, for a new Sequence, by the next batch
+            wallet.ticketCreate = null;
+            entry.txn.setFinalized();
+            return;
+        }
+        entry.txn.txn.remove(Field.TicketSequence);
+        entry.sequence = null;
+        entry.ticket = null;
+        entry.retry = false;
+        entry.whenSettled = null;
+        entry.attempts = 0;
+        wallet.queue.addFirst(entry);
+    }
+
+    private void finalize(Entry entry) {
+        entry.txn.setFinalized();
+        entry.wallet.inFlight.remove(entry);
+        forgetHashes(entry);
+    }
+
+    private void forgetHashes(Entry entry) {
+        for (Submission submission : entry.txn.submissions) {
+            bySubmittedHash.remove(submission.hash);
+        }
+    }
+
+    private void onValidated(TransactionResult tr) {
+        Entry entry = bySubmittedHash.get(tr.hash);
+        if (entry != null) {
+            finalize(entry);
+            Wallet wallet = entry.wallet;
+            if (entry == wallet.ticketCreate) {
+                wallet.ticketCreate = null;
+                if (tr.engineResult == EngineResult.tesSUCCESS) {
+                    long first = entry.sequence.longValue() + 1;
+                    for (long t = first; t < first + entry.ticketCount; t++) {
+                        wallet.tickets.add(t);
+                    }
+                    wallet.nextSequence = Math.max(wallet.nextSequence, first + entry.ticketCount);
+                } else {
+                    // Its Sequence is used, but it would likely fail again
+                    wallet.ticketTarget = 0;
+                }
+            }
+            client.metrics().transactionValidated(
+                    System.currentTimeMillis() - entry.txn.submissions.get(0).submittedAt,
+                    entry.txn.submissions.size());
+            entry.txn.emit(ManagedTxn.OnTransactionValidated.class, tr);
+            return;
+        }
+        Wallet wallet = walletsByAccount.get(tr.initiatingAccount());
+        if (wallet != null) {
+            consumedElsewhere(wallet, tr.txn);
+        }
+    }
+
+    /**
+     * A transaction from one of our accounts that we didn't submit, which
+     * may have used a Sequence or ticket we'd allocated
+     */
+    private void consumedElsewhere(Wallet wallet, Transaction txn) {
+        UInt32 ticket = txn.ticketSequence();
+        UInt32 sequence = txn.sequence();
+        if (ticket != null) {
+            wallet.tickets.remove(ticket.longValue());
+        } else if (sequence != null && sequence.longValue() >= wallet.nextSequence) {
+            wallet.nextSequence = sequence.longValue() + 1;
+        }
+        for (Entry entry : new ArrayList<>(wallet.inFlight)) {
+            if ((ticket != null && entry.ticket != null && ticket.equals(entry.ticket)) ||
+                    (ticket == null && entry.sequence != null && entry.sequence.equals(sequence))) {
+                reallocate(entry);
+            }
+        }
+        Iterator<Entry> queued = wallet.queue.iterator();
+        while (queued.hasNext()) {
+            Entry entry = queued.next();
+            // Only plugs are queued with a Sequence
+            if (ticket == null && entry.sequence != null && entry.sequence.equals(sequence)) {
+                entry.txn.setFinalized();
+                queued.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,527 @@
+package com.ripple.client.transactions;
+
+import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.coretypes.Amount;
+import com.ripple.core.coretypes.STObject;
+import com.ripple.core.coretypes.hash.Hash256;
+import com.ripple.core.coretypes.uint.UInt32;
+import com.ripple.core.types.known.tx.Transaction;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * An append only, on disk journal of {@link ManagedTxn} submissions, so that a
+ * {@link TransactionManager} can pick up tracking its transactions after a
+ * restart, see {@link TransactionManager#attachJournal(SubmissionJournal)}.
+ *
+ * Each submission (signed blob, hash, Sequence, LastLedgerSequence, fee) and
+ * each change of state is appended as a line of json, prefixed with its
+ * CRC32. Appends are buffered and written and fsynced together every
+ * `syncIntervalMs`. A submission is only put on the wire once its record has
+ * been fsynced, see {@link #submitted(AccountID, ManagedTxn, Runnable)}, so
+ * nothing that reached the network is lost. If writing fails, what's waiting
+ * is sent anyway, and every append from then on throws. A crash can lose at
+ * most the last `syncIntervalMs` of state changes, which is safe, as the
+ * transactions they concern are still reconciled against the account, just
+ * as TransactionManager always does.
+ *
+ * On opening, the journal is replayed and compacted, rewriting only the
+ * transactions not yet finalized to a temporary file which is atomically
+ * renamed over the old one. A torn final line is dropped, but a corrupt line
+ * anywhere else fails the open, leaving the file as it was.
+ */
+public class SubmissionJournal implements AutoCloseable {
+    public static final long DEFAULT_SYNC_INTERVAL_MS = 10;
+
+    public enum State {
+        // Submitted, and awaiting validation
+        submitted,
+        // Provisionally failed, but watched until LastLedgerSequence expires
+        failed,
+        // Validated, and no longer tracked
+        validated,
+        // Past its LastLedgerSequence without validating, and no longer tracked
+        expired;
+
+        boolean isFinal() {
+            return this == validated || this == expired;
+        }
+    }
+
+    public static class Submitted {
+        public final Hash256 hash;
+        public final UInt32 lastLedgerSequence;
+        public final Amount fee;
+        public final long ledgerSequence;
+        public final long submittedAt;
+
+        Submitted(Hash256 hash, UInt32 lastLedgerSequence, Amount fee,
+                  long ledgerSequence, long submittedAt) {
+            this.hash = hash;
+            this.lastLedgerSequence = lastLedgerSequence;
+            this.fee = fee;
+            this.ledgerSequence = ledgerSequence;
+            this.submittedAt = submittedAt;
+        }
+    }
+
+    /**
+     * A journaled transaction, as replayed
+     */
+    public static class Entry {
+        public final long id;
+        public final AccountID account;
+        public State state = State.submitted;
+        // Of the last submission
+        public String tx_blob;
+        public UInt32 sequence;
+        public final List<Submitted> submissions = new ArrayList<>();
+
+        Entry(long id, AccountID account) {
+            this.id = id;
+            this.account = account;
+        }
+
+        public Submitted lastSubmission() {
+            return submissions.get(submissions.size() - 1);
+        }
+
+        /**
+         * @return the transaction as last submitted, with all its previous
+         *         submissions tracked, but no requests in flight
+         */
+        ManagedTxn toManagedTxn() {
+            ManagedTxn txn = new ManagedTxn((Transaction) STObject.fromHex(tx_blob));
+            txn.tx_blob = tx_blob;
+            txn.hash = lastSubmission().hash;
+            for (Submitted submitted : submissions) {
+                Submission submission = new Submission(null, sequence, submitted.hash,
+                        submitted.ledgerSequence, submitted.fee,
+                        submitted.lastLedgerSequence);
+                submission.submittedAt = submitted.submittedAt;
+                txn.restoreSubmission(submission);
+            }
+            return txn;
+        }
+    }
+
+    static final Logger logger = Logger.getLogger(SubmissionJournal.class.getName());
+
+    private final Path path;
+    // Package private so tests can break it
+    final FileChannel channel;
+    private final ScheduledExecutorService syncer;
+
+    // Guarded by `this`
+    private final Map<Long, Entry> live = new LinkedHashMap<>();
+    private final Map<ManagedTxn, Long> ids = new IdentityHashMap<>();
+    private long nextId = 1;
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    // Run once everything buffered before them is fsynced
+    private List<Runnable> afterSync = new ArrayList<>();
+    private IOException failure = null;
+
+    // Guards writing to the channel, so appending needn't wait on fsync
+    private final Object writeLock = new Object();
+    private long syncs = 0;
+
+    public SubmissionJournal(Path path) {
+        this(path, DEFAULT_SYNC_INTERVAL_MS);
+    }
+
+    /**
+     * @param syncIntervalMs how often appends are written and fsynced, or 0
+     *                       to do so on every append
+     */
+    public SubmissionJournal(Path path, long syncIntervalMs) {
+        this.path = path;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            replay();
+            compact();
+            channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        if (syncIntervalMs > 0) {
+            syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "submission-journal");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncer.scheduleWithFixedDelay(this::syncQuietly,
+                    syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            syncer = null;
+        }
+    }
+
+    /* --------------------------------- REPLAY --------------------------------- */
+
+    private void replay() throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                JSONObject record = decode(line);
+                if (record == null) {
+                    if (reader.readLine() == null) {
+                        // Torn by a crash mid write
+                        break;
+                    }
+                    // Compacting would lose every valid record after it
+                    throw new IOException("Corrupt record at line " + number +
+                            " of " + path + ", with more records after it");
+                }
+                apply(record);
+            }
+        }
+    }
+
+    private static JSONObject decode(String line) {
+        int space = line.indexOf(' ');
+        if (space < 0) {
+            return null;
+        }
+        String json = line.substring(space + 1);
+        try {
+            long crc = Long.parseLong(line.substring(0, space), 16);
+            if (crc != crc32(json.getBytes(StandardCharsets.UTF_8))) {
+                return null;
+            }
+            return new JSONObject(json);
+        } catch (NumberFormatException | JSONException e) {
+            return null;
+        }
+    }
+
+    private void apply(JSONObject record) {
+        long id = record.getLong("id");
+        nextId = Math.max(nextId, id + 1);
+        String op = record.getString("op");
+        if (op.equals("submit")) {
+            Entry entry = live.get(id);
+            if (entry == null) {
+                entry = new Entry(id, AccountID.fromAddress(record.getString("account")));
+                live.put(id, entry);
+            }
+            entry.state = State.submitted;
+            entry.tx_blob = record.getString("tx_blob");
+            entry.sequence = new UInt32(record.getLong("sequence"));
+            entry.submissions.add(new Submitted(
+                    Hash256.fromHex(record.getString("hash")),
+                    new UInt32(record.getLong("last_ledger_sequence")),
+                    Amount.fromString(record.getString("fee")),
+                    record.getLong("ledger"),
+                    record.getLong("at")));
+        } else {
+            State state = State.valueOf(op);
+            if (state.isFinal()) {
+                live.remove(id);
+            } else {
+                Entry entry = live.get(id);
+                if (entry != null) {
+                    entry.state = state;
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrites just the live entries
+     */
+    private void compact() throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Entry entry : live.values()) {
+            for (Submitted submitted : entry.submissions) {
+                encode(out, submitRecord(entry.id, entry.account, entry.sequence,
+                        entry.tx_blob, submitted));
+            }
+            if (entry.state != State.submitted) {
+                encode(out, stateRecord(entry.id, entry.state));
+            }
+        }
+        try (FileChannel rewritten = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            rewritten.write(ByteBuffer.wrap(out.toByteArray()));
+            rewritten.force(true);
+        }
+        Files.move(tmp, path,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(path.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Makes a rename in `directory` durable. Not every platform can open a
+     * directory to do so, in which case this is best effort.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Couldn't fsync " + directory, e);
+        }
+    }
+
+    /* --------------------------------- APPENDS -------------------------------- */
+
+    private static JSONObject submitRecord(long id, AccountID account, UInt32 sequence,
+                                           String txBlob, Submitted submitted) {
+        JSONObject record = new JSONObject();
+        record.put("op", "submit");
+        record.put("id", id);
+        record.put("account", account.address());
+        record.put("sequence", sequence.longValue());
+        record.put("hash", submitted.hash.toHex());
+        record.put("last_ledger_sequence", submitted.lastLedgerSequence.longValue());
+        record.put("fee", submitted.fee.toDropsString());
+        record.put("ledger", submitted.ledgerSequence);
+        record.put("at", submitted.submittedAt);
+        record.put("tx_blob", txBlob);
+        return record;
+    }
+
+    private static JSONObject stateRecord(long id, State state) {
+        JSONObject record = new JSONObject();
+        record.put("op", state.name());
+        record.put("id", id);
+        return record;
+    }
+
+    private static long crc32(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    private static void encode(ByteArrayOutputStream out, JSONObject record) {
+        byte[] json = record.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] prefix = (Long.toHexString(crc32(json)) + " ").getBytes(StandardCharsets.UTF_8);
+        out.write(prefix, 0, prefix.length);
+        out.write(json, 0, json.length);
+        out.write('\n');
+    }
+
+    private void append(JSONObject record, Runnable then) {
+        synchronized (this) {
+            if (failure != null) {
+                throw new RuntimeException(failure);
+            }
+            encode(buffer, record);
+            if (then != null) {
+                afterSync.add(then);
+            }
+        }
+        if (syncer == null) {
+            syncQuietly();
+        }
+    }
+
+    /**
+     * Journals the latest submission of the transaction, which must have
+     * been tracked with {@link ManagedTxn#trackSubmitRequest}
+     */
+    public void submitted(AccountID account, ManagedTxn txn) {
+        submitted(account, txn, null);
+    }
+
+    /**
+     * As {@link #submitted(AccountID, ManagedTxn)}, but with a callback to send
+     * the submission from, on the syncing thread, once its record is fsynced
+     * along with the rest of the group. If the journal can't be written, it's
+     * called regardless, without the record being durable.
+     */
+    public void submitted(AccountID account, ManagedTxn txn, Runnable then) {
+        Submission last = txn.lastSubmission();
+        Submitted submitted = new Submitted(last.hash, last.lastLedgerSequence, last.fee,
+                last.ledgerSequence, last.submittedAt);
+        JSONObject record;
+        synchronized (this) {
+            Long id = ids.get(txn);
+            if (id == null) {
+                id = nextId++;
+                ids.put(txn, id);
+            }
+            Entry entry = live.get(id);
+            if (entry == null) {
+                entry = new Entry(id, account);
+                live.put(id, entry);
+            }
+            entry.state = State.submitted;
+            entry.tx_blob = txn.tx_blob;
+            entry.sequence = txn.sequence();
+            entry.submissions.add(submitted);
+            record = submitRecord(id, account, entry.sequence, txn.tx_blob, submitted);
+        }
+        append(record, then);
+    }
+
+    public void failed(ManagedTxn txn) {
+        transition(txn, State.failed);
+    }
+
+    public void validated(ManagedTxn txn) {
+        transition(txn, State.validated);
+    }
+
+    public void expired(ManagedTxn txn) {
+        transition(txn, State.expired);
+    }
+
+    private void transition(ManagedTxn txn, State state) {
+        long id;
+        synchronized (this) {
+            Long known = ids.get(txn);
+            if (known == null) {
+                return;
+            }
+            id = known;
+            if (state.isFinal()) {
+                ids.remove(txn);
+                live.remove(id);
+            } else {
+                live.get(id).state = state;
+            }
+        }
+        append(stateRecord(id, state), null);
+    }
+
+    /**
+     * @return the account's transactions not yet validated, recreated from
+     *         the journal, which will be journaled as before. Each is only
+     *         returned once.
+     */
+    public synchronized List<ManagedTxn> restore(AccountID account) {
+        List<ManagedTxn> restored = new ArrayList<>();
+        Set<Long> attached = new HashSet<>(ids.values());
+        for (Entry entry : live.values()) {
+            if (entry.account.equals(account) && !attached.contains(entry.id)) {
+                ManagedTxn txn = entry.toManagedTxn();
+                ids.put(txn, entry.id);
+                restored.add(txn);
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * @return the state of journaled transactions not yet validated
+     */
+    public synchronized List<Entry> live() {
+        return new ArrayList<>(live.values());
+    }
+
+    public synchronized State state(ManagedTxn txn) {
+        Long id = ids.get(txn);
+        return id == null ? null : live.get(id).state;
+    }
+
+    /* ---------------------------------- SYNC ---------------------------------- */
+
+    /**
+     * Writes and fsyncs whatever has been appended so far, then runs the
+     * callbacks waiting on it
+     */
+    public void sync() {
+        synchronized (writeLock) {
+            ByteArrayOutputStream pending;
+            List<Runnable> callbacks;
+            synchronized (this) {
+                if (buffer.size() == 0) {
+                    return;
+                }
+                pending = buffer;
+                buffer = new ByteArrayOutputStream();
+                callbacks = afterSync;
+                afterSync = new ArrayList<>();
+            }
+            IOException failed = null;
+            try {
+                ByteBuffer bytes = ByteBuffer.wrap(pending.toByteArray());
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(false);
+                syncs++;
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                }
+                failed = e;
+                logger.log(Level.SEVERE, "Failed writing " + path + ", sending " +
+                        callbacks.size() + " submissions without journaling them", e);
+            }
+            // Still under the lock, so groups are sent in the order journaled
+            for (Runnable callback : callbacks) {
+                callback.run();
+            }
+            if (failed != null) {
+                throw new RuntimeException(failed);
+            }
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (RuntimeException ignored) {
+            // Reported by the next append
+        }
+    }
+
+    /**
+     * @return the number of fsyncs so far, each covering all appends since
+     *         the last
+     */
+    public long syncs() {
+        synchronized (writeLock) {
+            return syncs;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (syncer != null) {
+            syncer.shutdown();
+        }
+        sync();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
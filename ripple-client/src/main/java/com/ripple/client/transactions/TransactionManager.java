@@ -16,17 +16,23 @@ import com.ripple.core.types.known.tx.Transaction;
 import com.ripple.core.types.known.tx.result.TransactionResult;
 import com.ripple.core.types.known.tx.txns.AccountSet;
 import com.ripple.crypto.keys.IKeyPair;
+import com.ripple.utils.RangeSet;
 
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 
 /**
  * This class takes care of resubmitting transactions in a manner resilient to
- * network failures. It does NOT handle the case where the process exits
- * prematurely as it only persists the hashes, submission and last valid ledger
- * sequence in memory, rather than to disk, where recovery can be made.
+ * network failures. By default it only keeps the hashes, submission and last
+ * valid ledger sequence in memory, so it does NOT handle the case where the
+ * process exits prematurely, unless a {@link SubmissionJournal} is attached
+ * with {@link #attachJournal(SubmissionJournal)}.
+ *
+ * Fees are priced for the open ledger and the transaction queue by a
+ * {@link FeeModel}, and repriced when the server turns them down for it.
  *
  * This was written long ago when the author had relatively little experience
  * with ripple, and was never used internally at ripple for *anything*.
@@ -36,11 +42,7 @@ import java.util.TreeSet;
  *  - Refactoring for better testability without a [live/test] net
  *  - RangeSet and logic for handling ledger history gaps
  *      - ensure that each and every ledger index has been checked
- *  - Handling new fee escalation logic
- *     - Transactions with higher fees are prioritized
- *  - Handling new transaction queue result codes
- *     - Upper limits on the number of transactions submitted per txn per acct
- *  - Adding hooks for submission persistence
+ *  - Upper limits on the number of transactions queued per account
  *  - Testing on the test net
  *
  */
@@ -58,13 +60,51 @@ public class TransactionManager extends Publisher<TransactionManager.events> {
     private IKeyPair keyPair;
     private AccountTxPager txnPager;
     private double feeCushion = DEFAULT_FEE_CUSHION;
+    private FeeModel feeModel;
+    private SubmissionJournal journal = null;
 
     public void feeCushion(double multiplier) {
         feeCushion = multiplier;
     }
 
+    /**
+     * @param feeModel to use instead of this account's own, say to share one
+     *                 between accounts
+     */
+    public void feeModel(FeeModel feeModel) {
+        this.feeModel = feeModel;
+    }
+
+    public FeeModel feeModel() {
+        return feeModel;
+    }
+
     private static final int RESUBMIT_PENDING_AFTER_N_LEDGERS = 5;
 
+    /**
+     * Journals submissions from now on, and takes back the transactions
+     * journaled for this account before a restart. These aren't resubmitted
+     * straight away, but are tracked as if they'd just been submitted, so
+     * account_tx finds them if they cleared, and otherwise the usual
+     * resubmission, one at a time, takes over.
+     *
+     * @return the restored transactions, for binding callbacks to
+     */
+    public List<ManagedTxn> attachJournal(SubmissionJournal journal) {
+        this.journal = journal;
+        List<ManagedTxn> restored = journal.restore(accountID);
+        for (ManagedTxn txn : restored) {
+            if (journal.state(txn) == SubmissionJournal.State.failed) {
+                failedTransactions.add(txn);
+            } else {
+                pending.add(txn);
+            }
+            // Never hand out a journaled Sequence again
+            sequence = Math.max(sequence, txn.sequence().longValue() + 1);
+        }
+        return restored;
+    }
+
     /**
      * These are transactions that we have either put on the wire, or we have
      * received a successful provisional result for.
@@ -96,6 +136,7 @@ public class TransactionManager extends Publisher<TransactionManager.events> {
         this.accountRoot = accountRoot;
         this.accountID = accountID;
         this.keyPair = keyPair;
+        this.feeModel = new FeeModel(client);
 
         // We'd be subscribed yeah ;)
         // TODO: audit this for ledgerClosed -> transaction -> transaction ...
@@ -107,6 +148,8 @@ public class TransactionManager extends Publisher<TransactionManager.events> {
             if (!canSubmit() || getPending().isEmpty()) {
                 return;
             }
+            // Keep the escalation stats current while there's anything to price
+            feeModel.refresh(null);
             ArrayList<ManagedTxn> sorted = pendingSequenceSorted();
 
             ManagedTxn first = sorted.get(0);
@@ -133,8 +176,10 @@ public class TransactionManager extends Publisher<TransactionManager.events> {
                 }
             }
             if (expired == failed.submissions.size()) {
-                // The last response our submissions
-                Response response = failed.lastSubmission().request.response;
+                // The last response our submissions, unless restored
+                Request request = failed.lastSubmission().request;
+                Response response = request == null ? null : request.response;
+                journal(journal -> journal.expired(failed));
 
                 if (response != null) {
                     if (response.rpcerr != null) {
@@ -148,7 +193,8 @@ public class TransactionManager extends Publisher<TransactionManager.events> {
         }
     }
 
-    private Set<Long> seenValidatedSequences = new TreeSet<>();
+    // Sequences are mostly contiguous, so this stays a handful of runs
+    private RangeSet seenValidatedSequences = new RangeSet();
     public long sequence = 0;
 
     private UInt32 locallyPreemptedSubmissionSequence() {
@@ -217,8 +263,6 @@ public class TransactionManager extends Publisher<TransactionManager.events> {
 
     private void checkAccountTransactions(long currentLedgerIndex) {
         if (pending.size() == 0 && failedTransactions.size() == 0) {
-            // TODO: this currently grows unbounded. Can use a RangeSet here
-            // seenValidatedSequences.clear();
             lastLedgerCheckedAccountTxns = 0;
             return;
         }
@@ -275,7 +319,7 @@ public class TransactionManager extends Publisher<TransactionManager.events> {
 
     private void makeSubmitRequest(final ManagedTxn txn, final UInt32 sequence) {
         if (canSubmit()) {
-            doSubmitRequest(txn, sequence);
+            submitWhenPriced(txn, sequence);
         }
         else {
             // If we have submitted again, before this gets to execute
@@ -292,14 +336,33 @@ public class TransactionManager extends Publisher<TransactionManager.events> {
                     // The next state change should cause this to remove
                     return txn.isFinalized() || n != txn.submissions.size();
                 }
-            }, client -> doSubmitRequest(txn, sequence));
+            }, client -> submitWhenPriced(txn, sequence));
         }
     }
 
+    private void submitWhenPriced(final ManagedTxn txn, final UInt32 sequence) {
+        if (!feeModel.stale()) {
+            doSubmitRequest(txn, sequence);
+            return;
+        }
+        // Refreshes the escalation stats first, or else prices by load alone
+        // should that fail, rather than trying again
+        final int n = txn.submissions.size();
+        feeModel.refresh(() -> {
+            if (txn.isFinalized() || n != txn.submissions.size()) {
+                return;
+            }
+            if (canSubmit()) {
+                doSubmitRequest(txn, sequence);
+            } else {
+                makeSubmitRequest(txn, sequence);
+            }
+        });
+    }
+
     private Request doSubmitRequest(final ManagedTxn txn, UInt32 sequence) {
-        // Compute the fee for the current load_factor
-        // TODO: handle new fee escalation rules
-        Amount fee = client.serverInfo.transactionFee(txn.txn).multiply(feeCushion);
+        // Compute the fee for the current load_factor and fee escalation
+        Amount fee = feeModel.fee(txn.txn, txn.lastSubmission(), feeCushion);
         // Inside prepare we check if Fee and Sequence are the same, and if so
         // we don't recreate tx_blob, or resign ;)
 
@@ -326,10 +389,37 @@ public class TransactionManager extends Publisher<TransactionManager.events> {
         // Keep track of the submission, including the hash submitted
         // to the network, and the ledger_index at that point in time.
         txn.trackSubmitRequest(req, client.serverInfo.ledger_index);
-        req.request();
+        client.metrics().transactionSubmitted();
+        // Not sent until it's on disk, so a restart can't lose track of
+        // anything that made it to the network
+        if (!journal(journal -> journal.submitted(accountID, txn,
+                                                  () -> client.run(req::request)))) {
+            req.request();
+        }
         return req;
     }
 
+    /**
+     * Journals to the attached journal, if any. One that fails is detached,
+     * and tracking carries on in memory only, as without a journal.
+     *
+     * @return true if journaled
+     */
+    private boolean journal(Consumer<SubmissionJournal> append) {
+        if (journal == null) {
+            return false;
+        }
+        try {
+            append.accept(journal);
+            return true;
+        } catch (RuntimeException e) {
+            Client.logger.log(Level.SEVERE, "Submission journal failed, no longer journaling for "
+                    + accountID, e);
+            journal = null;
+            return false;
+        }
+    }
+
     private void handleSubmitError(final ManagedTxn txn, Response res) {
         if (txn.finalizedOrResponseIsToPriorSubmission(res)) {
             return;
@@ -355,6 +445,7 @@ public class TransactionManager extends Publisher<TransactionManager.events> {
         }
         EngineResult ter = res.engineResult();
         final UInt32 submitSequence = res.getSubmitSequence();
+        feeModel.onSubmitResult(ter);
         switch (ter) {
             case tesSUCCESS:
                 txn.emit(ManagedTxn.OnSubmitSuccess.class, res);
@@ -383,7 +474,10 @@ public class TransactionManager extends Publisher<TransactionManager.events> {
                 });
                 break;
             case telINSUF_FEE_P:
-                resubmit(txn, submitSequence);
+            case telCAN_NOT_QUEUE_FEE:
+            case telCAN_NOT_QUEUE_FULL:
+                // The open ledger or queue has moved on since we priced it
+                repriceAndResubmit(txn, submitSequence);
                 break;
             case tefALREADY:
                 // We only get this if we are submitting with exact same transactionID
@@ -394,12 +488,11 @@ public class TransactionManager extends Publisher<TransactionManager.events> {
                 // It must have been well formed to get this far and not `tef`
                 // or `tel` so it should become `tec` or `tes` soon.
                 // It will also be resubmitted with the same sequence once 5
-                // ledgers have passed if we leave it as `pending`
+                // ledgers have passed if we leave it as `pending`, outbidding
+                // itself in the queue if the going rate has gone up since.
                 break;
 
             case telCAN_NOT_QUEUE:
-            case telCAN_NOT_QUEUE_FEE:
-            case telCAN_NOT_QUEUE_FULL:
                 // Just wait the 5 or so ledgers and let it resubmit. We keep
                 // an eye out for *ALL* transactions submitted to the network
                 // so this *may* clear before then in the case of crazy queue
@@ -459,6 +552,7 @@ public class TransactionManager extends Publisher<TransactionManager.events> {
     private void awaitLastLedgerSequenceExpiry(ManagedTxn txn) {
         finalizeTxnAndRemoveFromQueue(txn);
         failedTransactions.add(txn);
+        journal(journal -> journal.failed(txn));
     }
 
     private void resubmitGreaterThan(UInt32 submitSequence) {
@@ -541,6 +635,21 @@ public class TransactionManager extends Publisher<TransactionManager.events> {
         makeSubmitRequest(txn, sequence);
     }
 
+    private void repriceAndResubmit(final ManagedTxn txn, final UInt32 sequence) {
+        final Submission rejected = txn.lastSubmission();
+        feeModel.refresh(() -> {
+            if (txn.isFinalized() || txn.lastSubmission() != rejected) {
+                return;
+            }
+            Amount fee = feeModel.fee(txn.txn, rejected, feeCushion);
+            if (fee.compareTo(rejected.fee) > 0) {
+                resubmit(txn, sequence);
+            }
+            // Otherwise it's at the maxFee, so it waits for the usual
+            // resubmission, see `RESUBMIT_PENDING_AFTER_N_LEDGERS`
+        });
+    }
+
     private void resubmitWithSameSequence(ManagedTxn txn) {
         UInt32 previouslySubmitted = txn.sequence();
         resubmit(txn, previouslySubmitted);
@@ -561,8 +670,12 @@ public class TransactionManager extends Publisher<TransactionManager.events> {
 
         ManagedTxn txn = submittedTransactionForHash(tr.hash);
         if (txn != null) {
+            client.metrics().transactionValidated(
+                    System.currentTimeMillis() - txn.submissions.get(0).submittedAt,
+                    txn.submissions.size());
             finalizeTxnAndRemoveFromQueue(txn);
             failedTransactions.remove(txn);
+            journal(journal -> journal.validated(txn));
             txn.emit(ManagedTxn.OnTransactionValidated.class, tr);
         } else //noinspection DanglingJavadoc
         {
@@ -0,0 +1,51 @@
+package com.ripple.client.types;
+
+import com.ripple.core.coretypes.STObject;
+import com.ripple.core.coretypes.hash.Hash256;
+import com.ripple.core.serialized.BinaryParser;
+import com.ripple.core.types.known.sle.LedgerEntry;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+
+/**
+ * One page of a `binary: true` ledger_data response.
+ *
+ * The `data` blobs are decoded straight into LedgerEntry objects, and the
+ * `marker` (if any) can be handed back to request the following page.
+ */
+public class LedgerDataPage {
+    public long ledgerIndex;
+    public Hash256 ledgerHash;
+    public Object marker;
+    public ArrayList<LedgerEntry> entries;
+
+    public boolean hasNext() {
+        return marker != null;
+    }
+
+    public static LedgerDataPage fromJSON(JSONObject result) {
+        LedgerDataPage page = new LedgerDataPage();
+        page.ledgerIndex = result.optLong("ledger_index", 0);
+        if (result.has("ledger_hash")) {
+            page.ledgerHash = Hash256.fromHex(result.getString("ledger_hash"));
+        }
+        page.marker = result.opt("marker");
+
+        JSONArray state = result.getJSONArray("state");
+        page.entries = new ArrayList<>(state.length());
+        for (int i = 0; i < state.length(); i++) {
+            JSONObject stateObject = state.getJSONObject(i);
+            page.entries.add(parseEntry(stateObject.getString("data"),
+                                        stateObject.getString("index")));
+        }
+        return page;
+    }
+
+    private static LedgerEntry parseEntry(String data, String index) {
+        LedgerEntry le = (LedgerEntry) STObject.fromParser(new BinaryParser(data));
+        le.index(Hash256.fromHex(index));
+        return le;
+    }
+}
@@ -0,0 +1,170 @@
+package com.ripple.client;
+
+import com.ripple.client.enums.Command;
+import com.ripple.client.requests.Request;
+import com.ripple.client.responses.Response;
+import com.ripple.client.transactions.AccountTxBackfill;
+import com.ripple.core.coretypes.AccountID;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AccountTxBackfillTest {
+    private static final AccountID account = AccountID.fromSeed("shn6zJ8zzkaoFSfsEWvJLZf3V344C");
+
+    private MockPair pair = new MockPair().connect();
+    private ArrayList<AccountTxBackfill.Page> pages = new ArrayList<>();
+    private HashMap<AccountID, JSONObject> saved = new HashMap<>();
+    private AccountTxBackfill.CursorStore store = new AccountTxBackfill.CursorStore() {
+        @Override
+        public JSONObject load(AccountID account) {
+            return saved.get(account);
+        }
+
+        @Override
+        public void save(AccountID account, JSONObject state) {
+            saved.put(account, new JSONObject(state.toString()));
+        }
+    };
+
+    {
+        // discard the subscribe request
+        pair.server.unreadMarked();
+    }
+
+    private AccountTxBackfill backfill() {
+        return new AccountTxBackfill(Collections.singletonList(pair.client), account, 100, 199)
+                .splits(2)
+                .maxUnacknowledgedPages(1)
+                .maxBufferedPagesPerRange(1)
+                .cursorStore(store)
+                .onPage(pages::add);
+    }
+
+    private ArrayList<Request> accountTxRequests() {
+        ArrayList<Request> requests = new ArrayList<>();
+        for (MockPair.Message message : pair.server.unreadMarked()) {
+            Request request = message.getRequest(pair.client);
+            assertEquals(Command.account_tx, request.cmd);
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private void respond(Request request, Object marker) {
+        JSONObject result = new JSONObject();
+        result.put("transactions", new JSONArray());
+        if (marker != null) {
+            result.put("marker", marker);
+        }
+        pair.server.respondSuccess(request, result);
+    }
+
+    @Test
+    public void testPagesAreDeliveredInRangeOrder() {
+        AccountTxBackfill backfill = backfill();
+        backfill.start();
+
+        ArrayList<Request> requests = accountTxRequests();
+        assertEquals(2, requests.size());
+        Request first = requests.get(0), second = requests.get(1);
+        assertEquals(100, first.json().getLong("ledger_index_min"));
+        assertEquals(149, first.json().getLong("ledger_index_max"));
+        assertEquals(150, second.json().getLong("ledger_index_min"));
+        assertEquals(199, second.json().getLong("ledger_index_max"));
+
+        // The later range is buffered until the earlier one is done
+        respond(second, "second-marker");
+        assertEquals(0, pages.size());
+        assertEquals(0, accountTxRequests().size());
+
+        respond(first, null);
+        // No more than one page is out with the consumer at a time
+        assertEquals(1, pages.size());
+        assertEquals(0, pages.get(0).rangeIndex());
+        pages.get(0).done();
+        assertEquals(2, pages.size());
+        assertEquals(1, pages.get(1).rangeIndex());
+
+        // Nothing more is requested until the consumer catches up
+        assertEquals(0, accountTxRequests().size());
+        pages.get(1).done();
+
+        requests = accountTxRequests();
+        assertEquals(1, requests.size());
+        assertEquals("second-marker", requests.get(0).json().getString("marker"));
+        assertFalse(backfill.isComplete());
+
+        respond(requests.get(0), null);
+        assertEquals(3, pages.size());
+        pages.get(2).done();
+        assertTrue(backfill.isComplete());
+    }
+
+    @Test
+    public void testFailsOnceARangeRunsOutOfRetries() {
+        boolean[] completed = {false};
+        ArrayList<Response> errors = new ArrayList<>();
+        AccountTxBackfill backfill = backfill()
+                .maxRetriesPerPage(0)
+                .onComplete(b -> completed[0] = true)
+                .onError(errors::add);
+        backfill.start();
+        ArrayList<Request> requests = accountTxRequests();
+        respond(requests.get(0), "first-marker");
+        pages.get(0).done();
+
+        Request next = accountTxRequests().get(0);
+        pair.server.sendMessage(new JSONObject()
+                .put("id", next.id)
+                .put("type", "response")
+                .put("status", "error")
+                .put("error", "tooBusy"));
+        assertEquals(1, errors.size());
+        assertTrue(backfill.isFailed());
+
+        // The other range's pages go nowhere, and it's never complete
+        respond(requests.get(1), null);
+        assertEquals(1, pages.size());
+        assertTrue(accountTxRequests().isEmpty());
+        assertFalse(completed[0]);
+        assertFalse(backfill.isComplete());
+    }
+
+    @Test
+    public void testResumesFromSavedCursors() {
+        backfill().start();
+        ArrayList<Request> requests = accountTxRequests();
+        respond(requests.get(0), null);
+        respond(requests.get(1), "second-marker");
+        // Acknowledging one page delivers the next
+        for (int i = 0; i < pages.size(); i++) {
+            pages.get(i).done();
+        }
+        assertEquals(2, pages.size());
+        // Abandon the backfill, with its next request unanswered
+        accountTxRequests();
+        pages.clear();
+
+        AccountTxBackfill resumed = backfill();
+        resumed.start();
+        requests = accountTxRequests();
+        assertEquals(1, requests.size());
+        assertEquals(150, requests.get(0).json().getLong("ledger_index_min"));
+        assertEquals("second-marker", requests.get(0).json().getString("marker"));
+
+        respond(requests.get(0), null);
+        assertEquals(1, pages.size());
+        assertEquals(1, pages.get(0).rangeIndex());
+        pages.get(0).done();
+        assertTrue(resumed.isComplete());
+    }
+}
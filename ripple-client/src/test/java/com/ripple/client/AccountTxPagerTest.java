@@ -0,0 +1,76 @@
+package com.ripple.client;
+
+import com.ripple.client.enums.Command;
+import com.ripple.client.requests.Request;
+import com.ripple.client.transactions.AccountTxPager;
+import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.coretypes.STObject;
+import com.ripple.core.types.known.tx.result.TransactionResult;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AccountTxPagerTest {
+    private static final AccountID account = AccountID.fromSeed("shn6zJ8zzkaoFSfsEWvJLZf3V344C");
+
+    private MockPair pair = new MockPair().connect();
+
+    {
+        // discard the subscribe request
+        pair.server.unreadMarked();
+    }
+
+    private List<Request> accountTxRequests() {
+        List<Request> requests = new ArrayList<>();
+        for (MockPair.Message message : pair.server.unreadMarked()) {
+            Request request = message.getRequest(pair.client);
+            assertEquals(Command.account_tx, request.cmd);
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    @Test
+    public void testPagesKeepTransactionsThatArentValidated() {
+        String tx_blob = STObject.fromJSONObject(new JSONObject()
+                .put("TransactionType", "AccountSet")
+                .put("Account", account.toString())
+                .put("Fee", "10")
+                .put("Sequence", 1)).toHex();
+        String meta = STObject.fromJSONObject(new JSONObject()
+                .put("TransactionIndex", 0)
+                .put("TransactionResult", "tesSUCCESS")
+                .put("AffectedNodes", new JSONArray())).toHex();
+
+        List<AccountTxPager.Page> pages = new ArrayList<>();
+        new AccountTxPager(pair.client, account, pages::add).request();
+        pair.server.respondSuccess(accountTxRequests().get(0), new JSONObject()
+                .put("transactions", new JSONArray()
+                        .put(new JSONObject()
+                                .put("ledger_index", 10)
+                                .put("tx_blob", tx_blob)
+                                .put("meta", meta)
+                                .put("validated", true))
+                        .put(new JSONObject()
+                                .put("ledger_index", 11)
+                                .put("tx_blob", tx_blob)
+                                .put("meta", meta)
+                                .put("validated", false))
+                        .put(new JSONObject()
+                                .put("tx_blob", tx_blob)
+                                .put("validated", false))));
+
+        AccountTxPager.Page page = pages.get(0);
+        List<TransactionResult> results = page.transactionResults();
+        assertEquals(page.size(), results.size());
+        assertTrue(results.get(0).validated);
+        assertFalse(results.get(1).validated);
+        assertEquals(11, results.get(1).ledgerIndex.longValue());
+        assertFalse(results.get(2).validated);
+    }
+}
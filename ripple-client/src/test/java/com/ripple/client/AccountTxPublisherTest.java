@@ -0,0 +1,96 @@
+package com.ripple.client;
+
+import com.ripple.client.enums.Command;
+import com.ripple.client.requests.Request;
+import com.ripple.client.streams.AccountTxPublisher;
+import com.ripple.client.streams.Flow;
+import com.ripple.client.transactions.AccountTxPager;
+import com.ripple.core.coretypes.AccountID;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AccountTxPublisherTest {
+    private static final AccountID account = AccountID.fromSeed("shn6zJ8zzkaoFSfsEWvJLZf3V344C");
+
+    private MockPair pair = new MockPair().connect();
+
+    {
+        // discard the subscribe request
+        pair.server.unreadMarked();
+    }
+
+    private List<Request> accountTxRequests() {
+        List<Request> requests = new ArrayList<>();
+        for (MockPair.Message message : pair.server.unreadMarked()) {
+            Request request = message.getRequest(pair.client);
+            assertEquals(Command.account_tx, request.cmd);
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private void respond(Request request, Object marker) {
+        JSONObject result = new JSONObject();
+        result.put("transactions", new JSONArray());
+        if (marker != null) {
+            result.put("marker", marker);
+        }
+        pair.server.respondSuccess(request, result);
+    }
+
+    @Test
+    public void testPagesAreRequestedOnDemand() {
+        List<AccountTxPager.Page> pages = new ArrayList<>();
+        boolean[] completed = {false};
+        Flow.Subscription[] subscription = {null};
+
+        new AccountTxPublisher(new AccountTxPager(pair.client, account, null))
+                .subscribe(new Flow.Subscriber<AccountTxPager.Page>() {
+                    @Override
+                    public void onSubscribe(Flow.Subscription s) {
+                        subscription[0] = s;
+                    }
+
+                    @Override
+                    public void onNext(AccountTxPager.Page item) {
+                        pages.add(item);
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        fail(throwable.toString());
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        completed[0] = true;
+                    }
+                });
+
+        // Nothing is requested without demand
+        assertTrue(accountTxRequests().isEmpty());
+
+        subscription[0].request(1);
+        List<Request> requests = accountTxRequests();
+        assertEquals(1, requests.size());
+        respond(requests.get(0), "m1");
+        assertEquals(1, pages.size());
+        // The next page waits for more demand
+        assertTrue(accountTxRequests().isEmpty());
+
+        subscription[0].request(5);
+        requests = accountTxRequests();
+        assertEquals(1, requests.size());
+        assertEquals("m1", requests.get(0).json().get("marker"));
+        respond(requests.get(0), null);
+        assertEquals(2, pages.size());
+        assertTrue(completed[0]);
+        assertTrue(accountTxRequests().isEmpty());
+    }
+}
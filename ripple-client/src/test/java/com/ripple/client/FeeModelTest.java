@@ -0,0 +1,242 @@
+package com.ripple.client;
+
+import com.ripple.client.enums.Command;
+import com.ripple.client.requests.Request;
+import com.ripple.client.transactions.FeeModel;
+import com.ripple.client.transactions.ManagedTxn;
+import com.ripple.client.transactions.Submission;
+import com.ripple.client.transactions.TransactionManager;
+import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.coretypes.Amount;
+import com.ripple.core.coretypes.STObject;
+import com.ripple.core.coretypes.uint.UInt32;
+import com.ripple.core.types.known.tx.Transaction;
+import com.ripple.core.types.known.tx.txns.Payment;
+import com.ripple.crypto.Seed;
+import com.ripple.crypto.keys.IKeyPair;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FeeModelTest {
+    private static final String secret = "shn6zJ8zzkaoFSfsEWvJLZf3V344C";
+    private static final IKeyPair keyPair = Seed.fromBase58(secret).keyPair();
+    private static final AccountID account = AccountID.fromSeed(secret);
+    private static final AccountID bob = AccountID.fromAddress("rMwjYedjc7qqtKYVLiAccJSmCwih4LnE2q");
+
+    private MockPair pair = new MockPair().connect();
+    private FeeModel model = new FeeModel(pair.client);
+    private long ledgerIndex = 100;
+
+    {
+        // discard the subscribe request
+        pair.server.unreadMarked();
+    }
+
+    private List<Request> requests(Command cmd) {
+        List<Request> requests = new ArrayList<>();
+        for (MockPair.Message message : pair.server.unreadMarked()) {
+            Request request = message.getRequest(pair.client);
+            if (request.cmd == cmd) {
+                requests.add(request);
+            }
+        }
+        return requests;
+    }
+
+    private void closeLedger(int loadFactor) {
+        pair.server.sendMessage(new JSONObject()
+                .put("type", "ledgerClosed")
+                .put("fee_base", 10)
+                .put("fee_ref", 10)
+                .put("load_base", 256)
+                .put("load_factor", loadFactor)
+                .put("reserve_base", 20000000)
+                .put("reserve_inc", 5000000)
+                .put("ledger_index", ++ledgerIndex)
+                .put("ledger_time", 0)
+                .put("txn_count", 0));
+    }
+
+    private static JSONObject feeResult(long queued, long openLedgerLevel) {
+        return new JSONObject()
+                .put("current_ledger_size", "30")
+                .put("current_queue_size", String.valueOf(queued))
+                .put("expected_ledger_size", "20")
+                .put("ledger_current_index", 102)
+                .put("max_queue_size", "400")
+                .put("drops", new JSONObject()
+                        .put("base_fee", "10")
+                        .put("median_fee", "5000")
+                        .put("minimum_fee", "10")
+                        .put("open_ledger_fee", String.valueOf(openLedgerLevel * 10 / 256)))
+                .put("levels", new JSONObject()
+                        .put("median_level", "128000")
+                        .put("minimum_level", "256")
+                        .put("open_ledger_level", String.valueOf(openLedgerLevel))
+                        .put("reference_level", "256"));
+    }
+
+    private void refresh(long queued, long openLedgerLevel) {
+        boolean[] refreshed = {false};
+        model.refresh(() -> refreshed[0] = true);
+        List<Request> fees = requests(Command.fee);
+        assertEquals(1, fees.size());
+        pair.server.respondSuccess(fees.get(0), feeResult(queued, openLedgerLevel));
+        assertTrue(refreshed[0]);
+    }
+
+    private static Transaction payment() {
+        Payment payment = new Payment();
+        payment.account(account);
+        payment.destination(bob);
+        payment.amount(Amount.fromString("1000"));
+        return payment;
+    }
+
+    private static Submission submitted(String fee) {
+        return new Submission(null, new UInt32(1), null, 100, Amount.fromString(fee), new UInt32(108));
+    }
+
+    @Test
+    public void testLoadOnlyWithoutEscalationStats() {
+        closeLedger(384);
+        assertEquals(256, model.nextLedgerLevel());
+        // 1.5 times the base fee, not truncated to 1
+        assertEquals(Amount.fromString("15"), model.fee(payment(), null, 1.0));
+    }
+
+    @Test
+    public void testPricesForThePositionBehindTheQueue() {
+        closeLedger(256);
+        refresh(60, 1000000);
+        // Behind half of the queue: 128000 * 31^2 / 20^2
+        assertEquals(307520, model.nextLedgerLevel());
+        assertEquals(Amount.fromString("12013"), model.fee(payment(), null, 1.1));
+
+        // Never more than it takes to skip the queue
+        refresh(60, 100000);
+        assertEquals(100000, model.nextLedgerLevel());
+
+        // Nor much of anything while the queue fits in a ledger
+        model.percentile(0);
+        refresh(10, 300000);
+        assertEquals(256, model.nextLedgerLevel());
+        assertEquals(Amount.fromString("11"), model.fee(payment(), null, 1.1));
+    }
+
+    @Test
+    public void testRepricesResubmissions() {
+        closeLedger(256);
+        // Kept as it was while the going rate is lower, so the blob is too
+        assertEquals(Amount.fromString("20"), model.fee(payment(), submitted("20"), 1.1));
+
+        // Outbids itself by enough to replace its queued submission
+        refresh(60, 1000000);
+        assertEquals(Amount.fromString("12500"), model.fee(payment(), submitted("10000"), 1.1));
+        assertEquals(Amount.fromString("12013"), model.fee(payment(), submitted("100"), 1.1));
+
+        model.maxFee(Amount.fromString("3000"));
+        assertEquals(Amount.fromString("3000"), model.fee(payment(), submitted("100"), 1.1));
+        assertEquals(Amount.fromString("4000"), model.fee(payment(), submitted("4000"), 1.1));
+    }
+
+    private TransactionManager transactionManager() {
+        pair.client.account(account, keyPair);
+        Request ledgerEntry = requests(Command.ledger_entry).get(0);
+        pair.server.respondSuccess(ledgerEntry, new JSONObject()
+                .put("node", new JSONObject()
+                        .put("LedgerEntryType", "AccountRoot")
+                        .put("Account", account.address())
+                        .put("Balance", "1000000000")
+                        .put("Flags", 0)
+                        .put("OwnerCount", 0)
+                        .put("Sequence", 7)));
+        return pair.client.account(account, keyPair).transactionManager();
+    }
+
+    @Test
+    public void testPricesServerLoadApartFromEscalation() {
+        closeLedger(256);
+        refresh(60, 1000000);
+        // load_factor is escalated along with the open ledger
+        pair.server.sendMessage(new JSONObject()
+                .put("type", "serverStatus")
+                .put("load_base", 256)
+                .put("load_factor", 1000000)
+                .put("load_factor_server", 256));
+        assertEquals(Amount.fromString("12013"), model.fee(payment(), null, 1.0));
+
+        pair.server.sendMessage(new JSONObject()
+                .put("type", "serverStatus")
+                .put("load_base", 256)
+                .put("load_factor", 1000000)
+                .put("load_factor_server", 512000));
+        assertEquals(Amount.fromString("20000"), model.fee(payment(), null, 1.0));
+    }
+
+    @Test
+    public void testStopsPricingWithStaleStats() {
+        closeLedger(256);
+        refresh(60, 1000000);
+        closeLedger(256);
+        closeLedger(256);
+        assertFalse(model.stale());
+        assertEquals(307520, model.nextLedgerLevel());
+
+        closeLedger(256);
+        assertTrue(model.stale());
+        assertEquals(256, model.nextLedgerLevel());
+        assertEquals(Amount.fromString("10"), model.fee(payment(), null, 1.0));
+    }
+
+    @Test
+    public void testTransactionManagerRefreshesStaleStatsFirst() {
+        closeLedger(256);
+        TransactionManager tm = transactionManager();
+        refresh(60, 1000000);
+        for (int i = 0; i < 3; i++) {
+            closeLedger(256);
+        }
+        tm.queue(tm.manage(payment()));
+        // Not submitted until the stats are in, and only once
+        List<Request> fees = requests(Command.fee);
+        assertEquals(1, fees.size());
+        JSONObject fresh = feeResult(60, 1000000).put("ledger_current_index", ledgerIndex + 1);
+        pair.server.respondSuccess(fees.get(0), fresh);
+        List<Request> submits = requests(Command.submit);
+        assertEquals(1, submits.size());
+        Transaction submitted = (Transaction) STObject.fromHex(submits.get(0).json().getString("tx_blob"));
+        assertEquals(Amount.fromString("12013"), submitted.fee());
+    }
+
+    @Test
+    public void testTransactionManagerRepricesWhenTurnedDown() {
+        closeLedger(256);
+        TransactionManager tm = transactionManager();
+        ManagedTxn txn = tm.manage(payment());
+        tm.queue(txn);
+        Request first = requests(Command.submit).get(0);
+        Transaction submitted = (Transaction) STObject.fromHex(first.json().getString("tx_blob"));
+        assertEquals(Amount.fromString("11"), submitted.fee());
+
+        pair.server.respondSuccess(first, new JSONObject()
+                .put("engine_result", "telCAN_NOT_QUEUE_FEE")
+                .put("tx_json", new JSONObject().put("Sequence", 7)));
+        assertEquals(1, tm.feeModel().rejectedForFee());
+        // Nothing is resubmitted until the stats are in
+        List<Request> fees = requests(Command.fee);
+        assertEquals(1, fees.size());
+        pair.server.respondSuccess(fees.get(0), feeResult(60, 1000000));
+
+        List<Request> submits = requests(Command.submit);
+        assertEquals(1, submits.size());
+        Transaction repriced = (Transaction) STObject.fromHex(submits.get(0).json().getString("tx_blob"));
+        assertEquals(7, repriced.sequence().longValue());
+        assertEquals(Amount.fromString("12013"), repriced.fee());
+    }
+}
@@ -0,0 +1,379 @@
+package com.ripple.client;
+
+import com.ripple.client.enums.Command;
+import com.ripple.client.requests.Request;
+import com.ripple.client.transactions.ManagedTxn;
+import com.ripple.client.transactions.SubmissionEngine;
+import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.coretypes.Amount;
+import com.ripple.core.coretypes.STObject;
+import com.ripple.core.coretypes.uint.UInt32;
+import com.ripple.core.serialized.enums.TransactionType;
+import com.ripple.core.types.known.tx.Transaction;
+import com.ripple.core.types.known.tx.txns.Payment;
+import com.ripple.core.types.shamap.LedgerFixture;
+import com.ripple.crypto.Seed;
+import com.ripple.crypto.keys.IKeyPair;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SubmissionEngineTest {
+    private static final String secret = "shn6zJ8zzkaoFSfsEWvJLZf3V344C";
+    private static final IKeyPair keyPair = Seed.fromBase58(secret).keyPair();
+    private static final AccountID account = AccountID.fromSeed(secret);
+    private static final AccountID bob = AccountID.fromAddress("rMwjYedjc7qqtKYVLiAccJSmCwih4LnE2q");
+
+    private MockPair pair = new MockPair().connect();
+    private SubmissionEngine engine = new SubmissionEngine(pair.client);
+    private long ledgerIndex = 100;
+
+    {
+        // discard the subscribe request
+        pair.server.unreadMarked();
+    }
+
+    // Sent, but not yet looked at by `requests`
+    private List<Request> unclaimed = new ArrayList<>();
+
+    private List<Request> requests(Command cmd) {
+        for (MockPair.Message message : pair.server.unreadMarked()) {
+            unclaimed.add(message.getRequest(pair.client));
+        }
+        List<Request> requests = new ArrayList<>();
+        Iterator<Request> iterator = unclaimed.iterator();
+        while (iterator.hasNext()) {
+            Request request = iterator.next();
+            if (request.cmd == cmd) {
+                requests.add(request);
+                iterator.remove();
+            }
+        }
+        return requests;
+    }
+
+    private void addAccount(long sequence) {
+        engine.addAccount(account, keyPair);
+        List<Request> infos = requests(Command.account_info);
+        assertEquals(1, infos.size());
+        pair.server.respondSuccess(infos.get(0), new JSONObject()
+                .put("account_data", new JSONObject()
+                        .put("Account", account.address())
+                        .put("Sequence", sequence)));
+    }
+
+    private void closeLedger() {
+        pair.server.sendMessage(new JSONObject()
+                .put("type", "ledgerClosed")
+                .put("fee_base", 10)
+                .put("fee_ref", 10)
+                .put("load_base", 256)
+                .put("load_factor", 256)
+                .put("reserve_base", 20000000)
+                .put("reserve_inc", 5000000)
+                .put("ledger_index", ++ledgerIndex)
+                .put("ledger_time", 0)
+                .put("txn_count", 0));
+    }
+
+    private static Transaction submitted(Request request) {
+        return (Transaction) STObject.fromHex(request.json().getString("tx_blob"));
+    }
+
+    private ManagedTxn pay(String drops) {
+        Payment payment = new Payment();
+        payment.account(account);
+        payment.destination(bob);
+        payment.amount(Amount.fromString(drops));
+        return engine.submit(payment);
+    }
+
+    private void respond(Request submit, String engineResult) {
+        pair.server.respondSuccess(submit, new JSONObject()
+                .put("engine_result", engineResult)
+                .put("tx_json", new JSONObject()
+                        .put("Sequence", submitted(submit).sequence().longValue())));
+    }
+
+    private void validate(Transaction txn, String engineResult) {
+        pair.client.onTransactionResult(LedgerFixture.result(ledgerIndex, 0, engineResult, txn));
+    }
+
+    /**
+     * Responds to the account_tx request made to settle given up or rejected
+     * transactions, with the submissions that validated
+     */
+    private void respondAccountTx(Request... validated) {
+        List<Request> accountTx = requests(Command.account_tx);
+        assertEquals(1, accountTx.size());
+        JSONObject query = accountTx.get(0).json();
+        JSONArray transactions = new JSONArray();
+        for (Request submit : validated) {
+            Transaction txn = submitted(submit);
+            transactions.put(new JSONObject()
+                    .put("tx_blob", submit.json().getString("tx_blob"))
+                    .put("meta", LedgerFixture.result(ledgerIndex, 0, "tesSUCCESS", txn).meta.toHex())
+                    .put("ledger_index", txn.lastLedgerSequence().longValue())
+                    .put("validated", true));
+        }
+        pair.server.respondSuccess(accountTx.get(0), new JSONObject()
+                .put("ledger_index_min", query.getLong("ledger_index_min"))
+                .put("ledger_index_max", query.getLong("ledger_index_max"))
+                .put("transactions", transactions));
+    }
+
+    @Test
+    public void testBatchesWithLocalSequences() {
+        addAccount(5);
+        engine.maxInFlightPerAccount(3);
+        List<ManagedTxn> txns = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            txns.add(pay("100" + i));
+        }
+        // Nothing is sent until the ledger closes
+        assertTrue(requests(Command.submit).isEmpty());
+        assertEquals(4, engine.queued());
+
+        closeLedger();
+        List<Request> submits = requests(Command.submit);
+        assertEquals(3, submits.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(5 + i, submitted(submits.get(i)).sequence().longValue());
+        }
+
+        boolean[] validated = {false};
+        txns.get(0).onValidated(txn -> validated[0] = true);
+        validate(submitted(submits.get(0)), "tesSUCCESS");
+        assertTrue(validated[0]);
+        assertEquals(2, engine.inFlight());
+
+        closeLedger();
+        submits = requests(Command.submit);
+        assertEquals(1, submits.size());
+        assertEquals(8, submitted(submits.get(0)).sequence().longValue());
+    }
+
+    @Test
+    public void testUsesTicketsOnceCreated() {
+        addAccount(10);
+        engine.tickets(account, 4);
+        ManagedTxn payment = pay("1000");
+
+        closeLedger();
+        List<Request> submits = requests(Command.submit);
+        // The payment waits to see which Sequence or ticket it can have
+        assertEquals(1, submits.size());
+        Transaction create = submitted(submits.get(0));
+        assertEquals(TransactionType.TicketCreate, create.transactionType());
+        assertEquals(10, create.sequence().longValue());
+        assertEquals(4, create.get(UInt32.TicketCount).longValue());
+
+        validate(create, "tesSUCCESS");
+        assertEquals(4, engine.ticketsAvailable(account));
+        closeLedger();
+        submits = requests(Command.submit);
+        assertEquals(1, submits.size());
+        assertEquals(11, submitted(submits.get(0)).ticketSequence().longValue());
+        validate(submitted(submits.get(0)), "tesSUCCESS");
+        assertTrue(payment.isFinalized());
+
+        pay("2000");
+        pay("3000");
+        closeLedger();
+        submits = requests(Command.submit);
+        assertEquals(3, submits.size());
+        Transaction ticketed = submitted(submits.get(0));
+        assertEquals(0, ticketed.sequence().longValue());
+        assertEquals(12, ticketed.ticketSequence().longValue());
+        // Down to half, so the pool is topped up, after the tickets' sequences
+        Transaction topUp = submitted(submits.get(1));
+        assertEquals(TransactionType.TicketCreate, topUp.transactionType());
+        assertEquals(15, topUp.sequence().longValue());
+        assertEquals(2, topUp.get(UInt32.TicketCount).longValue());
+        assertEquals(13, submitted(submits.get(2)).ticketSequence().longValue());
+
+        // A malformed transaction gives its ticket back
+        respond(submits.get(0), "temBAD_AMOUNT");
+        assertEquals(2, engine.ticketsAvailable(account));
+    }
+
+    @Test
+    public void testExpiredTransactionsAreRetriedThenPlugged() {
+        addAccount(1);
+        engine.maxAttempts(2).ledgersUntilExpiry(1);
+        ManagedTxn payment = pay("1000");
+        boolean[] failed = {false};
+        payment.onError(txn -> failed[0] = true);
+
+        closeLedger();
+        Request first = requests(Command.submit).get(0);
+        respond(first, "terQUEUED");
+
+        closeLedger();
+        closeLedger();
+        closeLedger();
+        List<Request> submits = requests(Command.submit);
+        assertEquals(1, submits.size());
+        assertEquals(1, submitted(submits.get(0)).sequence().longValue());
+        assertNotEquals(submitted(first).lastLedgerSequence(),
+                        submitted(submits.get(0)).lastLedgerSequence());
+        respond(submits.get(0), "terQUEUED");
+
+        closeLedger();
+        closeLedger();
+        closeLedger();
+        // Not until account_tx shows neither submission validated
+        assertFalse(failed[0]);
+        respondAccountTx();
+        assertTrue(failed[0]);
+
+        closeLedger();
+        submits = requests(Command.submit);
+        assertEquals(1, submits.size());
+        Transaction plug = submitted(submits.get(0));
+        assertEquals(TransactionType.AccountSet, plug.transactionType());
+        assertEquals(1, plug.sequence().longValue());
+    }
+
+    @Test
+    public void testRetriesAreBoundedByMaxAttempts() {
+        addAccount(1);
+        engine.maxAttempts(3).ledgersUntilExpiry(1);
+        ManagedTxn payment = pay("1000");
+        boolean[] failed = {false};
+        payment.onError(txn -> failed[0] = true);
+
+        for (int i = 0; i < 3; i++) {
+            closeLedger();
+            List<Request> submits = requests(Command.submit);
+            assertEquals(1, submits.size());
+            respond(submits.get(0), "telINSUF_FEE_P");
+        }
+        closeLedger();
+        closeLedger();
+        closeLedger();
+        assertTrue(requests(Command.submit).isEmpty());
+        assertEquals(3, payment.submissions.size());
+
+        respondAccountTx();
+        assertTrue(failed[0]);
+        closeLedger();
+        List<Request> submits = requests(Command.submit);
+        assertEquals(1, submits.size());
+        assertEquals(TransactionType.AccountSet, submitted(submits.get(0)).transactionType());
+    }
+
+    @Test
+    public void testExpiredTransactionsFoundValidatedByAccountTx() {
+        addAccount(1);
+        engine.maxAttempts(1).ledgersUntilExpiry(1);
+        ManagedTxn payment = pay("1000");
+        boolean[] validated = {false};
+        payment.onValidated(txn -> validated[0] = true);
+
+        closeLedger();
+        Request first = requests(Command.submit).get(0);
+        respond(first, "terQUEUED");
+        closeLedger();
+        closeLedger();
+        closeLedger();
+
+        // The stream missed it
+        respondAccountTx(first);
+        assertTrue(validated[0]);
+        assertEquals(0, engine.inFlight());
+        closeLedger();
+        assertTrue(requests(Command.submit).isEmpty());
+    }
+
+    @Test
+    public void testPastSequenceWaitsOnEarlierSubmissions() {
+        addAccount(1);
+        engine.maxAttempts(2).ledgersUntilExpiry(1);
+        ManagedTxn payment = pay("1000");
+        boolean[] validated = {false};
+        payment.onValidated(txn -> validated[0] = true);
+
+        closeLedger();
+        Request first = requests(Command.submit).get(0);
+        respond(first, "terQUEUED");
+        closeLedger();
+        closeLedger();
+        closeLedger();
+        Request second = requests(Command.submit).get(0);
+        // The first was applied after all
+        respond(second, "tefPAST_SEQ");
+
+        // It isn't sent again with a new Sequence
+        closeLedger();
+        assertTrue(requests(Command.submit).isEmpty());
+        validate(submitted(first), "tesSUCCESS");
+        assertTrue(validated[0]);
+        assertEquals(0, engine.inFlight());
+        closeLedger();
+        closeLedger();
+        closeLedger();
+        assertTrue(requests(Command.submit).isEmpty());
+        assertTrue(requests(Command.account_tx).isEmpty());
+    }
+
+    @Test
+    public void testPastSequenceReallocatesOnceSettled() {
+        addAccount(1);
+        engine.maxAttempts(2).ledgersUntilExpiry(1);
+        pay("1000");
+
+        closeLedger();
+        Request first = requests(Command.submit).get(0);
+        respond(first, "terQUEUED");
+        closeLedger();
+        closeLedger();
+        closeLedger();
+        respond(requests(Command.submit).get(0), "tefPAST_SEQ");
+        pair.server.respondSuccess(requests(Command.account_info).get(0), new JSONObject()
+                .put("account_data", new JSONObject()
+                        .put("Account", account.address())
+                        .put("Sequence", 2)));
+
+        closeLedger();
+        closeLedger();
+        closeLedger();
+        assertTrue(requests(Command.submit).isEmpty());
+        respondAccountTx();
+        closeLedger();
+        List<Request> submits = requests(Command.submit);
+        assertEquals(1, submits.size());
+        assertEquals(TransactionType.Payment, submitted(submits.get(0)).transactionType());
+        assertEquals(2, submitted(submits.get(0)).sequence().longValue());
+    }
+
+    @Test
+    public void testFailedTicketCreateFreesTheSequences() {
+        addAccount(10);
+        engine.tickets(account, 4);
+        ManagedTxn payment = pay("1000");
+
+        closeLedger();
+        List<Request> submits = requests(Command.submit);
+        assertEquals(1, submits.size());
+        Transaction create = submitted(submits.get(0));
+        assertEquals(TransactionType.TicketCreate, create.transactionType());
+        respond(submits.get(0), "tecINSUFFICIENT_RESERVE");
+        validate(create, "tecINSUFFICIENT_RESERVE");
+        assertEquals(0, engine.ticketsAvailable(account));
+
+        // The payment has the next Sequence, and no more tickets are asked for
+        closeLedger();
+        submits = requests(Command.submit);
+        assertEquals(1, submits.size());
+        assertEquals(11, submitted(submits.get(0)).sequence().longValue());
+        validate(submitted(submits.get(0)), "tesSUCCESS");
+        assertTrue(payment.isFinalized());
+    }
+}
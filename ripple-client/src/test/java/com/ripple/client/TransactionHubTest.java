@@ -0,0 +1,211 @@
+package com.ripple.client;
+
+import com.ripple.client.enums.Command;
+import com.ripple.client.requests.Request;
+import com.ripple.client.streams.EventPublisher;
+import com.ripple.client.streams.Flow;
+import com.ripple.client.streams.OverflowPolicy;
+import com.ripple.client.subscriptions.SubscriptionManager;
+import com.ripple.client.subscriptions.TransactionHub;
+import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.coretypes.STObject;
+import com.ripple.core.coretypes.hash.Index;
+import com.ripple.core.coretypes.uint.UInt32;
+import com.ripple.core.serialized.enums.LedgerEntryType;
+import com.ripple.core.serialized.enums.TransactionType;
+import com.ripple.core.types.known.tx.Transaction;
+import com.ripple.core.types.known.tx.result.TransactionResult;
+import com.ripple.core.types.shamap.LedgerFixture;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.ripple.core.types.shamap.LedgerFixture.*;
+import static org.junit.Assert.*;
+
+public class TransactionHubTest {
+    private static final AccountID alice = AccountID.fromAddress("rPMh7Pi9ct699iZUTWaytJUoHcJ7cgyziK");
+    private static final AccountID bob = AccountID.fromAddress("rMwjYedjc7qqtKYVLiAccJSmCwih4LnE2q");
+    private static final AccountID carol = AccountID.fromAddress("rM3X3QSr8icjTGpaF52dozhbT2BZSXJQYM");
+
+    private MockPair pair = new MockPair().connect();
+    // Delivers on the client thread, to keep the tests deterministic
+    private TransactionHub hub = new TransactionHub(pair.client, Runnable::run, 2, OverflowPolicy.DROP_OLDEST);
+    private List<TransactionResult> validated = new ArrayList<>();
+
+    {
+        // discard the subscribe request
+        pair.server.unreadMarked();
+        pair.client.onValidatedTransaction(validated::add);
+    }
+
+    private static class Recorder implements Flow.Subscriber<TransactionResult> {
+        final List<TransactionResult> items = new ArrayList<>();
+        Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(TransactionResult item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    private List<JSONObject> subscribeRequests() {
+        List<JSONObject> subscribes = new ArrayList<>();
+        for (MockPair.Message message : pair.server.unreadMarked()) {
+            Request request = message.getRequest(pair.client);
+            assertEquals(Command.subscribe, request.cmd);
+            subscribes.add(request.json());
+        }
+        return subscribes;
+    }
+
+    private static JSONObject root(AccountID account) {
+        return node("ModifiedNode", Index.accountRoot(account),
+                rootJSON(account, "1000000000", 0));
+    }
+
+    private static TransactionResult result(JSONObject txn, JSONObject... nodes) {
+        return LedgerFixture.result(10, 0, "tesSUCCESS",
+                (Transaction) STObject.fromJSONObject(txn.put("Fee", "10").put("Sequence", 1)),
+                nodes);
+    }
+
+    private static TransactionResult payment(AccountID from, AccountID to) {
+        return result(new JSONObject()
+                        .put("TransactionType", "Payment")
+                        .put("Account", from.address())
+                        .put("Destination", to.address())
+                        .put("Amount", "1000"),
+                root(from), root(to));
+    }
+
+    private static TransactionResult accountSet(AccountID account) {
+        return result(new JSONObject()
+                        .put("TransactionType", "AccountSet")
+                        .put("Account", account.address()),
+                root(account));
+    }
+
+    @Test
+    public void testDispatchesByAffectedAccount() {
+        Recorder aliceRecorder = new Recorder(), bobRecorder = new Recorder();
+        hub.subscribe(new TransactionHub.Filter().accounts(alice), aliceRecorder);
+        hub.subscribe(new TransactionHub.Filter().accounts(alice, bob)
+                                                 .transactionTypes(TransactionType.Payment),
+                      bobRecorder);
+
+        // Each account is subscribed to upstream just once
+        List<JSONObject> subscribes = subscribeRequests();
+        assertEquals(2, subscribes.size());
+        assertEquals(alice.address(), subscribes.get(0).getJSONArray("accounts").get(0).toString());
+        assertEquals(bob.address(), subscribes.get(1).getJSONArray("accounts").get(0).toString());
+
+        hub.notifyTransactionResult(payment(alice, bob));
+        hub.notifyTransactionResult(accountSet(bob));
+        hub.notifyTransactionResult(accountSet(carol));
+
+        assertEquals(1, aliceRecorder.items.size());
+        // Once, though it affects both its accounts, and not the AccountSet
+        assertEquals(1, bobRecorder.items.size());
+        // The client is still notified of everything
+        assertEquals(3, validated.size());
+    }
+
+    @Test
+    public void testFiltersByLedgerEntryTypeAcrossAllAccounts() {
+        Recorder recorder = new Recorder();
+        hub.subscribe(new TransactionHub.Filter().ledgerEntryTypes(LedgerEntryType.Offer), recorder);
+        List<JSONObject> subscribes = subscribeRequests();
+        assertEquals(1, subscribes.size());
+        assertEquals("transactions", subscribes.get(0).getJSONArray("streams").get(0).toString());
+
+        hub.notifyTransactionResult(payment(alice, bob));
+        hub.notifyTransactionResult(result(new JSONObject()
+                        .put("TransactionType", "OfferCreate")
+                        .put("Account", carol.address())
+                        .put("TakerPays", "1000")
+                        .put("TakerGets", "1/USD/" + alice.address()),
+                root(carol),
+                node("CreatedNode", Index.ticket(carol, new UInt32(1)), new JSONObject()
+                        .put("LedgerEntryType", "Offer")
+                        .put("Account", carol.address())
+                        .put("Sequence", 1))));
+        assertEquals(1, recorder.items.size());
+        assertEquals(TransactionType.OfferCreate, recorder.items.get(0).transactionType());
+    }
+
+    @Test
+    public void testSlowSubscribersOnlyLoseTheirOwn() {
+        Recorder fast = new Recorder();
+        Flow.Subscriber<TransactionResult> slow = new Recorder() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+            }
+        };
+        hub.subscribe(new TransactionHub.Filter().accounts(alice), fast);
+        EventPublisher<TransactionResult> slowPublisher =
+                hub.subscribe(new TransactionHub.Filter().accounts(alice), slow);
+
+        for (int i = 0; i < 5; i++) {
+            hub.notifyTransactionResult(accountSet(alice));
+        }
+        assertEquals(5, fast.items.size());
+        assertEquals(3, slowPublisher.dropped());
+        assertEquals(2, slowPublisher.maxLag());
+    }
+
+    @Test
+    public void testCancellingUnsubscribes() {
+        Recorder recorder = new Recorder();
+        EventPublisher<TransactionResult> publisher =
+                hub.subscribe(new TransactionHub.Filter().accounts(alice), recorder);
+        Recorder other = new Recorder();
+        hub.subscribe(new TransactionHub.Filter().accounts(bob), other);
+        assertEquals(2, hub.subscriberCount());
+
+        recorder.subscription.cancel();
+        assertEquals(0, hub.dispatch(accountSet(alice)));
+        assertTrue(publisher.isClosed());
+        assertEquals(1, hub.subscriberCount());
+        JSONArray accounts = pair.client.subscriptions.allSubscribed().getJSONArray("accounts");
+        assertEquals(1, accounts.length());
+        assertEquals(bob.address(), accounts.get(0).toString());
+
+        hub.subscribe(new TransactionHub.Filter().accounts(alice), new Recorder());
+        assertEquals(1, hub.dispatch(accountSet(alice)));
+    }
+
+    @Test
+    public void testLeavesSubscriptionsOthersHold() {
+        // eg. the client's own account, and a LedgerSubscriber
+        pair.client.subscriptions.addAccount(alice);
+        pair.client.subscriptions.addStream(SubscriptionManager.Stream.transactions);
+        assertEquals(2, subscribeRequests().size());
+
+        hub.subscribe(new TransactionHub.Filter().accounts(alice), new Recorder()).close();
+        hub.subscribe(new TransactionHub.Filter(), new Recorder()).close();
+        // Neither subscribed nor unsubscribed again
+        assertTrue(pair.server.unreadMarked().isEmpty());
+        JSONObject subscribed = pair.client.subscriptions.allSubscribed();
+        assertEquals(alice.address(), subscribed.getJSONArray("accounts").get(0).toString());
+        assertTrue(subscribed.getJSONArray("streams").toString().contains("transactions"));
+    }
+}
@@ -0,0 +1,33 @@
+package com.ripple.client.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyHistogramTest {
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(5);
+        }
+        histogram.record(1000);
+
+        assertEquals(100, histogram.count());
+        assertEquals(14.95, histogram.mean(), 0.0001);
+        // 5 lives in the [4, 8) bucket
+        assertEquals(7, histogram.percentile(50));
+        assertEquals(7, histogram.percentile(99));
+        // 1000 lives in the [512, 1024) bucket
+        assertEquals(1023, histogram.percentile(100));
+    }
+
+    @Test
+    public void testZeroAndEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(99));
+        histogram.record(0);
+        histogram.record(-1);
+        assertEquals(0, histogram.percentile(100));
+    }
+}
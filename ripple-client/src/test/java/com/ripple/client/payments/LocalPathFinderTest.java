@@ -0,0 +1,118 @@
+package com.ripple.client.payments;
+
+import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.coretypes.Amount;
+import com.ripple.core.coretypes.Currency;
+import com.ripple.core.coretypes.Issue;
+import com.ripple.core.coretypes.PathSet;
+import com.ripple.core.coretypes.STObject;
+import com.ripple.core.coretypes.hash.Hash256;
+import com.ripple.core.coretypes.hash.Index;
+import com.ripple.core.coretypes.uint.UInt32;
+import com.ripple.core.types.known.sle.LedgerEntry;
+import com.ripple.core.types.shamap.AccountState;
+import com.ripple.core.types.shamap.LedgerFixture;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static com.ripple.core.types.shamap.LedgerFixture.*;
+import static org.junit.Assert.*;
+
+public class LocalPathFinderTest {
+    private final AccountID gateway = AccountID.fromAddress("rHb9CJAWyB4rj91VRWn96DkukG4bwdtyTh");
+    private final AccountID alice = AccountID.fromAddress("rPMh7Pi9ct699iZUTWaytJUoHcJ7cgyziK");
+    private final AccountID bob = AccountID.fromAddress("rMwjYedjc7qqtKYVLiAccJSmCwih4LnE2q");
+    private final AccountID carol = AccountID.fromAddress("rM3X3QSr8icjTGpaF52dozhbT2BZSXJQYM");
+    private final AccountID dan = AccountID.fromAddress("rHhuL3YUYgXEwzKxB2YtfLAun1iFshXWcH");
+    private final Issue usd = Issue.of(Currency.fromString("USD"), gateway);
+
+    private final LedgerFixture ledger = new LedgerFixture();
+    private final AccountState state = ledger.state;
+
+    private Hash256 aliceLine;
+
+    private LocalPathFinder finder() {
+        ledger.root(gateway, "1000000000", 0);
+        state.getLE(Index.accountRoot(gateway)).put(UInt32.TransferRate, new UInt32(1002000000));
+        ledger.root(alice, "1000000000", 0);
+        ledger.root(bob, "1000000000", 0);
+        ledger.root(carol, "100000000000", 0);
+        ledger.root(dan, "1000000000", 0);
+        aliceLine = ledger.line(alice, usd, "100", "1000");
+        ledger.line(bob, usd, "0", "1000");
+        ledger.line(dan, usd, "500", "1000");
+        // dan sells USD for 10 XRP each
+        ledger.offer(dan, new Amount(new BigDecimal("1000")),
+                     Amount.fromString("100/USD/" + gateway.address()));
+        return new LocalPathFinder(state);
+    }
+
+    private static Alternative rippling(Alternatives alternatives) {
+        for (Alternative alternative : alternatives) {
+            if (!alternative.sourceAmount.isNative()) {
+                return alternative;
+            }
+        }
+        return null;
+    }
+
+    private Amount toBob(String value) {
+        return Amount.fromString(value + "/USD/" + bob.address());
+    }
+
+    @Test
+    public void testRipplesThroughTheIssuer() {
+        LocalPathFinder finder = finder();
+        Alternatives alternatives = finder.find(alice, bob, toBob("10"));
+
+        // alice could also spend XRP, through the book
+        assertEquals(2, alternatives.size());
+        assertTrue(alternatives.hasNativeSource());
+        Alternative alternative = rippling(alternatives);
+        assertEquals("10.02", alternative.sourceAmount.valueText());
+        assertEquals(alice, alternative.sourceAmount.issuer());
+        assertEquals(1, alternative.paths.size());
+        assertEquals(gateway, alternative.paths.get(0).get(0).account);
+
+        // More than alice holds, and the gateway won't issue for her
+        assertNull(rippling(finder.find(alice, bob, toBob("200"))));
+    }
+
+    @Test
+    public void testCrossesABookFromXRP() {
+        LocalPathFinder finder = finder();
+        Alternatives alternatives = finder.find(carol, bob, toBob("10"));
+
+        assertEquals(1, alternatives.size());
+        Alternative alternative = alternatives.get(0);
+        assertTrue(alternative.sourceAmount.isNative());
+        assertEquals("100", alternative.sourceAmount.valueText());
+        PathSet.Hop hop = alternative.paths.get(0).get(0);
+        assertEquals(gateway, hop.issuer);
+        assertEquals("USD", hop.currency.toString());
+    }
+
+    @Test
+    public void testCachesUntilDependenciesChange() {
+        LocalPathFinder finder = finder();
+        Alternative first = rippling(finder.find(alice, bob, toBob("10")));
+        assertSame(first, rippling(finder.find(alice, bob, toBob("10.0"))));
+        assertEquals(1, finder.cacheSize());
+
+        // carol's account isn't something alice's paths depend on
+        finder.updateFromTransactionResult(result(10, 0, node("ModifiedNode",
+                Index.accountRoot(carol), rootJSON(carol, "99000000000", 0))));
+        assertSame(first, rippling(finder.find(alice, bob, toBob("10"))));
+
+        // alice's line changing invalidates them
+        JSONObject lineFields = lineJSON(alice, usd, "5", "1000");
+        LedgerEntry updated = (LedgerEntry) STObject.fromJSONObject(lineFields);
+        updated.index(aliceLine);
+        state.updateLE(updated);
+        finder.updateFromTransactionResult(result(10, 0, node("ModifiedNode", aliceLine, lineFields)));
+        assertEquals(0, finder.cacheSize());
+        assertNull(rippling(finder.find(alice, bob, toBob("10"))));
+    }
+}
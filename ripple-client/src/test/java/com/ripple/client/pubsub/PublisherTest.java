@@ -0,0 +1,151 @@
+package com.ripple.client.pubsub;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PublisherTest {
+    interface events<T> extends Publisher.Callback<T> {}
+    interface OnThing extends events<Integer> {}
+
+    private Publisher<events<?>> publisher = new Publisher<>();
+
+    @Test
+    public void testOnceOnlyFiresOnce() {
+        AtomicInteger called = new AtomicInteger();
+        publisher.once(OnThing.class, n -> called.incrementAndGet());
+
+        assertEquals(1, publisher.emit(OnThing.class, 1));
+        assertEquals(0, publisher.emit(OnThing.class, 2));
+        assertEquals(1, called.get());
+    }
+
+    @Test
+    public void testManyOnceCallbacksAreCompacted() {
+        AtomicInteger called = new AtomicInteger();
+        OnThing persistent = n -> called.incrementAndGet();
+        publisher.on(OnThing.class, persistent);
+        for (int i = 0; i < 100; i++) {
+            publisher.once(OnThing.class, n -> called.incrementAndGet());
+        }
+        assertEquals(101, publisher.emit(OnThing.class, 1));
+        assertEquals(1, publisher.emit(OnThing.class, 2));
+        assertEquals(102, called.get());
+
+        assertTrue(publisher.removeListener(OnThing.class, persistent));
+        assertFalse(publisher.removeListener(OnThing.class, persistent));
+        assertEquals(0, publisher.emit(OnThing.class, 3));
+    }
+
+    @Test
+    public void testListenersAddedDuringEmitAreNotCalled() {
+        ArrayList<Integer> seen = new ArrayList<>();
+        publisher.once(OnThing.class, n -> {
+            seen.add(n);
+            publisher.on(OnThing.class, seen::add);
+        });
+        publisher.emit(OnThing.class, 1);
+        publisher.emit(OnThing.class, 2);
+        assertEquals(2, seen.size());
+        assertEquals(1, (int) seen.get(0));
+        assertEquals(2, (int) seen.get(1));
+    }
+
+    @Test
+    public void testContextRemoval() {
+        boolean[] remove = {false};
+        AtomicInteger called = new AtomicInteger();
+        publisher.on(OnThing.class, new CallbackContext() {
+            @Override
+            public boolean shouldExecute() {
+                return !remove[0];
+            }
+
+            @Override
+            public boolean shouldRemove() {
+                return remove[0];
+            }
+        }, n -> called.incrementAndGet());
+
+        publisher.emit(OnThing.class, 1);
+        remove[0] = true;
+        publisher.emit(OnThing.class, 2);
+        remove[0] = false;
+        publisher.emit(OnThing.class, 3);
+        assertEquals(1, called.get());
+        assertEquals(0, publisher.clearAllListeners());
+    }
+
+    @Test
+    public void testConcurrentOnceFiresExactlyOnce() throws Exception {
+        int nThreads = 8, nCallbacks = 1000;
+        AtomicInteger called = new AtomicInteger();
+        for (int i = 0; i < nCallbacks; i++) {
+            publisher.once(OnThing.class, n -> called.incrementAndGet());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < nThreads; i++) {
+            pool.submit(() -> {
+                start.await();
+                publisher.on(OnThing.class, n -> {});
+                return publisher.emit(OnThing.class, 0);
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(nCallbacks, called.get());
+        assertEquals(nThreads, publisher.clearAllListeners());
+    }
+
+    @Test
+    public void testClearingCountsEverythingAddedConcurrently() throws Exception {
+        int nThreads = 4, nEach = 5000;
+        ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < nThreads; i++) {
+            pool.submit(() -> {
+                start.await();
+                for (int j = 0; j < nEach; j++) {
+                    publisher.on(OnThing.class, n -> {});
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        int cleared = 0;
+        while (!pool.isTerminated()) {
+            cleared += publisher.clearAllListeners();
+            pool.shutdown();
+        }
+        cleared += publisher.clearAllListeners();
+        // Every listener was either cleared and counted, or is still there
+        assertEquals(nThreads * nEach, cleared);
+    }
+
+    @Test
+    public void testAsyncContext() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch latch = new CountDownLatch(1);
+        Thread[] ranOn = new Thread[1];
+        publisher.once(OnThing.class, CallbackContext.async(executor), n -> {
+            ranOn[0] = Thread.currentThread();
+            latch.countDown();
+        });
+        publisher.emit(OnThing.class, 1);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertFalse(ranOn[0] == Thread.currentThread());
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,146 @@
+package com.ripple.client.streams;
+
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EventPublisherTest {
+    private static class Recorder implements Flow.Subscriber<Integer> {
+        final List<Integer> items = new ArrayList<>();
+        Flow.Subscription subscription;
+        Throwable error;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    // Delivers on the offering thread, to keep the tests deterministic
+    private static EventPublisher<Integer> publisher(int bufferSize, OverflowPolicy policy) {
+        return new EventPublisher<>("test", Runnable::run, bufferSize, policy);
+    }
+
+    @Test
+    public void testDeliversOnlyWhatIsRequested() {
+        EventPublisher<Integer> publisher = publisher(10, OverflowPolicy.FAIL);
+        Recorder recorder = new Recorder();
+        publisher.subscribe(recorder);
+        assertNotNull(recorder.subscription);
+
+        for (int i = 0; i < 5; i++) {
+            publisher.offer(i);
+        }
+        assertTrue(recorder.items.isEmpty());
+        assertEquals(5, publisher.maxLag());
+
+        recorder.subscription.request(2);
+        assertEquals(2, recorder.items.size());
+        assertEquals(3, publisher.maxLag());
+
+        // Completion waits for the buffer to drain
+        publisher.close();
+        assertFalse(recorder.completed);
+        recorder.subscription.request(Long.MAX_VALUE);
+        assertEquals(5, recorder.items.size());
+        assertTrue(recorder.completed);
+        assertEquals(0, publisher.subscriberCount());
+    }
+
+    @Test
+    public void testDropOldestKeepsTheLatest() {
+        EventPublisher<Integer> publisher = publisher(2, OverflowPolicy.DROP_OLDEST);
+        Recorder recorder = new Recorder();
+        publisher.subscribe(recorder);
+
+        for (int i = 0; i < 5; i++) {
+            publisher.offer(i);
+        }
+        assertEquals(3, publisher.dropped());
+        recorder.subscription.request(10);
+        assertEquals(3, (int) recorder.items.get(0));
+        assertEquals(4, (int) recorder.items.get(1));
+    }
+
+    @Test
+    public void testDropNewestAndFail() {
+        EventPublisher<Integer> dropping = publisher(1, OverflowPolicy.DROP_NEWEST);
+        EventPublisher<Integer> failing = publisher(1, OverflowPolicy.FAIL);
+        Recorder dropped = new Recorder(), failed = new Recorder();
+        dropping.subscribe(dropped);
+        failing.subscribe(failed);
+
+        for (int i = 0; i < 3; i++) {
+            dropping.offer(i);
+            failing.offer(i);
+        }
+        dropped.subscription.request(10);
+        assertEquals(1, dropped.items.size());
+        assertEquals(0, (int) dropped.items.get(0));
+
+        assertTrue(failed.error instanceof BufferOverflowException);
+        assertTrue(failed.items.isEmpty());
+        assertEquals(0, failing.subscriberCount());
+    }
+
+    @Test
+    public void testSlowSubscriberDoesNotHoldUpOthers() {
+        EventPublisher<Integer> publisher = publisher(1, OverflowPolicy.DROP_NEWEST);
+        Recorder slow = new Recorder(), fast = new Recorder();
+        publisher.subscribe(slow);
+        publisher.subscribe(fast);
+        fast.subscription.request(Long.MAX_VALUE);
+
+        for (int i = 0; i < 3; i++) {
+            publisher.offer(i);
+        }
+        assertEquals(3, fast.items.size());
+        assertTrue(slow.items.isEmpty());
+        assertEquals(1, publisher.maxLag());
+
+        slow.subscription.cancel();
+        assertEquals(1, publisher.subscriberCount());
+        publisher.offer(3);
+        assertTrue(slow.items.isEmpty());
+    }
+
+    @Test
+    public void testClosingRunsHooksAndCompletesLateSubscribers() {
+        int[] closed = {0};
+        EventPublisher<Integer> publisher = publisher(1, OverflowPolicy.FAIL)
+                .onClose(() -> closed[0]++);
+        publisher.close();
+        publisher.close();
+        assertEquals(1, closed[0]);
+
+        Recorder late = new Recorder();
+        publisher.subscribe(late);
+        assertTrue(late.completed);
+
+        Recorder invalid = new Recorder();
+        EventPublisher<Integer> open = publisher(1, OverflowPolicy.FAIL);
+        open.subscribe(invalid);
+        invalid.subscription.request(0);
+        assertTrue(invalid.error instanceof IllegalArgumentException);
+    }
+}
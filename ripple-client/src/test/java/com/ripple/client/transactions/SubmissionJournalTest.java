@@ -0,0 +1,190 @@
+package com.ripple.client.transactions;
+
+import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.coretypes.Amount;
+import com.ripple.core.coretypes.uint.UInt32;
+import com.ripple.core.types.known.tx.txns.Payment;
+import com.ripple.crypto.Seed;
+import com.ripple.crypto.keys.IKeyPair;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SubmissionJournalTest {
+    private static final String secret = "shn6zJ8zzkaoFSfsEWvJLZf3V344C";
+    private static final IKeyPair keyPair = Seed.fromBase58(secret).keyPair();
+    private static final AccountID account = AccountID.fromSeed(secret);
+    private static final AccountID bob = AccountID.fromAddress("rMwjYedjc7qqtKYVLiAccJSmCwih4LnE2q");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path path() {
+        return folder.getRoot().toPath().resolve("journal.log");
+    }
+
+    private static ManagedTxn submit(long sequence, long ledger) {
+        Payment payment = new Payment();
+        payment.account(account);
+        payment.destination(bob);
+        payment.amount(Amount.fromString("1000"));
+        ManagedTxn txn = new ManagedTxn(payment);
+        resubmit(txn, ledger);
+        txn.prepare(keyPair, Amount.fromString("12"), new UInt32(sequence), new UInt32(ledger + 8));
+        txn.trackSubmitRequest(null, ledger);
+        return txn;
+    }
+
+    private static void resubmit(ManagedTxn txn, long ledger) {
+        if (!txn.submissions.isEmpty()) {
+            txn.prepare(keyPair, Amount.fromString("15"), txn.sequence(), new UInt32(ledger + 8));
+            txn.trackSubmitRequest(null, ledger);
+        }
+    }
+
+    @Test
+    public void testRestoresWhatWasNotValidated() {
+        ManagedTxn first = submit(1, 100), second = submit(2, 100), third = submit(3, 101);
+        try (SubmissionJournal journal = new SubmissionJournal(path(), 0)) {
+            journal.submitted(account, first);
+            journal.submitted(account, second);
+            resubmit(second, 105);
+            journal.submitted(account, second);
+            journal.submitted(account, third);
+            journal.validated(first);
+            journal.failed(third);
+        }
+
+        try (SubmissionJournal journal = new SubmissionJournal(path(), 0)) {
+            assertTrue(journal.restore(AccountID.fromAddress("rMwjYedjc7qqtKYVLiAccJSmCwih4LnE2q")).isEmpty());
+            List<ManagedTxn> restored = journal.restore(account);
+            assertEquals(2, restored.size());
+
+            ManagedTxn resubmitted = restored.get(0);
+            assertEquals(2, resubmitted.sequence().longValue());
+            assertEquals(2, resubmitted.submissions.size());
+            assertTrue(resubmitted.wasSubmittedWith(second.submissions.get(0).hash));
+            assertEquals(second.hash, resubmitted.hash);
+            assertEquals(second.tx_blob, resubmitted.tx_blob);
+            assertEquals(113, resubmitted.lastSubmission().lastLedgerSequence.longValue());
+            assertEquals(SubmissionJournal.State.submitted, journal.state(resubmitted));
+            assertEquals(SubmissionJournal.State.failed, journal.state(restored.get(1)));
+
+            // Each is only restored once
+            assertTrue(journal.restore(account).isEmpty());
+            // and is journaled as before
+            journal.validated(resubmitted);
+            journal.expired(restored.get(1));
+        }
+
+        try (SubmissionJournal journal = new SubmissionJournal(path(), 0)) {
+            assertTrue(journal.live().isEmpty());
+        }
+    }
+
+    @Test
+    public void testIgnoresATornTail() throws IOException {
+        try (SubmissionJournal journal = new SubmissionJournal(path(), 0)) {
+            journal.submitted(account, submit(1, 100));
+        }
+        String written = new String(Files.readAllBytes(path()), StandardCharsets.UTF_8);
+        // A record cut short by a crash
+        Files.write(path(), written.substring(0, written.length() / 2).getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        try (SubmissionJournal journal = new SubmissionJournal(path(), 0)) {
+            assertEquals(1, journal.live().size());
+        }
+        // and compaction dropped it
+        assertEquals(written, new String(Files.readAllBytes(path()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWontCompactPastACorruptLine() throws IOException {
+        try (SubmissionJournal journal = new SubmissionJournal(path(), 0)) {
+            for (int i = 1; i <= 3; i++) {
+                journal.submitted(account, submit(i, 100));
+            }
+        }
+        List<String> lines = Files.readAllLines(path(), StandardCharsets.UTF_8);
+        lines.set(1, lines.get(1).replace("\"op\"", "\"oq\""));
+        Files.write(path(), lines, StandardCharsets.UTF_8);
+        byte[] corrupted = Files.readAllBytes(path());
+
+        try {
+            new SubmissionJournal(path(), 0).close();
+            fail();
+        } catch (RuntimeException expected) {
+            assertTrue(expected.getCause().getMessage().contains("line 2"));
+        }
+        assertArrayEquals(corrupted, Files.readAllBytes(path()));
+    }
+
+    @Test
+    public void testBatchesFsyncs() {
+        try (SubmissionJournal journal = new SubmissionJournal(path(), 60 * 60 * 1000)) {
+            for (int i = 1; i <= 10; i++) {
+                journal.submitted(account, submit(i, 100));
+            }
+            assertEquals(0, journal.syncs());
+            journal.sync();
+            assertEquals(1, journal.syncs());
+            journal.sync();
+            assertEquals(1, journal.syncs());
+        }
+        try (SubmissionJournal journal = new SubmissionJournal(path(), 0)) {
+            assertEquals(10, journal.live().size());
+        }
+    }
+
+    @Test
+    public void testOnlySendsOnceSynced() {
+        List<Long> sent = new ArrayList<>();
+        try (SubmissionJournal journal = new SubmissionJournal(path(), 60 * 60 * 1000)) {
+            for (long i = 1; i <= 3; i++) {
+                long sequence = i;
+                journal.submitted(account, submit(sequence, 100), () -> sent.add(sequence));
+            }
+            journal.failed(submit(4, 100));
+            assertTrue(sent.isEmpty());
+
+            journal.sync();
+            assertEquals(1, journal.syncs());
+            assertEquals(Arrays.asList(1L, 2L, 3L), sent);
+        }
+    }
+
+    @Test
+    public void testStillSendsWhenWritingFails() throws IOException {
+        List<Long> sent = new ArrayList<>();
+        try (SubmissionJournal journal = new SubmissionJournal(path(), 60 * 60 * 1000)) {
+            journal.submitted(account, submit(1, 100), () -> sent.add(1L));
+            journal.channel.close();
+            try {
+                journal.sync();
+                fail();
+            } catch (RuntimeException expected) {
+            }
+            // Sent regardless, as it's tracked as submitted
+            assertEquals(Collections.singletonList(1L), sent);
+            try {
+                journal.submitted(account, submit(2, 100), () -> sent.add(2L));
+                fail();
+            } catch (RuntimeException expected) {
+            }
+            assertEquals(1, sent.size());
+        }
+    }
+}
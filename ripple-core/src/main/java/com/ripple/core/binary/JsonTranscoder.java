@@ -0,0 +1,421 @@
+package com.ripple.core.binary;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ripple.core.coretypes.Amount;
+import com.ripple.core.coretypes.Currency;
+import com.ripple.core.coretypes.PathSet;
+import com.ripple.core.fields.Field;
+import com.ripple.core.fields.Type;
+import com.ripple.core.serialized.BinaryParser;
+import com.ripple.core.serialized.BinarySerializer;
+import com.ripple.core.serialized.BytesList;
+import com.ripple.core.serialized.BytesSink;
+import com.ripple.core.serialized.enums.EngineResult;
+import com.ripple.core.serialized.enums.LedgerEntryType;
+import com.ripple.core.serialized.enums.TransactionType;
+import com.ripple.encodings.addresses.Addresses;
+import com.ripple.encodings.common.B16;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Converts between the binary format and json directly, walking the bytes
+ * with a {@link BinaryParser} into a Jackson {@link JsonGenerator}, or a
+ * Jackson {@link JsonParser} into a {@link BytesSink}, without building an
+ * STObject tree.
+ *
+ * The output matches `STObject.fromHex(hex).toJSONObject()` and
+ * `STObject.fromJSONObject(json).toBytes()` respectively. IOU amounts,
+ * currencies and PathSets still go through their TypeTranslators.
+ */
+public class JsonTranscoder {
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final JsonFactory factory = mapper.getFactory();
+
+    public static String toJSON(String hex) {
+        return toJSON(B16.decode(hex));
+    }
+
+    public static String toJSON(byte[] bytes) {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = factory.createGenerator(writer)) {
+            toJSON(new BinaryParser(bytes), generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes the object the parser is positioned at, until the parser ends.
+     */
+    public static void toJSON(BinaryParser parser, JsonGenerator out) throws IOException {
+        writeObject(parser, out);
+    }
+
+    public static byte[] toBytes(String json) {
+        BytesList list = new BytesList();
+        try (JsonParser parser = factory.createParser(json)) {
+            toBytesSink(parser, list);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return list.bytes();
+    }
+
+    public static String toHex(String json) {
+        return B16.encode(toBytes(json));
+    }
+
+    /**
+     * Reads the next json object from the parser, writing it to the sink in
+     * canonical field order. Unknown and non serialized keys are skipped.
+     */
+    public static void toBytesSink(JsonParser parser, BytesSink to) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT &&
+                parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IllegalStateException("Expected a json object");
+        }
+        readObject(parser, to);
+    }
+
+    private static void writeObject(BinaryParser parser, JsonGenerator out) throws IOException {
+        out.writeStartObject();
+        while (!parser.end()) {
+            Field field = parser.readField();
+            if (field == Field.ObjectEndMarker) {
+                break;
+            }
+            out.writeFieldName(field.name());
+            writeValue(parser, field, out);
+        }
+        out.writeEndObject();
+    }
+
+    private static void writeValue(BinaryParser parser, Field field, JsonGenerator out) throws IOException {
+        Type type = field.getType();
+        switch (type) {
+            case UInt8:
+                int uint8 = parser.readOneInt();
+                EngineResult result = field == Field.TransactionResult ?
+                        EngineResult.fromNumber(uint8) : null;
+                if (result != null) {
+                    out.writeString(result.name());
+                } else {
+                    out.writeNumber(uint8);
+                }
+                break;
+            case UInt16:
+                int uint16 = parser.readOneInt() << 8 | parser.readOneInt();
+                Enum<?> named = null;
+                if (field == Field.TransactionType) {
+                    named = TransactionType.fromNumber(uint16);
+                } else if (field == Field.LedgerEntryType) {
+                    named = LedgerEntryType.fromNumber(uint16);
+                }
+                if (named != null) {
+                    out.writeString(named.name());
+                } else {
+                    out.writeNumber(uint16);
+                }
+                break;
+            case UInt32:
+                long uint32 = 0;
+                for (int i = 0; i < 4; i++) {
+                    uint32 = uint32 << 8 | parser.readOneInt();
+                }
+                out.writeNumber(uint32);
+                break;
+            case UInt64:
+                out.writeString(B16.encode(parser.read(8)));
+                break;
+            case Hash128:
+                out.writeString(B16.encode(parser.read(16)));
+                break;
+            case Hash160:
+                out.writeString(B16.encode(parser.read(20)));
+                break;
+            case Hash256:
+                out.writeString(B16.encode(parser.read(32)));
+                break;
+            case Blob:
+                out.writeString(B16.encode(parser.read(parser.readVLLength())));
+                break;
+            case AccountID:
+                out.writeString(Addresses.encodeAccountID(parser.read(parser.readVLLength())));
+                break;
+            case Vector256:
+                int n = parser.readVLLength() / 32;
+                out.writeStartArray();
+                for (int i = 0; i < n; i++) {
+                    out.writeString(B16.encode(parser.read(32)));
+                }
+                out.writeEndArray();
+                break;
+            case Amount:
+                writeAmount(parser, out);
+                break;
+            case STObject:
+                writeObject(parser, out);
+                break;
+            case STArray:
+                out.writeStartArray();
+                while (!parser.end()) {
+                    Field element = parser.readField();
+                    if (element == Field.ArrayEndMarker) {
+                        break;
+                    }
+                    out.writeStartObject();
+                    out.writeFieldName(element.name());
+                    writeObject(parser, out);
+                    out.writeEndObject();
+                }
+                out.writeEndArray();
+                break;
+            case PathSet:
+                writePathSet(parser, out);
+                break;
+            default:
+                throw new IllegalStateException("Can't transcode " + field);
+        }
+    }
+
+    private static void writeAmount(BinaryParser parser, JsonGenerator out) throws IOException {
+        byte[] mantissa = parser.read(8);
+        if ((mantissa[0] & 0x80) != 0) {
+            BytesList iou = new BytesList();
+            iou.add(mantissa);
+            iou.add(parser.read(40));
+            Amount amount = Amount.translate.fromBytes(iou.bytes());
+            out.writeStartObject();
+            out.writeStringField("currency", amount.currencyString());
+            out.writeStringField("value", amount.valueText());
+            out.writeStringField("issuer", amount.issuerString());
+            out.writeEndObject();
+        } else {
+            boolean positive = (mantissa[0] & 0x40) != 0;
+            long drops = mantissa[0] & 0x3F;
+            for (int i = 1; i < 8; i++) {
+                drops = drops << 8 | (mantissa[i] & 0xFF);
+            }
+            out.writeString(Long.toString(positive || drops == 0 ? drops : -drops));
+        }
+    }
+
+    private static void writePathSet(BinaryParser parser, JsonGenerator out) throws IOException {
+        out.writeStartArray();
+        boolean inPath = false;
+        while (!parser.end()) {
+            byte hop = parser.readOne();
+            if (hop == PathSet.PATHSET_END_BYTE) {
+                break;
+            }
+            if (!inPath) {
+                out.writeStartArray();
+                inPath = true;
+            }
+            if (hop == PathSet.PATH_SEPARATOR_BYTE) {
+                out.writeEndArray();
+                inPath = false;
+                continue;
+            }
+            out.writeStartObject();
+            out.writeNumberField("type", hop & 0xFF);
+            // Serialized in this order, but written like Hop.toJSONObject
+            String account = null, currency = null, issuer = null;
+            if ((hop & PathSet.Hop.TYPE_ACCOUNT) != 0) {
+                account = Addresses.encodeAccountID(parser.read(20));
+            }
+            if ((hop & PathSet.Hop.TYPE_CURRENCY) != 0) {
+                currency = Currency.fromParser(parser).toString();
+            }
+            if ((hop & PathSet.Hop.TYPE_ISSUER) != 0) {
+                issuer = Addresses.encodeAccountID(parser.read(20));
+            }
+            if (account != null) out.writeStringField("account", account);
+            if (issuer != null) out.writeStringField("issuer", issuer);
+            if (currency != null) out.writeStringField("currency", currency);
+            out.writeEndObject();
+        }
+        if (inPath) {
+            out.writeEndArray();
+        }
+        out.writeEndArray();
+    }
+
+    /**
+     * With the parser at START_OBJECT, reads through the matching END_OBJECT.
+     * Json keys come in any order, so each field is serialized on its own
+     * and then written out sorted.
+     */
+    private static void readObject(JsonParser parser, BytesSink to) throws IOException {
+        EnumMap<Field, BytesList> sorted = new EnumMap<>(Field.class);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Field field = Field.fromString(parser.getCurrentName());
+            parser.nextToken();
+            if (field == null || !field.isSerialized()) {
+                parser.skipChildren();
+                continue;
+            }
+            BytesList bytes = new BytesList();
+            readField(parser, field, bytes);
+            sorted.put(field, bytes);
+        }
+        for (Map.Entry<Field, BytesList> entry : sorted.entrySet()) {
+            for (byte[] bytes : entry.getValue().rawList()) {
+                to.add(bytes);
+            }
+        }
+    }
+
+    private static void readField(JsonParser parser, Field field, BytesList to) throws IOException {
+        BinarySerializer out = new BinarySerializer(to);
+        out.addFieldHeader(field);
+        switch (field.getType()) {
+            case UInt8:
+                out.add(new byte[]{(byte) readUInt(parser, field)});
+                break;
+            case UInt16:
+                long uint16 = readUInt(parser, field);
+                out.add(new byte[]{(byte) (uint16 >> 8), (byte) uint16});
+                break;
+            case UInt32:
+                long uint32 = readUInt(parser, field);
+                out.add(new byte[]{(byte) (uint32 >> 24), (byte) (uint32 >> 16),
+                                   (byte) (uint32 >> 8), (byte) uint32});
+                break;
+            case UInt64:
+                long uint64 = parser.currentToken() == JsonToken.VALUE_STRING ?
+                        Long.parseUnsignedLong(parser.getText(), 16) :
+                        parser.getLongValue();
+                byte[] bytes = new byte[8];
+                for (int i = 7; i >= 0; i--, uint64 >>>= 8) {
+                    bytes[i] = (byte) uint64;
+                }
+                out.add(bytes);
+                break;
+            case Hash128:
+                out.add(readHex(parser, 16));
+                break;
+            case Hash160:
+                out.add(readHex(parser, 20));
+                break;
+            case Hash256:
+                out.add(readHex(parser, 32));
+                break;
+            case Blob:
+                out.addLengthEncoded(B16.decode(parser.getText()));
+                break;
+            case AccountID:
+                String account = parser.getText();
+                out.addLengthEncoded(account.length() == 40 ?
+                        B16.decode(account) : Addresses.decodeAccountID(account));
+                break;
+            case Vector256:
+                BytesList hashes = new BytesList();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    hashes.add(readHex(parser, 32));
+                }
+                out.addLengthEncoded(hashes);
+                break;
+            case Amount:
+                readAmount(parser, to);
+                break;
+            case STObject:
+                readObject(parser, to);
+                out.addFieldHeader(Field.ObjectEndMarker);
+                break;
+            case STArray:
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    parser.nextToken();
+                    Field element = Field.fromString(parser.getCurrentName());
+                    if (element == null) {
+                        throw new IllegalStateException(
+                                "Unknown STArray element " + parser.getCurrentName());
+                    }
+                    parser.nextToken();
+                    out.addFieldHeader(element);
+                    readObject(parser, to);
+                    out.addFieldHeader(Field.ObjectEndMarker);
+                    parser.nextToken(); // END_OBJECT of the wrapper
+                }
+                out.addFieldHeader(Field.ArrayEndMarker);
+                break;
+            case PathSet:
+                PathSet.translate.fromValue(readTree(parser)).toBytesSink(to);
+                break;
+            default:
+                throw new IllegalStateException("Can't transcode " + field);
+        }
+    }
+
+    private static long readUInt(JsonParser parser, Field field) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING) {
+            return parser.getLongValue();
+        }
+        String text = parser.getText();
+        switch (field) {
+            case TransactionType:
+                return TransactionType.valueOf(text).asInteger();
+            case LedgerEntryType:
+                return LedgerEntryType.valueOf(text).asInteger();
+            case TransactionResult:
+                return EngineResult.valueOf(text).asInteger();
+            default:
+                return Long.parseLong(text);
+        }
+    }
+
+    private static byte[] readHex(JsonParser parser, int width) throws IOException {
+        byte[] bytes = B16.decode(parser.getText());
+        if (bytes.length != width) {
+            throw new IllegalStateException("Expected " + width + " bytes, got " + parser.getText());
+        }
+        return bytes;
+    }
+
+    private static void readAmount(JsonParser parser, BytesList to) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING && isDrops(parser.getText())) {
+            String text = parser.getText();
+            boolean negative = text.startsWith("-");
+            long drops = Long.parseLong(negative ? text.substring(1) : text);
+            if (!negative) {
+                drops |= 0x4000000000000000L;
+            }
+            byte[] bytes = new byte[8];
+            for (int i = 7; i >= 0; i--, drops >>>= 8) {
+                bytes[i] = (byte) drops;
+            }
+            to.add(bytes);
+        } else {
+            Amount.translate.fromValue(readTree(parser)).toBytesSink(to);
+        }
+    }
+
+    private static boolean isDrops(String text) {
+        int start = text.startsWith("-") ? 1 : 0;
+        if (text.length() == start || text.length() - start > 18) {
+            return false;
+        }
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static JsonNode readTree(JsonParser parser) throws IOException {
+        return mapper.readTree(parser);
+    }
+}
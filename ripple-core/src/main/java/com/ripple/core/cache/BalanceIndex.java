@@ -0,0 +1,293 @@
+package com.ripple.core.cache;
+
+import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.coretypes.Amount;
+import com.ripple.core.coretypes.Currency;
+import com.ripple.core.coretypes.Issue;
+import com.ripple.core.coretypes.hash.Hash256;
+import com.ripple.core.coretypes.hash.Index;
+import com.ripple.core.coretypes.uint.UInt32;
+import com.ripple.core.types.known.sle.LedgerEntry;
+import com.ripple.core.types.known.sle.entries.AccountRoot;
+import com.ripple.core.types.known.sle.entries.RippleState;
+import com.ripple.core.types.known.tx.result.AffectedNode;
+import com.ripple.core.types.known.tx.result.TransactionMeta;
+import com.ripple.core.types.known.tx.result.TransactionResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the XRP balances, owner counts and trust lines of a set of accounts
+ * (or all of them) up to date from the AccountRoot and RippleState nodes of
+ * validated transaction metadata, so they can be looked up locally rather
+ * than with account_info/account_lines requests.
+ *
+ * Entries are only known once some metadata touches them, or they are
+ * seeded with {@link #updateFromLedgerEntry(LedgerEntry, UInt32)}, eg. from
+ * ledger_data or account_objects results. Updates older than what's already
+ * known for an entry are ignored, so a stream and a seed may overlap, though
+ * seeding from a ledger older than a deletion will resurrect the entry.
+ *
+ * Meant to be fed from one thread (eg. the Client's) and read from any: the
+ * values are immutable and replaced whole, and reads are lock free.
+ */
+public class BalanceIndex {
+    /**
+     * The AccountRoot fields of an account, as of the position they were
+     * last updated.
+     */
+    public static class Root {
+        public final AccountID account;
+        public final Amount balance;
+        public final UInt32 ownerCount;
+        public final UInt32 sequence;
+        private final long position;
+
+        Root(AccountRoot root, long position) {
+            this.account = root.account();
+            this.balance = root.balance();
+            this.ownerCount = root.ownerCount();
+            this.sequence = root.sequence();
+            this.position = position;
+        }
+    }
+
+    /**
+     * A trust line from the point of view of `account`, as in account_lines
+     * results: the balance is positive when the counterparty owes the
+     * account, and issued by the counterparty.
+     */
+    public static class TrustLine {
+        // The RippleState's ledger index, the key of the line
+        public final Hash256 index;
+        public final AccountID account;
+        public final AccountID counterparty;
+        public final Amount balance;
+        public final Amount limit;
+        public final Amount limitPeer;
+        private final long position;
+
+        TrustLine(RippleState state, Hash256 index, boolean low, long position) {
+            this.index = index;
+            this.position = position;
+            if (low) {
+                account = state.lowAccount();
+                counterparty = state.highAccount();
+                balance = state.balance().newIssuer(counterparty);
+                limit = state.lowLimit();
+                limitPeer = state.highLimit();
+            } else {
+                account = state.highAccount();
+                counterparty = state.lowAccount();
+                balance = state.balance().negate().newIssuer(counterparty);
+                limit = state.highLimit();
+                limitPeer = state.lowLimit();
+            }
+        }
+
+        public Currency currency() {
+            return balance.currency();
+        }
+    }
+
+    private static class Tracked {
+        volatile Root root = null;
+        final ConcurrentHashMap<Hash256, TrustLine> lines = new ConcurrentHashMap<>();
+    }
+
+    private final ConcurrentHashMap<AccountID, Tracked> accounts = new ConcurrentHashMap<>();
+    private final Set<AccountID> tracking = ConcurrentHashMap.newKeySet();
+    private volatile boolean trackAll = false;
+
+    /**
+     * Tracks every account seen from now on. Beware that on the full
+     * validated stream that's eventually every account in the ledger.
+     */
+    public BalanceIndex trackAll() {
+        trackAll = true;
+        return this;
+    }
+
+    public BalanceIndex track(AccountID account) {
+        tracking.add(account);
+        return this;
+    }
+
+    public BalanceIndex untrack(AccountID account) {
+        tracking.remove(account);
+        accounts.remove(account);
+        return this;
+    }
+
+    public boolean isTracking(AccountID account) {
+        return trackAll || tracking.contains(account);
+    }
+
+    public void updateFromTransactionResult(TransactionResult tr) {
+        if (!tr.validated) {
+            return;
+        }
+        TransactionMeta meta = tr.meta;
+        long position = position(tr.ledgerIndex, meta.transactionIndex().longValue());
+
+        for (AffectedNode an : meta.affectedNodes()) {
+            if (an.isAccountRoot()) {
+                AccountRoot root = (AccountRoot) an.finalView();
+                // Some modified roots have no FinalFields, see
+                // TransactionResult.modifiedRoots
+                if (root.account() != null) {
+                    updateRoot(root, an.isDeletedNode(), position);
+                }
+            } else if (an.isRippleState()) {
+                updateLines((RippleState) an.finalView(), an.isDeletedNode(), position);
+            }
+        }
+    }
+
+    /**
+     * Seeds (or refreshes) an AccountRoot or RippleState as of the end of
+     * the given validated ledger. Other entries are ignored.
+     */
+    public void updateFromLedgerEntry(LedgerEntry le, UInt32 ledgerIndex) {
+        // After all the transactions of the ledger
+        long position = position(ledgerIndex, 0xFFFFFFFFL);
+        if (le instanceof AccountRoot) {
+            updateRoot((AccountRoot) le, false, position);
+        } else if (le instanceof RippleState) {
+            updateLines((RippleState) le, false, position);
+        }
+    }
+
+    private static long position(UInt32 ledgerIndex, long transactionIndex) {
+        return (ledgerIndex.longValue() << 32) | transactionIndex;
+    }
+
+    private Tracked tracked(AccountID account, boolean create) {
+        if (!isTracking(account)) {
+            return null;
+        }
+        return create ? accounts.computeIfAbsent(account, a -> new Tracked()) :
+                        accounts.get(account);
+    }
+
+    private void updateRoot(AccountRoot root, boolean deleted, long position) {
+        Tracked tracked = tracked(root.account(), !deleted);
+        if (tracked == null) {
+            return;
+        }
+        Root previous = tracked.root;
+        if (previous != null && previous.position >= position) {
+            return;
+        }
+        if (deleted) {
+            accounts.remove(root.account());
+        } else {
+            tracked.root = new Root(root, position);
+        }
+    }
+
+    private void updateLines(RippleState state, boolean deleted, long position) {
+        AccountID low = state.lowAccount(), high = state.highAccount();
+        if (!isTracking(low) && !isTracking(high)) {
+            return;
+        }
+        Hash256 index = state.index();
+        if (index == null) {
+            index = Index.rippleState(low, high, state.currency());
+        }
+        updateLine(state, index, true, deleted, position);
+        updateLine(state, index, false, deleted, position);
+    }
+
+    private void updateLine(RippleState state, Hash256 index, boolean low,
+                            boolean deleted, long position) {
+        AccountID account = low ? state.lowAccount() : state.highAccount();
+        Tracked tracked = tracked(account, !deleted);
+        if (tracked == null) {
+            return;
+        }
+        if (deleted) {
+            tracked.lines.computeIfPresent(index, (k, previous) ->
+                    previous.position >= position ? previous : null);
+        } else {
+            TrustLine line = new TrustLine(state, index, low, position);
+            tracked.lines.merge(index, line, (previous, updated) ->
+                    previous.position >= position ? previous : updated);
+        }
+    }
+
+    /**
+     * @return the AccountRoot fields of the account, or null if unknown
+     */
+    public Root root(AccountID account) {
+        Tracked tracked = accounts.get(account);
+        return tracked == null ? null : tracked.root;
+    }
+
+    /**
+     * @return the XRP balance of the account, or null if unknown
+     */
+    public Amount balance(AccountID account) {
+        Root root = root(account);
+        return root == null ? null : root.balance;
+    }
+
+    /**
+     * @return the trust line between the account and the counterparty, in
+     *         the currency, or null if unknown
+     */
+    public TrustLine line(AccountID account, Currency currency, AccountID counterparty) {
+        Tracked tracked = accounts.get(account);
+        if (tracked == null) {
+            return null;
+        }
+        return tracked.lines.get(Index.rippleState(account, counterparty, currency));
+    }
+
+    /**
+     * @return the trust line of the account with the issuer of `issue`, in
+     *         its currency, or null if unknown
+     */
+    public TrustLine line(AccountID account, Issue issue) {
+        return line(account, issue.currency(), issue.issuer());
+    }
+
+    /**
+     * @return a snapshot of the known trust lines of the account
+     */
+    public List<TrustLine> lines(AccountID account) {
+        Tracked tracked = accounts.get(account);
+        if (tracked == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(new ArrayList<>(tracked.lines.values()));
+    }
+
+    /**
+     * @return a snapshot of the known AccountRoot fields, by account
+     */
+    public Map<AccountID, Root> roots() {
+        HashMap<AccountID, Root> roots = new HashMap<>();
+        accounts.forEach((account, tracked) -> {
+            Root root = tracked.root;
+            if (root != null) {
+                roots.put(account, root);
+            }
+        });
+        return Collections.unmodifiableMap(roots);
+    }
+
+    /**
+     * @return a snapshot of the accounts with any known entries
+     */
+    public Set<AccountID> accounts() {
+        return Collections.unmodifiableSet(new HashSet<>(accounts.keySet()));
+    }
+}
@@ -1,16 +1,15 @@
 package com.ripple.core.cache;
 
 import com.ripple.core.coretypes.hash.Hash256;
+import com.ripple.core.coretypes.hash.Hash256HashMap;
 import com.ripple.core.coretypes.uint.UInt32;
 import com.ripple.core.types.known.sle.LedgerEntry;
 import com.ripple.core.types.known.tx.result.AffectedNode;
 import com.ripple.core.types.known.tx.result.TransactionMeta;
 import com.ripple.core.types.known.tx.result.TransactionResult;
 
-import java.util.TreeMap;
-
 public class SLECache {
-    private final TreeMap<Hash256, CacheEntry> cache = new TreeMap<Hash256, CacheEntry>();
+    private final Hash256HashMap<CacheEntry> cache = new Hash256HashMap<>();
 
     public static class CacheEntry {
         public LedgerEntry le;
@@ -76,6 +75,12 @@ public class SLECache {
         return ce;
     }
 
+    /**
+     * @return the latest entry at `index`, or null if unknown or deleted.
+     *         Entries updated from transaction results are the read only
+     *         {@link AffectedNode#finalView()}s, which throw
+     *         UnsupportedOperationException if modified, so copy them first.
+     */
     public LedgerEntry get(Hash256 index) {
         CacheEntry entry = getEntry(index);
         return entry == null || entry.deleted ? null : entry.le;
@@ -93,7 +98,7 @@ public class SLECache {
         for (AffectedNode an : meta.affectedNodes()) {
             Hash256 index = an.ledgerIndex();
             CacheEntry ce = getOrCreate(index);
-            ce.upateLedgerEntry(an.isDeletedNode() ? null : (LedgerEntry) an.nodeAsFinal(),
+            ce.upateLedgerEntry(an.isDeletedNode() ? null : an.finalView(),
                                 ledgerIndex,
                                 txnIndex);
         }
@@ -14,8 +14,11 @@ import com.ripple.crypto.Seed;
 import com.ripple.crypto.keys.IKeyPair;
 import com.ripple.encodings.addresses.Addresses;
 import com.ripple.encodings.common.B16;
+import com.ripple.utils.Interner;
 import com.ripple.utils.Utils;
 
+import java.util.Arrays;
+
 /**
  * Originally it was intended that AccountIDs would be variable length so that's
  * why they are variable length encoded as top level field objects.
@@ -27,9 +30,21 @@ import com.ripple.utils.Utils;
  * Thus, we extend Hash160 which affords us some functionality.
  */
 public class AccountID extends Hash160 {
+    /**
+     * Optional pool shared by {@link #fromBytes(byte[])} (and thus the binary
+     * parser), disabled by default. See {@link Interner#enable(int)}
+     */
+    public static final Interner<AccountID> interner = new Interner<>();
+
     public static final AccountID NEUTRAL = fromInteger(1);
     public static final AccountID XRP_ISSUER = fromInteger(0);
 
+    /**
+     * @deprecated use {@link #address()}. Once this is gone, the address can
+     *             be encoded only when first asked for, as most ids parsed
+     *             from binary are never shown to anyone.
+     */
+    @Deprecated
     public final String address;
 
     public AccountID(byte[] bytes) {
@@ -64,8 +79,7 @@ public class AccountID extends Hash160 {
     }
 
     public static AccountID fromKeyPair(IKeyPair kp) {
-        byte[] bytes = kp.id();
-        return new AccountID(bytes, encodeAddress(bytes));
+        return new AccountID(kp.id());
     }
 
     public static AccountID fromPassPhrase(String phrase) {
@@ -81,25 +95,32 @@ public class AccountID extends Hash160 {
     }
 
     public static AccountID fromBytes(byte[] bytes) {
-        return new AccountID(bytes, encodeAddress(bytes));
+        if (!interner.enabled()) {
+            return new AccountID(bytes);
+        }
+        int hash = Arrays.hashCode(bytes);
+        AccountID cached = interner.get(hash);
+        if (cached != null && Arrays.equals(cached.hash, bytes)) {
+            return cached;
+        }
+        return interner.put(hash, new AccountID(bytes));
     }
 
-    @Override
-    public int hashCode() {
-        return address.hashCode();
+    public String address() {
+        return address;
     }
 
     @Override
     public String toString() {
-        return address;
+        return address();
     }
 
     public Issue issue(String code) {
-        return new Issue(Currency.fromString(code), this);
+        return Issue.of(Currency.fromString(code), this);
     }
 
     public Issue issue(Currency c) {
-        return new Issue(c, this);
+        return Issue.of(c, this);
     }
 
     public boolean isNativeIssuer() {
@@ -191,8 +191,7 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
     }
 
     public Issue issue() {
-        // TODO: store the currency and issuer as an Issue
-        return new Issue(currency, issuer);
+        return Issue.of(currency, issuer);
     }
 
     private UInt64 mantissa() {
@@ -210,6 +209,14 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
         return exponent;
     }
 
+    /**
+     * @return the absolute value as drops for native amounts, else as the
+     *         mantissa for exponent(), in [10^15, 10^16) unless zero
+     */
+    long mantissaLong() {
+        return mantissa().longValue();
+    }
+
     public boolean isNative() {
         return isNative;
     }
@@ -5,11 +5,13 @@ import com.ripple.core.coretypes.uint.UInt64;
 import com.ripple.core.serialized.BinaryParser;
 import com.ripple.core.serialized.BytesSink;
 import com.ripple.encodings.common.B16;
+import com.ripple.utils.Interner;
 import com.ripple.utils.Utils;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.MathContext;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
 
@@ -20,6 +22,12 @@ import java.util.concurrent.TimeUnit;
  * https://gist.github.com/justmoon/8597643
  */
 public class Currency extends Hash160 {
+    /**
+     * Optional pool shared by the parser and fromString, disabled by default.
+     * See {@link Interner#enable(int)}
+     */
+    public static final Interner<Currency> interner = new Interner<>();
+
     public static final Currency NEUTRAL = new Currency(Utils.padTo160(BigInteger.ONE.toByteArray()));
     public static final Currency XRP = new Currency(Utils.padTo160(BigInteger.ZERO.toByteArray()));
 
@@ -126,7 +134,16 @@ public class Currency extends Hash160 {
 
         @Override
         public Currency newInstance(byte[] b) {
-            return new Currency(b);
+            if (!interner.enabled()) {
+                return new Currency(b);
+            }
+            // Currency.equals only looks at the iso code bytes
+            int hash = Arrays.hashCode(b);
+            Currency cached = interner.get(hash);
+            if (cached != null && Arrays.equals(cached.hash, b)) {
+                return cached;
+            }
+            return interner.put(hash, new Currency(b));
         }
 
         @Override
@@ -158,6 +175,10 @@ public class Currency extends Hash160 {
         return translate.fromParser(parser);
     }
 
+    public static Currency fromBytes(byte[] bytes) {
+        return translate.newInstance(bytes);
+    }
+
     @Override
     public String toString() {
         switch (type) {
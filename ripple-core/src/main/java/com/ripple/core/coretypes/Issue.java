@@ -1,6 +1,7 @@
 package com.ripple.core.coretypes;
 
 import com.ripple.core.coretypes.hash.Hash160;
+import com.ripple.utils.Interner;
 import org.json.JSONObject;
 
 import java.math.BigDecimal;
@@ -9,6 +10,11 @@ import java.math.BigDecimal;
  * Represents a currency/issuer pair
  */
 public class Issue implements Comparable<Issue> {
+    /**
+     * Optional pool used by {@link #of(Currency, AccountID)}, disabled by
+     * default. See {@link Interner#enable(int)}
+     */
+    public static final Interner<Issue> interner = new Interner<>();
 
     public static final Issue XRP = fromString("XRP");
     final Currency currency;
@@ -19,6 +25,24 @@ public class Issue implements Comparable<Issue> {
         this.issuer = issuer;
     }
 
+    /**
+     * Like the constructor, but returns a pooled instance when the
+     * {@link #interner} is enabled and already holds the pair.
+     */
+    public static Issue of(Currency currency, AccountID issuer) {
+        if (!interner.enabled()) {
+            return new Issue(currency, issuer);
+        }
+        int hash = currency.hashCode() * 31 + issuer.hashCode();
+        Issue cached = interner.get(hash);
+        if (cached != null &&
+                (cached.issuer == issuer || cached.issuer.equals(issuer)) &&
+                (cached.currency == currency || cached.currency.equals(currency))) {
+            return cached;
+        }
+        return interner.put(hash, new Issue(currency, issuer));
+    }
+
     public static Issue fromString(String pair) {
         String[] split = pair.split("/");
         return fromStringPair(split);
@@ -26,7 +50,7 @@ public class Issue implements Comparable<Issue> {
 
     private static Issue fromStringPair(String[] split) {
         if (split.length == 2) {
-            return new Issue(Currency.fromString(split[0]), AccountID.fromString(split[1]));
+            return of(Currency.fromString(split[0]), AccountID.fromString(split[1]));
         } else if (split[0].equals("XRP")) {
             return new Issue(Currency.XRP, AccountID.XRP_ISSUER);
         } else {
@@ -43,8 +67,8 @@ public class Issue implements Comparable<Issue> {
      *       respectively?
      */
     public static Issue from160s(Hash160 currency, Hash160 issuer) {
-        return new Issue(new Currency(currency.bytes()),
-                new AccountID(issuer.toBytes()));
+        return of(Currency.fromBytes(currency.bytes()),
+                AccountID.fromBytes(issuer.toBytes()));
     }
 
     public Currency currency() {
@@ -77,6 +101,17 @@ public class Issue implements Comparable<Issue> {
         return new Amount(value, currency, issuer, isNative());
     }
 
+    /**
+     * @return true for the same currency and issuer, or when both are native,
+     *         whatever issuer they were made with
+     */
+    public boolean sameIssue(Issue other) {
+        if (isNative() || other.isNative()) {
+            return isNative() && other.isNative();
+        }
+        return currency.equals(other.currency) && issuer.equals(other.issuer);
+    }
+
     public boolean isNative() {
         return this == XRP || currency.equals(Currency.XRP);
     }
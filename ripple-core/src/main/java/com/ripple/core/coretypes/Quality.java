@@ -5,7 +5,36 @@ import com.ripple.core.coretypes.hash.Hash256;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
-public class Quality  {
+/**
+ * The rate of an offer, TakerPays/TakerGets, packed as in the last 64 bits of
+ * book directory indexes: the exponent + 100 in the top byte and a mantissa
+ * in [10^15, 10^16) in the rest, in native units (drops) for XRP.
+ *
+ * As the mantissa is normalized, ordering the packed values as unsigned
+ * longs orders the rates exactly, so books can be sorted and offers
+ * compared without any BigDecimal. Convert with {@link #toBigDecimal()} for
+ * output. A lower quality is a better (cheaper) offer.
+ */
+public final class Quality implements Comparable<Quality> {
+    public static final Quality ZERO = new Quality(0);
+
+    private static final long MIN_MANTISSA = 1000000000000000L;
+    private static final long MAX_MANTISSA = 9999999999999999L;
+    private static final long MANTISSA_MASK = 0x00FFFFFFFFFFFFFFL;
+
+    private final long value;
+
+    public Quality(long value) {
+        this.value = value;
+    }
+
+    /**
+     * @return the quality packed in the last 64 bits of a book directory index
+     */
+    public static Quality fromBookDirectory(Hash256 bookDirectory) {
+        return new Quality(bookDirectory.lowWord());
+    }
+
     /**
      * Finds the quality (TakerPays/TakerGets) ratio packed into the last 64
      * bits of root DirectoryNode ledger indexes.
@@ -13,14 +42,155 @@ public class Quality  {
     public static BigDecimal fromBookDirectory(Hash256 bookDirectory,
                                                boolean payIsNative,
                                                boolean getIsNative) {
-        // The last 7 bytes contains the mantissa
-        byte[] mantissa  = bookDirectory.slice(-7);
-        // Most significant byte has the exponent packed
-        int exponent = ( bookDirectory.get(-8) & 0xFF) - 100;
-        // Return the value in XRP scale, rather than drops, as stored.
+        return fromBookDirectory(bookDirectory).toBigDecimal(payIsNative, getIsNative);
+    }
+
+    /**
+     * @return the quality of an offer paying `pays` to get `gets`, computed
+     *         as rippled does for the directory it's placed in (the 17 digit
+     *         quotient, rounded and then truncated to 16 digits)
+     */
+    public static Quality of(Amount pays, Amount gets) {
+        long numerator = pays.mantissaLong(), denominator = gets.mantissaLong();
+        if (numerator == 0 || denominator == 0) {
+            return ZERO;
+        }
+        int numeratorExponent = pays.isNative() ? 0 : pays.exponent();
+        int denominatorExponent = gets.isNative() ? 0 : gets.exponent();
+        while (numerator < MIN_MANTISSA) {
+            numerator *= 10;
+            numeratorExponent--;
+        }
+        while (denominator < MIN_MANTISSA) {
+            denominator *= 10;
+            denominatorExponent--;
+        }
+        int exponent = numeratorExponent - denominatorExponent - 17;
+        long mantissa;
+        if (numerator <= MAX_MANTISSA) {
+            // In [10^16, 10^18]
+            mantissa = mulPowerOfTenDiv(numerator, 17, denominator) + 5;
+        } else {
+            // Only for more than 10^16 drops, where the quotient may not fit
+            BigInteger quotient = BigInteger.valueOf(numerator)
+                    .multiply(BigInteger.TEN.pow(17))
+                    .divide(BigInteger.valueOf(denominator))
+                    .add(BigInteger.valueOf(5));
+            while (quotient.bitLength() > 62) {
+                quotient = quotient.divide(BigInteger.TEN);
+                exponent++;
+            }
+            mantissa = quotient.longValue();
+        }
+        while (mantissa > MAX_MANTISSA) {
+            mantissa /= 10;
+            exponent++;
+        }
+        return new Quality(((long) (exponent + 100) << 56) | mantissa);
+    }
+
+    /**
+     * @return floor(a * 10^n / d), for 0 <= a and 0 < d <= 10^17, and a
+     *         result that fits in a long, by decimal long division, as
+     *         a * 10^n itself may not fit.
+     */
+    private static long mulPowerOfTenDiv(long a, int n, long d) {
+        long quotient = a / d, remainder = a % d;
+        // remainder < d, so remainder * scale mustn't overflow
+        boolean twoDigits = d <= Long.MAX_VALUE / 100;
+        while (n > 0) {
+            long scale = twoDigits && n >= 2 ? 100 : 10;
+            remainder *= scale;
+            quotient = quotient * scale + remainder / d;
+            remainder %= d;
+            n -= scale == 100 ? 2 : 1;
+        }
+        return quotient;
+    }
+
+    /**
+     * @return the packed value
+     */
+    public long value() {
+        return value;
+    }
+
+    public long mantissa() {
+        return value & MANTISSA_MASK;
+    }
+
+    public int exponent() {
+        return (int) (value >>> 56) - 100;
+    }
+
+    public boolean isZero() {
+        return mantissa() == 0;
+    }
+
+    /**
+     * @return whether an offer at this quality is cheaper than one at `other`
+     */
+    public boolean isBetterThan(Quality other) {
+        return compareTo(other) < 0;
+    }
+
+    /**
+     * @param opposite the quality of an offer in the reverse book, ie. paying
+     *                 what this one gets, to get what this one pays
+     * @return whether the two offers cross, ie. this * opposite <= 1
+     */
+    public boolean crosses(Quality opposite) {
+        if (isZero() || opposite.isZero()) {
+            return true;
+        }
+        // mantissa * opposite.mantissa * 10^-shift <= 1, where the product
+        // of the mantissas is in [10^30, 10^32)
+        int shift = -(exponent() + opposite.exponent());
+        if (shift >= 32) {
+            return true;
+        }
+        if (shift < 30) {
+            return false;
+        }
+        // As integers, a * b <= 10^shift iff a <= floor(10^shift / b)
+        return mantissa() <= mulPowerOfTenDiv(MIN_MANTISSA * 10, shift - 16,
+                                              opposite.mantissa());
+    }
+
+    /**
+     * @return the rate in native units (drops for XRP)
+     */
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(false, false);
+    }
+
+    /**
+     * @return the rate, with XRP in XRP rather than drops
+     */
+    public BigDecimal toBigDecimal(boolean payIsNative, boolean getIsNative) {
+        int exponent = exponent();
         int scale = -(payIsNative ? exponent - 6 :
                       getIsNative ? exponent + 6 : exponent);
-        BigInteger unsignedBig = new BigInteger(1, mantissa);
-        return new BigDecimal(unsignedBig, scale);
+        return new BigDecimal(BigInteger.valueOf(mantissa()), scale);
+    }
+
+    @Override
+    public int compareTo(Quality other) {
+        return Long.compareUnsigned(value, other.value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Quality && ((Quality) obj).value == value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().stripTrailingZeros().toPlainString();
     }
 }
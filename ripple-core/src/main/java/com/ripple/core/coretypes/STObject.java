@@ -19,17 +19,324 @@ import com.ripple.core.serialized.*;
 import com.ripple.core.serialized.enums.EngineResult;
 import com.ripple.core.serialized.enums.LedgerEntryType;
 import com.ripple.core.serialized.enums.TransactionType;
+import com.ripple.encodings.common.B16;
 import org.json.JSONObject;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.EnumMap;
 import java.util.Iterator;
-import java.util.TreeMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.function.Predicate;
 
 public class STObject implements SerializedType, Iterable<Field> {
-    // Internally the fields are stored in a TreeMap
-    public static class FieldsMap extends TreeMap<Field, SerializedType> {}
-//    public static class FieldsMap extends HashMap<Field, SerializedType> {}
+    /**
+     * Internally the fields are stored in parallel arrays, sorted in canonical
+     * order. The Field enum is declared presorted, so that's the ordinal.
+     *
+     * Objects have tens of fields at most, and parsed fields arrive already
+     * sorted, so `put` is usually an append and `get` a short binary search,
+     * without the per entry nodes and boxing of a TreeMap.
+     *
+     * When lazily parsed (see {@link STObject#lazyFromBytes(byte[])}) the
+     * map also records where each field lies in the backing bytes, and values
+     * are only decoded when first read.
+     *
+     * Subclasses may instead resolve fields from elsewhere (eg. the read only
+     * views of {@link com.ripple.core.types.known.tx.result.AffectedNode}),
+     * by overriding the public Map methods along with keyAt/valueAt and
+     * rawStart, which STObject uses for serialization.
+     */
+    public static class FieldsMap extends AbstractMap<Field, SerializedType> {
+        private static final Field[] NO_KEYS = new Field[0];
+        private static final SerializedType[] NO_VALUES = new SerializedType[0];
+
+        private Field[] keys = NO_KEYS;
+        private SerializedType[] values = NO_VALUES;
+        private int size = 0;
+        private int modCount = 0;
+
+        // The bytes a lazily parsed map was scanned from, else null
+        private byte[] backing = null;
+        // Per field, the offsets of its header, of its value, and of the end
+        // of the field in `backing`, or -1 once put()
+        private int[] raw = null;
+
+        public FieldsMap() {
+        }
+
+        private FieldsMap(byte[] backing) {
+            this.backing = backing;
+            this.raw = new int[0];
+        }
+
+        private int indexOf(Field field) {
+            int ordinal = field.ordinal();
+            int lo = 0, hi = size - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int midOrdinal = keys[mid].ordinal();
+                if (midOrdinal < ordinal) {
+                    lo = mid + 1;
+                } else if (midOrdinal > ordinal) {
+                    hi = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(lo + 1);
+        }
+
+        private int indexOfKey(Object key) {
+            return key instanceof Field ? indexOf((Field) key) : -1;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public SerializedType get(Object key) {
+            int i = indexOfKey(key);
+            return i >= 0 ? valueAt(i) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOfKey(key) >= 0;
+        }
+
+        @Override
+        public SerializedType put(Field field, SerializedType value) {
+            if (field == null) {
+                throw new NullPointerException();
+            }
+            // Appending in canonical order is the common case
+            int i = size == 0 || keys[size - 1].ordinal() < field.ordinal() ?
+                    -(size + 1) : indexOf(field);
+            if (i >= 0) {
+                SerializedType previous = valueAt(i);
+                values[i] = value;
+                if (raw != null) {
+                    raw[i * 3] = -1;
+                }
+                return previous;
+            }
+            i = -(i + 1);
+            if (size == keys.length) {
+                int capacity = size == 0 ? 8 : size * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+                if (raw != null) {
+                    raw = Arrays.copyOf(raw, capacity * 3);
+                }
+            }
+            System.arraycopy(keys, i, keys, i + 1, size - i);
+            System.arraycopy(values, i, values, i + 1, size - i);
+            keys[i] = field;
+            values[i] = value;
+            if (raw != null) {
+                System.arraycopy(raw, i * 3, raw, i * 3 + 3, (size - i) * 3);
+                raw[i * 3] = -1;
+            }
+            size++;
+            modCount++;
+            return null;
+        }
+
+        @Override
+        public SerializedType remove(Object key) {
+            int i = indexOfKey(key);
+            if (i < 0) {
+                return null;
+            }
+            SerializedType previous = valueAt(i);
+            removeAt(i);
+            return previous;
+        }
+
+        private void removeAt(int i) {
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(values, i + 1, values, i, size - i - 1);
+            if (raw != null) {
+                System.arraycopy(raw, i * 3 + 3, raw, i * 3, (size - i - 1) * 3);
+            }
+            size--;
+            keys[size] = null;
+            values[size] = null;
+            modCount++;
+        }
+
+        @Override
+        public void clear() {
+            keys = NO_KEYS;
+            values = NO_VALUES;
+            size = 0;
+            backing = null;
+            raw = null;
+            modCount++;
+        }
+
+        public Field firstKey() {
+            if (size == 0) {
+                throw new NoSuchElementException();
+            }
+            return keys[0];
+        }
+
+        protected Field keyAt(int i) {
+            return keys[i];
+        }
+
+        protected SerializedType valueAt(int i) {
+            SerializedType value = values[i];
+            if (value == null && raw != null && raw[i * 3] >= 0) {
+                value = values[i] = decode(i);
+            }
+            return value;
+        }
+
+        private void putRaw(Field field, int header, int value, int end) {
+            put(field, null);
+            int i = indexOf(field) * 3;
+            raw[i] = header;
+            raw[i + 1] = value;
+            raw[i + 2] = end;
+        }
+
+        private SerializedType decode(int i) {
+            Field field = keys[i];
+            int value = raw[i * 3 + 1], end = raw[i * 3 + 2];
+            if (field.getType() == Type.STObject) {
+                // Leave off the ObjectEndMarker
+                return translate.fromBytesLazily(backing, value, end - 1);
+            }
+            BinaryParser parser = new BinaryParser(backing);
+            parser.skip(value);
+            Integer hint = field.isVLEncoded() ? end - value : null;
+            return Translators.forField(field).fromParser(parser, hint);
+        }
+
+        /**
+         * @return the offset in `backing` of the field, if it can be copied
+         *         from there as is, else -1
+         */
+        protected int rawStart(int i) {
+            if (raw == null || raw[i * 3] < 0) {
+                return -1;
+            }
+            // Decoded values of these types may have been mutated
+            SerializedType value = values[i];
+            if (value != null) {
+                switch (value.type()) {
+                    case STObject:
+                    case STArray:
+                    case PathSet:
+                    case Vector256:
+                    case Blob:
+                        return -1;
+                }
+            }
+            return raw[i * 3];
+        }
+
+        private int rawEnd(int i) {
+            return raw[i * 3 + 2];
+        }
+
+        private abstract class Itr<T> implements Iterator<T> {
+            int next = 0;
+            int last = -1;
+            int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            int nextIndex() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return last = next++;
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                removeAt(last);
+                next = last;
+                last = -1;
+                expectedModCount = modCount;
+            }
+        }
+
+        @Override
+        public Set<Field> keySet() {
+            return new AbstractSet<Field>() {
+                @Override
+                public Iterator<Field> iterator() {
+                    return new Itr<Field>() {
+                        @Override
+                        public Field next() {
+                            return keys[nextIndex()];
+                        }
+                    };
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return containsKey(o);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        @Override
+        public Set<Entry<Field, SerializedType>> entrySet() {
+            return new AbstractSet<Entry<Field, SerializedType>>() {
+                @Override
+                public Iterator<Entry<Field, SerializedType>> iterator() {
+                    return new Itr<Entry<Field, SerializedType>>() {
+                        @Override
+                        public Entry<Field, SerializedType> next() {
+                            int i = nextIndex();
+                            return new SimpleEntry<Field, SerializedType>(keys[i], valueAt(i)) {
+                                private static final long serialVersionUID = 1L;
+
+                                @Override
+                                public SerializedType setValue(SerializedType value) {
+                                    put(keys[i], value);
+                                    return super.setValue(value);
+                                }
+                            };
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+    }
 
     protected FieldsMap fields;
     public Format format;
@@ -56,6 +363,20 @@ public class STObject implements SerializedType, Iterable<Field> {
     public static STObject fromBytes(byte[] bytes) {
         return translate.fromBytes(bytes);
     }
+    /**
+     * Scans the fields of the object without decoding them. Each is decoded
+     * on first access, and serializing copies untouched fields straight from
+     * `bytes`, which must not be modified afterwards.
+     *
+     * Suits filtering many objects by a few fields each. As reads can decode,
+     * a lazy object isn't safe to share between threads without locking.
+     */
+    public static STObject lazyFromBytes(byte[] bytes) {
+        return translate.fromBytesLazily(bytes, 0, bytes.length);
+    }
+    public static STObject lazyFromHex(String hex) {
+        return lazyFromBytes(B16.decode(hex));
+    }
     public static STObject fromParser(BinaryParser parser) {
         return translate.fromParser(parser);
     }
@@ -215,7 +536,7 @@ public class STObject implements SerializedType, Iterable<Field> {
     }
 
     public void putTranslated(Field f, Object value) {
-        TypeTranslator typeTranslator = Translators.forField(f);
+        TypeTranslator<SerializedType> typeTranslator = Translators.forField(f);
         SerializedType st;
         try {
             st = typeTranslator.fromValue(value);
@@ -302,13 +623,33 @@ public class STObject implements SerializedType, Iterable<Field> {
 
     public void toBytesSink(BytesSink to, Predicate<Field> p) {
         BinarySerializer serializer = new BinarySerializer(to);
+        // Contiguous runs of untouched, lazily parsed fields are copied as is
+        int runStart = -1, runEnd = -1;
 
-        for (Field field : this) {
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.keyAt(i);
             if (p.test(field)) {
-                SerializedType value = fields.get(field);
-                serializer.add(field, value);
+                int rawStart = fields.rawStart(i);
+                if (rawStart >= 0) {
+                    if (rawStart != runEnd) {
+                        copyRun(to, runStart, runEnd);
+                        runStart = rawStart;
+                    }
+                    runEnd = fields.rawEnd(i);
+                } else {
+                    copyRun(to, runStart, runEnd);
+                    runStart = runEnd = -1;
+                    serializer.add(field, fields.valueAt(i));
+                }
             }
         }
+        copyRun(to, runStart, runEnd);
+    }
+
+    private void copyRun(BytesSink to, int start, int end) {
+        if (start >= 0) {
+            to.add(fields.backing, start, end - start);
+        }
     }
     @Override
     public void toBytesSink(BytesSink to) {
@@ -353,6 +694,84 @@ public class STObject implements SerializedType, Iterable<Field> {
             return STObject.formatted(so);
         }
 
+        private STObject fromBytesLazily(byte[] bytes, int start, int end) {
+            FieldsMap fields = new FieldsMap(bytes);
+            BinaryParser parser = new BinaryParser(bytes);
+            parser.skip(start);
+
+            while (!parser.end(end)) {
+                int header = parser.pos();
+                Field field = parser.readField();
+                if (field == Field.ObjectEndMarker) {
+                    break;
+                }
+                if (field.isVLEncoded()) {
+                    int length = parser.readVLLength();
+                    int value = parser.pos();
+                    parser.skip(length);
+                    fields.putRaw(field, header, value, parser.pos());
+                } else {
+                    int value = parser.pos();
+                    skipValue(parser, field.getType());
+                    fields.putRaw(field, header, value, parser.pos());
+                }
+            }
+            return STObject.formatted(new STObject(fields));
+        }
+
+        /**
+         * Moves the parser past a (non VL encoded) value, including any end
+         * marker, without decoding it.
+         */
+        private static void skipValue(BinaryParser parser, Type type) {
+            switch (type) {
+                case UInt8:     parser.skip(1); break;
+                case UInt16:    parser.skip(2); break;
+                case UInt32:    parser.skip(4); break;
+                case UInt64:    parser.skip(8); break;
+                case Hash128:   parser.skip(16); break;
+                case Hash160:   parser.skip(20); break;
+                case Hash256:   parser.skip(32); break;
+                case Amount:
+                    // Native amounts are 8 bytes, IOU amounts 48
+                    boolean isIOU = (parser.readOne() & 0x80) != 0;
+                    parser.skip(isIOU ? 47 : 7);
+                    break;
+                case STObject:
+                case STArray:
+                    Field endMarker = type == Type.STObject ?
+                            Field.ObjectEndMarker : Field.ArrayEndMarker;
+                    while (!parser.end()) {
+                        Field field = parser.readField();
+                        if (field == endMarker) {
+                            break;
+                        }
+                        if (field.isVLEncoded()) {
+                            parser.skip(parser.readVLLength());
+                        } else {
+                            skipValue(parser, field.getType());
+                        }
+                    }
+                    break;
+                case PathSet:
+                    while (!parser.end()) {
+                        byte hop = parser.readOne();
+                        if (hop == PathSet.PATHSET_END_BYTE) {
+                            break;
+                        }
+                        if (hop == PathSet.PATH_SEPARATOR_BYTE) {
+                            continue;
+                        }
+                        if ((hop & PathSet.Hop.TYPE_ACCOUNT) != 0) parser.skip(20);
+                        if ((hop & PathSet.Hop.TYPE_CURRENCY) != 0) parser.skip(20);
+                        if ((hop & PathSet.Hop.TYPE_ISSUER) != 0) parser.skip(20);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Can't skip " + type);
+            }
+        }
+
         @Override
         public Object toJSON(STObject obj) {
             return toJSONObject(obj);
@@ -361,10 +780,9 @@ public class STObject implements SerializedType, Iterable<Field> {
         public JSONObject toJSONObject(STObject obj) {
             JSONObject json = new JSONObject();
 
-            for (Field f : obj) {
-                SerializedType obj1 = obj.get(f);
-                Object object = obj1.toJSON();
-                json.put(f.name(), object);
+            FieldsMap fields = obj.fields;
+            for (int i = 0; i < fields.size(); i++) {
+                json.put(fields.keyAt(i).name(), fields.valueAt(i).toJSON());
             }
 
             return json;
@@ -431,17 +849,17 @@ public class STObject implements SerializedType, Iterable<Field> {
 
     private static class Translators {
         @SuppressWarnings("unused")
-        private static TypeTranslator get(Class<? extends SerializedType> kls) {
+        private static TypeTranslator<?> get(Class<? extends SerializedType> kls) {
             try {
                 java.lang.reflect.Field translate = kls.getDeclaredField("translate");
                 translate.setAccessible(true);
-                return (TypeTranslator) translate.get(kls);
+                return (TypeTranslator<?>) translate.get(kls);
             } catch (Exception e) {
                 throw new RuntimeException("for kls: " + kls.getSimpleName(), e);
             }
         }
 
-        private static TypeTranslator forType(Type type) {
+        private static TypeTranslator<?> forType(Type type) {
             switch (type) {
                 case STObject:      return STObject.translate; // get(STObject.class);
                 case Amount:        return Amount.translate; // get(Amount.class);
@@ -461,29 +879,44 @@ public class STObject implements SerializedType, Iterable<Field> {
             }
         }
 
-        private static TypeTranslator<SerializedType> forField(Field field) {
-            if (field.tag == null) {
-                switch (field) {
-                    case LedgerEntryType:
-                        field.tag = LedgerEntryType.translate; //get(LedgerEntryType.class);
-                        break;
-                    case TransactionType:
-                        field.tag = TransactionType.translate;// get(TransactionType.class);
-                        break;
-                    case TransactionResult:
-                        field.tag = EngineResult.translate; // get(EngineResult.class);
-                        break;
-                    default:
-                        field.tag = forType(field.getType());
-                        break;
-                }
+        // Indexed by Field ordinal, null for fields of types with none
+        private static final TypeTranslator<?>[] byField = new TypeTranslator<?>[Field.values().length];
+        static {
+            for (Field field : Field.values()) {
+                byField[field.ordinal()] = computeForField(field);
+            }
+        }
+
+        private static TypeTranslator<?> computeForField(Field field) {
+            switch (field) {
+                case LedgerEntryType:
+                    return LedgerEntryType.translate; //get(LedgerEntryType.class);
+                case TransactionType:
+                    return TransactionType.translate;// get(TransactionType.class);
+                case TransactionResult:
+                    return EngineResult.translate; // get(EngineResult.class);
+                default:
+                    switch (field.getType()) {
+                        case Unknown:
+                        case Done:
+                        case NotPresent:
+                        case Transaction:
+                        case LedgerEntry:
+                        case Validation:
+                            return null;
+                        default:
+                            return forType(field.getType());
+                    }
             }
-            return getCastedTag(field);
         }
 
         @SuppressWarnings("unchecked")
-        private static TypeTranslator<SerializedType> getCastedTag(Field field) {
-            return (TypeTranslator<SerializedType>) field.tag;
+        private static TypeTranslator<SerializedType> forField(Field field) {
+            TypeTranslator<?> translator = byField[field.ordinal()];
+            if (translator == null) {
+                throw new IllegalStateException("Unknown type");
+            }
+            return (TypeTranslator<SerializedType>) translator;
         }
     }
 }
@@ -57,6 +57,11 @@ public class HalfSha512 implements BytesSink {
         messageDigest.update(bytes);
     }
 
+    @Override
+    public void add(byte[] bytes, int offset, int length) {
+        messageDigest.update(bytes, offset, length);
+    }
+
     public void update(Prefix prefix) {
         messageDigest.update(prefix.bytes());
     }
@@ -79,17 +79,22 @@ abstract public class Hash<Subclass extends Hash> implements SerializedType, Com
 
     @Override
     public int compareTo(Subclass another) {
-        byte[] thisBytes = bytes();
-        byte[] bytes = another.bytes();
-
-        return compareBytes(thisBytes, bytes, 0, thisBytes.length);
+        return compareBytes(hash, another.hash, 0, hash.length);
     }
 
     public int compareStartingAt(Subclass another, int start) {
-        byte[] thisBytes = bytes();
-        byte[] bytes = another.bytes();
+        return compareBytes(hash, another.hash, start, hash.length);
+    }
 
-        return compareBytes(thisBytes, bytes, start, thisBytes.length);
+    /**
+     * @return the 8 bytes at offset as a big endian long
+     */
+    static long longAt(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
     }
 
     private int compareBytes(byte[] thisBytes, byte[] bytes, int start, int numBytes) {
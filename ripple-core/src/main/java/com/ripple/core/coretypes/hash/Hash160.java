@@ -8,8 +8,43 @@ import com.ripple.core.serialized.BinaryParser;
 import com.ripple.core.serialized.BytesSink;
 
 public class Hash160 extends Hash<Hash160> {
+    // The hash as big endian words, for comparisons without touching the
+    // array. The last holds just 4 bytes.
+    private final long w0, w1, w2;
+
     public Hash160(byte[] bytes) {
         super(bytes, 20);
+        w0 = longAt(hash, 0);
+        w1 = longAt(hash, 8);
+        w2 = ((hash[16] & 0xFFL) << 24) | ((hash[17] & 0xFF) << 16) |
+                ((hash[18] & 0xFF) << 8) | (hash[19] & 0xFF);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof Hash160) {
+            Hash160 other = (Hash160) obj;
+            return w0 == other.w0 && w1 == other.w1 && w2 == other.w2;
+        }
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        long x = w0 ^ w1 ^ w2;
+        return (int) (x ^ (x >>> 32));
+    }
+
+    @Override
+    public int compareTo(Hash160 another) {
+        int cmp = Long.compareUnsigned(w0, another.w0);
+        if (cmp == 0) {
+            cmp = Long.compareUnsigned(w1, another.w1);
+            if (cmp == 0) {
+                cmp = Long.compare(w2, another.w2);
+            }
+        }
+        return cmp;
     }
 
     @Override
@@ -18,13 +18,22 @@ public class Hash256 extends Hash<Hash256> {
     public int divergenceDepth(Hash256 other) {
         return divergenceDepth(0, other);
     }
+    /**
+     * @return the depth of the first nibblet, at or after i, that differs
+     *         from other, or 64 if there are none
+     */
     public int divergenceDepth(int i, Hash256 other) {
-        for (; i < 64; i++) {
-            if (nibblet(i) != other.nibblet(i)) {
-                break;
+        for (int w = i >> 4; w < 4; w++) {
+            long x = word(w) ^ other.word(w);
+            if (w == i >> 4) {
+                // ignore the nibblets before i
+                x &= -1L >>> ((i & 15) << 2);
+            }
+            if (x != 0) {
+                return (w << 4) + (Long.numberOfLeadingZeros(x) >> 2);
             }
         }
-        return i;
+        return Math.max(i, 64);
     }
 
     public static class Hash256Map<Value> extends TreeMap<Hash256, Value> {
@@ -80,8 +89,64 @@ public class Hash256 extends Hash<Hash256> {
         return translate.fromBytes(bytes);
     }
 
+    // The hash as big endian words, so comparisons, hashing and nibblet
+    // extraction needn't touch the array.
+    private final long w0, w1, w2, w3;
+
     public Hash256(byte[] bytes) {
         super(bytes, 32);
+        w0 = longAt(super.hash, 0);
+        w1 = longAt(super.hash, 8);
+        w2 = longAt(super.hash, 16);
+        w3 = longAt(super.hash, 24);
+    }
+
+    private long word(int i) {
+        switch (i) {
+            case 0: return w0;
+            case 1: return w1;
+            case 2: return w2;
+            default: return w3;
+        }
+    }
+
+    /**
+     * @return the last 64 bits, eg. the quality of a book directory index
+     */
+    public long lowWord() {
+        return w3;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof Hash256) {
+            Hash256 other = (Hash256) obj;
+            return w3 == other.w3 && w2 == other.w2 &&
+                    w1 == other.w1 && w0 == other.w0;
+        }
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        // Book directories share all but the last word, so mix them all
+        long x = w0 ^ w1 ^ w2 ^ w3;
+        return (int) (x ^ (x >>> 32));
+    }
+
+    @Override
+    public int compareTo(Hash256 another) {
+        int cmp = Long.compareUnsigned(w0, another.w0);
+        if (cmp == 0) {
+            cmp = Long.compareUnsigned(w1, another.w1);
+            if (cmp == 0) {
+                cmp = Long.compareUnsigned(w2, another.w2);
+                if (cmp == 0) {
+                    cmp = Long.compareUnsigned(w3, another.w3);
+                }
+            }
+        }
+        return cmp;
     }
 
     public static Hash256 signingHash(byte[] blob) {
@@ -95,14 +160,7 @@ public class Hash256 extends Hash<Hash256> {
     }
 
     public int nibblet(int depth) {
-        int byte_ix = depth > 0 ? depth / 2 : 0;
-        int b = super.hash[byte_ix];
-        if (depth % 2 == 0) {
-            b = (b & 0xF0) >> 4;
-        } else {
-            b = b & 0x0F;
-        }
-        return b;
+        return (int) (word(depth >> 4) >>> ((15 - (depth & 15)) << 2)) & 0xF;
     }
 
     public static class Translator extends HashTranslator<Hash256> {
@@ -0,0 +1,261 @@
+package com.ripple.core.coretypes.hash;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An open addressing (linear probing) map keyed by Hash256, for the hot
+ * lookups of state tracking where a TreeMap's ordering isn't needed, and
+ * its log(n) compareTo calls and per entry nodes are.
+ *
+ * Keys and values live in two flat arrays. Removal shifts later entries of
+ * the probe chain back, so there are no tombstones, which also means that
+ * iterators don't support remove().
+ *
+ * See {@link Hash256.Hash256Map} for a sorted map. Not thread safe.
+ */
+public class Hash256HashMap<V> extends AbstractMap<Hash256, V> {
+    private static final int MIN_CAPACITY = 16;
+
+    private Hash256[] keys;
+    private Object[] values;
+    private int size = 0;
+    private int mask;
+    private int shift;
+    private int modCount = 0;
+
+    public Hash256HashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public Hash256HashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int size) {
+        // Keep the load factor under 2/3
+        int capacity = MIN_CAPACITY;
+        while (capacity * 2 < size * 3) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void allocate(int capacity) {
+        keys = new Hash256[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+    }
+
+    private int slot(Hash256 key) {
+        // Fibonacci hashing, as the low bits of some keys are structured
+        return (key.hashCode() * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * @return the slot holding key, or the empty slot it would go in, as
+     *         ~slot
+     */
+    private int find(Hash256 key) {
+        int i = slot(key);
+        Hash256 k;
+        while ((k = keys[i]) != null) {
+            if (k == key || k.equals(key)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return ~i;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Hash256 && find((Hash256) key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        if (!(key instanceof Hash256)) {
+            return null;
+        }
+        int i = find((Hash256) key);
+        return i >= 0 ? (V) values[i] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V put(Hash256 key, V value) {
+        if (key == null) {
+            throw new NullPointerException();
+        }
+        int i = find(key);
+        if (i >= 0) {
+            V previous = (V) values[i];
+            values[i] = value;
+            return previous;
+        }
+        if ((size + 1) * 3 > keys.length * 2) {
+            resize(keys.length << 1);
+            i = find(key);
+        }
+        i = ~i;
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(Object key) {
+        if (!(key instanceof Hash256)) {
+            return null;
+        }
+        int i = find((Hash256) key);
+        if (i < 0) {
+            return null;
+        }
+        V previous = (V) values[i];
+        removeAt(i);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, null);
+            Arrays.fill(values, null);
+            size = 0;
+            modCount++;
+        }
+    }
+
+    private void removeAt(int hole) {
+        // Shift back any entries in the chain after the hole which would
+        // otherwise no longer be reachable from their home slot.
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            Hash256 k = keys[i];
+            if (k == null) {
+                break;
+            }
+            int home = slot(k);
+            // Is home cyclically outside of (hole, i] ?
+            if (hole <= i ? (hole >= home || home > i) : (hole >= home && home > i)) {
+                keys[hole] = k;
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = null;
+        values[hole] = null;
+        size--;
+        modCount++;
+    }
+
+    private void resize(int capacity) {
+        Hash256[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            Hash256 k = oldKeys[i];
+            if (k != null) {
+                int j = ~find(k);
+                keys[j] = k;
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public Set<Entry<Hash256, V>> entrySet() {
+        return new AbstractSet<Entry<Hash256, V>>() {
+            @Override
+            public Iterator<Entry<Hash256, V>> iterator() {
+                return new SlotIterator<Entry<Hash256, V>>() {
+                    @SuppressWarnings("unchecked")
+                    @Override
+                    Entry<Hash256, V> at(int i) {
+                        return new SimpleImmutableEntry<>(keys[i], (V) values[i]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Hash256> keySet() {
+        return new AbstractSet<Hash256>() {
+            @Override
+            public Iterator<Hash256> iterator() {
+                return new SlotIterator<Hash256>() {
+                    @Override
+                    Hash256 at(int i) {
+                        return keys[i];
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private abstract class SlotIterator<T> implements Iterator<T> {
+        private final int expectedModCount = modCount;
+        private int next = advance(0);
+
+        abstract T at(int i);
+
+        private int advance(int from) {
+            while (from < keys.length && keys[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < keys.length;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T value = at(next);
+            next = advance(next + 1);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.ripple.core.coretypes.hash;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * A set of Hash256 backed by a {@link Hash256HashMap}, see there for the
+ * details. Iteration order is arbitrary, and iterators don't support
+ * remove(). Not thread safe.
+ */
+public class Hash256HashSet extends AbstractSet<Hash256> {
+    private static final Object PRESENT = new Object();
+    private final Hash256HashMap<Object> map;
+
+    public Hash256HashSet() {
+        map = new Hash256HashMap<>();
+    }
+
+    public Hash256HashSet(int expectedSize) {
+        map = new Hash256HashMap<>(expectedSize);
+    }
+
+    public Hash256HashSet(Collection<Hash256> hashes) {
+        this(hashes.size());
+        addAll(hashes);
+    }
+
+    @Override
+    public boolean add(Hash256 hash) {
+        return map.put(hash, PRESENT) == null;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return map.remove(o) != null;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return map.containsKey(o);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        // AbstractSet might otherwise remove via our iterator
+        boolean modified = false;
+        for (Object o : c) {
+            modified |= remove(o);
+        }
+        return modified;
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public Iterator<Hash256> iterator() {
+        return map.keySet().iterator();
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+}
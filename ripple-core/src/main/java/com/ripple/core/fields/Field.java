@@ -52,6 +52,8 @@ public enum Field {
     FinishAfter(37, Type.UInt32),
     SignerListID(38, Type.UInt32),
     SettleDelay(39, Type.UInt32),
+    TicketCount(40, Type.UInt32),
+    TicketSequence(41, Type.UInt32),
 
     IndexNext(1, Type.UInt64),
     IndexPrevious(2, Type.UInt64),
@@ -240,8 +242,7 @@ public enum Field {
     final int code;
     final Type type;
     private final byte[] bytes;
-    public Object tag = null;
-    
+
     Field(int fid, Type tid) {
         id = fid;
         type = tid;
@@ -255,10 +256,39 @@ public enum Field {
         }
     }
 
-    static private Map<Integer, Field> byCode = new TreeMap<>();
+    // Decode tables for serialized fields. Headers of one byte (type and name
+    // both < 16) index `byHeaderByte` directly, others go by type then name.
+    static private final Field[] byHeaderByte = new Field[256];
+    static private final Field[][] byTypeAndName = new Field[256][];
 
     static public Field fromCode(Integer integer) {
-        return byCode.get(integer);
+        int code = integer;
+        Field field = fromTypeAndName(code >>> 16, code & 0xFFFF);
+        if (field == null) {
+            // Fields which are never serialized aren't in the tables
+            for (Field f : values()) {
+                if (f.code == code) {
+                    field = f;
+                }
+            }
+        }
+        return field;
+    }
+
+    /**
+     * @return the field for a one byte header, or null if there is none, or
+     *         the header is more than one byte
+     */
+    static public Field fromHeaderByte(int headerByte) {
+        return byHeaderByte[headerByte];
+    }
+
+    static public Field fromTypeAndName(int type, int name) {
+        if (type < 0 || type > 255 || name < 0 || name > 255) {
+            return null;
+        }
+        Field[] names = byTypeAndName[type];
+        return names == null ? null : names[name];
     }
     
     public Type getType() {
@@ -283,10 +313,20 @@ public enum Field {
 
     static {
         for (Field f : Field.values()) {
-            byCode.put(f.code, f);
             f.isSerialized = isSerialized(f);
             f.signingField = f.isSerialized;
 
+            if (f.isSerialized) {
+                int type = f.type.id, name = f.id;
+                if (byTypeAndName[type] == null) {
+                    byTypeAndName[type] = new Field[256];
+                }
+                byTypeAndName[type][name] = f;
+                if (type < 16 && name < 16) {
+                    byHeaderByte[type << 4 | name] = f;
+                }
+            }
+
             switch (f.type) {
                 case Blob:
                 case AccountID:
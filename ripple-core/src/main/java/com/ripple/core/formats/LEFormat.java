@@ -114,10 +114,11 @@ public class LEFormat extends Format<LEFormat> {
     public static LEFormat Ticket = new LEFormat(
             LedgerEntryType.Ticket,
             Field.Account,             Requirement.REQUIRED,
-            Field.Sequence,            Requirement.REQUIRED,
+            Field.Sequence,            Requirement.OPTIONAL,
             Field.OwnerNode,           Requirement.REQUIRED,
             Field.Target,              Requirement.OPTIONAL,
-            Field.Expiration,          Requirement.OPTIONAL
+            Field.Expiration,          Requirement.OPTIONAL,
+            Field.TicketSequence,      Requirement.OPTIONAL
     );
 
     public static LEFormat RippleState = new LEFormat(
@@ -23,6 +23,7 @@ public class TxFormat extends Format<TxFormat> {
         common.put(Field.LastLedgerSequence,  Requirement.OPTIONAL);
         common.put(Field.Memos,               Requirement.OPTIONAL);
         common.put(Field.Signers,             Requirement.OPTIONAL);
+        common.put(Field.TicketSequence,      Requirement.OPTIONAL);
 
     }
     public final TransactionType transactionType;
@@ -100,8 +101,9 @@ public class TxFormat extends Format<TxFormat> {
 
     static public TxFormat TicketCreate = new TxFormat(
             TransactionType.TicketCreate,
-            Field.Target,     Requirement.OPTIONAL,
-            Field.Expiration, Requirement.OPTIONAL);
+            Field.Target,      Requirement.OPTIONAL,
+            Field.Expiration,  Requirement.OPTIONAL,
+            Field.TicketCount, Requirement.OPTIONAL);
 
     static public TxFormat TicketCancel = new TxFormat(
             TransactionType.TicketCancel,
@@ -36,11 +36,22 @@ public class BinaryParser {
     }
 
     public Field readField() {
-        int fieldCode = readFieldCode();
-        Field field = Field.fromCode(fieldCode);
+        int tagByte = readOneInt();
+        Field field = Field.fromHeaderByte(tagByte);
+        if (field != null) {
+            return field;
+        }
+
+        int typeBits = tagByte >>> 4;
+        if (typeBits == 0) typeBits = readOneInt();
+
+        int fieldBits = tagByte & 0x0F;
+        if (fieldBits == 0) fieldBits = readOneInt();
+
+        field = Field.fromTypeAndName(typeBits, fieldBits);
         if (field == null) {
             throw new IllegalStateException("Couldn't parse field from " +
-                    Integer.toHexString(fieldCode));
+                    Integer.toHexString(typeBits << 16 | fieldBits));
         }
         return field;
     }
@@ -17,10 +17,19 @@ public class BinarySerializer {
     }
 
     public void addLengthEncoded(byte[] n) {
-        add(encodeVL(n.length));
+        addVL(n.length);
         add(n);
     }
 
+    private void addVL(int length) {
+        if (length <= 192) {
+            // A one byte prefix, added as such rather than as an array
+            add((byte) length);
+        } else {
+            add(encodeVL(length));
+        }
+    }
+
     public static byte[] encodeVL(int  length) {
         // TODO: bytes
         byte[] lenBytes = new byte[4];
@@ -68,7 +77,7 @@ public class BinarySerializer {
     }
 
     public void addLengthEncoded(BytesList bytes) {
-        add(encodeVL(bytes.bytesLength()));
+        addVL(bytes.bytesLength());
         add(bytes);
     }
 
@@ -0,0 +1,67 @@
+package com.ripple.core.serialized;
+
+import java.util.Arrays;
+
+/**
+ * A growable, reusable byte array sink. Unlike {@link BytesList}, which
+ * keeps references to the arrays added, it copies, so it can be reset and
+ * written again without allocating.
+ *
+ * Not thread safe.
+ */
+public class BytesBuffer implements BytesSink {
+    private byte[] buffer;
+    private int length = 0;
+
+    public BytesBuffer() {
+        this(256);
+    }
+
+    public BytesBuffer(int capacity) {
+        buffer = new byte[capacity];
+    }
+
+    @Override
+    public void add(byte aByte) {
+        ensureCapacity(length + 1);
+        buffer[length++] = aByte;
+    }
+
+    @Override
+    public void add(byte[] bytes) {
+        add(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void add(byte[] bytes, int offset, int n) {
+        ensureCapacity(length + n);
+        System.arraycopy(bytes, offset, buffer, length, n);
+        length += n;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public void reset() {
+        length = 0;
+    }
+
+    /**
+     * @return the backing array, valid up to {@link #length()}, until the
+     *         next write
+     */
+    public byte[] array() {
+        return buffer;
+    }
+
+    public byte[] bytes() {
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package com.ripple.core.serialized;
 
+import java.util.Arrays;
+
 public interface BytesSink {
     default void add(byte aByte) {
         add(new byte[] {aByte});
     }
     void add(byte[] bytes);
+    default void add(byte[] bytes, int offset, int length) {
+        add(Arrays.copyOfRange(bytes, offset, offset + length));
+    }
 }
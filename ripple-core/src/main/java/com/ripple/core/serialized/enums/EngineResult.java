@@ -81,6 +81,8 @@ public enum EngineResult implements SerializedType {
     tefNOT_MULTI_SIGNING("Account has no appropriate list of multi-signers."),
     tefBAD_AUTH_MASTER("Auth for unclaimed account needs correct master key."),
     tefINVARIANT_FAILED("Fee claim violated invariants for the transaction."),
+    tefTOO_BIG("Transaction affects too many items."),
+    tefNO_TICKET("Ticket is not in ledger."),
 
     terRETRY(-99, "Retry transaction."),
     terFUNDS_SPENT("Can't set password, password set funds already spent."),
@@ -93,6 +95,7 @@ public enum EngineResult implements SerializedType {
     terLAST("Process last."),
     terNO_RIPPLE("Path does not permit rippling."),
     terQUEUED("Held until escalated fee drops."),
+    terPRE_TICKET("Ticket is not yet in ledger."),
 
     tesSUCCESS(0, "The transaction was applied. Only final in a validated ledger."),
 
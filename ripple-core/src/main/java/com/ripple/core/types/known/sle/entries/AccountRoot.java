@@ -12,7 +12,13 @@ import com.ripple.core.fields.Field;
 import com.ripple.core.serialized.enums.LedgerEntryType;
 import com.ripple.core.types.known.sle.ThreadedLedgerEntry;
 
+import java.math.BigDecimal;
+import java.math.MathContext;
+
 public class AccountRoot extends ThreadedLedgerEntry {
+    // A TransferRate of this (or 0, or none) charges nothing
+    public static final BigDecimal TRANSFER_RATE_PARITY = BigDecimal.valueOf(1000000000);
+
     public AccountRoot() {
         super(LedgerEntryType.AccountRoot);
     }
@@ -41,6 +47,19 @@ public class AccountRoot extends ThreadedLedgerEntry {
     public void account(AccountID val) {put(Field.Account, val);}
     public void regularKey(AccountID val) {put(Field.RegularKey, val);}
 
+    /**
+     * @return what's sent for each unit of this account's issue that arrives,
+     *         when passed between two others, eg. 1.002 for a 0.2% fee
+     */
+    public BigDecimal transferRateMultiplier() {
+        UInt32 rate = transferRate();
+        if (rate == null || rate.longValue() == 0) {
+            return BigDecimal.ONE;
+        }
+        return new BigDecimal(rate.longValue())
+                .divide(TRANSFER_RATE_PARITY, MathContext.DECIMAL128);
+    }
+
     public boolean requiresAuth() {
         return flags().testBit(LedgerFlag.RequireAuth);
     }
@@ -19,6 +19,23 @@ public class Offer extends ThreadedLedgerEntry {
         super(LedgerEntryType.Offer);
     }
 
+    /**
+     * Use the BookDirectory field
+     *
+     * @return how much must `pay` to `get` one, in native units.
+     */
+    public Quality directoryQuality() {
+        return Quality.fromBookDirectory(bookDirectory());
+    }
+
+    /**
+     * @return how much must `pay` to `get` one, in native units, computed
+     *         from the amounts as for the directory of a new offer.
+     */
+    public Quality quality() {
+        return Quality.of(takerPays(), takerGets());
+    }
+
     /**
      * Use the BookDirectory field
      *
@@ -26,9 +43,8 @@ public class Offer extends ThreadedLedgerEntry {
      *
      */
     public BigDecimal directoryAskQuality() {
-        return Quality.fromBookDirectory(bookDirectory(),
-                takerPays().isNative(),
-                takerGets().isNative());
+        return directoryQuality().toBigDecimal(takerPays().isNative(),
+                                               takerGets().isNative());
     }
 
     /**
@@ -135,7 +151,9 @@ public class Offer extends ThreadedLedgerEntry {
         return has(Field.taker_pays_funded) ? get(Amount.taker_pays_funded) : takerPays();
     }
 
-    public static Comparator<Offer> qualityAscending = Comparator.comparing(Offer::directoryAskQuality);
+    public static Comparator<Offer> qualityAscending = (a, b) ->
+            Long.compareUnsigned(a.bookDirectory().lowWord(),
+                                 b.bookDirectory().lowWord());
 
     public static Iterator<Offer> iterateCollection(Collection<STObject> offers) {
         final Iterator<STObject> iterator = offers.iterator();
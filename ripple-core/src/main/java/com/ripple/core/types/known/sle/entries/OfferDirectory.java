@@ -2,8 +2,24 @@ package com.ripple.core.types.known.sle.entries;
 
 import com.ripple.core.coretypes.Issue;
 import com.ripple.core.coretypes.IssuePair;
+import com.ripple.core.coretypes.Quality;
+import com.ripple.core.coretypes.hash.Hash256;
+import com.ripple.core.coretypes.uint.UInt64;
 
 public class OfferDirectory extends DirectoryNode {
+    /**
+     * @return the quality of the offers in the directory, from the
+     *         ExchangeRate, or else the index
+     */
+    public Quality quality() {
+        UInt64 rate = exchangeRate();
+        if (rate != null) {
+            return new Quality(rate.longValue());
+        }
+        Hash256 index = index();
+        return index == null ? null : Quality.fromBookDirectory(index);
+    }
+
     public IssuePair issuePair() {
         return new IssuePair(takerPaysIssue(), takerGetsIssue());
     }
@@ -14,11 +14,13 @@ public class Ticket extends IndexedLedgerEntry {
     public AccountID target() {return get(AccountID.Target);}
     public UInt32 expiration() {return get(UInt32.Expiration);}
     public UInt32 sequence() {return get(UInt32.Sequence);}
+    public UInt32 ticketSequence() {return get(UInt32.TicketSequence);}
     public UInt64 ownerNode() {return get(UInt64.OwnerNode);}
 
     public void expiration(UInt32 val) { put(UInt32.Expiration, val);}
     public void ownerNode(UInt64 val) { put(UInt64.OwnerNode, val);}
     public void sequence(UInt32 val) { put(UInt32.Sequence, val);}
+    public void ticketSequence(UInt32 val) { put(UInt32.TicketSequence, val);}
     public void target(AccountID val) { put(AccountID.Target, val);}
 
     public boolean hasExpiration() {return has(UInt32.Expiration);}
@@ -74,6 +74,7 @@ public class Transaction extends STObject {
     public UInt32 sourceTag() {return get(UInt32.SourceTag);}
     public UInt32 sequence() {return get(UInt32.Sequence);}
     public UInt32 lastLedgerSequence() {return get(UInt32.LastLedgerSequence);}
+    public UInt32 ticketSequence() {return get(UInt32.TicketSequence);}
     public UInt32 operationLimit() {return get(UInt32.OperationLimit);}
     public Hash256 previousTxnID() {return get(Hash256.PreviousTxnID);}
     public Hash256 accountTxnID() {return get(Hash256.AccountTxnID);}
@@ -87,6 +88,7 @@ public class Transaction extends STObject {
     public void sourceTag(UInt32 val) {put(Field.SourceTag, val);}
     public void sequence(UInt32 val) {put(Field.Sequence, val);}
     public void lastLedgerSequence(UInt32 val) {put(Field.LastLedgerSequence, val);}
+    public void ticketSequence(UInt32 val) {put(Field.TicketSequence, val);}
     public void operationLimit(UInt32 val) {put(Field.OperationLimit, val);}
     public void previousTxnID(Hash256 val) {put(Field.PreviousTxnID, val);}
     public void accountTxnID(Hash256 val) {put(Field.AccountTxnID, val);}
@@ -98,6 +100,7 @@ public class Transaction extends STObject {
     public boolean hasFlags() {return has(UInt32.Flags);}
     public boolean hasSourceTag() {return has(UInt32.SourceTag);}
     public boolean hasLastLedgerSequence() {return has(UInt32.LastLedgerSequence);}
+    public boolean hasTicketSequence() {return has(UInt32.TicketSequence);}
     public boolean hasOperationLimit() {return has(UInt32.OperationLimit);}
     public boolean hasPreviousTxnID() {return has(Hash256.PreviousTxnID);}
     public boolean hasAccountTxnID() {return has(Hash256.AccountTxnID);}
@@ -4,7 +4,6 @@ import com.ripple.core.coretypes.STObject;
 import com.ripple.core.coretypes.hash.Hash256;
 import com.ripple.core.coretypes.uint.UInt16;
 import com.ripple.core.fields.Field;
-import com.ripple.core.serialized.SerializedType;
 import com.ripple.core.serialized.enums.LedgerEntryType;
 import com.ripple.core.types.known.sle.LedgerEntry;
 
@@ -12,6 +11,7 @@ import com.ripple.core.types.known.sle.LedgerEntry;
 public class AffectedNode extends STObject {
     public final Field field;
     public final STObject nested;
+    private LedgerEntry previousView, finalView;
 
     public AffectedNode(STObject source) {
         fields = source.getFields();
@@ -72,79 +72,75 @@ public class AffectedNode extends STObject {
         return (STObject) get(getField());
     }
 
+    /**
+     * @return - a read only view of the LedgerEntry before the transaction
+     *           (or after in the case of a CreatedNode), typed by its
+     *           LedgerEntryType, which reads through to the metadata rather
+     *           than copying it. Created once and cached, so the node must
+     *           not be modified afterwards. Use {@link #nodeAsPrevious()} for
+     *           a copy which can be modified.
+     */
+    public LedgerEntry previousView() {
+        if (previousView == null) {
+            previousView = view(true);
+        }
+        return previousView;
+    }
+
+    /**
+     * @return - a read only view of the LedgerEntry after the transaction
+     *           (or before in the case of a DeletedNode), see
+     *           {@link #previousView()}
+     */
+    public LedgerEntry finalView() {
+        if (finalView == null) {
+            finalView = view(false);
+        }
+        return finalView;
+    }
+
     /**
      * @return - LedgerEntry before the transaction (or after in the case of
-     *           a CreatedNode)
+     *           a CreatedNode), copied from {@link #previousView()}
      */
     public LedgerEntry nodeAsPrevious() {
-        return (LedgerEntry) rebuildFromMeta(true);
+        return materialize(previousView());
     }
 
+    /**
+     * @return - LedgerEntry after the transaction, copied from
+     *           {@link #finalView()}
+     */
     public LedgerEntry nodeAsFinal() {
-        return (LedgerEntry) rebuildFromMeta(false);
+        return materialize(finalView());
     }
 
-    private STObject rebuildFromMeta(boolean asPrevious) {
-        boolean created = isCreatedNode();
-        STObject mixed = new STObject();
-
-        // The first object has only a single key
-        Field wrapperField = created ? Field.CreatedNode :
-                isDeletedNode() ? Field.DeletedNode :
-                        Field.ModifiedNode;
-
-        STObject wrapped = (STObject) get(wrapperField);
-
-        Field finalFields = created ? Field.NewFields :
-                Field.FinalFields;
-
-        // You may get some AccountRoot objects like this
-        if (!wrapped.has(finalFields)) {
-            STObject source = new STObject(wrapped.getFields());
-            source.put(Hash256.index, wrapped.get(Hash256.LedgerIndex));
-            source.remove(Field.LedgerIndex);
-            return STObject.formatted(source);
-        }
-
-        // Get all the final fields
-        STObject finals = (STObject) wrapped.get(finalFields);
-        for (Field field : finals) {
-            mixed.put(field, finals.get(field));
-        }
-
-        // Then layer over the previous fields if desired as previous
+    private LedgerEntry view(boolean asPrevious) {
+        STObject finals = nested.get(isCreatedNode() ? STObject.NewFields :
+                                                       STObject.FinalFields);
         // DirectoryNode LedgerEntryType won't have `PreviousFields`
-        if (asPrevious && wrapped.has(Field.PreviousFields)) {
-            STObject previous = wrapped.get(STObject.PreviousFields);
-            for (Field field : previous) {
-                mixed.put(field, previous.get(field));
-            }
-        }
-
-        // Keep the inner most fields
-        for (Field field : wrapped) {
-            switch (field) {
-                case NewFields:
-                case PreviousFields:
-                case FinalFields:
-                    continue;
-                default:
-                    SerializedType value = wrapped.get(field);
-                    if (field == Field.LedgerIndex) {
-                        field = Field.index;
-                    }
-                    mixed.put(field, value);
-
-            }
+        STObject previous = asPrevious ? nested.get(STObject.PreviousFields) :
+                                         null;
+        NodeFields fields = new NodeFields(nested.getFields(),
+                previous == null ? null : previous.getFields(),
+                finals == null ? null : finals.getFields());
+        return (LedgerEntry) STObject.formatted(new STObject(fields));
+    }
+
+    private static LedgerEntry materialize(LedgerEntry view) {
+        STObject copy = new STObject();
+        for (Field field : view) {
+            copy.put(field, view.get(field));
         }
-        return STObject.formatted(mixed);
+        return (LedgerEntry) STObject.formatted(copy);
     }
 
     public static boolean isAffectedNode(STObject source) {
-        return (source.size() == 1 && (
-                source.has(DeletedNode) ||
-                source.has(CreatedNode) ||
-                source.has(ModifiedNode)));
+        // size() last, as it's not free for some FieldsMaps
+        return ((source.has(DeletedNode) ||
+                 source.has(CreatedNode) ||
+                 source.has(ModifiedNode)) &&
+                source.size() == 1);
     }
 
     public boolean removedField(Field field) {
@@ -0,0 +1,217 @@
+package com.ripple.core.types.known.tx.result;
+
+import com.ripple.core.coretypes.STObject;
+import com.ripple.core.fields.Field;
+import com.ripple.core.serialized.SerializedType;
+
+import java.util.AbstractSet;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The fields of a ledger entry as seen through an AffectedNode, resolved
+ * from the metadata on each read rather than copied out of it.
+ *
+ * In order of precedence: the fields of the node itself (with LedgerIndex
+ * read as `index`), then any PreviousFields (for a view of the entry before
+ * the transaction), then FinalFields/NewFields. Nodes without those (eg. some
+ * AccountRoots) are just the node fields.
+ *
+ * Read only. The canonically ordered key list is only merged when the view is
+ * iterated or serialized.
+ */
+class NodeFields extends STObject.FieldsMap {
+    private final STObject.FieldsMap node;
+    private final STObject.FieldsMap previous;
+    private final STObject.FieldsMap finals;
+    private Field[] keys = null;
+
+    /**
+     * @param previous may be null
+     * @param finals   may be null, in which case previous is ignored
+     */
+    NodeFields(STObject.FieldsMap node,
+               STObject.FieldsMap previous,
+               STObject.FieldsMap finals) {
+        this.node = node;
+        this.finals = finals;
+        this.previous = finals == null ? null : previous;
+    }
+
+    private boolean hiddenNodeField(Field field) {
+        switch (field) {
+            case LedgerIndex:
+                return true;
+            case NewFields:
+            case PreviousFields:
+            case FinalFields:
+                return finals != null;
+            default:
+                return false;
+        }
+    }
+
+    private SerializedType resolve(Field field) {
+        SerializedType value;
+        if (field == Field.index) {
+            value = node.get(Field.LedgerIndex);
+            if (value != null) {
+                return value;
+            }
+        }
+        if (!hiddenNodeField(field) && (value = node.get(field)) != null) {
+            return value;
+        }
+        if (previous != null && (value = previous.get(field)) != null) {
+            return value;
+        }
+        return finals == null ? null : finals.get(field);
+    }
+
+    private Field[] keys() {
+        if (keys == null) {
+            EnumSet<Field> merged = EnumSet.noneOf(Field.class);
+            if (finals != null) {
+                merged.addAll(finals.keySet());
+            }
+            if (previous != null) {
+                merged.addAll(previous.keySet());
+            }
+            for (Field field : node.keySet()) {
+                if (field == Field.LedgerIndex) {
+                    merged.add(Field.index);
+                } else if (!hiddenNodeField(field)) {
+                    merged.add(field);
+                }
+            }
+            keys = merged.toArray(new Field[merged.size()]);
+        }
+        return keys;
+    }
+
+    @Override
+    public SerializedType get(Object key) {
+        return key instanceof Field ? resolve((Field) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return keys().length;
+    }
+
+    @Override
+    public Field firstKey() {
+        Field[] keys = keys();
+        if (keys.length == 0) {
+            throw new NoSuchElementException();
+        }
+        return keys[0];
+    }
+
+    @Override
+    protected Field keyAt(int i) {
+        return keys()[i];
+    }
+
+    @Override
+    protected SerializedType valueAt(int i) {
+        return resolve(keys()[i]);
+    }
+
+    @Override
+    protected int rawStart(int i) {
+        return -1;
+    }
+
+    @Override
+    public SerializedType put(Field field, SerializedType value) {
+        throw readOnly();
+    }
+
+    @Override
+    public SerializedType remove(Object key) {
+        throw readOnly();
+    }
+
+    @Override
+    public void clear() {
+        throw readOnly();
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException(
+                "AffectedNode views are read only, see nodeAsFinal()");
+    }
+
+    private abstract class Itr<T> implements Iterator<T> {
+        private final Field[] keys = keys();
+        private int next = 0;
+
+        abstract T at(Field field);
+
+        @Override
+        public boolean hasNext() {
+            return next < keys.length;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return at(keys[next++]);
+        }
+    }
+
+    @Override
+    public Set<Field> keySet() {
+        return new AbstractSet<Field>() {
+            @Override
+            public Iterator<Field> iterator() {
+                return new Itr<Field>() {
+                    @Override
+                    Field at(Field field) {
+                        return field;
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public int size() {
+                return keys().length;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<Field, SerializedType>> entrySet() {
+        return new AbstractSet<Entry<Field, SerializedType>>() {
+            @Override
+            public Iterator<Entry<Field, SerializedType>> iterator() {
+                return new Itr<Entry<Field, SerializedType>>() {
+                    @Override
+                    Entry<Field, SerializedType> at(Field field) {
+                        return new SimpleImmutableEntry<>(field, resolve(field));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys().length;
+            }
+        };
+    }
+}
@@ -2,12 +2,14 @@ package com.ripple.core.types.known.tx.result;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.coretypes.Amount;
 import com.ripple.core.coretypes.STArray;
 import com.ripple.core.coretypes.STObject;
 import com.ripple.core.coretypes.hash.Hash256;
 import com.ripple.core.coretypes.hash.Index;
 import com.ripple.core.coretypes.uint.UInt32;
 import com.ripple.core.fields.Field;
+import com.ripple.core.serialized.BinaryParser;
 import com.ripple.core.serialized.enums.EngineResult;
 import com.ripple.core.serialized.enums.LedgerEntryType;
 import com.ripple.core.serialized.enums.TransactionType;
@@ -17,7 +19,9 @@ import com.ripple.encodings.common.B16;
 import org.json.JSONObject;
 
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 
 public class TransactionResult implements Comparable<TransactionResult> {
     // The json formatting of transaction results is a MESS
@@ -86,7 +90,7 @@ public class TransactionResult implements Comparable<TransactionResult> {
             accounts = new TreeMap<>();
             for (AffectedNode fields : meta.affectedNodes()) {
                 if (fields.isModifiedNode() && fields.isAccountRoot()) {
-                    AccountRoot root = (AccountRoot) fields.nodeAsFinal();
+                    AccountRoot root = (AccountRoot) fields.finalView();
                     //noinspection StatementWithEmptyBody
                     if (root.account() != null) {
                         accounts.put(root.account(), root);
@@ -109,6 +113,45 @@ public class TransactionResult implements Comparable<TransactionResult> {
         return accounts;
     }
 
+    /**
+     * @return the accounts the transaction touches, as rippled would match
+     *         it against an `accounts` subscription: the sender and
+     *         destination, the owners of affected entries and both sides
+     *         of affected trust lines
+     */
+    public Set<AccountID> affectedAccounts() {
+        TreeSet<AccountID> accounts = new TreeSet<>();
+        if (txn != null) {
+            addIfPresent(accounts, txn.get(AccountID.Account));
+            addIfPresent(accounts, txn.get(AccountID.Destination));
+        }
+        if (meta != null && meta.has(Field.AffectedNodes)) {
+            for (AffectedNode node : meta.affectedNodes()) {
+                STObject entry = node.finalView();
+                addIfPresent(accounts, entry.get(AccountID.Account));
+                addIfPresent(accounts, entry.get(AccountID.Owner));
+                addIfPresent(accounts, entry.get(AccountID.Destination));
+                if (node.isRippleState()) {
+                    addIssuer(accounts, entry.get(Amount.LowLimit));
+                    addIssuer(accounts, entry.get(Amount.HighLimit));
+                }
+            }
+        }
+        return accounts;
+    }
+
+    private static void addIfPresent(Set<AccountID> accounts, AccountID account) {
+        if (account != null) {
+            accounts.add(account);
+        }
+    }
+
+    private static void addIssuer(Set<AccountID> accounts, Amount limit) {
+        if (limit != null) {
+            accounts.add(limit.issuer());
+        }
+    }
+
     public AccountID initiatingAccount() {
         return txn.get(AccountID.Account);
     }
@@ -180,6 +223,37 @@ public class TransactionResult implements Comparable<TransactionResult> {
         }
     }
 
+    /**
+     * Builds a result from the hex blobs of a `binary: true` response
+     * (account_tx, tx, ledger with expanded transactions) without going
+     * through any intermediate JSON representation of the objects.
+     *
+     * @param hash may be null, in which case it's computed from the decoded
+     *             transaction bytes.
+     */
+    public static TransactionResult fromBinary(String txHex,
+                                               String metaHex,
+                                               long ledgerIndex,
+                                               Hash256 hash) {
+        byte[] decodedTx = B16.decode(txHex);
+        if (hash == null) {
+            hash = Index.transactionID(decodedTx);
+        }
+        Transaction txn = parseBinaryTransaction(decodedTx, hash);
+        TransactionMeta meta = parseBinaryMeta(metaHex);
+        return new TransactionResult(ledgerIndex, hash, txn, meta);
+    }
+
+    private static Transaction parseBinaryTransaction(byte[] decodedTx, Hash256 hash) {
+        Transaction txn = (Transaction) STObject.fromParser(new BinaryParser(decodedTx));
+        txn.put(Field.hash, hash);
+        return txn;
+    }
+
+    private static TransactionMeta parseBinaryMeta(String metaHex) {
+        return (TransactionMeta) STObject.fromParser(new BinaryParser(metaHex));
+    }
+
     public TransactionResult(JSONObject json, Source resultMessageSource) {
         if (resultMessageSource == Source.transaction_subscription_notification) {
 
@@ -249,15 +323,14 @@ public class TransactionResult implements Comparable<TransactionResult> {
 
                 String tx = json.getString(account_tx ? "tx_blob" : "tx");
                 byte[] decodedTx = B16.decode(tx);
-                meta = (TransactionMeta) STObject.fromHex(json.getString("meta"));
-                this.txn = (Transaction) STObject.fromBytes(decodedTx);
+                meta = parseBinaryMeta(json.getString("meta"));
 
                 if (account_tx) {
                     hash = Index.transactionID(decodedTx);
                 } else {
                     hash = Hash256.fromHex(json.getString("hash"));
                 }
-                this.txn.put(Field.hash, hash);
+                this.txn = parseBinaryTransaction(decodedTx, hash);
 
                 engineResult = meta.engineResult();
                 ledgerIndex = new UInt32(json.getLong("ledger_index"));
@@ -3,16 +3,13 @@ package com.ripple.core.types.known.tx.signed;
 import com.ripple.core.coretypes.Amount;
 import com.ripple.core.coretypes.Blob;
 import com.ripple.core.coretypes.STObject;
-import com.ripple.core.coretypes.hash.HalfSha512;
 import com.ripple.core.coretypes.hash.Hash256;
-import com.ripple.core.coretypes.hash.prefixes.HashPrefix;
 import com.ripple.core.coretypes.uint.UInt32;
-import com.ripple.core.serialized.BytesList;
-import com.ripple.core.serialized.MultiSink;
 import com.ripple.core.serialized.enums.TransactionType;
 import com.ripple.core.types.known.tx.Transaction;
 import com.ripple.crypto.keys.IKeyPair;
 import com.ripple.crypto.Seed;
+import com.ripple.encodings.common.B16;
 
 import java.util.Arrays;
 
@@ -68,19 +65,19 @@ public class SignedTransaction {
         }
 
         txn.checkFormat();
-        signingData = txn.signingData();
+        // Serialize just the once, see SigningContext
+        SigningContext context = SigningContext.get();
+        signingData = context.serialize(txn);
         if (previousSigningData != null && Arrays.equals(signingData, previousSigningData)) {
             return;
         }
         try {
-            txn.txnSignature(new Blob(keyPair.signMessage(signingData)));
+            Blob signature = new Blob(keyPair.signMessage(signingData));
+            txn.txnSignature(signature);
 
-            BytesList blob = new BytesList();
-            HalfSha512 id = HalfSha512.prefixed256(HashPrefix.transactionID);
-
-            txn.toBytesSink(new MultiSink(blob, id));
-            tx_blob = blob.bytesHex();
-            hash = id.finish();
+            byte[] blob = context.blob(signature);
+            tx_blob = B16.encode(blob);
+            hash = context.hash(blob);
         } catch (Exception e) {
             // electric paranoia
             previousSigningData = null;
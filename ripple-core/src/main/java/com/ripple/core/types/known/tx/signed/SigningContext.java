@@ -0,0 +1,106 @@
+package com.ripple.core.types.known.tx.signed;
+
+import com.ripple.core.coretypes.Blob;
+import com.ripple.core.coretypes.hash.Hash256;
+import com.ripple.core.coretypes.hash.prefixes.HashPrefix;
+import com.ripple.core.fields.Field;
+import com.ripple.core.serialized.BinarySerializer;
+import com.ripple.core.serialized.BytesBuffer;
+import com.ripple.core.types.known.tx.Transaction;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Per thread scratch state for {@link SignedTransaction#prepare}, which
+ * serializes a transaction just once:
+ *
+ * The signing fields are written to a buffer, after the signing prefix,
+ * noting where the TxnSignature field would go. The signing data is then
+ * the whole buffer, and the blob is the buffer without the prefix, with
+ * the TxnSignature field spliced in.
+ *
+ * Multi signed transactions have other non signing fields to serialize, and
+ * just fall back to serializing again.
+ */
+class SigningContext {
+    private static final ThreadLocal<SigningContext> contexts =
+            ThreadLocal.withInitial(SigningContext::new);
+
+    private final BytesBuffer buffer = new BytesBuffer(512);
+    private final BytesBuffer signature = new BytesBuffer(128);
+    private final MessageDigest sha512;
+
+    private Transaction txn;
+    private int prefixLength, signatureAt;
+    private boolean spliceable;
+
+    private SigningContext() {
+        try {
+            sha512 = MessageDigest.getInstance("SHA-512");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static SigningContext get() {
+        return contexts.get();
+    }
+
+    /**
+     * @return the signing data for txn
+     */
+    byte[] serialize(Transaction txn) {
+        this.txn = txn;
+        spliceable = true;
+        for (Field field : txn) {
+            if (field.isSerialized() && !field.isSigningField() &&
+                    field != Field.TxnSignature) {
+                spliceable = false;
+                break;
+            }
+        }
+        int split = Field.TxnSignature.ordinal();
+
+        buffer.reset();
+        buffer.add(HashPrefix.txSign.bytes());
+        prefixLength = buffer.length();
+        txn.toBytesSink(buffer, f -> f.isSigningField() && f.ordinal() < split);
+        signatureAt = buffer.length();
+        txn.toBytesSink(buffer, f -> f.isSigningField() && f.ordinal() > split);
+        return buffer.bytes();
+    }
+
+    /**
+     * Must follow {@link #serialize(Transaction)}, once the txn has had its
+     * TxnSignature set.
+     *
+     * @return the serialized transaction
+     */
+    byte[] blob(Blob txnSignature) {
+        if (!spliceable) {
+            return txn.toBytes();
+        }
+        signature.reset();
+        new BinarySerializer(signature).add(Field.TxnSignature, txnSignature);
+
+        byte[] source = buffer.array();
+        int before = signatureAt - prefixLength,
+            after = buffer.length() - signatureAt,
+            sigLength = signature.length();
+        byte[] blob = new byte[before + sigLength + after];
+        System.arraycopy(source, prefixLength, blob, 0, before);
+        System.arraycopy(signature.array(), 0, blob, before, sigLength);
+        System.arraycopy(source, signatureAt, blob, before + sigLength, after);
+        return blob;
+    }
+
+    Hash256 hash(byte[] blob) {
+        sha512.reset();
+        sha512.update(HashPrefix.transactionID.bytes());
+        sha512.update(blob);
+        byte[] half = new byte[32];
+        System.arraycopy(sha512.digest(), 0, half, 0, 32);
+        return new Hash256(half);
+    }
+}
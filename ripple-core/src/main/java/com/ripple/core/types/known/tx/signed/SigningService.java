@@ -0,0 +1,113 @@
+package com.ripple.core.types.known.tx.signed;
+
+import com.ripple.core.coretypes.Amount;
+import com.ripple.core.coretypes.uint.UInt32;
+import com.ripple.core.types.known.tx.Transaction;
+import com.ripple.crypto.keys.IKeyPair;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Signs transactions for one key pair on a pool of worker threads, eg. for
+ * bulk payouts.
+ *
+ * Sequence numbers are handed out in submission order, when set, as are the
+ * current fee and LastLedgerSequence. The signing itself, including the copy
+ * made by {@link SignedTransaction#fromTx(Transaction)}, happens on the pool,
+ * so transactions must not be modified once submitted.
+ *
+ * Each worker thread reuses its serialization buffers and digests (see
+ * SigningContext) and RFC 6979 nonce calculator across transactions.
+ */
+public class SigningService implements AutoCloseable {
+    private final IKeyPair keyPair;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+
+    private Amount fee = null;
+    private UInt32 lastLedgerSequence = null;
+    private long nextSequence = -1;
+
+    public SigningService(IKeyPair keyPair, int threads) {
+        this(keyPair, Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "signing-service");
+            thread.setDaemon(true);
+            return thread;
+        }), true);
+    }
+
+    public SigningService(IKeyPair keyPair, ExecutorService executor) {
+        this(keyPair, executor, false);
+    }
+
+    private SigningService(IKeyPair keyPair, ExecutorService executor, boolean ownsExecutor) {
+        this.keyPair = keyPair;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    public synchronized SigningService fee(Amount fee) {
+        this.fee = fee;
+        return this;
+    }
+
+    public synchronized SigningService lastLedgerSequence(long lastLedgerSequence) {
+        this.lastLedgerSequence = new UInt32(lastLedgerSequence);
+        return this;
+    }
+
+    /**
+     * @param sequence the Sequence for the next transaction submitted, which
+     *                 will be incremented for each one after
+     */
+    public synchronized SigningService sequence(long sequence) {
+        this.nextSequence = sequence;
+        return this;
+    }
+
+    public CompletableFuture<SignedTransaction> submit(Transaction txn) {
+        Amount fee;
+        UInt32 sequence, lastLedgerSequence;
+        synchronized (this) {
+            fee = this.fee;
+            lastLedgerSequence = this.lastLedgerSequence;
+            sequence = nextSequence >= 0 ? new UInt32(nextSequence++) : null;
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            SignedTransaction signed = SignedTransaction.fromTx(txn);
+            signed.prepare(keyPair, fee, sequence, lastLedgerSequence);
+            return signed;
+        }, executor);
+    }
+
+    /**
+     * Submits all the transactions and waits for them to be signed.
+     *
+     * @return the signed transactions, in the same order
+     */
+    public List<SignedTransaction> signAll(Iterable<? extends Transaction> txns) {
+        ArrayList<CompletableFuture<SignedTransaction>> futures = new ArrayList<>();
+        for (Transaction txn : txns) {
+            futures.add(submit(txn));
+        }
+        ArrayList<SignedTransaction> signed = new ArrayList<>(futures.size());
+        for (CompletableFuture<SignedTransaction> future : futures) {
+            signed.add(future.join());
+        }
+        return signed;
+    }
+
+    /**
+     * Shuts down the pool, if it was created by the service.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+}
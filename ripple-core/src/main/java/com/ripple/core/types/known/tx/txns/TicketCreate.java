@@ -12,11 +12,14 @@ public class TicketCreate extends Transaction {
 
     public boolean hasExpiration() {return has(UInt32.Expiration);}
     public boolean hasTarget() {return has(AccountID.Target);}
+    public boolean hasTicketCount() {return has(UInt32.TicketCount);}
 
     public UInt32 expiration() {return get(UInt32.Expiration);}
     public AccountID target() {return get(AccountID.Target);}
+    public UInt32 ticketCount() {return get(UInt32.TicketCount);}
 
     public void expiration(UInt32 val) { put(UInt32.Expiration, val);}
     public void target(AccountID val) { put(AccountID.Target, val);}
+    public void ticketCount(UInt32 val) { put(UInt32.TicketCount, val);}
 
 }
@@ -6,6 +6,8 @@ import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.TreeNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.coretypes.Quality;
 import com.ripple.core.coretypes.STObject;
 import com.ripple.core.coretypes.Vector256;
 import com.ripple.core.coretypes.hash.Hash256;
@@ -14,6 +16,7 @@ import com.ripple.core.coretypes.uint.UInt32;
 import com.ripple.core.serialized.enums.LedgerEntryType;
 import com.ripple.core.types.known.sle.LedgerEntry;
 import com.ripple.core.types.known.sle.LedgerHashes;
+import com.ripple.core.types.known.sle.entries.AccountRoot;
 import com.ripple.core.types.known.sle.entries.DirectoryNode;
 import com.ripple.core.types.known.sle.entries.OfferDirectory;
 import org.json.JSONArray;
@@ -25,6 +28,7 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.math.BigDecimal;
 import java.util.Iterator;
 
 public class AccountState extends ShaMap {
@@ -104,6 +108,18 @@ public class AccountState extends ShaMap {
         return item == null ? null : item.value();
     }
 
+    /**
+     * @return the issuer's {@link AccountRoot#transferRateMultiplier()}, or
+     *         one if the issuer has no AccountRoot in this state
+     */
+    public BigDecimal transferRate(AccountID issuer) {
+        LedgerEntry le = getLE(Index.accountRoot(issuer));
+        if (le instanceof AccountRoot) {
+            return ((AccountRoot) le).transferRateMultiplier();
+        }
+        return BigDecimal.ONE;
+    }
+
     public DirectoryNode getDirectoryNode(Hash256 index) {
         return (DirectoryNode) getLE(index);
     }
@@ -241,6 +257,14 @@ public class AccountState extends ShaMap {
             LedgerEntryItem item = (LedgerEntryItem) next.item;
             return item.entry;
         }
+
+        /**
+         * @return the quality of the directory last returned by next(), from
+         *         its index, without looking at the entry
+         */
+        public Quality quality() {
+            return Quality.fromBookDirectory(next.index);
+        }
         @Override
         public void remove() {
             throw new UnsupportedOperationException();
@@ -1,6 +1,7 @@
 package com.ripple.core.types.shamap;
 
 import com.ripple.core.coretypes.hash.Hash256;
+import com.ripple.core.coretypes.hash.Hash256HashSet;
 import com.ripple.core.fields.Field;
 import com.ripple.core.types.known.sle.LedgerEntry;
 import com.ripple.core.types.known.sle.ThreadedLedgerEntry;
@@ -18,8 +19,8 @@ public class AccountStateBuilder {
     private Hash256 targetAccountHash;
     public long totalTransactions = 0;
 
-    private TreeSet<Hash256> directoriesModifiedMoreThanOnceByTransaction = new TreeSet<>();
-    private TreeSet<Hash256> directoriesModifiedByTransaction = new TreeSet<>();
+    private Hash256HashSet directoriesModifiedMoreThanOnceByTransaction = new Hash256HashSet();
+    private Hash256HashSet directoriesModifiedByTransaction = new Hash256HashSet();
     public TreeSet<Hash256> ledgerModifiedEntries = new TreeSet<>();
     public TreeSet<Hash256> ledgerDeletedEntries = new TreeSet<>();
 
@@ -54,7 +55,7 @@ public class AccountStateBuilder {
         if (tr.ledgerIndex.longValue() != targetLedgerIndex + 1) throw new AssertionError(String.format("%d != %d", tr.ledgerIndex.longValue(), targetLedgerIndex + 1));
         nextTransactionIndex++;
         totalTransactions++;
-        directoriesModifiedByTransaction = new TreeSet<>();
+        directoriesModifiedByTransaction.clear();
 
         for (AffectedNode an : sortedAffectedNodes(tr)) {
             Hash256 id = an.ledgerIndex();
@@ -0,0 +1,456 @@
+package com.ripple.core.types.shamap;
+
+import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.coretypes.Amount;
+import com.ripple.core.coretypes.Issue;
+import com.ripple.core.coretypes.Quality;
+import com.ripple.core.coretypes.hash.Hash256;
+import com.ripple.core.coretypes.hash.Index;
+import com.ripple.core.coretypes.uint.UInt32;
+import com.ripple.core.enums.TransactionFlag;
+import com.ripple.core.types.known.sle.LedgerEntry;
+import com.ripple.core.types.known.sle.entries.AccountRoot;
+import com.ripple.core.types.known.sle.entries.FeeSettings;
+import com.ripple.core.types.known.sle.entries.Offer;
+import com.ripple.core.types.known.sle.entries.OfferDirectory;
+import com.ripple.core.types.known.sle.entries.RippleState;
+import com.ripple.core.types.known.tx.txns.OfferCreate;
+import com.ripple.core.types.known.tx.txns.Payment;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Simulates an OfferCreate, or a Payment through a single order book,
+ * crossing the offers of an AccountState, without changing it.
+ *
+ * Offers are taken in quality order, as rippled would: each is limited by
+ * its owner's funds (the XRP balance over the reserve, or the trust line
+ * balance, and the taker_gets_funded field when present), with the
+ * issuers' transfer rates charged to the sender when neither side is the
+ * issuer. Expired and unfunded offers met on the way are reported as
+ * removed. The funds moved by earlier fills are taken into account by later
+ * ones, so an owner with several offers in the book isn't double counted.
+ *
+ * This is an estimate for evaluating orders locally: the taker's own offers
+ * are skipped rather than crossed, there's no rippling through paths other
+ * than the book, and rounding is to the precision of the amounts rather
+ * than rippled's exact (and amendment dependent) rules.
+ */
+public class OfferCrossing {
+    private static final MathContext MATH_CONTEXT = MathContext.DECIMAL128;
+
+    /**
+     * One offer taken from the book
+     */
+    public static class Fill {
+        public final Hash256 offerIndex;
+        public final AccountID owner;
+        // What the taker paid the owner, excluding any transfer fee
+        public final Amount takerPaid;
+        // What the owner delivered, excluding any transfer fee
+        public final Amount takerGot;
+        // Whether the whole offer was taken
+        public final boolean consumed;
+
+        Fill(Hash256 offerIndex, AccountID owner, Amount takerPaid,
+             Amount takerGot, boolean consumed) {
+            this.offerIndex = offerIndex;
+            this.owner = owner;
+            this.takerPaid = takerPaid;
+            this.takerGot = takerGot;
+            this.consumed = consumed;
+        }
+    }
+
+    /**
+     * The change to an account's XRP, or to its holdings of an issue, as
+     * in the AccountRoot and RippleState nodes of the metadata. Issuers'
+     * own obligations aren't reported.
+     */
+    public static class BalanceChange {
+        public final AccountID account;
+        public final Amount delta;
+
+        BalanceChange(AccountID account, Amount delta) {
+            this.account = account;
+            this.delta = delta;
+        }
+    }
+
+    public static class Result {
+        public final List<Fill> fills;
+        public final List<Hash256> removedOffers;
+        public final List<BalanceChange> balanceChanges;
+        // What the taker paid, or the sender of a payment, including fees
+        public final Amount paid;
+        // What the taker got, or the destination of a payment
+        public final Amount got;
+        // For an OfferCreate, the TakerPays/TakerGets of the offer that
+        // would be placed with what's left, zero if fully crossed.
+        // Otherwise null.
+        public final Amount remainingTakerPays;
+        public final Amount remainingTakerGets;
+        private final boolean complete;
+
+        Result(List<Fill> fills, List<Hash256> removedOffers,
+               List<BalanceChange> balanceChanges, Amount paid, Amount got,
+               Amount remainingTakerPays, Amount remainingTakerGets,
+               boolean complete) {
+            this.fills = Collections.unmodifiableList(fills);
+            this.removedOffers = Collections.unmodifiableList(removedOffers);
+            this.balanceChanges = Collections.unmodifiableList(balanceChanges);
+            this.paid = paid;
+            this.got = got;
+            this.remainingTakerPays = remainingTakerPays;
+            this.remainingTakerGets = remainingTakerGets;
+            this.complete = complete;
+        }
+
+        public boolean crossed() {
+            return !fills.isEmpty();
+        }
+
+        /**
+         * @return whether the offer was fully crossed, or the payment
+         *         delivered in full
+         */
+        public boolean complete() {
+            return complete;
+        }
+    }
+
+    private final AccountState state;
+    private UInt32 closeTime = null;
+
+    public OfferCrossing(AccountState state) {
+        this.state = state;
+    }
+
+    /**
+     * Offers expiring at or before the close time are skipped and reported
+     * as removed. By default expiration is ignored.
+     */
+    public OfferCrossing closeTime(UInt32 closeTime) {
+        this.closeTime = closeTime;
+        return this;
+    }
+
+    public Result simulate(OfferCreate offerCreate) {
+        UInt32 flags = offerCreate.flags();
+        boolean sell = flags != null && (flags.longValue() & TransactionFlag.Sell) != 0;
+        return offerCreate(offerCreate.account(),
+                           offerCreate.takerPays(),
+                           offerCreate.takerGets(),
+                           sell);
+    }
+
+    public Result offerCreate(AccountID taker, Amount takerPays, Amount takerGets) {
+        return offerCreate(taker, takerPays, takerGets, false);
+    }
+
+    /**
+     * @param taker     the account creating the offer
+     * @param takerPays what the taker wants, as in the OfferCreate
+     * @param takerGets what the taker gives for it
+     * @param sell      as with the tfSell flag, keep crossing at better
+     *                  rates until all of takerGets is spent
+     */
+    public Result offerCreate(AccountID taker, Amount takerPays, Amount takerGets,
+                              boolean sell) {
+        Run run = new Run(taker, taker, takerPays.issue(), takerGets.issue());
+        run.cross(sell ? null : takerPays.value(),
+                  takerGets.value(),
+                  null,
+                  Quality.of(takerPays, takerGets));
+
+        Amount remainingPays, remainingGets;
+        if (run.gotTotal.compareTo(takerPays.value()) >= 0 ||
+                run.paidTotal.compareTo(takerGets.value()) >= 0) {
+            remainingPays = run.in.amount(BigDecimal.ZERO);
+            remainingGets = run.out.amount(BigDecimal.ZERO);
+        } else {
+            remainingPays = takerPays.subtract(run.gotTotal);
+            remainingGets = takerGets.subtract(run.paidTotal);
+        }
+        return run.result(remainingPays, remainingGets, remainingGets.isZero());
+    }
+
+    public Result simulate(Payment payment) {
+        return payment(payment.account(), payment.destination(),
+                       payment.amount(), payment.sendMax());
+    }
+
+    /**
+     * @param deliver the Amount to deliver to the destination
+     * @param sendMax the most the source will spend, including fees, or
+     *                null for no limit beyond its funds
+     */
+    public Result payment(AccountID source, AccountID destination,
+                          Amount deliver, Amount sendMax) {
+        Issue in = deliver.issue(), out = sendMax == null ? null : sendMax.issue();
+        if (out == null || in.sameIssue(out)) {
+            throw new IllegalArgumentException(
+                    "Only payments through a book, with a SendMax in " +
+                            "another currency, can be simulated");
+        }
+        Run run = new Run(source, destination, in, out);
+        run.cross(deliver.value(), null, sendMax.value(), null);
+        return run.result(null, null,
+                          run.gotTotal.compareTo(deliver.value()) >= 0);
+    }
+
+    private static class Delta {
+        final Issue issue;
+        BigDecimal value = BigDecimal.ZERO;
+
+        Delta(Issue issue) {
+            this.issue = issue;
+        }
+    }
+
+    /**
+     * The state of one simulation: the taker sends `out` and its
+     * `receiver` (itself, or the destination of a payment) gets `in`.
+     */
+    private class Run {
+        final AccountID payer, receiver;
+        final Issue in, out;
+
+        final List<Fill> fills = new ArrayList<>();
+        final List<Hash256> removed = new ArrayList<>();
+        // By account, then by funding source (AccountRoot or RippleState)
+        final Map<AccountID, Map<Hash256, Delta>> deltas = new LinkedHashMap<>();
+        BigDecimal paidTotal = BigDecimal.ZERO;
+        BigDecimal grossTotal = BigDecimal.ZERO;
+        BigDecimal gotTotal = BigDecimal.ZERO;
+
+        Run(AccountID payer, AccountID receiver, Issue in, Issue out) {
+            this.payer = payer;
+            this.receiver = receiver;
+            this.in = in;
+            this.out = out;
+        }
+
+        /**
+         * @param want    the most `in` to get, or null for no limit
+         * @param give    the most `out` to pay, net of fees, or null
+         * @param spend   the most `out` to spend, including fees, or null
+         * @param quality the quality of the taker's offer, or null to take
+         *                offers at any rate
+         */
+        void cross(BigDecimal want, BigDecimal give, BigDecimal spend, Quality quality) {
+            Hash256 book = Index.bookStart(out, in);
+            for (OfferDirectory directory : state.offerDirectories(book)) {
+                if (quality != null && !quality.crosses(directory.quality())) {
+                    return;
+                }
+                for (Hash256 index : state.directoryIterator(directory)) {
+                    LedgerEntry le = state.getLE(index);
+                    if (!(le instanceof Offer)) {
+                        continue;
+                    }
+                    Offer offer = (Offer) le;
+                    if (offer.account().equals(payer)) {
+                        continue;
+                    }
+                    if (expired(offer)) {
+                        removed.add(index);
+                        continue;
+                    }
+                    BigDecimal funds = available(payer, out);
+                    if (spend != null) {
+                        funds = funds == null ? spend.subtract(grossTotal) :
+                                funds.min(spend.subtract(grossTotal));
+                    }
+                    if (!take(index, offer,
+                              want == null ? null : want.subtract(gotTotal),
+                              give == null ? null : give.subtract(paidTotal),
+                              funds)) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        boolean expired(Offer offer) {
+            return closeTime != null && offer.hasExpiration() &&
+                    offer.expiration().compareTo(closeTime) <= 0;
+        }
+
+        /**
+         * Takes as much of the offer as the limits allow
+         *
+         * @return whether to go on to the next offer
+         */
+        boolean take(Hash256 index, Offer offer, BigDecimal want,
+                     BigDecimal give, BigDecimal funds) {
+            if (want != null && want.signum() <= 0 ||
+                    give != null && give.signum() <= 0 ||
+                    funds != null && funds.signum() <= 0) {
+                return false;
+            }
+            AccountID owner = offer.account();
+            BigDecimal offerGets = offer.takerGets().value();
+            BigDecimal offerPays = offer.takerPays().value();
+            if (offerGets.signum() <= 0 || offerPays.signum() <= 0) {
+                removed.add(index);
+                return true;
+            }
+
+            BigDecimal rateIn = transferRate(in, owner, receiver);
+            BigDecimal rateOut = transferRate(out, payer, owner);
+
+            BigDecimal gets = offerGets.min(offer.takerGetsFunded().value());
+            BigDecimal ownerFunds = available(owner, in);
+            if (ownerFunds != null) {
+                gets = gets.min(ownerFunds.divide(rateIn, MATH_CONTEXT));
+            }
+            gets = round(gets, in);
+            if (gets.signum() <= 0) {
+                removed.add(index);
+                return true;
+            }
+            if (want != null) {
+                gets = gets.min(want);
+            }
+            BigDecimal pays = round(gets.multiply(offerPays)
+                                        .divide(offerGets, MATH_CONTEXT), out);
+
+            BigDecimal payLimit = give;
+            if (funds != null) {
+                BigDecimal net = round(funds.divide(rateOut, MATH_CONTEXT), out);
+                payLimit = payLimit == null ? net : payLimit.min(net);
+            }
+            if (payLimit != null && pays.compareTo(payLimit) > 0) {
+                pays = payLimit;
+                gets = round(pays.multiply(offerGets)
+                                 .divide(offerPays, MATH_CONTEXT), in);
+            }
+            if (gets.signum() <= 0 || pays.signum() <= 0) {
+                return false;
+            }
+
+            BigDecimal cost = round(pays.multiply(rateOut), out);
+            BigDecimal sent = round(gets.multiply(rateIn), in);
+            change(owner, in, sent.negate());
+            change(receiver, in, gets);
+            change(payer, out, cost.negate());
+            change(owner, out, pays);
+
+            gotTotal = gotTotal.add(gets);
+            paidTotal = paidTotal.add(pays);
+            grossTotal = grossTotal.add(cost);
+            boolean consumed = gets.compareTo(offerGets) >= 0;
+            fills.add(new Fill(index, owner, out.amount(pays), in.amount(gets), consumed));
+            return true;
+        }
+
+        BigDecimal round(BigDecimal value, Issue issue) {
+            return Amount.roundValue(value, issue.isNative());
+        }
+
+        /**
+         * @return the rate charged for `from` sending the issue to `to`
+         */
+        BigDecimal transferRate(Issue issue, AccountID from, AccountID to) {
+            if (issue.isNative() || from.equals(issue.issuer()) || to.equals(issue.issuer())) {
+                return BigDecimal.ONE;
+            }
+            return state.transferRate(issue.issuer());
+        }
+
+        /**
+         * @return what the account can send of the issue, given the changes
+         *         so far, or null for an issuer, who can issue without limit
+         */
+        BigDecimal available(AccountID account, Issue issue) {
+            BigDecimal balance;
+            if (issue.isNative()) {
+                LedgerEntry le = state.getLE(Index.accountRoot(account));
+                if (!(le instanceof AccountRoot)) {
+                    return BigDecimal.ZERO;
+                }
+                AccountRoot root = (AccountRoot) le;
+                balance = root.balance().value().subtract(reserve(root));
+            } else if (account.equals(issue.issuer())) {
+                return null;
+            } else {
+                LedgerEntry le = state.getLE(source(account, issue));
+                if (!(le instanceof RippleState)) {
+                    return BigDecimal.ZERO;
+                }
+                RippleState line = (RippleState) le;
+                balance = line.balance().value();
+                if (!line.lowAccount().equals(account)) {
+                    balance = balance.negate();
+                }
+            }
+            Delta delta = delta(account, issue, false);
+            if (delta != null) {
+                balance = balance.add(delta.value);
+            }
+            return balance.max(BigDecimal.ZERO);
+        }
+
+        BigDecimal reserve(AccountRoot root) {
+            LedgerEntry le = state.getLE(Index.feeSettings());
+            if (!(le instanceof FeeSettings)) {
+                return BigDecimal.ZERO;
+            }
+            FeeSettings fees = (FeeSettings) le;
+            long owners = root.ownerCount() == null ? 0 : root.ownerCount().longValue();
+            long drops = fees.reserveBase().longValue() +
+                    owners * fees.reserveIncrement().longValue();
+            return BigDecimal.valueOf(drops).movePointLeft(6);
+        }
+
+        Hash256 source(AccountID account, Issue issue) {
+            return issue.isNative() ? Index.accountRoot(account) :
+                    Index.rippleState(account, issue.issuer(), issue.currency());
+        }
+
+        Delta delta(AccountID account, Issue issue, boolean create) {
+            Map<Hash256, Delta> byAccount = deltas.get(account);
+            if (byAccount == null) {
+                if (!create) {
+                    return null;
+                }
+                byAccount = new LinkedHashMap<>();
+                deltas.put(account, byAccount);
+            }
+            Hash256 source = source(account, issue);
+            Delta delta = byAccount.get(source);
+            if (delta == null && create) {
+                delta = new Delta(issue);
+                byAccount.put(source, delta);
+            }
+            return delta;
+        }
+
+        void change(AccountID account, Issue issue, BigDecimal value) {
+            if (!issue.isNative() && account.equals(issue.issuer())) {
+                return;
+            }
+            Delta delta = delta(account, issue, true);
+            delta.value = delta.value.add(value);
+        }
+
+        Result result(Amount remainingPays, Amount remainingGets, boolean complete) {
+            List<BalanceChange> changes = new ArrayList<>();
+            deltas.forEach((account, byAccount) -> byAccount.values().forEach(d -> {
+                if (d.value.signum() != 0) {
+                    changes.add(new BalanceChange(account, d.issue.amount(d.value)));
+                }
+            }));
+            return new Result(fills, removed, changes,
+                              out.amount(grossTotal), in.amount(gotTotal),
+                              remainingPays, remainingGets, complete);
+        }
+    }
+}
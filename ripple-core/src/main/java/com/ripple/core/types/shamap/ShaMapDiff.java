@@ -1,6 +1,7 @@
 package com.ripple.core.types.shamap;
 
 import com.ripple.core.coretypes.hash.Hash256;
+import com.ripple.core.coretypes.hash.Hash256HashSet;
 
 import java.util.TreeSet;
 
@@ -11,6 +12,10 @@ public class ShaMapDiff {
     public TreeSet<Hash256> deleted = new TreeSet<>();
     public TreeSet<Hash256> added = new TreeSet<>();
 
+    // The walk adds and removes a lot, so it's done in hash sets, which are
+    // only sorted into the public sets once it's finished
+    private Hash256HashSet modifiedFound, deletedFound, addedFound;
+
     public ShaMapDiff(ShaMap one, ShaMap two) {
         this.one = one;
         this.two = two;
@@ -20,7 +25,14 @@ public class ShaMapDiff {
     public ShaMapDiff find() {
         one.hash();
         two.hash();
+        modifiedFound = new Hash256HashSet(modified);
+        deletedFound = new Hash256HashSet(deleted);
+        addedFound = new Hash256HashSet(added);
         compare(one, two);
+        modified = new TreeSet<>(modifiedFound);
+        deleted = new TreeSet<>(deletedFound);
+        added = new TreeSet<>(addedFound);
+        modifiedFound = deletedFound = addedFound = null;
         return this;
     }
 
@@ -68,10 +80,10 @@ public class ShaMapDiff {
                     ShaMapLeaf la = (ShaMapLeaf) aChild;
                     ShaMapLeaf lb = (ShaMapLeaf) bChild;
                     if (la.index.equals(lb.index)) {
-                        modified.add(la.index);
+                        modifiedFound.add(la.index);
                     } else {
-                        deleted.add(la.index);
-                        added.add(lb.index);
+                        deletedFound.add(la.index);
+                        addedFound.add(lb.index);
                     }
                 } else if (aleaf /*&& bInner*/) {
                     ShaMapLeaf la = (ShaMapLeaf) aChild;
@@ -81,13 +93,13 @@ public class ShaMapDiff {
                     //noinspection Duplicates
                     if (ib.hasLeaf(la.index)) {
                         // because trackAdded would have added it
-                        added.remove(la.index);
+                        addedFound.remove(la.index);
                         ShaMapLeaf leaf = ib.getLeaf(la.index);
                         if (!leaf.hash().equals(la.hash())) {
-                            modified.add(la.index);
+                            modifiedFound.add(la.index);
                         }
                     } else {
-                        deleted.add(la.index);
+                        deletedFound.add(la.index);
                     }
                 } else if (bLeaf /*&& aInner*/) {
                     ShaMapLeaf lb = (ShaMapLeaf) bChild;
@@ -97,13 +109,13 @@ public class ShaMapDiff {
                     //noinspection Duplicates
                     if (ia.hasLeaf(lb.index)) {
                         // because trackRemoved would have deleted it
-                        deleted.remove(lb.index);
+                        deletedFound.remove(lb.index);
                         ShaMapLeaf leaf = ia.getLeaf(lb.index);
                         if (!leaf.hash().equals(lb.hash())) {
-                            modified.add(lb.index);
+                            modifiedFound.add(lb.index);
                         }
                     } else {
-                        added.add(lb.index);
+                        addedFound.add(lb.index);
                     }
                 } else /*if (aInner && bInner)*/ {
                     compare((ShaMapInner) aChild, (ShaMapInner) bChild);
@@ -113,10 +125,10 @@ public class ShaMapDiff {
     }
 
     private void trackRemoved(ShaMapNode child) {
-        child.walkAnyLeaves(leaf -> deleted.add(leaf.index));
+        child.walkAnyLeaves(leaf -> deletedFound.add(leaf.index));
     }
 
     private void trackAdded(ShaMapNode child) {
-        child.walkAnyLeaves(leaf -> added.add(leaf.index));
+        child.walkAnyLeaves(leaf -> addedFound.add(leaf.index));
     }
 }
@@ -13,6 +13,8 @@ import java.util.Arrays;
 public class Seed {
     private final byte[] seedBytes;
     private B58.Version version;
+    // Lazily derived, see K256.Generator
+    private volatile K256.Generator k256Generator;
 
     public Seed(byte[] seedBytes) {
         this(Addresses.SEED_K256, seedBytes);
@@ -55,11 +57,19 @@ public class Seed {
             if (account != 0) throw new IllegalStateException();
             return EDKeyPair.from128Seed(seedBytes);
         } else {
-            return K256.createKeyPair(seedBytes, account);
+            return k256Generator().keyPair(account);
         }
 
     }
 
+    private K256.Generator k256Generator() {
+        K256.Generator generator = k256Generator;
+        if (generator == null) {
+            k256Generator = generator = K256.createGenerator(seedBytes);
+        }
+        return generator;
+    }
+
     public static Seed fromBase58(String b58) {
         B58.Decoded decoded = Addresses.decodeSeed(b58);
         return new Seed(decoded.version, decoded.payload);
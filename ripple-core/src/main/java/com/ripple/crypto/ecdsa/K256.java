@@ -9,6 +9,41 @@ import java.math.BigInteger;
 
 public class K256 {
 
+    /**
+     * The root key pair derived from a seed, from which all the account key
+     * pairs are derived. Deriving it is the bulk of the work of
+     * {@link #createKeyPair(byte[], int)}, so hang on to it (see
+     * {@link com.ripple.crypto.Seed}) when deriving many keys from a seed.
+     */
+    public static class Generator {
+        // The private generator (aka root private key, master private key)
+        private final BigInteger privateGen;
+        // The public generator (aka public root key, master public key)
+        private final ECPoint publicGen;
+        private final byte[] publicGenBytes;
+
+        private Generator(BigInteger privateGen) {
+            this.privateGen = privateGen;
+            this.publicGen = computePublic(privateGen);
+            this.publicGenBytes = publicGen.getEncoded(true);
+        }
+
+        public byte[] publicGeneratorBytes() {
+            return publicGenBytes.clone();
+        }
+
+        public K256KeyPair keyPair(int accountNumber) {
+            if (accountNumber == -1) {
+                // The root keyPair
+                return new K256KeyPair(privateGen, publicGen, publicGenBytes);
+            } else {
+                BigInteger priv = computeSecretKey(privateGen, publicGenBytes, accountNumber);
+                ECPoint pub = computePublic(priv);
+                return new K256KeyPair(priv, pub, null);
+            }
+        }
+    }
+
     /**
      * @param secretKey secret point on the curve as BigInteger
      * @return corresponding public point
@@ -22,17 +57,7 @@ public class K256 {
      * @return corresponding public point
      */
     private static ECPoint computePublic(BigInteger secretKey) {
-        return SECP256K1.basePoint().multiply(secretKey);
-    }
-
-    /**
-     * @param privateGen secret point on the curve as BigInteger
-     * @return the corresponding public key is the public generator
-     * (aka public root key, master public key).
-     * return as byte[] for convenience.
-     */
-    private static ECPoint computePublicGenerator(BigInteger privateGen) {
-        return computePublic(privateGen);
+        return SECP256K1.multiplyBasePoint(secretKey);
     }
 
     private static BigInteger computePrivateGen(byte[] seedBytes) {
@@ -43,7 +68,7 @@ public class K256 {
                                           int accountNumber) {
         ECPoint rootPubPoint = SECP256K1.curve().decodePoint(publicGenBytes);
         BigInteger scalar = generateKey(publicGenBytes, accountNumber);
-        ECPoint point = SECP256K1.basePoint().multiply(scalar);
+        ECPoint point = computePublic(scalar);
         ECPoint offset = rootPubPoint.add(point);
         return offset.getEncoded(true);
     }
@@ -62,8 +87,10 @@ public class K256 {
      */
     private static BigInteger generateKey(byte[] seedBytes, Integer discriminator) {
         BigInteger key = null;
+        // finish256() resets the digest, so one will do for every attempt
+        Sha512 sha512 = new Sha512();
         for (long i = 0; i <= 0xFFFFFFFFL; i++) {
-            Sha512 sha512 = new Sha512().add(seedBytes);
+            sha512.add(seedBytes);
             if (discriminator != null) {
                 sha512.addU32(discriminator);
             }
@@ -82,22 +109,11 @@ public class K256 {
         return ECDSASignature.createSignature(hash, signer);
     }
 
+    public static Generator createGenerator(byte[] seedBytes) {
+        return new Generator(computePrivateGen(seedBytes));
+    }
+
     public static K256KeyPair createKeyPair(byte[] seedBytes, int accountNumber) {
-        @SuppressWarnings("SpellCheckingInspection")
-        BigInteger priv;
-        BigInteger privateGen;
-        // The private generator (aka root private key, master private key)
-        privateGen = computePrivateGen(seedBytes);
-        ECPoint publicGen = computePublicGenerator(privateGen);
-        byte[] pubGenBytes = publicGen.getEncoded(true);
-
-        if (accountNumber == -1) {
-            // The root keyPair
-            return new K256KeyPair(privateGen, publicGen, pubGenBytes);
-        } else {
-            priv = computeSecretKey(privateGen, pubGenBytes, accountNumber);
-            ECPoint pub = computePublic(priv);
-            return new K256KeyPair(priv, pub, null);
-        }
+        return createGenerator(seedBytes).keyPair(accountNumber);
     }
 }
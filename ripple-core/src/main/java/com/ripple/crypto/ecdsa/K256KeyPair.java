@@ -12,6 +12,12 @@ import org.bouncycastle.math.ec.ECPoint;
 import java.math.BigInteger;
 
 public class K256KeyPair extends K256VerifyingKey implements IKeyPair {
+    // RFC 6979 deterministic nonces. The calculator holds its HMac (and that
+    // its digest and pads) across signatures, re-keying it for each, and is
+    // only ever used by one signer at a time per thread.
+    private static final ThreadLocal<HMacDSAKCalculator> kCalculators =
+            ThreadLocal.withInitial(() -> new HMacDSAKCalculator(new SHA256Digest()));
+
     private byte[] privateKey;
     private ECPrivateKeyParameters privateKeyParameters;
 
@@ -45,8 +51,7 @@ public class K256KeyPair extends K256VerifyingKey implements IKeyPair {
     }
 
     private ECDSASigner newSigner() {
-        ECDSASigner signer = new ECDSASigner(
-                new HMacDSAKCalculator(new SHA256Digest()));
+        ECDSASigner signer = new ECDSASigner(kCalculators.get());
         signer.init(true, privateKeyParameters);
         return signer;
     }
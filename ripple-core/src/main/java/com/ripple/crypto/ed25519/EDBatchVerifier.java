@@ -0,0 +1,247 @@
+package com.ripple.crypto.ed25519;
+
+import net.i2p.crypto.eddsa.math.Curve;
+import net.i2p.crypto.eddsa.math.GroupElement;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Verifies many Ed25519 signatures at once, checking a random linear
+ * combination of the verification equations:
+ *
+ *     8 * (sum(z_i * R_i) + sum(z_i * h_i * A_i) - sum(z_i * S_i) * B) == 0
+ *
+ * for random 128 bit z_i, as a single multi scalar multiplication which
+ * shares its doublings across all the points (Straus' method, with width 5
+ * signed windows), rather than two scalar multiplications per signature.
+ *
+ * If any signature is invalid, the check fails with all but negligible
+ * probability, and {@link #verifyEach()} falls back to verifying each one
+ * to find out which.
+ *
+ * Note that the batch check is cofactored, where individual verification
+ * isn't, so it may accept signatures with small order components which
+ * individual verification would reject. Honest signers don't produce such
+ * signatures.
+ *
+ * Not thread safe, but batches may be verified concurrently.
+ */
+public class EDBatchVerifier {
+    // The order of the base point
+    private static final BigInteger L = BigInteger.ONE.shiftLeft(252).add(
+            new BigInteger("27742317777372353535851937790883648493"));
+    private static final Curve curve = ED25519.ed25519.getCurve();
+
+    private static class Entry {
+        final EDVerifyingKey key;
+        final byte[] message, signature;
+
+        Entry(EDVerifyingKey key, byte[] message, byte[] signature) {
+            this.key = key;
+            this.message = message;
+            this.signature = signature;
+        }
+    }
+
+    private final SecureRandom random;
+    private final ArrayList<Entry> entries = new ArrayList<>();
+
+    public EDBatchVerifier() {
+        this(new SecureRandom());
+    }
+
+    public EDBatchVerifier(SecureRandom random) {
+        this.random = random;
+    }
+
+    public EDBatchVerifier add(EDVerifyingKey key, byte[] message, byte[] signature) {
+        entries.add(new Entry(key, message, signature));
+        return this;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return true if all the signatures are valid (see the class docs)
+     */
+    public boolean verifyAll() {
+        int n = entries.size();
+        if (n == 0) {
+            return true;
+        }
+        GroupElement[] points = new GroupElement[n * 2 + 1];
+        BigInteger[] scalars = new BigInteger[n * 2 + 1];
+        BigInteger baseScalar = BigInteger.ZERO;
+        MessageDigest digest = EDVerifyingKey.sha512digest();
+
+        for (int i = 0; i < n; i++) {
+            Entry entry = entries.get(i);
+            byte[] signature = entry.signature;
+            if (signature.length != 64) {
+                return false;
+            }
+            byte[] rBytes = Arrays.copyOfRange(signature, 0, 32);
+            BigInteger s = littleEndian(Arrays.copyOfRange(signature, 32, 64));
+            if (s.compareTo(L) >= 0) {
+                return false;
+            }
+            GroupElement r;
+            try {
+                r = new GroupElement(curve, rBytes);
+            } catch (RuntimeException e) {
+                return false;
+            }
+            digest.update(rBytes);
+            digest.update(entry.key.publicKey().getAbyte());
+            digest.update(entry.message);
+            BigInteger h = littleEndian(digest.digest()).mod(L);
+            BigInteger z = new BigInteger(128, random).setBit(127);
+
+            points[i * 2] = r;
+            scalars[i * 2] = z;
+            points[i * 2 + 1] = entry.key.publicKey().getA();
+            scalars[i * 2 + 1] = z.multiply(h).mod(L);
+            baseScalar = baseScalar.add(z.multiply(s));
+        }
+        points[n * 2] = ED25519.ed25519.getB();
+        scalars[n * 2] = L.subtract(baseScalar.mod(L)).mod(L);
+
+        GroupElement sum = multiScalarMultiply(points, scalars);
+        for (int i = 0; i < 3; i++) {
+            sum = sum.dbl().toP2();
+        }
+        // The identity is (0, 1), ie. X == 0 and Y == Z
+        return !sum.getX().isNonZero() &&
+                !sum.getY().subtract(sum.getZ()).isNonZero();
+    }
+
+    /**
+     * @return the validity of each signature, in the order added
+     */
+    public boolean[] verifyEach() {
+        boolean[] valid = new boolean[entries.size()];
+        if (verifyAll()) {
+            Arrays.fill(valid, true);
+        } else {
+            for (int i = 0; i < valid.length; i++) {
+                Entry entry = entries.get(i);
+                try {
+                    valid[i] = entry.key.verify(entry.message, entry.signature);
+                } catch (RuntimeException e) {
+                    valid[i] = false;
+                }
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * @return sum(scalars[i] * points[i]), in P2 representation
+     */
+    private static GroupElement multiScalarMultiply(GroupElement[] points, BigInteger[] scalars) {
+        int n = points.length;
+        byte[][] windows = new byte[n][];
+        GroupElement[][] tables = new GroupElement[n][];
+        int top = -1;
+        for (int i = 0; i < n; i++) {
+            windows[i] = slide(toLittleEndian(scalars[i]));
+            tables[i] = oddMultiples(points[i]);
+            for (int bit = 255; bit > top; bit--) {
+                if (windows[i][bit] != 0) {
+                    top = bit;
+                    break;
+                }
+            }
+        }
+
+        GroupElement r = curve.getZero(GroupElement.Representation.P2);
+        for (int bit = top; bit >= 0; bit--) {
+            GroupElement t = r.dbl();
+            for (int i = 0; i < n; i++) {
+                int window = windows[i][bit];
+                if (window > 0) {
+                    t = t.toP3().add(tables[i][window / 2]);
+                } else if (window < 0) {
+                    t = t.toP3().sub(tables[i][-window / 2]);
+                }
+            }
+            r = t.toP2();
+        }
+        return r;
+    }
+
+    /**
+     * @return P, 3P, 5P ... 15P in cached representation
+     */
+    private static GroupElement[] oddMultiples(GroupElement p) {
+        GroupElement p3 = p.toP3();
+        GroupElement twice = p3.dbl().toP3().toCached();
+        GroupElement[] table = new GroupElement[8];
+        table[0] = p3.toCached();
+        for (int i = 1; i < 8; i++) {
+            p3 = p3.add(twice).toP3();
+            table[i] = p3.toCached();
+        }
+        return table;
+    }
+
+    /**
+     * Recodes a little endian scalar into signed odd digits in [-15, 15],
+     * with at least 4 zeros between non zero digits, as in ref10.
+     */
+    private static byte[] slide(byte[] a) {
+        byte[] r = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            r[i] = (byte) (1 & (a[i >> 3] >> (i & 7)));
+        }
+        for (int i = 0; i < 256; i++) {
+            if (r[i] == 0) {
+                continue;
+            }
+            for (int b = 1; b <= 6 && i + b < 256; b++) {
+                if (r[i + b] == 0) {
+                    continue;
+                }
+                if (r[i] + (r[i + b] << b) <= 15) {
+                    r[i] += r[i + b] << b;
+                    r[i + b] = 0;
+                } else if (r[i] - (r[i + b] << b) >= -15) {
+                    r[i] -= r[i + b] << b;
+                    for (int k = i + b; k < 256; k++) {
+                        if (r[k] == 0) {
+                            r[k] = 1;
+                            break;
+                        }
+                        r[k] = 0;
+                    }
+                } else {
+                    break;
+                }
+            }
+        }
+        return r;
+    }
+
+    private static BigInteger littleEndian(byte[] bytes) {
+        byte[] reversed = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            reversed[i] = bytes[bytes.length - 1 - i];
+        }
+        return new BigInteger(1, reversed);
+    }
+
+    private static byte[] toLittleEndian(BigInteger value) {
+        byte[] bigEndian = value.toByteArray();
+        byte[] little = new byte[32];
+        for (int i = 0; i < bigEndian.length && i < 32; i++) {
+            little[i] = bigEndian[bigEndian.length - 1 - i];
+        }
+        return little;
+    }
+}
@@ -8,16 +8,15 @@ import net.i2p.crypto.eddsa.EdDSAPrivateKey;
 import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
 import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
 
-import java.math.BigInteger;
-import java.security.PrivateKey;
-
 public class EDKeyPair extends EDVerifyingKey implements IKeyPair {
 
     private final EdDSAPrivateKeySpec keySpec;
+    private final EdDSAPrivateKey privateKey;
 
     private EDKeyPair(EdDSAPrivateKeySpec keySpec) {
         super(new EdDSAPublicKeySpec(keySpec.getA(), ED25519.ed25519), null);
         this.keySpec = keySpec;
+        this.privateKey = new EdDSAPrivateKey(keySpec);
     }
 
     public static EDKeyPair from256Seed(byte[] seedBytes) {
@@ -39,11 +38,9 @@ public class EDKeyPair extends EDVerifyingKey implements IKeyPair {
     @Override
     public byte[] signMessage(byte[] message) {
         try {
-            EdDSAEngine sgr = new EdDSAEngine(sha512digest());
-            PrivateKey sKey = new EdDSAPrivateKey(keySpec);
-            sgr.initSign(sKey);
-            sgr.update(message);
-            return sgr.sign();
+            EdDSAEngine engine = engines.get();
+            engine.initSign(privateKey);
+            return engine.signOneShot(message);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
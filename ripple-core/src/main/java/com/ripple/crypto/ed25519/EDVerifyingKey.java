@@ -10,6 +10,12 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 public class EDVerifyingKey implements IVerifyingKey {
+    // Engines aren't thread safe, but are cheap to re-key, so each thread
+    // keeps one, and its digest, for signing and verifying with any key.
+    static final ThreadLocal<EdDSAEngine> engines =
+            ThreadLocal.withInitial(() -> new EdDSAEngine(sha512digest()));
+
+    // Holds the decoded point and its precomputed tables
     private final EdDSAPublicKey publicKey;
     private final byte[] canonicalPubBytes;
     @SuppressWarnings("FieldCanBeLocal")
@@ -25,7 +31,7 @@ public class EDVerifyingKey implements IVerifyingKey {
         canonicalPubBytes = Arrays.concatenate(ED_PREFIX, pubBytes);
     }
 
-    MessageDigest sha512digest()  {
+    static MessageDigest sha512digest()  {
         try {
             return MessageDigest.getInstance("SHA-512");
         } catch (NoSuchAlgorithmException e) {
@@ -38,13 +44,16 @@ public class EDVerifyingKey implements IVerifyingKey {
         return canonicalPubBytes;
     }
 
+    EdDSAPublicKey publicKey() {
+        return publicKey;
+    }
+
     @Override
     public boolean verify(byte[] message, byte[] sigBytes) {
         try {
-            EdDSAEngine sgr = new EdDSAEngine(sha512digest());
-            sgr.initVerify(publicKey);
-            sgr.update(message);
-            return sgr.verify(sigBytes);
+            EdDSAEngine engine = engines.get();
+            engine.initVerify(publicKey);
+            return engine.verifyOneShot(message, sigBytes);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
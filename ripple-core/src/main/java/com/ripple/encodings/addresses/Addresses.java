@@ -50,6 +50,10 @@ public class Addresses {
         return encode(bytes, ACCOUNT_ID);
     }
 
+    public static String[] encodeAccountIDs(byte[][] ids) {
+        return codec.encodeVersioned(ids, ACCOUNT_ID);
+    }
+
     public static byte[] decodeAccountID(String id) {
         return decode(id, ACCOUNT_ID);
     }
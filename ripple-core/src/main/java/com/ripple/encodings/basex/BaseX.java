@@ -4,11 +4,31 @@ import com.ripple.utils.HashUtils;
 
 import java.util.Arrays;
 
+/**
+ * Arbitrary base (up to 256) encoding, most notably base58.
+ *
+ * Rather than the textbook digit at a time long division, which is quadratic
+ * in the number of bytes *and* the number of digits, numbers are handled as
+ * 32 bit limbs and divided (or multiplied) by the largest power of the base
+ * that fits in 31 bits, so each pass over the limbs yields (or consumes) 5
+ * base58 digits at a time. For the 21 to 38 byte payloads used by
+ * {@link com.ripple.encodings.addresses.Addresses} that's a handful of passes
+ * over at most 10 limbs.
+ */
 public class BaseX implements IBaseX {
+    private static final long LIMB_MASK = 0xFFFFFFFFL;
+
     private char[] alphabet;
     private final char encodedZero;
     protected final int[] indexes;
 
+    // The largest power of the base that fits in 31 bits, and its exponent
+    private final int chunkDigits;
+    private final long chunkDivisor;
+    // powers[i] == base^i, for i <= chunkDigits
+    private final long[] powers;
+    private final double bitsPerDigit;
+
     public BaseX(String alphabet_) {
         if (alphabet_.length() > 256) {
             throw new IllegalArgumentException();
@@ -20,6 +40,21 @@ public class BaseX implements IBaseX {
         for (int i = 0; i < alphabet.length; i++) {
             indexes[alphabet[i]] = i;
         }
+
+        int base = alphabet.length, digits = 0;
+        long power = 1;
+        while (power * base < (1L << 31)) {
+            power *= base;
+            digits++;
+        }
+        chunkDigits = digits;
+        chunkDivisor = power;
+        powers = new long[digits + 1];
+        powers[0] = 1;
+        for (int i = 1; i <= digits; i++) {
+            powers[i] = powers[i - 1] * base;
+        }
+        bitsPerDigit = Math.log(base) / Math.log(2);
     }
 
     private static String repeat(int times, char repeated) {
@@ -36,22 +71,67 @@ public class BaseX implements IBaseX {
      */
     @Override
     public String encode(byte[] input) {
-        if (input.length == 0) {
+        return encode(input, 0, input.length);
+    }
+
+    public String encode(byte[] input, int offset, int length) {
+        if (length == 0) {
             return "";
         }
+        return encode(input, offset, length,
+                new int[limbsFor(length)], new char[charsFor(length)]);
+    }
+
+    private int limbsFor(int bytes) {
+        return (bytes + 3) / 4;
+    }
+
+    private int charsFor(int bytes) {
+        // Leading zero bytes map 1:1, the rest need at most 8/log2(base)
+        // digits per byte, and the last chunk may be zero padded.
+        return bytes + (int) Math.ceil(bytes * 8 / bitsPerDigit) + chunkDigits;
+    }
+
+    /**
+     * @param limbs   scratch space of at least limbsFor(length)
+     * @param encoded scratch space of at least charsFor(length)
+     */
+    private String encode(byte[] input, int offset, int length, int[] limbs, char[] encoded) {
+        int end = offset + length;
         // Count leading zeros.
         int zeros = 0;
-        while (zeros < input.length && input[zeros] == 0) {
+        while (zeros < length && input[offset + zeros] == 0) {
             ++zeros;
         }
-        // Convert base-256 digits to base-58 digits (plus conversion to ASCII characters)
-        input = Arrays.copyOf(input, input.length); // since we modify it in-place
-        char[] encoded = new char[input.length * 2]; // upper bound
+        // Pack the rest, big endian, into 32 bit limbs, most significant
+        // first, with the first limb taking any odd bytes.
+        int n = length - zeros, nLimbs = limbsFor(n);
+        int pos = offset + zeros;
+        for (int i = 0; i < nLimbs; i++) {
+            int take = i == 0 && (n & 3) != 0 ? n & 3 : 4, limb = 0;
+            for (int j = 0; j < take; j++) {
+                limb = (limb << 8) | (input[pos++] & 0xFF);
+            }
+            limbs[i] = limb;
+        }
+        assert pos == end;
+
+        // Repeatedly divide by chunkDivisor, each remainder giving the next
+        // chunkDigits least significant digits.
         int outputStart = encoded.length;
-        for (int inputStart = zeros; inputStart < input.length; ) {
-            encoded[--outputStart] = alphabet[divmod(input, inputStart, 256, 58)];
-            if (input[inputStart] == 0) {
-                ++inputStart; // optimization - skip leading zeros
+        for (int first = 0; first < nLimbs; ) {
+            long remainder = 0;
+            for (int i = first; i < nLimbs; i++) {
+                long current = (remainder << 32) | (limbs[i] & LIMB_MASK);
+                limbs[i] = (int) (current / chunkDivisor);
+                remainder = current % chunkDivisor;
+            }
+            while (first < nLimbs && limbs[first] == 0) {
+                ++first; // optimization - skip leading zeros
+            }
+            for (int i = 0; i < chunkDigits; i++) {
+                encoded[--outputStart] = alphabet[(int) (remainder % alphabet.length)];
+                remainder /= alphabet.length;
             }
         }
         // Preserve exactly as many leading encoded zeros in output as there were leading zeros in input.
@@ -74,39 +154,66 @@ public class BaseX implements IBaseX {
      */
     @Override
     public byte[] decode(String input) throws EncodingFormatException {
-        if (input.length() == 0) {
+        int length = input.length();
+        if (length == 0) {
             return new byte[0];
         }
-        // Convert the base58-encoded ASCII chars to a base58 byte sequence (base58 digits).
-        byte[] input58 = new byte[input.length()];
-        for (int i = 0; i < input.length(); ++i) {
-            char c = input.charAt(i);
-            int digit = c < 128 ? indexes[c] : -1;
-            if (digit < 0) {
-                throw new EncodingFormatException("Illegal character " + c + " at position " + i);
-            }
-            input58[i] = (byte) digit;
-        }
         // Count leading zeros.
         int zeros = 0;
-        while (zeros < input58.length && input58[zeros] == 0) {
+        while (zeros < length && input.charAt(zeros) == encodedZero) {
             ++zeros;
         }
-        // Convert base-58 digits to base-256 digits.
-        byte[] decoded = new byte[input.length()];
-        int outputStart = decoded.length;
-        for (int inputStart = zeros; inputStart < input58.length; ) {
-            decoded[--outputStart] = divmod(input58, inputStart, 58, 256);
-            if (input58[inputStart] == 0) {
-                ++inputStart; // optimization - skip leading zeros
+        // Accumulate chunks of digits into little endian 32 bit limbs,
+        // multiplying by base^chunk as we go.
+        int[] limbs = new int[(int) ((length - zeros) * bitsPerDigit / 32) + 2];
+        int used = 0;
+        for (int i = zeros; i < length; ) {
+            int take = Math.min(chunkDigits, length - i);
+            long chunk = 0;
+            for (int j = 0; j < take; j++, i++) {
+                chunk = chunk * alphabet.length + digit(input, i);
+            }
+            long multiplier = powers[take], carry = chunk;
+            for (int j = 0; j < used; j++) {
+                long current = (limbs[j] & LIMB_MASK) * multiplier + carry;
+                limbs[j] = (int) current;
+                carry = current >>> 32;
+            }
+            if (carry != 0) {
+                limbs[used++] = (int) carry;
             }
         }
-        // Ignore extra leading zeroes that were added during the calculation.
-        while (outputStart < decoded.length && decoded[outputStart] == 0) {
-            ++outputStart;
+        // Count the significant bytes in the most significant limb
+        int topBytes = 0;
+        if (used > 0) {
+            int top = limbs[used - 1];
+            while (top != 0) {
+                topBytes++;
+                top >>>= 8;
+            }
         }
+        int significant = used == 0 ? 0 : (used - 1) * 4 + topBytes;
         // Return decoded data (including original number of leading zeros).
-        return Arrays.copyOfRange(decoded, outputStart - zeros, decoded.length);
+        byte[] decoded = new byte[zeros + significant];
+        int pos = decoded.length;
+        for (int j = 0; j < used; j++) {
+            int limb = limbs[j];
+            int bytes = j == used - 1 ? topBytes : 4;
+            for (int k = 0; k < bytes; k++) {
+                decoded[--pos] = (byte) limb;
+                limb >>>= 8;
+            }
+        }
+        return decoded;
+    }
+
+    private int digit(String input, int i) {
+        char c = input.charAt(i);
+        int digit = c < 128 ? indexes[c] : -1;
+        if (digit < 0) {
+            throw new EncodingFormatException("Illegal character " + c + " at position " + i);
+        }
+        return digit;
     }
 
     /**
@@ -121,36 +228,13 @@ public class BaseX implements IBaseX {
         byte[] decoded  = decode(input);
         if (decoded.length < 4)
             throw new EncodingFormatException("Input too short");
-        byte[] data = Arrays.copyOfRange(decoded, 0, decoded.length - 4);
-        byte[] checksum = Arrays.copyOfRange(decoded, decoded.length - 4, decoded.length);
-        byte[] actualChecksum = Arrays.copyOfRange(HashUtils.doubleDigest(data), 0, 4);
-        if (!Arrays.equals(checksum, actualChecksum))
-            throw new EncodingFormatException("Checksum does not validate");
-        return data;
-    }
-
-    /**
-     * Divides a number, represented as an array of bytes each containing a single digit
-     * in the specified base, by the given divisor. The given number is modified in-place
-     * to contain the quotient, and the return value is the remainder.
-     *
-     * @param number the number to divide
-     * @param firstDigit the index within the array of the first non-zero digit
-     *        (this is used for optimization by skipping the leading zeros)
-     * @param base the base in which the number's digits are represented (up to 256)
-     * @param divisor the number to divide by (up to 256)
-     * @return the remainder of the division operation
-     */
-    private byte divmod(byte[] number, int firstDigit, int base, int divisor) {
-        // this is just long division which accounts for the base of the input digits
-        int remainder = 0;
-        for (int i = firstDigit; i < number.length; i++) {
-            int digit = (int) number[i] & 0xFF;
-            int temp = remainder * base + digit;
-            number[i] = (byte) (temp / divisor);
-            remainder = temp % divisor;
+        int dataLength = decoded.length - 4;
+        byte[] actualChecksum = HashUtils.doubleDigest(decoded, 0, dataLength);
+        for (int i = 0; i < 4; i++) {
+            if (decoded[dataLength + i] != actualChecksum[i])
+                throw new EncodingFormatException("Checksum does not validate");
         }
-        return (byte) remainder;
+        return Arrays.copyOf(decoded, dataLength);
     }
 
     @Override
@@ -171,23 +255,51 @@ public class BaseX implements IBaseX {
 
     @Override
     public String encodeVersioned(byte[] input, Version version) {
+        byte[] buffer = versionedBuffer(version);
+        int length = buffer.length;
+        return encode(fillVersioned(buffer, input, version), 0, length,
+                new int[limbsFor(length)], new char[charsFor(length)]);
+    }
+
+    /**
+     * Bulk form of {@link #encodeVersioned(byte[], Version)}, sharing the
+     * scratch buffers across all the inputs, eg. for encoding all the account
+     * ids in a ledger.
+     */
+    public String[] encodeVersioned(byte[][] inputs, Version version) {
+        byte[] buffer = versionedBuffer(version);
+        int length = buffer.length;
+        int[] limbs = new int[limbsFor(length)];
+        char[] encoded = new char[charsFor(length)];
+        String[] results = new String[inputs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            fillVersioned(buffer, inputs[i], version);
+            results[i] = encode(buffer, 0, length, limbs, encoded);
+        }
+        return results;
+    }
+
+    private byte[] versionedBuffer(Version version) {
+        return new byte[version.bytes.length + version.expectedLength + 4];
+    }
+
+    /**
+     * Writes version, input and checksum into buffer
+     * @return buffer
+     */
+    private byte[] fillVersioned(byte[] buffer, byte[] input, Version version) {
         if (input.length != version.expectedLength) {
             throw new IllegalArgumentException(
                     "input length=" + input.length +
                     ", expected=" + version.expectedLength);
         }
-        return encode(concatVersionAndAddChecksum(input, version.bytes));
-    }
-
-    private byte[] concatVersionAndAddChecksum(byte[] input, byte[] version) {
-        byte[] buffer = new byte[input.length + version.length];
-        System.arraycopy(version, 0, buffer, 0, version.length);
-        System.arraycopy(input, 0, buffer, version.length, input.length);
-        byte[] checkSum = copyOfRange(HashUtils.doubleDigest(buffer), 0, 4);
-        byte[] output = new byte[buffer.length + checkSum.length];
-        System.arraycopy(buffer, 0, output, 0, buffer.length);
-        System.arraycopy(checkSum, 0, output, buffer.length, checkSum.length);
-        return output;
+        int versionLength = version.bytes.length;
+        System.arraycopy(version.bytes, 0, buffer, 0, versionLength);
+        System.arraycopy(input, 0, buffer, versionLength, input.length);
+        int checked = versionLength + input.length;
+        byte[] checkSum = HashUtils.doubleDigest(buffer, 0, checked);
+        System.arraycopy(checkSum, 0, buffer, checked, 4);
+        return buffer;
     }
 
     public Decoded decodeVersioned(String input,
@@ -6,10 +6,14 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 public class HashUtils {
-    private static final MessageDigest digest;
-    static {
+    // MessageDigest isn't thread safe, and sharing one behind a lock makes
+    // every base58 checksum in the process contend on it.
+    private static final ThreadLocal<MessageDigest> sha256 =
+            ThreadLocal.withInitial(HashUtils::newSha256);
+
+    private static MessageDigest newSha256() {
         try {
-            digest = MessageDigest.getInstance("SHA-256");
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);  // Can't happen.
         }
@@ -27,12 +31,11 @@ public class HashUtils {
      * standard procedure in Bitcoin. The resulting hash is in big endian form.
      */
     public static byte[] doubleDigest(byte[] input, int offset, int length) {
-        synchronized (digest) {
-            digest.reset();
-            digest.update(input, offset, length);
-            byte[] first = digest.digest();
-            return digest.digest(first);
-        }
+        MessageDigest digest = sha256.get();
+        digest.reset();
+        digest.update(input, offset, length);
+        byte[] first = digest.digest();
+        return digest.digest(first);
     }
 
     public static byte[] halfSha512(byte[] bytes) {
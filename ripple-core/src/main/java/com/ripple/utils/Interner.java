@@ -0,0 +1,77 @@
+package com.ripple.utils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock free, direct mapped pool for canonicalizing immutable
+ * values, so that the same AccountID/Currency/Issue parsed a million times
+ * from ledger data is one object rather than a million.
+ *
+ * Each hash maps to exactly one slot, and a miss just replaces the occupant,
+ * so the pool never grows past its capacity. It's up to the caller to check
+ * that the occupant of a slot actually matches the value it wants, eg:
+ *
+ * <pre>
+ *     T cached = interner.get(hash);
+ *     if (cached != null &amp;&amp; matches(cached)) return cached;
+ *     return interner.put(hash, create());
+ * </pre>
+ *
+ * Pools start disabled; until {@link #enable(int)} is called `get` always
+ * returns null and `put` just returns its argument.
+ */
+public class Interner<T> {
+    private volatile AtomicReferenceArray<T> slots = null;
+
+    /**
+     * (Re)creates the pool with at least `capacity` slots, rounded up to a
+     * power of two. Any previously pooled values are dropped.
+     */
+    public void enable(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int n = Integer.highestOneBit(capacity);
+        if (n < capacity) {
+            n <<= 1;
+        }
+        slots = new AtomicReferenceArray<>(n);
+    }
+
+    public void disable() {
+        slots = null;
+    }
+
+    public boolean enabled() {
+        return slots != null;
+    }
+
+    public int capacity() {
+        AtomicReferenceArray<T> s = slots;
+        return s == null ? 0 : s.length();
+    }
+
+    /**
+     * @return the current occupant of the slot for `hash`, which may be for
+     *         some other value with a colliding slot, or null
+     */
+    public T get(int hash) {
+        AtomicReferenceArray<T> s = slots;
+        return s == null ? null : s.get(index(hash, s.length()));
+    }
+
+    /**
+     * @return value, for chaining
+     */
+    public T put(int hash, T value) {
+        AtomicReferenceArray<T> s = slots;
+        if (s != null) {
+            s.lazySet(index(hash, s.length()), value);
+        }
+        return value;
+    }
+
+    private static int index(int hash, int length) {
+        return (hash ^ (hash >>> 16)) & (length - 1);
+    }
+}
@@ -0,0 +1,224 @@
+package com.ripple.utils;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * A set of longs stored as sorted, disjoint and non adjacent [start, end]
+ * runs in parallel primitive arrays.
+ *
+ * Ledger indexes and account sequences mostly arrive in order, so millions of
+ * members typically collapse to a handful of runs. `contains` is a binary
+ * search over the runs, and `add` is too, unless it has to open a new run in
+ * the middle of the set.
+ *
+ * Not thread safe.
+ */
+public class RangeSet implements Iterable<Long> {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private long[] starts = new long[INITIAL_CAPACITY];
+    private long[] ends = new long[INITIAL_CAPACITY];
+    private int runs = 0;
+
+    /**
+     * @return true if the value wasn't already in the set
+     */
+    public boolean add(long value) {
+        return add(value, value);
+    }
+
+    /**
+     * Adds all values in [start, end], inclusive.
+     * @return true if any of the values weren't already in the set
+     */
+    public boolean add(long start, long end) {
+        if (end < start) {
+            throw new IllegalArgumentException("end < start");
+        }
+        // Fast path for appending, the common case
+        if (runs == 0 || start > ends[runs - 1]) {
+            if (runs > 0 && start - 1 == ends[runs - 1]) {
+                ends[runs - 1] = end;
+            } else {
+                insertRun(runs, start, end);
+            }
+            return true;
+        }
+
+        // First run that could touch or overlap [start, end]
+        int first = runEndingAtOrAfter(start == Long.MIN_VALUE ? start : start - 1);
+        if (first < runs && starts[first] <= start && ends[first] >= end) {
+            return false;
+        }
+        // Last run that could touch or overlap [start, end]
+        int last = first;
+        while (last < runs && (end == Long.MAX_VALUE || starts[last] <= end + 1)) {
+            last++;
+        }
+        if (last == first) {
+            insertRun(first, start, end);
+        } else {
+            long mergedStart = Math.min(start, starts[first]);
+            long mergedEnd = Math.max(end, ends[last - 1]);
+            starts[first] = mergedStart;
+            ends[first] = mergedEnd;
+            removeRuns(first + 1, last);
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        int i = runEndingAtOrAfter(value);
+        return i < runs && starts[i] <= value;
+    }
+
+    /**
+     * @return true if all values in [start, end] are in the set
+     */
+    public boolean containsAll(long start, long end) {
+        int i = runEndingAtOrAfter(start);
+        return i < runs && starts[i] <= start && ends[i] >= end;
+    }
+
+    public boolean isEmpty() {
+        return runs == 0;
+    }
+
+    public void clear() {
+        runs = 0;
+        if (starts.length > INITIAL_CAPACITY) {
+            starts = new long[INITIAL_CAPACITY];
+            ends = new long[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * @return the number of disjoint [start, end] runs
+     */
+    public int runs() {
+        return runs;
+    }
+
+    /**
+     * @return the number of values in the set
+     */
+    public long size() {
+        long n = 0;
+        for (int i = 0; i < runs; i++) {
+            n += ends[i] - starts[i] + 1;
+        }
+        return n;
+    }
+
+    public long first() {
+        if (runs == 0) throw new NoSuchElementException();
+        return starts[0];
+    }
+
+    public long last() {
+        if (runs == 0) throw new NoSuchElementException();
+        return ends[runs - 1];
+    }
+
+    /**
+     * @return true if there are values missing between first() and last()
+     */
+    public boolean hasGaps() {
+        return runs > 1;
+    }
+
+    /**
+     * @return the values missing between first() and last()
+     */
+    public RangeSet gaps() {
+        RangeSet gaps = new RangeSet();
+        for (int i = 1; i < runs; i++) {
+            gaps.insertRun(gaps.runs, ends[i - 1] + 1, starts[i] - 1);
+        }
+        return gaps;
+    }
+
+    public void forEachLong(LongConsumer consumer) {
+        for (int i = 0; i < runs; i++) {
+            for (long v = starts[i]; ; v++) {
+                consumer.accept(v);
+                if (v == ends[i]) break;
+            }
+        }
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            int run = 0;
+            long next = runs > 0 ? starts[0] : 0;
+
+            @Override
+            public boolean hasNext() {
+                return run < runs;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) throw new NoSuchElementException();
+                long value = next;
+                if (value == ends[run]) {
+                    if (++run < runs) {
+                        next = starts[run];
+                    }
+                } else {
+                    next++;
+                }
+                return value;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < runs; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(starts[i]);
+            if (ends[i] != starts[i]) sb.append('-').append(ends[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * @return the index of the first run with end >= value, or `runs`
+     */
+    private int runEndingAtOrAfter(long value) {
+        int lo = 0, hi = runs;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ends[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private void insertRun(int at, long start, long end) {
+        if (runs == starts.length) {
+            starts = Arrays.copyOf(starts, runs * 2);
+            ends = Arrays.copyOf(ends, runs * 2);
+        }
+        System.arraycopy(starts, at, starts, at + 1, runs - at);
+        System.arraycopy(ends, at, ends, at + 1, runs - at);
+        starts[at] = start;
+        ends[at] = end;
+        runs++;
+    }
+
+    private void removeRuns(int from, int to) {
+        System.arraycopy(starts, to, starts, from, runs - to);
+        System.arraycopy(ends, to, ends, from, runs - to);
+        runs -= to - from;
+    }
+}
@@ -1,10 +1,15 @@
 package com.ripple.core;
 
 import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.coretypes.Currency;
+import com.ripple.core.coretypes.Issue;
 import com.ripple.encodings.basex.EncodingFormatException;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 public class AccountIDTest {
 
@@ -13,7 +18,7 @@ public class AccountIDTest {
     @Test
     public void testAddress() {
         AccountID account = AccountID.fromSeed(TestFixtures.master_seed);
-        assertEquals(TestFixtures.master_seed_address, account.address);
+        assertEquals(TestFixtures.master_seed_address, account.address());
     }
 
     @Test
@@ -32,4 +37,38 @@ public class AccountIDTest {
         AccountID a2 = AccountID.fromAddress(randomXqvWyhPcWjBE7nawXLTKH5YLNmSc);
         assertEquals(a1.hashCode(), a2.hashCode());
     }
+
+    @Test
+    public void testAddressFromBytes() {
+        AccountID fromAddress = AccountID.fromAddress(randomXqvWyhPcWjBE7nawXLTKH5YLNmSc);
+        AccountID fromBytes = AccountID.fromBytes(fromAddress.toBytes());
+        assertEquals(fromAddress, fromBytes);
+        assertEquals(fromAddress.hashCode(), fromBytes.hashCode());
+        assertEquals(randomXqvWyhPcWjBE7nawXLTKH5YLNmSc, fromBytes.address());
+        assertEquals(randomXqvWyhPcWjBE7nawXLTKH5YLNmSc, fromBytes.toString());
+    }
+
+    @Test
+    public void testInterning() {
+        byte[] bytes = AccountID.fromAddress(randomXqvWyhPcWjBE7nawXLTKH5YLNmSc).toBytes();
+        assertFalse(AccountID.interner.enabled());
+        assertNotSame(AccountID.fromBytes(bytes), AccountID.fromBytes(bytes));
+
+        AccountID.interner.enable(1024);
+        Currency.interner.enable(64);
+        Issue.interner.enable(256);
+        try {
+            AccountID account = AccountID.fromBytes(bytes);
+            assertSame(account, AccountID.fromBytes(bytes.clone()));
+            assertSame(Currency.fromString("USD"), Currency.fromString("USD"));
+            assertSame(account.issue("USD"), account.issue("USD"));
+            assertSame(account.issue("USD"),
+                    Issue.from160s(Currency.fromString("USD"), account));
+            assertNotSame(account.issue("USD"), account.issue("EUR"));
+        } finally {
+            AccountID.interner.disable();
+            Currency.interner.disable();
+            Issue.interner.disable();
+        }
+    }
 }
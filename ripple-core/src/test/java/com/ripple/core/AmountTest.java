@@ -236,7 +236,7 @@ public class AmountTest {
     }
 
     private void assertOffset(String s, int i) {
-        Amount amt = Amount.fromString(s + "/USD/" + TestFixtures.bob_account.address);
+        Amount amt = Amount.fromString(s + "/USD/" + TestFixtures.bob_account.address());
         assertEquals(String.format("Offset for %s should be %d", s, i),  i, amt.exponent());
     }
 
@@ -2,12 +2,23 @@ package com.ripple.core;
 
 import com.ripple.core.coretypes.STObject;
 import com.ripple.core.coretypes.hash.Hash128;
+import com.ripple.core.coretypes.hash.Hash160;
 import com.ripple.core.coretypes.hash.Hash256;
+import com.ripple.core.coretypes.hash.Hash256HashMap;
+import com.ripple.core.coretypes.hash.Hash256HashSet;
 import com.ripple.encodings.common.B16;
 import com.ripple.utils.Utils;
 import org.junit.Test;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
 import static com.ripple.core.coretypes.hash.Hash256.Hash256Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
@@ -48,4 +59,79 @@ public class HashTest{
         assertSame(tree.get(b), objectB);
         assertSame(tree.get(c), objectC);
     }
+
+    @Test
+    public void testWordsAgreeWithBytes() {
+        Random random = new Random(256);
+        for (int n = 0; n < 500; n++) {
+            byte[] a = new byte[32], b = new byte[32];
+            random.nextBytes(a);
+            System.arraycopy(a, 0, b, 0, 32);
+            // Diverge (or not) at a random nibble
+            int depth = random.nextInt(65);
+            if (depth < 64) {
+                b[depth / 2] ^= depth % 2 == 0 ? 0x10 << random.nextInt(4) : 1 << random.nextInt(4);
+            }
+            Hash256 ha = new Hash256(a), hb = new Hash256(b);
+            assertEquals(depth, ha.divergenceDepth(hb));
+            assertEquals(Integer.signum(new BigInteger(1, a).compareTo(new BigInteger(1, b))),
+                    ha.compareTo(hb));
+            assertEquals(depth == 64, ha.equals(hb));
+            for (int i = 0; i < 64; i++) {
+                int expected = (a[i / 2] >> (i % 2 == 0 ? 4 : 0)) & 0xF;
+                assertEquals(expected, ha.nibblet(i));
+            }
+
+            Hash160 h160a = new Hash160(Utils.padTo160(new byte[0]));
+            byte[] c = new byte[20];
+            random.nextBytes(c);
+            Hash160 h160c = new Hash160(c);
+            assertEquals(Integer.signum(new BigInteger(1, c).signum()), h160c.compareTo(h160a));
+            assertEquals(h160c, new Hash160(c.clone()));
+            assertEquals(h160c.hashCode(), new Hash160(c.clone()).hashCode());
+        }
+    }
+
+    @Test
+    public void testHash256HashMap() {
+        Random random = new Random(1);
+        Hash256HashMap<Integer> map = new Hash256HashMap<>();
+        HashMap<Hash256, Integer> expected = new HashMap<>();
+        ArrayList<Hash256> keys = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            byte[] bytes = new byte[32];
+            // Book directory like keys, differing only in the low bits
+            bytes[31] = (byte) i;
+            bytes[30] = (byte) (i >> 8);
+            keys.add(new Hash256(bytes));
+        }
+        for (int i = 0; i < 20000; i++) {
+            Hash256 key = keys.get(random.nextInt(keys.size()));
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, map);
+        for (Hash256 key : keys) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(keys.get(0)));
+    }
+
+    @Test
+    public void testHash256HashSet() {
+        Hash256 a = new Hash256(Utils.padTo256(B16.decode("0A")));
+        Hash256HashSet set = new Hash256HashSet();
+        assertTrue(set.add(a));
+        assertFalse(set.add(new Hash256(Utils.padTo256(B16.decode("0A")))));
+        assertTrue(set.contains(a));
+        assertEquals(1, set.size());
+        assertTrue(set.remove(a));
+        assertFalse(set.contains(a));
+    }
 }
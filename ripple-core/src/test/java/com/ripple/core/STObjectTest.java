@@ -21,6 +21,7 @@ import com.ripple.core.types.known.sle.entries.AccountRoot;
 import com.ripple.core.types.known.sle.entries.DirectoryNode;
 import com.ripple.core.types.known.sle.entries.Offer;
 import com.ripple.core.types.known.tx.result.TransactionMeta;
+import com.ripple.core.types.known.tx.txns.OfferCancel;
 import com.ripple.core.types.known.tx.txns.Payment;
 import com.ripple.core.types.shamap.AccountState;
 import com.ripple.crypto.keys.IKeyPair;
@@ -373,6 +374,58 @@ public class STObjectTest {
         assertNull(so.get(Amount.HighLimit));
     }
 
+    @Test
+    public void testLazyFromBytes() {
+        String txHex = "12000822000000002400113FCF201900113F3268400000000000000A73210256C64F0378DCCCB4E0224B36F7ED1E5586455FF105F760245ADB35A8B03A25FD7447304502200A8BED7B8955F45633BA4E9212CE386C397E32ACFF6ECE08EB74B5C86200C606022100EF62131FF50B288244D9AB6B3D18BACD44924D2BAEEF55E1B3232B7E033A27918114E0E893E991B2142E74486F7D3331CF711EA84213";
+        String metaHex = "201C00000001F8E511006125003136FA55610A3178D0A69167DF32E28990FD60D50F5610A5CF5C832CBF0C7FCC0913516B5656091AD066271ED03B106812AD376D48F126803665E3ECBFDBBB7A3FFEB474B2E62400113FCF2D000000456240000000768913E4E1E722000000002400113FD02D000000446240000000768913DA8114E0E893E991B2142E74486F7D3331CF711EA84213E1E1E5110064565943CB2C05B28743AADF0AE47E9C57E9C15BD23284CF6DA9561993D688DA919AE7220000000036561993D688DA919A585943CB2C05B28743AADF0AE47E9C57E9C15BD23284CF6DA9561993D688DA919A01110000000000000000000000004C54430000000000021192D705968936C419CE614BF264B5EEB1CEA47FF403110000000000000000000000004254430000000000041192D705968936C419CE614BF264B5EEB1CEA47FF4E1E1E411006F5678812E6E2AB80D5F291F8033D7BC23F0A6E4EA80C998BFF38E80E2A09D2C4D93E722000000002400113F32250031361633000000000000000034000000000000329255C7D1671589B1B4AB1071E38299B8338632DAD19A7D0F8D28388F40845AF0BCC550105943CB2C05B28743AADF0AE47E9C57E9C15BD23284CF6DA9561993D688DA919A64D4C7A75562493C000000000000000000000000004C5443000000000092D705968936C419CE614BF264B5EEB1CEA47FF465D44AA183A77ECF80000000000000000000000000425443000000000092D705968936C419CE614BF264B5EEB1CEA47FF48114E0E893E991B2142E74486F7D3331CF711EA84213E1E1E511006456F78A0FFA69890F27C2A79C495E1CEB187EE8E677E3FDFA5AD0B8FCFC6E644E38E72200000000310000000000003293320000000000000000582114A41BB356843CE99B2858892C8F1FEF634B09F09AF2EB3E8C9AA7FD0E3A1A8214E0E893E991B2142E74486F7D3331CF711EA84213E1E1F1031000";
+
+        STObject tx = STObject.lazyFromHex(txHex);
+        assertTrue(tx instanceof OfferCancel);
+        assertEquals("10", tx.get(Amount.Fee).toDropsString());
+        assertEquals(txHex, tx.toHex());
+        assertEquals(STObject.fromHex(txHex).toJSONObject().toString(),
+                     tx.toJSONObject().toString());
+
+        STObject meta = STObject.lazyFromHex(metaHex);
+        assertTrue(meta instanceof TransactionMeta);
+        assertEquals(metaHex, meta.toHex());
+        assertEquals(STObject.fromHex(metaHex).toJSONObject().toString(),
+                     meta.toJSONObject().toString());
+
+        // Modified fields are serialized from their values
+        STObject eager = STObject.fromHex(txHex);
+        tx = STObject.lazyFromHex(txHex);
+        tx.put(UInt32.Sequence, new UInt32(1));
+        eager.put(UInt32.Sequence, new UInt32(1));
+        tx.remove(Field.TxnSignature);
+        eager.remove(Field.TxnSignature);
+        assertEquals(eager.toHex(), tx.toHex());
+    }
+
+    @Test
+    public void testFieldsKeptInCanonicalOrder() {
+        STObject so = new STObject();
+        so.put(UInt32.Sequence, new UInt32(1));
+        so.put(Amount.Fee, Amount.fromString("10"));
+        so.put(UInt16.TransactionType, new UInt16(0));
+        so.put(UInt32.Flags, new UInt32(0));
+        so.put(UInt32.Sequence, new UInt32(2));
+
+        Iterator<Field> fields = so.iterator();
+        assertEquals(Field.TransactionType, fields.next());
+        assertEquals(Field.Flags, fields.next());
+        assertEquals(Field.Sequence, fields.next());
+        assertEquals(Field.Fee, fields.next());
+        assertFalse(fields.hasNext());
+        assertEquals(2, so.get(UInt32.Sequence).intValue());
+
+        assertNotNull(so.remove(Field.Flags));
+        assertNull(so.remove(Field.Flags));
+        assertFalse(so.has(Field.Flags));
+        assertEquals(3, so.size());
+        assertEquals("120000240000000268400000000000000A", so.toHex());
+    }
+
     @Test
     /**
      * We just testing this won't blow up due to unknown `date` field!
@@ -471,7 +524,7 @@ public class STObjectTest {
         payment.putTranslated(UInt32.Sequence, 5);
         payment.putTranslated(Amount.Fee, "15");
         payment.putTranslated(Blob.SigningPubKey, kp.canonicalPubHex());
-        payment.putTranslated(Amount.Amount, "12/USD/" + ac.address);
+        payment.putTranslated(Amount.Amount, "12/USD/" + ac.address());
 
         assertEquals(expectedSerialization, payment.toHex());
     }
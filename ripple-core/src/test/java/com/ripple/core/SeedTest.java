@@ -1,9 +1,12 @@
 package com.ripple.core;
 
+import com.ripple.crypto.ecdsa.K256;
+import com.ripple.crypto.ecdsa.K256KeyPair;
 import com.ripple.crypto.ed25519.EDKeyPair;
 import com.ripple.crypto.keys.IKeyPair;
 import com.ripple.crypto.Seed;
 import com.ripple.encodings.addresses.Addresses;
+import com.ripple.encodings.common.B16;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -64,6 +67,35 @@ public class SeedTest {
             assertEquals(ADDRESS_ARRAY[i+3], keyPair.canonicalPubHex());
         }
     }
+    @Test
+    public void testCachedGeneratorDerivesSameKeys() {
+        Seed seed = Seed.fromPassPhrase("masterpassphrase");
+        for (int account = -1; account < 5; account++) {
+            IKeyPair cached = seed.keyPair(account);
+            IKeyPair fresh = K256.createKeyPair(seed.bytes(), account);
+            assertEquals(fresh.canonicalPubHex(), cached.canonicalPubHex());
+            assertArrayEquals(fresh.privateKey(), cached.privateKey());
+        }
+        byte[] publicGenerator = seed.rootKeyPair().canonicalPubBytes();
+        for (int account = 0; account < 5; account++) {
+            // Public derivation, from only the public generator
+            assertArrayEquals(seed.keyPair(account).canonicalPubBytes(),
+                    K256.computePublicKey(publicGenerator, account));
+        }
+    }
+
+    @Test
+    public void testDeterministicSignatures() {
+        K256KeyPair keyPair = (K256KeyPair) Seed.fromBase58(TestFixtures.master_seed).keyPair();
+        String expected = "304402203B72E92DFA98C9DE326B987690785EA390BE80BFD0D0B3A4E3273BC035A8AAAF02207406ABF0AB4649F4C63B9E1AD134D7FEF346FAF5E0FDA91146175C8835529421";
+        // Twice, as the nonce calculator is reused
+        for (int i = 0; i < 2; i++) {
+            byte[] signature = keyPair.signHash(TestFixtures.master_seed_bytes);
+            assertEquals(expected, B16.encode(signature));
+            assertTrue(keyPair.verifyHash(TestFixtures.master_seed_bytes, signature));
+        }
+    }
+
     private static String phraseToFamilySeed(String passphrase) {
         return Seed.fromPassPhrase(passphrase).toString();
     }
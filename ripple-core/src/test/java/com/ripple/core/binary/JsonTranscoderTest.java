@@ -0,0 +1,42 @@
+package com.ripple.core.binary;
+
+import com.ripple.core.coretypes.STObject;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.Test;
+
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JsonTranscoderTest {
+    private static JSONArray transactions() {
+        InputStream stream = JsonTranscoderTest.class.getResourceAsStream(
+                "/ledger-transactions-only-7501326.json");
+        return new JSONObject(new JSONTokener(stream)).getJSONArray("transactions");
+    }
+
+    @Test
+    public void testMatchesSTObject() {
+        JSONArray transactions = transactions();
+        assertTrue(transactions.length() > 0);
+
+        for (int i = 0; i < transactions.length(); i++) {
+            JSONObject txJson = transactions.getJSONObject(i);
+            JSONObject metaJson = (JSONObject) txJson.remove("metaData");
+
+            for (JSONObject json : new JSONObject[]{txJson, metaJson}) {
+                STObject object = STObject.fromJSONObject(json);
+                String hex = object.toHex();
+
+                assertEquals(hex, JsonTranscoder.toHex(json.toString()));
+                // Reparsed, so numbers are boxed the same way on both sides
+                JSONObject expected = new JSONObject(STObject.fromHex(hex).toJSONObject().toString());
+                JSONObject transcoded = new JSONObject(JsonTranscoder.toJSON(hex));
+                assertTrue(transcoded.toString(), expected.similar(transcoded));
+            }
+        }
+    }
+}
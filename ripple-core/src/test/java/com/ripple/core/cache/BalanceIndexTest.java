@@ -0,0 +1,94 @@
+package com.ripple.core.cache;
+
+import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.coretypes.Currency;
+import com.ripple.core.coretypes.Issue;
+import com.ripple.core.coretypes.STObject;
+import com.ripple.core.coretypes.hash.Index;
+import com.ripple.core.coretypes.uint.UInt32;
+import com.ripple.core.types.known.sle.LedgerEntry;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static com.ripple.core.types.shamap.LedgerFixture.*;
+import static org.junit.Assert.*;
+
+public class BalanceIndexTest {
+    private final AccountID alice = AccountID.fromAddress("rHb9CJAWyB4rj91VRWn96DkukG4bwdtyTh");
+    private final AccountID bob = AccountID.fromAddress("rPMh7Pi9ct699iZUTWaytJUoHcJ7cgyziK");
+    private final AccountID low = alice.compareTo(bob) < 0 ? alice : bob;
+    private final AccountID high = low == alice ? bob : alice;
+    private final Currency usd = Currency.fromString("USD");
+    private final Issue highUSD = Issue.of(usd, high);
+
+    private static JSONObject root(AccountID account, String drops, int ownerCount) {
+        return node("ModifiedNode", Index.accountRoot(account),
+                rootJSON(account, drops, ownerCount));
+    }
+
+    private JSONObject line(String kind, String balance, String lowLimit) {
+        return node(kind, Index.rippleState(low, high, usd),
+                lineJSON(low, highUSD, balance, lowLimit));
+    }
+
+    @Test
+    public void testTracksRootsOfTrackedAccounts() {
+        BalanceIndex index = new BalanceIndex().track(alice);
+        index.updateFromTransactionResult(result(10, 0,
+                root(alice, "1000", 1),
+                root(bob, "2000", 0)));
+
+        assertEquals("1000", index.balance(alice).toDropsString());
+        assertEquals(new UInt32(1), index.root(alice).ownerCount);
+        assertNull(index.balance(bob));
+        assertEquals(1, index.roots().size());
+
+        // Older positions are ignored, later ones applied
+        index.updateFromTransactionResult(result(9, 5,
+                root(alice, "900", 1)));
+        assertEquals("1000", index.balance(alice).toDropsString());
+        index.updateFromTransactionResult(result(10, 1,
+                root(alice, "1100", 2)));
+        assertEquals("1100", index.balance(alice).toDropsString());
+    }
+
+    @Test
+    public void testTrustLinesFromBothSides() {
+        BalanceIndex index = new BalanceIndex().trackAll();
+        index.updateFromTransactionResult(result(10, 0,
+                line("CreatedNode", "25", "100")));
+
+        BalanceIndex.TrustLine lowSide = index.line(low, usd, high);
+        assertEquals("25", lowSide.balance.valueText());
+        assertEquals(high, lowSide.balance.issuer());
+        assertEquals("100", lowSide.limit.valueText());
+        assertEquals("0", lowSide.limitPeer.valueText());
+
+        BalanceIndex.TrustLine highSide = index.line(high, usd, low);
+        assertEquals("-25", highSide.balance.valueText());
+        assertEquals(low, highSide.balance.issuer());
+        assertEquals(lowSide.index, highSide.index);
+        assertEquals(1, index.lines(high).size());
+
+        index.updateFromTransactionResult(result(11, 0,
+                line("DeletedNode", "0", "0")));
+        assertNull(index.line(low, usd, high));
+        assertTrue(index.lines(high).isEmpty());
+    }
+
+    @Test
+    public void testSeedingFromLedgerEntries() {
+        BalanceIndex index = new BalanceIndex().track(alice);
+        LedgerEntry seeded = (LedgerEntry) STObject.fromJSONObject(rootJSON(alice, "500", 0));
+        index.updateFromLedgerEntry(seeded, new UInt32(10));
+        assertEquals("500", index.balance(alice).toDropsString());
+
+        // A transaction in the seeded ledger was already accounted for
+        index.updateFromTransactionResult(result(10, 3,
+                root(alice, "400", 0)));
+        assertEquals("500", index.balance(alice).toDropsString());
+        index.updateFromTransactionResult(result(11, 0,
+                root(alice, "400", 0)));
+        assertEquals("400", index.balance(alice).toDropsString());
+    }
+}
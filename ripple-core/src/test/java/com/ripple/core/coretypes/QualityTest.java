@@ -4,8 +4,11 @@ import com.ripple.core.coretypes.hash.Hash256;
 import org.junit.Test;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Random;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class QualityTest {
 
@@ -15,4 +18,99 @@ public class QualityTest {
         assertEquals(0, BigDecimal.valueOf(24.299)
                                   .compareTo(Quality.fromBookDirectory(hash256, true, false)));
     }
+
+    @Test
+    public void testPackedFields() throws Exception {
+        Hash256 directory = Hash256.fromHex("6F86B77ADAC326EA25C597BAD08C447FA568D28A2504883F530520669E693000");
+        Quality quality = Quality.fromBookDirectory(directory);
+        assertEquals(-17, quality.exponent());
+        assertEquals(1443000000000000L, quality.mantissa());
+        assertEquals("0.01443", quality.toString());
+    }
+
+    @Test
+    public void testOfMatchesBookDirectory() throws Exception {
+        // An offer created paying 0.2297256 BTC for 15.92 LTC
+        Hash256 directory = Hash256.fromHex("6F86B77ADAC326EA25C597BAD08C447FA568D28A2504883F530520669E693000");
+        Quality quality = Quality.of(Amount.fromString("0.2297256/BTC"),
+                                     Amount.fromString("15.92/LTC"));
+        assertEquals(Quality.fromBookDirectory(directory), quality);
+
+        // 24.299 XRP per unit, as in testFromBookDirectory
+        Hash256 native_ = Hash256.fromHex("4627DFFCFF8B5A265EDBD8AE8C14A52325DBFEDAF4F5C32E5C08A1FB2E56F800");
+        assertEquals(Quality.fromBookDirectory(native_),
+                Quality.of(Amount.fromString("24299000"),
+                           Amount.fromString("1/USD")));
+    }
+
+    @Test
+    public void testOfMatchesReference() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            Amount pays = randomAmount(random), gets = randomAmount(random);
+            if (pays.isNative() && gets.isNative()) {
+                continue;
+            }
+            assertEquals(pays + " / " + gets,
+                    reference(pays, gets), Quality.of(pays, gets).value());
+        }
+    }
+
+    @Test
+    public void testOrderingIsExact() throws Exception {
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            Quality a = Quality.of(randomIOU(random), randomIOU(random));
+            Quality b = Quality.of(randomIOU(random), randomIOU(random));
+            assertEquals(Integer.signum(a.toBigDecimal().compareTo(b.toBigDecimal())),
+                         Integer.signum(a.compareTo(b)));
+        }
+    }
+
+    @Test
+    public void testCrosses() throws Exception {
+        Quality usdForBtc = Quality.of(Amount.fromString("10/USD"), Amount.fromString("1/BTC"));
+        assertTrue(usdForBtc.crosses(Quality.of(Amount.fromString("1/BTC"), Amount.fromString("10/USD"))));
+        assertTrue(usdForBtc.crosses(Quality.of(Amount.fromString("0.99/BTC"), Amount.fromString("10/USD"))));
+        assertFalse(usdForBtc.crosses(Quality.of(Amount.fromString("1.01/BTC"), Amount.fromString("10/USD"))));
+
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            Quality a = Quality.of(randomIOU(random), randomIOU(random));
+            Quality b = Quality.of(randomIOU(random), randomIOU(random));
+            boolean expected = a.toBigDecimal().multiply(b.toBigDecimal())
+                                .compareTo(BigDecimal.ONE) <= 0;
+            assertEquals(expected, a.crosses(b));
+        }
+    }
+
+    private static Amount randomIOU(Random random) {
+        BigDecimal value = new BigDecimal(BigInteger.valueOf(1 + random.nextInt(999999999)),
+                                          random.nextInt(20) - 5);
+        return new Amount(value.round(new MathContext(16)), "USD");
+    }
+
+    private static Amount randomAmount(Random random) {
+        if (random.nextBoolean()) {
+            return Amount.fromString(String.valueOf(1 + (random.nextLong() >>> 8) % 100000000000000000L));
+        }
+        return randomIOU(random);
+    }
+
+    // rippled's getRate, with BigIntegers
+    private static long reference(Amount pays, Amount gets) {
+        BigInteger num = pays.isNative() ? new BigInteger(pays.toDropsString()) :
+                pays.value().abs().scaleByPowerOfTen(-pays.exponent()).toBigIntegerExact();
+        BigInteger den = gets.isNative() ? new BigInteger(gets.toDropsString()) :
+                gets.value().abs().scaleByPowerOfTen(-gets.exponent()).toBigIntegerExact();
+        int numExp = pays.isNative() ? 0 : pays.exponent();
+        int denExp = gets.isNative() ? 0 : gets.exponent();
+        BigInteger min = BigInteger.TEN.pow(15), max = BigInteger.TEN.pow(16);
+        while (num.compareTo(min) < 0) { num = num.multiply(BigInteger.TEN); numExp--; }
+        while (den.compareTo(min) < 0) { den = den.multiply(BigInteger.TEN); denExp--; }
+        BigInteger q = num.multiply(BigInteger.TEN.pow(17)).divide(den).add(BigInteger.valueOf(5));
+        int exp = numExp - denExp - 17;
+        while (q.compareTo(max) >= 0) { q = q.divide(BigInteger.TEN); exp++; }
+        return ((long) (exp + 100) << 56) | q.longValue();
+    }
 }
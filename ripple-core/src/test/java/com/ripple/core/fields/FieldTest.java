@@ -0,0 +1,31 @@
+package com.ripple.core.fields;
+
+import com.ripple.core.serialized.BinaryParser;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class FieldTest {
+    @Test
+    public void testHeadersDecodeToTheirField() {
+        for (Field field : Field.values()) {
+            if (!field.isSerialized()) {
+                continue;
+            }
+            BinaryParser parser = new BinaryParser(field.getBytes());
+            Field decoded = parser.readField();
+            assertEquals(field.code, decoded.code);
+            assertEquals(field.getBytes().length, parser.pos());
+            assertSame(decoded, Field.fromCode(field.code));
+        }
+    }
+
+    @Test
+    public void testFromCodeFindsUnserializedFields() {
+        assertSame(Field.hash, Field.fromCode(Field.hash.code));
+        assertSame(Field.index, Field.fromCode(Field.index.code));
+        assertNull(Field.fromTypeAndName(Type.Hash256.getId(), 255));
+    }
+}
@@ -0,0 +1,155 @@
+package com.ripple.core.types.known.tx.result;
+
+import com.ripple.core.coretypes.Amount;
+import com.ripple.core.coretypes.STObject;
+import com.ripple.core.coretypes.hash.Hash256;
+import com.ripple.core.coretypes.uint.UInt32;
+import com.ripple.core.fields.Field;
+import com.ripple.core.types.known.sle.LedgerEntry;
+import com.ripple.core.types.known.sle.entries.AccountRoot;
+import com.ripple.core.types.known.sle.entries.Offer;
+import com.ripple.encodings.common.B16;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AffectedNodeViewTest {
+    private static final String modifiedOffer = "{" +
+            "  \"ModifiedNode\": {" +
+            "    \"FinalFields\": {" +
+            "      \"Account\": \"rM3X3QSr8icjTGpaF52dozhbT2BZSXJQYM\"," +
+            "      \"BookDirectory\": \"CF8D13399C6ED20BA82740CFA78E928DC8D498255249BA634C0CA0F87583B9DD\"," +
+            "      \"BookNode\": \"0000000000000000\"," +
+            "      \"Flags\": 0," +
+            "      \"OwnerNode\": \"0000000000000E3F\"," +
+            "      \"Sequence\": 350199," +
+            "      \"TakerGets\": \"5243603512\"," +
+            "      \"TakerPays\": {" +
+            "        \"currency\": \"USD\"," +
+            "        \"issuer\": \"rMwjYedjc7qqtKYVLiAccJSmCwih4LnE2q\"," +
+            "        \"value\": \"18.63937817460808\"" +
+            "      }" +
+            "    }," +
+            "    \"LedgerEntryType\": \"Offer\"," +
+            "    \"LedgerIndex\": \"2CF16DEFEF0E699E59C5FB37A4698C95E7EE78158C4F8A4FD6EF5C92F678F036\"," +
+            "    \"PreviousFields\": {" +
+            "      \"TakerGets\": \"5286156704\"," +
+            "      \"TakerPays\": {" +
+            "        \"currency\": \"USD\"," +
+            "        \"issuer\": \"rMwjYedjc7qqtKYVLiAccJSmCwih4LnE2q\"," +
+            "        \"value\": \"18.79064152554785\"" +
+            "      }" +
+            "    }," +
+            "    \"PreviousTxnID\": \"2564A4F4F1BE20AA13394FB06DA620814190A090DCDC03320CCB257F00D80B92\"," +
+            "    \"PreviousTxnLgrSeq\": 7501326" +
+            "  }" +
+            "}";
+
+    private static final String modifiedRootWithoutFinalFields = "{" +
+            "  \"ModifiedNode\": {" +
+            "    \"LedgerIndex\": \"2C6F7594FB7471F4983C2BC691AAC2F25F8DB88D455985B4181E053D7AB23006\"," +
+            "    \"PreviousTxnLgrSeq\": 35561097," +
+            "    \"LedgerEntryType\": \"AccountRoot\"," +
+            "    \"PreviousTxnID\": \"67EE84E892FBEDF5FD52D511FF1E833870A2B8104CA5FF9BA89867A528A5D3ED\"" +
+            "  }" +
+            "}";
+
+    // The entries the nodes above describe, written out by hand
+    private static final String offerAfter = "{" +
+            "  \"LedgerEntryType\": \"Offer\"," +
+            "  \"index\": \"2CF16DEFEF0E699E59C5FB37A4698C95E7EE78158C4F8A4FD6EF5C92F678F036\"," +
+            "  \"Account\": \"rM3X3QSr8icjTGpaF52dozhbT2BZSXJQYM\"," +
+            "  \"BookDirectory\": \"CF8D13399C6ED20BA82740CFA78E928DC8D498255249BA634C0CA0F87583B9DD\"," +
+            "  \"BookNode\": \"0000000000000000\"," +
+            "  \"Flags\": 0," +
+            "  \"OwnerNode\": \"0000000000000E3F\"," +
+            "  \"Sequence\": 350199," +
+            "  \"TakerGets\": \"5243603512\"," +
+            "  \"TakerPays\": {" +
+            "    \"currency\": \"USD\"," +
+            "    \"issuer\": \"rMwjYedjc7qqtKYVLiAccJSmCwih4LnE2q\"," +
+            "    \"value\": \"18.63937817460808\"" +
+            "  }," +
+            "  \"PreviousTxnID\": \"2564A4F4F1BE20AA13394FB06DA620814190A090DCDC03320CCB257F00D80B92\"," +
+            "  \"PreviousTxnLgrSeq\": 7501326" +
+            "}";
+
+    private static final String offerBefore = offerAfter
+            .replace("5243603512", "5286156704")
+            .replace("18.63937817460808", "18.79064152554785");
+
+    private static final String rootAfter = "{" +
+            "  \"LedgerEntryType\": \"AccountRoot\"," +
+            "  \"index\": \"2C6F7594FB7471F4983C2BC691AAC2F25F8DB88D455985B4181E053D7AB23006\"," +
+            "  \"PreviousTxnID\": \"67EE84E892FBEDF5FD52D511FF1E833870A2B8104CA5FF9BA89867A528A5D3ED\"," +
+            "  \"PreviousTxnLgrSeq\": 35561097" +
+            "}";
+
+    private static AffectedNode node(String json) {
+        return (AffectedNode) STObject.fromJSON(json);
+    }
+
+    private static LedgerEntry entry(String json) {
+        return (LedgerEntry) STObject.fromJSON(json);
+    }
+
+    @Test
+    public void testViewsAreTypedAndLayered() {
+        AffectedNode an = node(modifiedOffer);
+        Offer previous = (Offer) an.previousView();
+        Offer finals = (Offer) an.finalView();
+
+        assertEquals("5286156704", previous.takerGets().toDropsString());
+        assertEquals("5243603512", finals.takerGets().toDropsString());
+        assertEquals(finals.account(), previous.account());
+        assertEquals(UInt32.ZERO, finals.flags());
+        assertEquals(an.ledgerIndex(), finals.index());
+        assertFalse(finals.has(Field.LedgerIndex));
+        assertFalse(finals.has(Field.FinalFields));
+        assertFalse(finals.has(Field.PreviousFields));
+        assertNull(finals.get(Field.Expiration));
+    }
+
+    @Test
+    public void testViewsAndCopiesMatchTheEntries() {
+        AffectedNode an = node(modifiedOffer);
+        assertEntryEquals(entry(offerAfter), an.finalView());
+        assertEntryEquals(entry(offerAfter), an.nodeAsFinal());
+        assertEntryEquals(entry(offerBefore), an.previousView());
+        assertEntryEquals(entry(offerBefore), an.nodeAsPrevious());
+
+        AffectedNode root = node(modifiedRootWithoutFinalFields);
+        assertTrue(root.finalView() instanceof AccountRoot);
+        assertEntryEquals(entry(rootAfter), root.finalView());
+        assertEntryEquals(entry(rootAfter), root.nodeAsFinal());
+    }
+
+    private static void assertEntryEquals(LedgerEntry expected, LedgerEntry actual) {
+        assertEquals(expected.getClass(), actual.getClass());
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.index(), actual.index());
+        assertEquals(B16.encode(expected.toBytes()), B16.encode(actual.toBytes()));
+        assertTrue(expected.toJSONObject().similar(actual.toJSONObject()));
+        assertArrayEquals(expected.getFields().keySet().toArray(),
+                actual.getFields().keySet().toArray());
+    }
+
+    @Test
+    public void testViewsAreCachedAndReadOnly() {
+        AffectedNode an = node(modifiedOffer);
+        LedgerEntry view = an.finalView();
+        assertSame(view, an.finalView());
+        assertNotSame(an.nodeAsFinal(), an.nodeAsFinal());
+
+        try {
+            view.put(Hash256.index, Hash256.ZERO_256);
+            fail();
+        } catch (UnsupportedOperationException ignored) {
+        }
+
+        // Copies can be modified without touching the metadata
+        LedgerEntry copy = an.nodeAsFinal();
+        copy.put(Amount.TakerGets, Amount.fromString("1"));
+        assertEquals("5243603512", an.finalView().get(Amount.TakerGets).toDropsString());
+    }
+}
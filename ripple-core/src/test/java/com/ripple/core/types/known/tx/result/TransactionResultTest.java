@@ -432,6 +432,18 @@ public class TransactionResultTest {
         assertHelper(tr);
     }
 
+    @Test
+    public void testFromBinary() {
+        JSONObject json = account_tx_binary_result;
+        TransactionResult tr = TransactionResult.fromBinary(
+                json.getString("tx_blob"),
+                json.getString("meta"),
+                json.getLong("ledger_index"),
+                null);
+        tr.validated = json.getBoolean("validated");
+        assertHelper(tr);
+    }
+
     @Test
     public void testRequestTxBinaryResult() {
         TransactionResult tr = TransactionResult.fromJSON(request_tx_binary_result);
@@ -461,7 +473,7 @@ public class TransactionResultTest {
 
     public void assertHelper(TransactionResult tr) {
         assertEquals(true, tr.validated);
-        assertEquals("rHb9CJAWyB4rj91VRWn96DkukG4bwdtyTh", tr.initiatingAccount().address);
+        assertEquals("rHb9CJAWyB4rj91VRWn96DkukG4bwdtyTh", tr.initiatingAccount().address());
         assertEquals(EngineResult.tesSUCCESS, tr.engineResult);
         assertEquals("235DA149DDA3BD32B886C132ABDE60CC5AD2C5693652F1E1725565E4B3D425B4", tr.hash.toHex());
         assertEquals(7, tr.ledgerIndex.longValue());
@@ -0,0 +1,91 @@
+package com.ripple.core.types.known.tx.signed;
+
+import com.ripple.core.TestFixtures;
+import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.coretypes.Amount;
+import com.ripple.core.coretypes.STArray;
+import com.ripple.core.coretypes.STObject;
+import com.ripple.core.coretypes.uint.UInt32;
+import com.ripple.core.types.known.tx.Transaction;
+import com.ripple.core.types.known.tx.txns.Payment;
+import com.ripple.crypto.Seed;
+import com.ripple.crypto.keys.IKeyPair;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SigningServiceTest {
+    private final IKeyPair keyPair = Seed.getKeyPair(TestFixtures.master_seed);
+    private final AccountID account = AccountID.fromKeyPair(keyPair);
+
+    private Payment payment(int drops) {
+        Payment payment = new Payment();
+        payment.account(account);
+        payment.destination(TestFixtures.bob_account);
+        payment.amount(Amount.fromString(String.valueOf(drops)));
+        return payment;
+    }
+
+    private void assertConsistent(SignedTransaction signed) {
+        Transaction txn = signed.txn;
+        assertArrayEquals(txn.signingData(), signed.signingData);
+        assertEquals(txn.toHex(), signed.tx_blob);
+        assertEquals(txn.createHash(), signed.hash);
+        assertTrue(txn.verifySignature(account));
+    }
+
+    @Test
+    public void testSerializeOnceMatchesFullSerialization() {
+        Payment payment = payment(1000);
+        payment.put(Amount.Fee, Amount.fromString("10"));
+        payment.sequence(new UInt32(1));
+        SignedTransaction signed = payment.sign(keyPair);
+        assertConsistent(signed);
+
+        // Signing again, with a different sequence, reuses the context
+        signed.prepare(keyPair, null, new UInt32(2), null);
+        assertConsistent(signed);
+    }
+
+    @Test
+    public void testFallsBackWithOtherNonSigningFields() {
+        Payment payment = payment(1000);
+        payment.put(Amount.Fee, Amount.fromString("10"));
+        payment.sequence(new UInt32(1));
+        payment.put(STArray.Signers, new STArray());
+        SignedTransaction signed = payment.sign(keyPair);
+        assertEquals(signed.txn.toHex(), signed.tx_blob);
+        assertEquals(signed.txn.createHash(), signed.hash);
+    }
+
+    @Test
+    public void testSignsInBulk() {
+        ArrayList<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            payments.add(payment(1000 + i));
+        }
+        List<SignedTransaction> signed;
+        try (SigningService service = new SigningService(keyPair, 4)) {
+            service.fee(Amount.fromString("12"))
+                   .lastLedgerSequence(500)
+                   .sequence(10);
+            signed = service.signAll(payments);
+        }
+        assertEquals(50, signed.size());
+        for (int i = 0; i < signed.size(); i++) {
+            Transaction txn = signed.get(i).txn;
+            assertEquals(10 + i, txn.sequence().longValue());
+            assertEquals(500, txn.lastLedgerSequence().longValue());
+            assertEquals("12", txn.fee().toDropsString());
+            assertEquals(payments.get(i).amount(), txn.get(Amount.Amount));
+            assertConsistent(signed.get(i));
+            // round trips
+            assertEquals(signed.get(i).tx_blob, STObject.fromHex(signed.get(i).tx_blob).toHex());
+        }
+    }
+}
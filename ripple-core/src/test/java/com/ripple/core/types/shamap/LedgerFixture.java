@@ -0,0 +1,172 @@
+package com.ripple.core.types.shamap;
+
+import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.coretypes.Amount;
+import com.ripple.core.coretypes.Issue;
+import com.ripple.core.coretypes.Quality;
+import com.ripple.core.coretypes.STObject;
+import com.ripple.core.coretypes.hash.Hash256;
+import com.ripple.core.coretypes.hash.Index;
+import com.ripple.core.coretypes.uint.UInt32;
+import com.ripple.core.coretypes.uint.UInt64;
+import com.ripple.core.types.known.sle.LedgerEntry;
+import com.ripple.core.types.known.tx.Transaction;
+import com.ripple.core.types.known.tx.result.TransactionMeta;
+import com.ripple.core.types.known.tx.result.TransactionResult;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Builds an AccountState for tests, entry by entry, and the metadata of
+ * validated transactions that touch one.
+ */
+public class LedgerFixture {
+    public static final AccountID ACCOUNT_ZERO = AccountID.fromAddress("rrrrrrrrrrrrrrrrrrrrBZbvji");
+
+    public final AccountState state;
+    private int sequence = 1;
+
+    public LedgerFixture() {
+        this(new AccountState());
+    }
+
+    public LedgerFixture(AccountState state) {
+        this.state = state;
+    }
+
+    public LedgerEntry add(JSONObject json, Hash256 index) {
+        LedgerEntry le = (LedgerEntry) STObject.fromJSONObject(json);
+        le.index(index);
+        state.addLE(le);
+        return le;
+    }
+
+    public static JSONObject rootJSON(AccountID account, String drops, int ownerCount) {
+        return new JSONObject()
+                .put("LedgerEntryType", "AccountRoot")
+                .put("Account", account.address())
+                .put("Balance", drops)
+                .put("Flags", 0)
+                .put("OwnerCount", ownerCount)
+                .put("Sequence", 1);
+    }
+
+    public Hash256 root(AccountID account, String drops, int ownerCount) {
+        Hash256 index = Index.accountRoot(account);
+        add(rootJSON(account, drops, ownerCount), index);
+        return index;
+    }
+
+    public static JSONObject amountJSON(String value, Issue issue) {
+        return new JSONObject()
+                .put("currency", issue.currency().toString())
+                .put("issuer", issue.issuer().address())
+                .put("value", value);
+    }
+
+    /**
+     * @param balance of `issue` held by `holder`, who trusts the issuer for
+     *                `limit`
+     */
+    public static JSONObject lineJSON(AccountID holder, Issue issue, String balance, String limit) {
+        AccountID issuer = issue.issuer();
+        boolean holderIsLow = holder.compareTo(issuer) < 0;
+        BigDecimal value = new BigDecimal(balance);
+        return new JSONObject()
+                .put("LedgerEntryType", "RippleState")
+                .put("Balance", amountJSON((holderIsLow ? value : value.negate()).toPlainString(),
+                                           Issue.of(issue.currency(), ACCOUNT_ZERO)))
+                .put("Flags", 0)
+                .put("LowLimit", amountJSON(holderIsLow ? limit : "0",
+                                            Issue.of(issue.currency(), holderIsLow ? holder : issuer)))
+                .put("HighLimit", amountJSON(holderIsLow ? "0" : limit,
+                                             Issue.of(issue.currency(), holderIsLow ? issuer : holder)));
+    }
+
+    public Hash256 line(AccountID holder, Issue issue, String balance, String limit) {
+        Hash256 index = Index.rippleState(holder, issue.issuer(), issue.currency());
+        add(lineJSON(holder, issue, balance, limit), index);
+        return index;
+    }
+
+    /**
+     * Adds the offer along with its book's quality directory, or to the
+     * directory if it's already there.
+     *
+     * @param extra fields for the offer, or null
+     */
+    public Hash256 offer(AccountID owner, Amount takerPays, Amount takerGets,
+                         JSONObject extra) {
+        Hash256 book = Index.bookStart(takerPays.issue(), takerGets.issue());
+        Quality quality = Quality.of(takerPays, takerGets);
+        UInt64 rate = new UInt64(new BigInteger(Long.toUnsignedString(quality.value())));
+        Hash256 directory = Index.quality(book, rate);
+        // Any unique index will do
+        Hash256 index = Index.ticket(owner, new UInt32(sequence++));
+
+        JSONObject offer = extra == null ? new JSONObject() : extra;
+        add(offer.put("LedgerEntryType", "Offer")
+                 .put("Account", owner.address())
+                 .put("BookDirectory", directory.toHex())
+                 .put("BookNode", "0")
+                 .put("Flags", 0)
+                 .put("OwnerNode", "0")
+                 .put("Sequence", sequence)
+                 .put("TakerPays", takerPays.toJSON())
+                 .put("TakerGets", takerGets.toJSON()), index);
+
+        LedgerEntry existing = state.getLE(directory);
+        JSONArray indexes = existing == null ? new JSONArray() :
+                existing.toJSONObject().getJSONArray("Indexes");
+        if (existing != null) {
+            state.removeLeaf(directory);
+        }
+        add(new JSONObject()
+                .put("LedgerEntryType", "DirectoryNode")
+                .put("ExchangeRate", rate.toString(16))
+                .put("Flags", 0)
+                .put("RootIndex", directory.toHex())
+                .put("Indexes", indexes.put(index.toHex())), directory);
+        return index;
+    }
+
+    public Hash256 offer(AccountID owner, Amount takerPays, Amount takerGets) {
+        return offer(owner, takerPays, takerGets, null);
+    }
+
+    /**
+     * @param kind  CreatedNode, ModifiedNode or DeletedNode
+     * @param entry as for {@link #add}, with its LedgerEntryType
+     */
+    public static JSONObject node(String kind, Hash256 index, JSONObject entry) {
+        JSONObject fields = new JSONObject(entry, JSONObject.getNames(entry));
+        Object type = fields.remove("LedgerEntryType");
+        return new JSONObject().put(kind, new JSONObject()
+                .put("LedgerEntryType", type)
+                .put("LedgerIndex", index.toHex())
+                .put(kind.equals("CreatedNode") ? "NewFields" : "FinalFields", fields));
+    }
+
+    /**
+     * @param txn the transaction, or null when only the metadata matters
+     */
+    public static TransactionResult result(long ledger, int index, String engineResult,
+                                           Transaction txn, JSONObject... nodes) {
+        JSONObject meta = new JSONObject()
+                .put("TransactionIndex", index)
+                .put("TransactionResult", engineResult)
+                .put("AffectedNodes", new JSONArray(nodes));
+        TransactionResult tr = new TransactionResult(ledger,
+                txn == null ? Hash256.ZERO_256 : txn.createHash(), txn,
+                (TransactionMeta) STObject.fromJSONObject(meta));
+        tr.validated = true;
+        return tr;
+    }
+
+    public static TransactionResult result(long ledger, int index, JSONObject... nodes) {
+        return result(ledger, index, "tesSUCCESS", null, nodes);
+    }
+}
@@ -0,0 +1,147 @@
+package com.ripple.core.types.shamap;
+
+import com.ripple.core.coretypes.AccountID;
+import com.ripple.core.coretypes.Amount;
+import com.ripple.core.coretypes.Currency;
+import com.ripple.core.coretypes.Issue;
+import com.ripple.core.coretypes.hash.Hash256;
+import com.ripple.core.coretypes.hash.Index;
+import com.ripple.core.coretypes.uint.UInt32;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.*;
+
+public class OfferCrossingTest {
+    private final AccountID gateway = AccountID.fromAddress("rHb9CJAWyB4rj91VRWn96DkukG4bwdtyTh");
+    private final AccountID bob = AccountID.fromAddress("rPMh7Pi9ct699iZUTWaytJUoHcJ7cgyziK");
+    private final AccountID carol = AccountID.fromAddress("rMwjYedjc7qqtKYVLiAccJSmCwih4LnE2q");
+    private final AccountID dave = AccountID.fromAddress("rM3X3QSr8icjTGpaF52dozhbT2BZSXJQYM");
+    private final Issue usd = Issue.of(Currency.fromString("USD"), gateway);
+
+    private final LedgerFixture ledger = new LedgerFixture();
+    private final AccountState state = ledger.state;
+
+    private void line(AccountID holder, String balance) {
+        ledger.line(holder, usd, balance, "1000");
+    }
+
+    private static Amount usd(String value) {
+        return Amount.fromString(value + "/USD/rHb9CJAWyB4rj91VRWn96DkukG4bwdtyTh");
+    }
+
+    private static Amount xrp(String value) {
+        return new Amount(new BigDecimal(value));
+    }
+
+    private void market(String carolHolds) {
+        ledger.root(gateway, "1000000000", 0);
+        ledger.root(bob, "1000000000", 1);
+        ledger.root(carol, "1000000000", 1);
+        ledger.root(dave, "100000000000", 0);
+        line(bob, "1000");
+        line(carol, carolHolds);
+    }
+
+    @Test
+    public void testCrossesInQualityOrder() {
+        market("1000");
+        Hash256 worse = ledger.offer(carol, xrp("1100"), usd("100"));
+        Hash256 better = ledger.offer(bob, xrp("1000"), usd("100"));
+
+        // Pays 2100 XRP for up to 150 USD, a rate both offers cross
+        OfferCrossing.Result result = new OfferCrossing(state)
+                .offerCreate(dave, usd("150"), xrp("2100"));
+
+        assertEquals(2, result.fills.size());
+        OfferCrossing.Fill first = result.fills.get(0), second = result.fills.get(1);
+        assertEquals(better, first.offerIndex);
+        assertEquals(bob, first.owner);
+        assertTrue(first.consumed);
+        assertEquals("100", first.takerGot.valueText());
+        assertEquals("1000", first.takerPaid.valueText());
+
+        assertEquals(worse, second.offerIndex);
+        assertFalse(second.consumed);
+        assertEquals("50", second.takerGot.valueText());
+        assertEquals("550", second.takerPaid.valueText());
+
+        assertTrue(result.complete());
+        assertEquals("150", result.got.valueText());
+        assertEquals("1550", result.paid.valueText());
+        assertTrue(result.remainingTakerGets.isZero());
+
+        assertEquals(1, result.balanceChanges.stream()
+                .filter(c -> c.account.equals(dave) && !c.delta.isNative()).count());
+    }
+
+    @Test
+    public void testStopsAtTakersQuality() {
+        market("1000");
+        ledger.offer(bob, xrp("1000"), usd("100"));
+        ledger.offer(carol, xrp("1100"), usd("100"));
+
+        // Won't pay more than 10.5 XRP per USD
+        OfferCrossing.Result result = new OfferCrossing(state)
+                .offerCreate(dave, usd("200"), xrp("2100"));
+
+        assertEquals(1, result.fills.size());
+        assertFalse(result.complete());
+        assertEquals("100", result.remainingTakerPays.valueText());
+        assertEquals("1100", result.remainingTakerGets.valueText());
+    }
+
+    @Test
+    public void testFundingAndExpiration() {
+        market("0");
+        // bob only holds 1000, but taker_gets_funded says 40
+        Hash256 capped = ledger.offer(bob, xrp("1000"), usd("100"),
+                new JSONObject().put("taker_gets_funded", LedgerFixture.amountJSON("40", usd)));
+        Hash256 unfunded = ledger.offer(carol, xrp("1000"), usd("100"));
+        Hash256 expired = ledger.offer(gateway, xrp("1050"), usd("100"),
+                new JSONObject().put("Expiration", 100));
+
+        OfferCrossing.Result result = new OfferCrossing(state)
+                .closeTime(new UInt32(200))
+                .offerCreate(dave, usd("100"), xrp("1100"));
+
+        assertEquals(1, result.fills.size());
+        assertEquals(capped, result.fills.get(0).offerIndex);
+        assertEquals("40", result.got.valueText());
+        assertTrue(result.removedOffers.contains(unfunded));
+        assertTrue(result.removedOffers.contains(expired));
+    }
+
+    @Test
+    public void testTransferRateAndPayment() {
+        market("1000");
+        state.getLE(Index.accountRoot(gateway))
+             .put(UInt32.TransferRate, new UInt32(1002000000));
+        ledger.offer(bob, xrp("1000"), usd("100"));
+
+        // dave pays carol 10 USD, spending XRP through the book
+        OfferCrossing.Result result = new OfferCrossing(state)
+                .payment(dave, carol, usd("10"), xrp("200"));
+        assertTrue(result.complete());
+        assertEquals("10", result.got.valueText());
+        assertEquals("100", result.paid.valueText());
+
+        AccountID[] accounts = {bob, carol, dave};
+        String[] expected = {"-10.02", "10", null};
+        for (int i = 0; i < accounts.length; i++) {
+            AccountID account = accounts[i];
+            Amount usdDelta = result.balanceChanges.stream()
+                    .filter(c -> c.account.equals(account) && !c.delta.isNative())
+                    .map(c -> c.delta).findFirst().orElse(null);
+            assertEquals(expected[i], usdDelta == null ? null : usdDelta.valueText());
+        }
+
+        try {
+            new OfferCrossing(state).payment(dave, carol, usd("10"), usd("10"));
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.ripple.crypto.ed25519;
+
+import com.ripple.crypto.Seed;
+import com.ripple.encodings.common.B16;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class EDBatchVerifierTest {
+    private static EDKeyPair keyPair(String passPhrase) {
+        return EDKeyPair.from128Seed(Seed.passPhraseToSeedBytes(passPhrase));
+    }
+
+    private static byte[] message(int i) {
+        return ("message " + i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static EDBatchVerifier signedBatch(EDKeyPair[] keys, int n) {
+        EDBatchVerifier batch = new EDBatchVerifier();
+        for (int i = 0; i < n; i++) {
+            EDKeyPair key = keys[i % keys.length];
+            batch.add(key, message(i), key.signMessage(message(i)));
+        }
+        return batch;
+    }
+
+    private final EDKeyPair[] keys = {keyPair("niq"), keyPair("alice"), keyPair("bob")};
+
+    @Test
+    public void testCachedEnginesSignDeterministically() {
+        EDKeyPair niq = keys[0];
+        byte[] signature = niq.signMessage(message(0));
+        assertArrayEquals(signature, keyPair("niq").signMessage(message(0)));
+        assertTrue(niq.verify(message(0), signature));
+        assertFalse(keys[1].verify(message(0), signature));
+        // Re-keying the engine for another key shouldn't leak state
+        assertTrue(keys[1].verify(message(1), keys[1].signMessage(message(1))));
+        assertTrue(niq.verify(message(0), signature));
+        assertEquals(B16.encode(signature), B16.encode(niq.signMessage(message(0))));
+    }
+
+    @Test
+    public void testVerifyAll() {
+        EDBatchVerifier batch = signedBatch(keys, 10);
+        assertEquals(10, batch.size());
+        assertTrue(batch.verifyAll());
+        assertArrayEquals(new boolean[10], invert(batch.verifyEach()));
+        assertTrue(new EDBatchVerifier().verifyAll());
+    }
+
+    @Test
+    public void testTamperedSignature() {
+        EDBatchVerifier batch = signedBatch(keys, 7);
+        byte[] signature = keys[0].signMessage(message(7));
+        signature[40] ^= 1;
+        batch.add(keys[0], message(7), signature);
+        batch.add(keys[1], message(8), keys[1].signMessage(message(8)));
+        assertFalse(batch.verifyAll());
+
+        boolean[] valid = batch.verifyEach();
+        for (int i = 0; i < valid.length; i++) {
+            assertEquals(i != 7, valid[i]);
+        }
+    }
+
+    @Test
+    public void testWrongMessageAndKey() {
+        EDKeyPair key = keys[2];
+        assertFalse(new EDBatchVerifier()
+                .add(key, message(1), key.signMessage(message(0)))
+                .verifyAll());
+        assertFalse(new EDBatchVerifier()
+                .add(keys[0], message(0), key.signMessage(message(0)))
+                .verifyAll());
+        assertFalse(new EDBatchVerifier()
+                .add(key, message(0), new byte[63])
+                .verifyAll());
+    }
+
+    private static boolean[] invert(boolean[] values) {
+        boolean[] inverted = new boolean[values.length];
+        for (int i = 0; i < values.length; i++) {
+            inverted[i] = !values[i];
+        }
+        return inverted;
+    }
+}
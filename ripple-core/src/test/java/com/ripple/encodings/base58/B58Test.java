@@ -5,6 +5,10 @@ import com.ripple.encodings.common.B16;
 import org.bouncycastle.util.Arrays;
 import org.junit.Test;
 
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class B58Test {
@@ -46,6 +50,55 @@ public class B58Test {
         }
     }
 
+    @Test
+    public void testMatchesReferenceImplementation() {
+        Random random = new Random(0xB58);
+        for (int length = 0; length < 70; length++) {
+            for (int i = 0; i < 20; i++) {
+                byte[] bytes = new byte[length];
+                random.nextBytes(bytes);
+                // Exercise leading zero handling too
+                for (int z = 0; z < length && z < i % 4; z++) {
+                    bytes[z] = 0;
+                }
+                String encoded = Addresses.codec.encode(bytes);
+                assertEquals(referenceEncode(bytes), encoded);
+                assertArrayEquals(bytes, Addresses.codec.decode(encoded));
+            }
+        }
+    }
+
+    @Test
+    public void testBulkEncodeAccountIDs() {
+        Random random = new Random(1);
+        byte[][] ids = new byte[100][20];
+        for (byte[] id : ids) {
+            random.nextBytes(id);
+        }
+        ids[0] = new byte[20];
+        String[] encoded = Addresses.encodeAccountIDs(ids);
+        assertEquals("rrrrrrrrrrrrrrrrrrrrrhoLvTp", encoded[0]);
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(Addresses.encodeAccountID(ids[i]), encoded[i]);
+            assertArrayEquals(ids[i], Addresses.decodeAccountID(encoded[i]));
+        }
+    }
+
+    private static String referenceEncode(byte[] bytes) {
+        String alphabet = "rpshnaf39wBUDNEGHJKLM4PQRST7VWXYZ2bcdeCg65jkm8oFqi1tuvAxyz";
+        StringBuilder sb = new StringBuilder();
+        BigInteger n = new BigInteger(1, bytes), base = BigInteger.valueOf(58);
+        while (n.signum() > 0) {
+            BigInteger[] qr = n.divideAndRemainder(base);
+            sb.append(alphabet.charAt(qr[1].intValue()));
+            n = qr[0];
+        }
+        for (int i = 0; i < bytes.length && bytes[i] == 0; i++) {
+            sb.append(alphabet.charAt(0));
+        }
+        return sb.reverse().toString();
+    }
+
     public void assertEncodesTo(String expected, byte[] actual) {
         assertEquals(expected, B16.encode(actual));
     }
@@ -0,0 +1,79 @@
+package com.ripple.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RangeSetTest {
+    @Test
+    public void testMergesAdjacentValues() {
+        RangeSet set = new RangeSet();
+        assertTrue(set.add(5));
+        assertTrue(set.add(1));
+        assertTrue(set.add(3));
+        assertEquals(3, set.runs());
+        assertTrue(set.add(2));
+        assertTrue(set.add(4));
+        assertFalse(set.add(3));
+        assertEquals(1, set.runs());
+        assertEquals(5, set.size());
+        assertEquals("[1-5]", set.toString());
+    }
+
+    @Test
+    public void testAddRangeSpanningRuns() {
+        RangeSet set = new RangeSet();
+        set.add(1);
+        set.add(5);
+        set.add(10, 12);
+        set.add(20);
+        set.add(4, 11);
+        assertEquals("[1, 4-12, 20]", set.toString());
+        assertTrue(set.containsAll(4, 12));
+        assertFalse(set.containsAll(3, 12));
+        assertFalse(set.add(6, 9));
+    }
+
+    @Test
+    public void testGaps() {
+        RangeSet set = new RangeSet();
+        set.add(0);
+        set.add(1);
+        set.add(5);
+        set.add(8, 9);
+        assertTrue(set.hasGaps());
+
+        ArrayList<Long> gaps = new ArrayList<>();
+        for (Long gap : set.gaps()) {
+            gaps.add(gap);
+        }
+        assertEquals("[2, 3, 4, 6, 7]", gaps.toString());
+    }
+
+    @Test
+    public void testAgainstTreeSet() {
+        Random random = new Random(42);
+        RangeSet set = new RangeSet();
+        TreeSet<Long> expected = new TreeSet<>();
+
+        for (int i = 0; i < 5000; i++) {
+            long value = random.nextInt(2000);
+            assertEquals(expected.add(value), set.add(value));
+        }
+        assertEquals(expected.size(), set.size());
+        assertEquals((long) expected.first(), set.first());
+        assertEquals((long) expected.last(), set.last());
+        for (long i = -1; i <= 2001; i++) {
+            assertEquals(expected.contains(i), set.contains(i));
+        }
+        ArrayList<Long> values = new ArrayList<>();
+        set.forEach(values::add);
+        assertEquals(new ArrayList<>(expected), values);
+    }
+}
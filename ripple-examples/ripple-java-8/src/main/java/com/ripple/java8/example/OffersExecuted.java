@@ -31,8 +31,8 @@ public class OffersExecuted {
         c.onLedgerClosed(OffersExecuted::onLedgerClosed)
                 .onValidatedTransaction((tr) -> tr.meta.affectedNodes().forEach((an) -> {
                     if (an.isOffer() && an.wasPreviousNode()) {
-                        printTrade(tr, (Offer) an.nodeAsPrevious(),
-                                (Offer) an.nodeAsFinal());
+                        printTrade(tr, (Offer) an.previousView(),
+                                (Offer) an.finalView());
                     }
                 }));
     }
@@ -11,7 +11,7 @@ import com.ripple.core.types.known.tx.result.AffectedNode
 import com.ripple.core.types.known.tx.result.TransactionResult
 
 fun AffectedNode.offerBeforeAndAft() =
-        Pair(nodeAsPrevious() as Offer, nodeAsFinal() as Offer)
+        Pair(previousView() as Offer, finalView() as Offer)
 
 fun AffectedNode.previousOffer() = isOffer && wasPreviousNode()
 